@@ -196,6 +196,15 @@ public class ResourceLeakChecker extends CalledMethodsChecker {
     return !hasOption(ENABLE_RETURNS_RECEIVER) || super.isReturnsReceiverDisabled();
   }
 
+  /**
+   * Returns false: the consistency analysis reads the stores of this checker and of the Must Call
+   * Checker at the points where a resource variable goes out of scope, which is where it is dead.
+   */
+  @Override
+  public boolean shouldPruneDeadLocalVariables() {
+    return false;
+  }
+
   /**
    * Get the set of exceptions that should be ignored. This set comes from the {@link
    * #IGNORED_EXCEPTIONS} option if it was provided, or {@link #DEFAULT_IGNORED_EXCEPTIONS} if not.
@@ -0,0 +1,31 @@
+package org.checkerframework.checker.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for the Index Checker, a compound checker, when the stub files of all of its
+ * subcheckers are parsed concurrently. The expected diagnostics are those of {@link IndexTest}.
+ */
+public class IndexStubParserThreadsTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create an IndexStubParserThreadsTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public IndexStubParserThreadsTest(List<File> testFiles) {
+    super(
+        testFiles,
+        org.checkerframework.checker.index.IndexChecker.class,
+        "index",
+        "-AstubParserThreads=4");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"index"};
+  }
+}
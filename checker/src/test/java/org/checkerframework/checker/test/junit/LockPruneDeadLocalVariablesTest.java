@@ -0,0 +1,31 @@
+package org.checkerframework.checker.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for the Lock Checker when the values of dead local variables are dropped from the
+ * stores.
+ */
+public class LockPruneDeadLocalVariablesTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a LockPruneDeadLocalVariablesTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public LockPruneDeadLocalVariablesTest(List<File> testFiles) {
+    super(
+        testFiles,
+        org.checkerframework.checker.lock.LockChecker.class,
+        "lock",
+        "-ApruneDeadLocalVariables");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"lock"};
+  }
+}
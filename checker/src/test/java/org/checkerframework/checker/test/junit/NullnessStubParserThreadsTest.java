@@ -0,0 +1,35 @@
+package org.checkerframework.checker.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for the Nullness Checker when stub files and annotated JDK files are parsed on
+ * background threads. The expected diagnostics are those of {@link NullnessTest}.
+ */
+public class NullnessStubParserThreadsTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a NullnessStubParserThreadsTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public NullnessStubParserThreadsTest(List<File> testFiles) {
+    super(
+        testFiles,
+        org.checkerframework.checker.nullness.NullnessChecker.class,
+        "nullness",
+        "-AcheckPurityAnnotations",
+        "-Xlint:deprecation",
+        "-Alint=soundArrayCreationNullness," + NullnessChecker.LINT_REDUNDANTNULLCOMPARISON,
+        "-AstubParserThreads=4");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"nullness", "all-systems"};
+  }
+}
@@ -0,0 +1,30 @@
+import java.util.HashMap;
+import java.util.Map;
+import org.checkerframework.checker.lock.qual.*;
+
+// A local variable that is named only in an annotation stays in the store even if the code does
+// not read it again.  LockPruneDeadLocalVariablesTest checks this file with
+// -ApruneDeadLocalVariables.
+public class PruneDeadLocalVariables {
+
+  void lockNamedOnlyInAnnotation(boolean c) {
+    final Object lock = new Object();
+    @SuppressWarnings("assignment") // prevent flow-sensitive type refinement
+    @GuardedBy("lock") Object guarded = someValue();
+    int i = 0;
+    synchronized (lock) {
+      // The synchronized statement is the last read of lock, and the join after the if
+      // statement is a block boundary.
+      if (c) {
+        i = 1;
+      }
+      guarded.toString();
+    }
+    // :: error: (lock.not.held)
+    guarded.toString();
+  }
+
+  static @GuardedByUnknown Map<Object, Integer> someValue() {
+    return new HashMap<>();
+  }
+}
@@ -3,13 +3,16 @@ package org.checkerframework.dataflow.analysis;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.StringJoiner;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
 import org.checkerframework.checker.interning.qual.FindDistinct;
@@ -64,9 +67,42 @@ public abstract class AbstractAnalysis<
   /** The worklist used for the fix-point iteration. */
   protected final Worklist worklist;
 
+  /** The order in which an analysis visits the blocks of a control flow graph. */
+  public enum IterationStrategy {
+    /** Repeatedly analyze the block of the worklist that comes first in depth-first order. */
+    WORKLIST,
+    /**
+     * Follow a {@link WeakTopologicalOrder}: stabilize each loop, innermost loops first, before
+     * analyzing the blocks after it, and widen only at loop heads.
+     */
+    WEAK_TOPOLOGICAL_ORDER
+  }
+
+  /** The order in which this analysis visits the blocks. */
+  protected IterationStrategy iterationStrategy = IterationStrategy.WORKLIST;
+
+  /**
+   * While the analysis is running with {@link IterationStrategy#WEAK_TOPOLOGICAL_ORDER}, the weak
+   * topological order of the current control flow graph; otherwise null.
+   */
+  protected @Nullable WeakTopologicalOrder weakTopologicalOrder;
+
   /** Abstract values of nodes. */
   protected final IdentityHashMap<Node, V> nodeValues = new IdentityHashMap<>();
 
+  /**
+   * While {@link #runAnalysisFor} re-runs the analysis within a block, the abstract values of nodes
+   * in the analysis result being queried; otherwise null. It is read in place instead of being
+   * copied into {@link #nodeValues}, because it holds the values of a whole class.
+   */
+  protected @Nullable Map<Node, V> queriedNodeValues = null;
+
+  /**
+   * While {@link #runAnalysisFor} re-runs the analysis within a block, the abstract values that the
+   * re-run computed. They take precedence over {@link #queriedNodeValues}.
+   */
+  protected final IdentityHashMap<Node, V> rerunNodeValues = new IdentityHashMap<>();
+
   /** Map from (effectively final) local variable elements to their abstract value. */
   protected final HashMap<VariableElement, V> finalLocalValues = new HashMap<>();
 
@@ -156,6 +192,106 @@ public abstract class AbstractAnalysis<
     return isRunning;
   }
 
+  /**
+   * Returns the order in which this analysis visits the blocks.
+   *
+   * @return the order in which this analysis visits the blocks
+   */
+  public IterationStrategy getIterationStrategy() {
+    return iterationStrategy;
+  }
+
+  /**
+   * Sets the order in which this analysis visits the blocks. The fixed point does not depend on
+   * the order, except where the analysis widens.
+   *
+   * @param iterationStrategy the order in which to visit the blocks
+   */
+  public void setIterationStrategy(IterationStrategy iterationStrategy) {
+    if (isRunning) {
+      throw new BugInCF("setIterationStrategy() shouldn't be called when the analysis is running.");
+    }
+    this.iterationStrategy = iterationStrategy;
+  }
+
+  /**
+   * Analyzes blocks of the worklist, in the order given by {@link #iterationStrategy}, until the
+   * worklist is empty.
+   *
+   * @return the number of times a block was analyzed
+   */
+  @RequiresNonNull("cfg")
+  protected int iterateToFixpoint() {
+    int iterationCount = 0;
+    if (iterationStrategy == IterationStrategy.WEAK_TOPOLOGICAL_ORDER) {
+      WeakTopologicalOrder wto = WeakTopologicalOrder.of(cfg, direction);
+      weakTopologicalOrder = wto;
+      try {
+        iterationCount = iterate(wto, 0, wto.size());
+      } finally {
+        weakTopologicalOrder = null;
+      }
+    }
+    // Blocks that the weak topological order does not contain, such as blocks that are
+    // unreachable in the direction of the analysis.
+    while (!worklist.isEmpty()) {
+      Block b = worklist.poll();
+      performAnalysisBlock(b);
+      iterationCount++;
+    }
+    return iterationCount;
+  }
+
+  /**
+   * Analyzes the blocks at positions {@code from} to {@code to} of a weak topological order that
+   * are in the worklist, repeating each component until its head is stable.
+   *
+   * @param wto a weak topological order of the current control flow graph
+   * @param from the first position to analyze
+   * @param to the position after the last position to analyze
+   * @return the number of times a block was analyzed
+   */
+  private int iterate(WeakTopologicalOrder wto, int from, int to) {
+    int iterationCount = 0;
+    int pos = from;
+    while (pos < to) {
+      Block b = wto.get(pos);
+      int end = wto.componentEnd(pos);
+      if (end < 0) {
+        if (worklist.remove(b)) {
+          performAnalysisBlock(b);
+          iterationCount++;
+        }
+        pos++;
+        continue;
+      }
+      // Edges back into the component lead to its head, so the component is stable once its
+      // head is no longer in the worklist.
+      do {
+        if (worklist.remove(b)) {
+          performAnalysisBlock(b);
+          iterationCount++;
+        }
+        iterationCount += iterate(wto, pos + 1, end);
+      } while (worklist.contains(b));
+      pos = end;
+    }
+    return iterationCount;
+  }
+
+  /**
+   * Returns true if the analysis should count the visits of {@code b} towards widening. That is
+   * every block, except that the {@link IterationStrategy#WEAK_TOPOLOGICAL_ORDER} strategy widens
+   * only at the heads of components, which every loop contains.
+   *
+   * @param b a block of the current control flow graph
+   * @return true if the analysis may widen at {@code b}
+   */
+  protected boolean isWideningPoint(Block b) {
+    WeakTopologicalOrder wto = weakTopologicalOrder;
+    return wto == null || !wto.contains(b) || wto.isHead(b);
+  }
+
   @Override
   public Direction getDirection() {
     return this.direction;
@@ -207,6 +343,10 @@ public abstract class AbstractAnalysis<
       }
       // fall through when the current node is not 'n', and 'n' is not a subnode.
     }
+    if (queriedNodeValues != null) {
+      V rerunValue = rerunNodeValues.get(n);
+      return rerunValue != null ? rerunValue : queriedNodeValues.get(n);
+    }
     return nodeValues.get(n);
   }
 
@@ -220,14 +360,21 @@ public abstract class AbstractAnalysis<
   }
 
   /**
-   * Set all current node values to the given map.
+   * Makes {@link #getValue} read the given node values until {@link #endQueryNodeValues} is
+   * called. Node values that the analysis computes in the meantime are kept separately.
    *
-   * @param in the current node values
+   * @param in the node values of the analysis result being queried
    */
-  /*package-private*/ void setNodeValues(IdentityHashMap<Node, V> in) {
+  /*package-private*/ void beginQueryNodeValues(Map<Node, V> in) {
     assert !isRunning;
-    nodeValues.clear();
-    nodeValues.putAll(in);
+    queriedNodeValues = in;
+    rerunNodeValues.clear();
+  }
+
+  /** Makes {@link #getValue} read {@link #nodeValues} again. */
+  /*package-private*/ void endQueryNodeValues() {
+    queriedNodeValues = null;
+    rerunNodeValues.clear();
   }
 
   @Override
@@ -454,8 +601,9 @@ public abstract class AbstractAnalysis<
     V newVal = transferResult.getResultValue();
     boolean nodeValueChanged = false;
     if (newVal != null) {
-      V oldVal = nodeValues.get(node);
-      nodeValues.put(node, newVal);
+      Map<Node, V> values = queriedNodeValues == null ? nodeValues : rerunNodeValues;
+      V oldVal = values.get(node);
+      values.put(node, newVal);
       nodeValueChanged = !Objects.equals(oldVal, newVal);
     }
     return nodeValueChanged || transferResult.storeChanged();
@@ -468,60 +616,33 @@ public abstract class AbstractAnalysis<
    * @param b the block to add to {@link #worklist}
    */
   protected void addToWorklist(Block b) {
-    // TODO: This costs linear (!) time.  Use a more efficient way to check if b is already
-    // present.
-    // Two possibilities:
-    //  * add unconditionally, and detect duplicates when removing from the queue.
-    //  * maintain a HashSet of the elements that are already in the queue.
-    if (!worklist.contains(b)) {
-      worklist.add(b);
-    }
+    worklist.add(b);
   }
 
   /**
    * A worklist is a priority queue of blocks in which the order is given by depth-first ordering to
    * place non-loop predecessors ahead of successors.
+   *
+   * <p>The worklist is a bit set indexed by {@link Block#getDepthFirstIndex()}, so membership tests
+   * take constant time and adding or removing a block allocates nothing.
    */
   protected static class Worklist {
 
-    /** Map all blocks in the CFG to their depth-first order. */
-    protected final IdentityHashMap<Block, Integer> depthFirstOrder = new IdentityHashMap<>();
+    /** The direction of the analysis; determines whether lower or higher indices come first. */
+    protected final Direction direction;
 
-    /**
-     * Comparators to allow priority queue to order blocks by their depth-first order, using by
-     * forward analysis.
-     */
-    public class ForwardDfoComparator implements Comparator<Block> {
-      /** Creates a new ForwardDfoComparator. */
-      public ForwardDfoComparator() {}
-
-      @SuppressWarnings("nullness:unboxing.of.nullable")
-      @Override
-      public int compare(Block b1, Block b2) {
-        return depthFirstOrder.get(b1) - depthFirstOrder.get(b2);
-      }
-    }
+    /** The reachable blocks of the current CFG, indexed by their depth-first index. */
+    protected List<Block> blocks = Collections.emptyList();
 
     /**
-     * Comparators to allow priority queue to order blocks by their depth-first order, using by
-     * backward analysis.
+     * Blocks of the current CFG that have no depth-first index because they are not reachable from
+     * the entry block. Block {@code otherBlocks.get(i)} has worklist index {@code blocks.size() +
+     * i}. This list is almost always empty.
      */
-    public class BackwardDfoComparator implements Comparator<Block> {
-      /** Creates a new BackwardDfoComparator. */
-      public BackwardDfoComparator() {}
-
-      @SuppressWarnings("nullness:unboxing.of.nullable")
-      @Override
-      public int compare(Block b1, Block b2) {
-        return depthFirstOrder.get(b2) - depthFirstOrder.get(b1);
-      }
-    }
+    protected final List<Block> otherBlocks = new ArrayList<>();
 
-    /** The backing priority queue. */
-    protected final PriorityQueue<Block> queue;
-
-    /** Contains the same elements as {@link #queue}, for faster lookup. */
-    protected final Set<Block> queueSet;
+    /** The worklist indices of the blocks in the worklist. */
+    protected final BitSet queue = new BitSet();
 
     /**
      * Create a Worklist.
@@ -529,89 +650,126 @@ public abstract class AbstractAnalysis<
      * @param direction the direction (forward or backward)
      */
     public Worklist(Direction direction) {
-      if (direction == Direction.FORWARD) {
-        queue = new PriorityQueue<>(new ForwardDfoComparator());
-        queueSet = new HashSet<>();
-      } else if (direction == Direction.BACKWARD) {
-        queue = new PriorityQueue<>(new BackwardDfoComparator());
-        queueSet = new HashSet<>();
-      } else {
+      if (direction != Direction.FORWARD && direction != Direction.BACKWARD) {
         throw new BugInCF("Unexpected Direction: " + direction.name());
       }
+      this.direction = direction;
     }
 
     /**
      * Process the control flow graph.
      *
-     * <p>This implementation sets the depth-first order for each block, by adding the blocks to
-     * {@link #depthFirstOrder}.
+     * <p>This implementation numbers the blocks in depth-first order, if that was not already done,
+     * and empties the worklist.
      *
      * @param cfg the control flow graph to process
      */
     public void process(ControlFlowGraph cfg) {
-      depthFirstOrder.clear();
-      int count = 1;
-      for (Block b : cfg.getDepthFirstOrderedBlocks()) {
-        depthFirstOrder.put(b, count++);
-      }
-
+      blocks = cfg.getNumberedBlocks();
+      otherBlocks.clear();
       queue.clear();
-      queueSet.clear();
     }
 
     /**
-     * See {@link PriorityQueue#isEmpty}.
+     * Returns true if {@code block} is reachable from the entry block of the current CFG.
+     *
+     * @param block a block of the current CFG
+     * @return true if {@code block} has a depth-first index in the current CFG
+     */
+    @SuppressWarnings("interning:not.interned") // checking that the index is for this block
+    public boolean isReachable(Block block) {
+      int index = block.getDepthFirstIndex();
+      return index >= 0 && index < blocks.size() && blocks.get(index) == block;
+    }
+
+    /**
+     * Returns the index of {@code block} in {@link #queue}.
      *
-     * @see PriorityQueue#isEmpty
-     * @return true if {@link #queue} is empty else false
+     * @param block a block of the current CFG
+     * @return the index of {@code block} in {@link #queue}
+     */
+    @SuppressWarnings("interning:not.interned") // looking for the very same block
+    private int indexOf(Block block) {
+      if (isReachable(block)) {
+        return block.getDepthFirstIndex();
+      }
+      for (int i = 0; i < otherBlocks.size(); i++) {
+        if (otherBlocks.get(i) == block) {
+          return blocks.size() + i;
+        }
+      }
+      otherBlocks.add(block);
+      return blocks.size() + otherBlocks.size() - 1;
+    }
+
+    /**
+     * Returns true if the worklist is empty.
+     *
+     * @return true if the worklist is empty
      */
     @Pure
     @EnsuresNonNullIf(result = false, expression = "poll()")
     @SuppressWarnings("nullness:contracts.conditional.postcondition") // forwarded
     public boolean isEmpty() {
-      assert queue.isEmpty() == queueSet.isEmpty();
       return queue.isEmpty();
     }
 
     /**
-     * Check if {@link #queue} contains the block which is passed as the argument.
+     * Check if the worklist contains the block which is passed as the argument.
      *
      * @param block the given block to check
-     * @return true if {@link #queue} contains the given block
+     * @return true if the worklist contains the given block
      */
     public boolean contains(Block block) {
-      return queueSet.contains(block);
+      return queue.get(indexOf(block));
     }
 
     /**
-     * Add the given block to {@link #queue}. Adds unconditionally: does not check containment
-     * first.
+     * Add the given block to the worklist. Adding a block that is already present has no effect.
      *
-     * @param block the block to add to {@link #queue}
+     * @param block the block to add to the worklist
      */
     public void add(Block block) {
-      queue.add(block);
-      queueSet.add(block);
+      queue.set(indexOf(block));
+    }
+
+    /**
+     * Removes the given block from the worklist.
+     *
+     * @param block the block to remove from the worklist
+     * @return true if the worklist contained {@code block}
+     */
+    public boolean remove(Block block) {
+      int index = indexOf(block);
+      boolean present = queue.get(index);
+      queue.clear(index);
+      return present;
     }
 
     /**
-     * See {@link PriorityQueue#poll}.
+     * Removes and returns the first block of the worklist: the one with the lowest depth-first
+     * index for a forward analysis, or with the highest for a backward analysis.
      *
-     * @see PriorityQueue#poll
-     * @return the head of {@link #queue}
+     * @return the first block of the worklist, or null if it is empty
      */
     @Pure
     public @Nullable Block poll() {
-      Block result = queue.poll();
-      if (result != null) {
-        queueSet.remove(result);
+      int index = direction == Direction.FORWARD ? queue.nextSetBit(0) : queue.length() - 1;
+      if (index < 0) {
+        return null;
       }
-      return result;
+      queue.clear(index);
+      return index < blocks.size() ? blocks.get(index) : otherBlocks.get(index - blocks.size());
     }
 
     @Override
     public String toString() {
-      return "Worklist(" + queue + ")";
+      StringJoiner result = new StringJoiner(", ", "Worklist(", ")");
+      for (int i = queue.nextSetBit(0); i >= 0; i = queue.nextSetBit(i + 1)) {
+        Block block = i < blocks.size() ? blocks.get(i) : otherBlocks.get(i - blocks.size());
+        result.add(String.valueOf(block));
+      }
+      return result.toString();
     }
   }
 }
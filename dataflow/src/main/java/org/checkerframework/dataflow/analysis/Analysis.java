@@ -88,7 +88,7 @@ public interface Analysis<
       Node node,
       Analysis.BeforeOrAfter preOrPost,
       TransferInput<V, S> blockTransferInput,
-      IdentityHashMap<Node, V> nodeValues,
+      Map<Node, V> nodeValues,
       @Nullable Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
           analysisCaches);
 
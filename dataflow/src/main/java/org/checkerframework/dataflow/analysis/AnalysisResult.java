@@ -15,8 +15,10 @@ import org.checkerframework.checker.initialization.qual.UnknownInitialization;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.cfg.block.Block;
 import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.util.DenseIdMap;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.TreeUtils;
+import org.plumelib.util.IdentityArraySet;
 import org.plumelib.util.UniqueId;
 import org.plumelib.util.UnmodifiableIdentityHashMap;
 
@@ -36,8 +38,11 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
    */
   private boolean mapsCopied = false;
 
-  /** Abstract values of nodes. */
-  protected IdentityHashMap<Node, V> nodeValues;
+  /**
+   * Abstract values of nodes. Once this result has been combined with another, this is a {@link
+   * DenseIdMap}, which is faster than an {@link IdentityHashMap} for the many nodes of a class.
+   */
+  protected Map<Node, V> nodeValues;
 
   /**
    * Map from AST {@link Tree}s to sets of {@link Node}s.
@@ -60,13 +65,13 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
    * The transfer inputs of every basic block; assumed to be 'no information' if not present. The
    * inputs are before blocks in forward analysis, and are after blocks in backward analysis.
    */
-  protected final IdentityHashMap<Block, TransferInput<V, S>> inputs;
+  protected final Map<Block, TransferInput<V, S>> inputs;
 
   /**
    * Caches of the analysis results. It maps from the TransferInput for a Block to a map. The inner
    * map is from a node within the block to the TransferResult for that node.
    *
-   * @see #runAnalysisFor(Node, Analysis.BeforeOrAfter, TransferInput, IdentityHashMap, Map)
+   * @see #runAnalysisFor(Node, Analysis.BeforeOrAfter, TransferInput, Map, Map)
    */
   protected final Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
       analysisCaches;
@@ -94,7 +99,7 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
    */
   protected AnalysisResult(
       IdentityHashMap<Node, V> nodeValues,
-      IdentityHashMap<Block, TransferInput<V, S>> inputs,
+      Map<Block, TransferInput<V, S>> inputs,
       IdentityHashMap<Tree, Set<Node>> treeLookup,
       IdentityHashMap<UnaryTree, BinaryTree> postfixLookup,
       Map<VariableElement, V> finalLocalValues,
@@ -135,7 +140,7 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
       Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>> analysisCaches) {
     this(
         new IdentityHashMap<>(),
-        new IdentityHashMap<>(),
+        DenseIdMap.forBlocks(),
         new IdentityHashMap<>(),
         new IdentityHashMap<>(),
         new HashMap<>(),
@@ -159,7 +164,9 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
   /** Make copies of certain internal IdentityHashMaps, if they have not been copied already. */
   private void copyMapsIfNeeded() {
     if (!mapsCopied) {
-      nodeValues = new IdentityHashMap<>(nodeValues);
+      Map<Node, V> newNodeValues = DenseIdMap.forNodes();
+      newNodeValues.putAll(nodeValues);
+      nodeValues = newNodeValues;
       treeLookup = new IdentityHashMap<>(treeLookup);
       postfixLookup = new IdentityHashMap<>(postfixLookup);
       mapsCopied = true;
@@ -180,7 +187,11 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
       if (hit == null) {
         treeLookup.put(entry.getKey(), entry.getValue());
       } else {
-        hit.addAll(entry.getValue());
+        // The sets belong to control flow graphs, which may be shared, so do not mutate them.
+        Set<Node> merged = new IdentityArraySet<>(hit.size() + entry.getValue().size());
+        merged.addAll(hit);
+        merged.addAll(entry.getValue());
+        treeLookup.put(entry.getKey(), merged);
       }
     }
   }
@@ -451,7 +462,7 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> impl
       Node node,
       Analysis.BeforeOrAfter preOrPost,
       TransferInput<V, S> transferInput,
-      IdentityHashMap<Node, V> nodeValues,
+      Map<Node, V> nodeValues,
       @Nullable Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
           analysisCaches) {
     if (transferInput.analysis == null) {
@@ -20,6 +20,8 @@ import org.checkerframework.dataflow.cfg.block.SpecialBlock;
 import org.checkerframework.dataflow.cfg.block.SpecialBlock.SpecialBlockType;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.cfg.node.ReturnNode;
+import org.checkerframework.dataflow.util.DataflowEvents;
+import org.checkerframework.dataflow.util.DataflowEvents.AnalysisEvent;
 import org.checkerframework.javacutil.BugInCF;
 
 /**
@@ -75,17 +77,28 @@ public class BackwardAnalysisImpl<
       throw new BugInCF("performAnalysis() shouldn't be called when the analysis is running.");
     }
     isRunning = true;
+    AnalysisEvent event = DataflowEvents.ENABLED ? new AnalysisEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
+    int iterationCount;
     try {
       init(cfg);
-      while (!worklist.isEmpty()) {
-        Block b = worklist.poll();
-        performAnalysisBlock(b);
-      }
+      iterationCount = iterateToFixpoint();
     } finally {
       assert isRunning;
       // In case performAnalysisBlock crashed, reset isRunning to false.
       isRunning = false;
     }
+    if (event != null && event.shouldCommit()) {
+      event.method = DataflowEvents.describe(cfg.getUnderlyingAST());
+      event.transferFunction =
+          transferFunction == null ? "" : transferFunction.getClass().getSimpleName();
+      event.blockCount = DataflowEvents.blockCount(cfg);
+      event.iterationCount = iterationCount;
+      event.iterationStrategy = iterationStrategy.name();
+      event.commit();
+    }
   }
 
   @Override
@@ -197,8 +210,7 @@ public class BackwardAnalysisImpl<
     worklist.process(cfg);
     SpecialBlock regularExitBlock = cfg.getRegularExitBlock();
     SpecialBlock exceptionExitBlock = cfg.getExceptionalExitBlock();
-    if (worklist.depthFirstOrder.get(regularExitBlock) == null
-        && worklist.depthFirstOrder.get(exceptionExitBlock) == null) {
+    if (!worklist.isReachable(regularExitBlock) && !worklist.isReachable(exceptionExitBlock)) {
       throw new BugInCF(
           "regularExitBlock and exceptionExitBlock should never both be null at the same time.");
     }
@@ -209,12 +221,12 @@ public class BackwardAnalysisImpl<
     S exceptionalInitialStore = transferFunction.initialExceptionalExitStore(underlyingAST);
     // If regularExitBlock or exceptionExitBlock is reachable in the control flow graph, then
     // initialize it as a start point of the analysis.
-    if (worklist.depthFirstOrder.get(regularExitBlock) != null) {
+    if (worklist.isReachable(regularExitBlock)) {
       worklist.add(regularExitBlock);
       inputs.put(regularExitBlock, new TransferInput<>(null, this, normalInitialStore));
       outStores.put(regularExitBlock, normalInitialStore);
     }
-    if (worklist.depthFirstOrder.get(exceptionExitBlock) != null) {
+    if (worklist.isReachable(exceptionExitBlock)) {
       worklist.add(exceptionExitBlock);
       inputs.put(exceptionExitBlock, new TransferInput<>(null, this, exceptionalInitialStore));
       outStores.put(exceptionExitBlock, exceptionalInitialStore);
@@ -331,7 +343,7 @@ public class BackwardAnalysisImpl<
       @FindDistinct Node node,
       Analysis.BeforeOrAfter preOrPost,
       TransferInput<V, S> blockTransferInput,
-      IdentityHashMap<Node, V> nodeValues,
+      Map<Node, V> nodeValues,
       @Nullable Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
           analysisCaches) {
     Block block = node.getBlock();
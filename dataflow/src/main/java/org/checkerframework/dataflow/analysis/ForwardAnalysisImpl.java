@@ -2,6 +2,7 @@ package org.checkerframework.dataflow.analysis;
 
 import com.sun.source.tree.LambdaExpressionTree;
 import com.sun.source.tree.MethodTree;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
@@ -24,6 +25,8 @@ import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.cfg.node.ReturnNode;
 import org.checkerframework.dataflow.qual.SideEffectFree;
+import org.checkerframework.dataflow.util.DataflowEvents;
+import org.checkerframework.dataflow.util.DataflowEvents.AnalysisEvent;
 import org.checkerframework.javacutil.BugInCF;
 import org.plumelib.util.CollectionsPlume;
 import org.plumelib.util.IPair;
@@ -61,6 +64,27 @@ public class ForwardAnalysisImpl<
   /** The stores after every return statement. */
   protected final IdentityHashMap<ReturnNode, TransferResult<V, S>> storesAtReturnStatements;
 
+  /** The default value of {@link #checkpointInterval}. */
+  public static final int DEFAULT_CHECKPOINT_INTERVAL = 32;
+
+  /** The number of blocks whose checkpoints are kept; see {@link #blockCheckpoints}. */
+  private static final int MAX_CHECKPOINTED_BLOCKS = 256;
+
+  /**
+   * In a regular block with more nodes than this, {@link #runAnalysisFor} records the transfer
+   * input before every {@code checkpointInterval}-th node, so that a query replays at most this
+   * many transfer functions rather than all the nodes before the queried one. 0 disables the
+   * checkpoints.
+   */
+  protected int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+  /**
+   * The checkpoints of the most recently queried long blocks. A block's checkpoints are valid only
+   * for the transfer input that they were computed from.
+   */
+  private final Map<Block, BlockCheckpoints<V, S>> blockCheckpoints =
+      CollectionsPlume.createLruCache(MAX_CHECKPOINTED_BLOCKS);
+
   // `@code`, not `@link`, because dataflow module doesn't depend on framework module.
   /**
    * Construct an object that can perform a org.checkerframework.dataflow forward analysis over a
@@ -89,6 +113,20 @@ public class ForwardAnalysisImpl<
     this.transferFunction = transferFunction;
   }
 
+  /**
+   * Sets the number of nodes between two checkpoints of a long block; see {@link
+   * #checkpointInterval}.
+   *
+   * @param checkpointInterval the number of nodes between two checkpoints, or 0 for none
+   */
+  public void setCheckpointInterval(int checkpointInterval) {
+    if (checkpointInterval < 0) {
+      throw new BugInCF("negative checkpoint interval: " + checkpointInterval);
+    }
+    this.checkpointInterval = checkpointInterval;
+    blockCheckpoints.clear();
+  }
+
   @Override
   public void performAnalysis(ControlFlowGraph cfg) {
     if (isRunning) {
@@ -98,17 +136,28 @@ public class ForwardAnalysisImpl<
     }
     isRunning = true;
 
+    AnalysisEvent event = DataflowEvents.ENABLED ? new AnalysisEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
+    int iterationCount;
     try {
       init(cfg);
-      while (!worklist.isEmpty()) {
-        Block b = worklist.poll();
-        performAnalysisBlock(b);
-      }
+      iterationCount = iterateToFixpoint();
     } finally {
       assert isRunning;
       // In case performAnalysisBlock crashed, reset isRunning to false.
       isRunning = false;
     }
+    if (event != null && event.shouldCommit()) {
+      event.method = DataflowEvents.describe(cfg.getUnderlyingAST());
+      event.transferFunction =
+          transferFunction == null ? "" : transferFunction.getClass().getSimpleName();
+      event.blockCount = DataflowEvents.blockCount(cfg);
+      event.iterationCount = iterationCount;
+      event.iterationStrategy = iterationStrategy.name();
+      event.commit();
+    }
   }
 
   @Override
@@ -232,7 +281,7 @@ public class ForwardAnalysisImpl<
       @FindDistinct Node node,
       Analysis.BeforeOrAfter preOrPost,
       TransferInput<V, S> blockTransferInput,
-      IdentityHashMap<Node, V> nodeValues,
+      Map<Node, V> nodeValues,
       @Nullable Map<TransferInput<V, S>, IdentityHashMap<Node, TransferResult<V, S>>>
           analysisCaches) {
     Block block = node.getBlock();
@@ -251,21 +300,33 @@ public class ForwardAnalysisImpl<
       assert currentInput != null : "@AssumeAssertion(nullness): invariant";
       return currentInput.getRegularStore();
     }
-    setNodeValues(nodeValues);
+    beginQueryNodeValues(nodeValues);
     isRunning = true;
     try {
       switch (block.getType()) {
         case REGULAR_BLOCK:
           {
             RegularBlock rb = (RegularBlock) block;
+            List<Node> nodes = rb.getNodes();
             // Apply transfer function to contents until we found the node we are
-            // looking for.
-            TransferInput<V, S> store = blockTransferInput;
+            // looking for, starting at the last checkpoint before it.
+            BlockCheckpoints<V, S> checkpoints = getCheckpoints(rb, blockTransferInput);
+            int start = checkpoints == null ? 0 : checkpoints.startFor(node);
+            TransferInput<V, S> store =
+                checkpoints == null ? blockTransferInput : checkpoints.inputBefore(start);
             TransferResult<V, S> transferResult;
-            for (Node n : rb.getNodes()) {
+            for (int i = start; i < nodes.size(); i++) {
+              Node n = nodes.get(i);
+              if (checkpoints != null) {
+                checkpoints.record(i, store);
+              }
               setCurrentNode(n);
               if (n == node && preOrPost == Analysis.BeforeOrAfter.BEFORE) {
-                return store.getRegularStore();
+                // A checkpoint is reused by later queries, so the caller must not be able to
+                // change it.
+                return checkpoints != null && i == start
+                    ? store.getRegularStore().copy()
+                    : store.getRegularStore();
               }
               if (cache != null && cache.containsKey(n)) {
                 transferResult = cache.get(n);
@@ -321,6 +382,117 @@ public class ForwardAnalysisImpl<
     } finally {
       setCurrentNode(oldCurrentNode);
       isRunning = false;
+      endQueryNodeValues();
+    }
+  }
+
+  /**
+   * Returns the checkpoints of {@code rb} for the given transfer input, or null if the block is
+   * not long enough to need them.
+   *
+   * @param rb a regular block
+   * @param blockTransferInput the transfer input before {@code rb}
+   * @return the checkpoints of {@code rb}, or null
+   */
+  private @Nullable BlockCheckpoints<V, S> getCheckpoints(
+      RegularBlock rb, @FindDistinct TransferInput<V, S> blockTransferInput) {
+    if (checkpointInterval == 0 || rb.getNodes().size() <= checkpointInterval) {
+      return null;
+    }
+    BlockCheckpoints<V, S> checkpoints = blockCheckpoints.get(rb);
+    if (checkpoints == null || checkpoints.blockInput != blockTransferInput) {
+      checkpoints = new BlockCheckpoints<>(rb, blockTransferInput, checkpointInterval);
+      blockCheckpoints.put(rb, checkpoints);
+    }
+    return checkpoints;
+  }
+
+  /**
+   * The transfer inputs before every {@code interval}-th node of a regular block, recorded as
+   * {@link #runAnalysisFor} replays the block.
+   *
+   * @param <V> the abstract value type
+   * @param <S> the store type
+   */
+  private static class BlockCheckpoints<V extends AbstractValue<V>, S extends Store<S>> {
+    /** The transfer input before the block, from which the checkpoints were computed. */
+    final TransferInput<V, S> blockInput;
+
+    /** The number of nodes between two checkpoints. */
+    final int interval;
+
+    /** The index of each node in the block. */
+    final IdentityHashMap<Node, Integer> indices;
+
+    /**
+     * The element at index {@code j} is the transfer input before node {@code j * interval}, or
+     * null if no query has reached that node yet.
+     */
+    final List<@Nullable TransferInput<V, S>> inputs;
+
+    /**
+     * Creates the (initially empty) checkpoints of a block.
+     *
+     * @param rb the block
+     * @param blockInput the transfer input before the block
+     * @param interval the number of nodes between two checkpoints
+     */
+    BlockCheckpoints(RegularBlock rb, TransferInput<V, S> blockInput, int interval) {
+      this.blockInput = blockInput;
+      this.interval = interval;
+      List<Node> nodes = rb.getNodes();
+      this.indices = new IdentityHashMap<>(nodes.size());
+      for (int i = 0; i < nodes.size(); i++) {
+        indices.put(nodes.get(i), i);
+      }
+      int size = (nodes.size() - 1) / interval + 1;
+      this.inputs = new ArrayList<>(Collections.nCopies(size, null));
+      inputs.set(0, blockInput);
+    }
+
+    /**
+     * Returns the index of the last recorded checkpoint at or before {@code node}.
+     *
+     * @param node a node of the block
+     * @return the index of the node at which to start replaying the block
+     */
+    int startFor(Node node) {
+      Integer index = indices.get(node);
+      if (index == null) {
+        // Replay the whole block, which reports the error.
+        return 0;
+      }
+      int j = index / interval;
+      while (inputs.get(j) == null) {
+        j--;
+      }
+      return j * interval;
+    }
+
+    /**
+     * Returns the transfer input before the node at {@code index}, which is a checkpoint.
+     *
+     * @param index the index of a node with a recorded checkpoint
+     * @return the transfer input before that node
+     */
+    TransferInput<V, S> inputBefore(int index) {
+      TransferInput<V, S> input = inputs.get(index / interval);
+      assert input != null : "@AssumeAssertion(nullness): startFor returns a recorded checkpoint";
+      return input;
+    }
+
+    /**
+     * Records a copy of {@code input} if node {@code index} is a checkpoint that has not been
+     * recorded yet. The copy is private to the checkpoints: {@code input} may hold a store that
+     * was returned to the caller of an earlier query.
+     *
+     * @param index the index of a node
+     * @param input the transfer input before that node
+     */
+    void record(int index, TransferInput<V, S> input) {
+      if (index % interval == 0 && inputs.get(index / interval) == null) {
+        inputs.set(index / interval, input.copy());
+      }
     }
   }
 
@@ -438,7 +610,7 @@ public class ForwardAnalysisImpl<
     S thenStore = getStoreBefore(b, Store.Kind.THEN);
     S elseStore = getStoreBefore(b, Store.Kind.ELSE);
     boolean shouldWiden = false;
-    if (blockCount != null) {
+    if (blockCount != null && isWideningPoint(b)) {
       Integer count = blockCount.getOrDefault(b, 0);
       shouldWiden = count >= maxCountBeforeWidening;
       if (shouldWiden) {
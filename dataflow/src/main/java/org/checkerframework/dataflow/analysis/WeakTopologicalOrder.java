@@ -0,0 +1,343 @@
+package org.checkerframework.dataflow.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.checkerframework.dataflow.analysis.Analysis.Direction;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.block.Block;
+
+/**
+ * A weak topological order of the blocks of a control flow graph, as defined by François
+ * Bourdoncle in "Efficient chaotic iteration strategies with widenings" (1993).
+ *
+ * <p>A weak topological order is a sequence of blocks in which some blocks, the <em>heads</em>,
+ * start a <em>component</em>: the head and a contiguous range of blocks after it. Components nest
+ * and correspond to loops. Every cycle of the graph contains a head, and every edge that goes
+ * backward in the sequence goes to the head of a component that contains its source. So an
+ * analysis that visits the blocks in order, and repeats each component until its head is stable,
+ * needs to widen only at the heads, and stabilizes inner loops before outer ones.
+ *
+ * <p>This implementation computes the order by the recursive decomposition into strongly connected
+ * components, with an iterative version of Tarjan's algorithm so that long methods do not overflow
+ * the stack. The recursion depth is the loop nesting depth.
+ */
+public final class WeakTopologicalOrder {
+
+  /** The blocks, in weak topological order. */
+  private final List<Block> blocks;
+
+  /**
+   * For each position, the position after the last block of the component whose head is at that
+   * position, or -1 if the block at that position is not a head.
+   */
+  private final int[] componentEnds;
+
+  /** The depth-first indices of the heads. */
+  private final BitSet heads;
+
+  /** The depth-first indices of the blocks in this order. */
+  private final BitSet members;
+
+  /**
+   * Creates a WeakTopologicalOrder.
+   *
+   * @param blocks the blocks, in weak topological order
+   * @param componentEnds the end of the component of each head, or -1
+   * @param heads the depth-first indices of the heads
+   * @param members the depth-first indices of the blocks
+   */
+  private WeakTopologicalOrder(
+      List<Block> blocks, int[] componentEnds, BitSet heads, BitSet members) {
+    this.blocks = blocks;
+    this.componentEnds = componentEnds;
+    this.heads = heads;
+    this.members = members;
+  }
+
+  /**
+   * Computes a weak topological order of the blocks of {@code cfg} in the given direction. For a
+   * forward analysis it contains the blocks that are reachable from the entry block; for a backward
+   * analysis, the blocks that reach an exit block.
+   *
+   * @param cfg a control flow graph
+   * @param direction the direction of the analysis
+   * @return a weak topological order of the blocks of {@code cfg}
+   */
+  @SuppressWarnings("interning:not.interned") // checking that the index is for this block
+  public static WeakTopologicalOrder of(ControlFlowGraph cfg, Direction direction) {
+    List<Block> numbered = cfg.getNumberedBlocks();
+    int n = numbered.size();
+    int[][] successors = new int[n][];
+    for (int i = 0; i < n; i++) {
+      Block b = numbered.get(i);
+      Set<Block> next = direction == Direction.FORWARD ? b.getSuccessors() : b.getPredecessors();
+      int[] ids = new int[next.size()];
+      int count = 0;
+      for (Block s : next) {
+        int id = s.getDepthFirstIndex();
+        if (id >= 0 && id < n && numbered.get(id) == s) {
+          ids[count++] = id;
+        }
+      }
+      successors[i] = count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    List<Integer> roots = new ArrayList<>(2);
+    if (direction == Direction.FORWARD) {
+      roots.add(cfg.getEntryBlock().getDepthFirstIndex());
+    } else {
+      for (Block exit : new Block[] {cfg.getRegularExitBlock(), cfg.getExceptionalExitBlock()}) {
+        int id = exit.getDepthFirstIndex();
+        if (id >= 0 && id < n && numbered.get(id) == exit) {
+          roots.add(id);
+        }
+      }
+    }
+
+    Builder builder = new Builder(successors);
+    BitSet scope = new BitSet(n);
+    scope.set(0, n);
+    builder.decompose(roots, scope);
+
+    List<Block> order = new ArrayList<>(builder.order.size());
+    int[] componentEnds = new int[builder.order.size()];
+    BitSet members = new BitSet(n);
+    for (int pos = 0; pos < componentEnds.length; pos++) {
+      int id = builder.order.get(pos);
+      order.add(numbered.get(id));
+      componentEnds[pos] = builder.componentEnds.get(pos);
+      members.set(id);
+    }
+    return new WeakTopologicalOrder(
+        Collections.unmodifiableList(order), componentEnds, builder.heads, members);
+  }
+
+  /**
+   * Returns the number of blocks in this order.
+   *
+   * @return the number of blocks in this order
+   */
+  public int size() {
+    return blocks.size();
+  }
+
+  /**
+   * Returns the block at the given position.
+   *
+   * @param pos a position in this order
+   * @return the block at {@code pos}
+   */
+  public Block get(int pos) {
+    return blocks.get(pos);
+  }
+
+  /**
+   * Returns the position after the last block of the component whose head is at {@code pos}, or -1
+   * if the block at {@code pos} is not a head.
+   *
+   * @param pos a position in this order
+   * @return the end of the component headed at {@code pos}, or -1
+   */
+  public int componentEnd(int pos) {
+    return componentEnds[pos];
+  }
+
+  /**
+   * Returns true if {@code block} is in this order. A block that is not is unreachable in the
+   * direction of the analysis.
+   *
+   * @param block a block of the control flow graph
+   * @return true if {@code block} is in this order
+   */
+  public boolean contains(Block block) {
+    int id = block.getDepthFirstIndex();
+    return id >= 0 && members.get(id);
+  }
+
+  /**
+   * Returns true if {@code block} is the head of a component.
+   *
+   * @param block a block of the control flow graph
+   * @return true if {@code block} is the head of a component
+   */
+  public boolean isHead(Block block) {
+    int id = block.getDepthFirstIndex();
+    return id >= 0 && heads.get(id);
+  }
+
+  /**
+   * Returns the number of components, which is the number of heads.
+   *
+   * @return the number of components
+   */
+  public int componentCount() {
+    return heads.cardinality();
+  }
+
+  /** Computes a weak topological order over blocks that are identified by their indices. */
+  private static class Builder {
+
+    /** The successors of each block, in the direction of the analysis. */
+    final int[][] successors;
+
+    /** The blocks, in weak topological order. */
+    final List<Integer> order = new ArrayList<>();
+
+    /** The component end of each position of {@link #order}; see {@link #componentEnds}. */
+    final List<Integer> componentEnds = new ArrayList<>();
+
+    /** The heads. */
+    final BitSet heads = new BitSet();
+
+    /** The Tarjan discovery index of each block, or -1 if not yet discovered. */
+    final int[] index;
+
+    /** The Tarjan low-link of each block. */
+    final int[] lowLink;
+
+    /** The blocks on the Tarjan stack. */
+    final BitSet onStack = new BitSet();
+
+    /**
+     * Creates a Builder.
+     *
+     * @param successors the successors of each block
+     */
+    Builder(int[][] successors) {
+      this.successors = successors;
+      this.index = new int[successors.length];
+      this.lowLink = new int[successors.length];
+    }
+
+    /**
+     * Appends a weak topological order of the blocks in {@code scope} that are reachable from
+     * {@code starts} within {@code scope}.
+     *
+     * @param starts the blocks at which to start, in order
+     * @param scope the blocks of the subgraph
+     */
+    void decompose(List<Integer> starts, BitSet scope) {
+      for (int v = scope.nextSetBit(0); v >= 0; v = scope.nextSetBit(v + 1)) {
+        index[v] = -1;
+      }
+      // Tarjan's algorithm emits the components sinks first.
+      List<int[]> components = new ArrayList<>();
+      int[] counter = {0};
+      for (int start : starts) {
+        if (scope.get(start) && index[start] == -1) {
+          strongConnect(start, scope, counter, components);
+        }
+      }
+      for (int c = components.size() - 1; c >= 0; c--) {
+        int[] component = components.get(c);
+        // The first element of a component is its root: the block that was discovered first.
+        int head = component[0];
+        if (component.length == 1 && !hasSelfLoop(head)) {
+          order.add(head);
+          componentEnds.add(-1);
+          continue;
+        }
+        int pos = order.size();
+        order.add(head);
+        componentEnds.add(-1);
+        heads.set(head);
+        BitSet body = new BitSet();
+        for (int v : component) {
+          body.set(v);
+        }
+        body.clear(head);
+        List<Integer> bodyStarts = new ArrayList<>();
+        for (int s : successors[head]) {
+          if (body.get(s)) {
+            bodyStarts.add(s);
+          }
+        }
+        decompose(bodyStarts, body);
+        componentEnds.set(pos, order.size());
+      }
+    }
+
+    /**
+     * Returns true if {@code v} is its own successor.
+     *
+     * @param v a block
+     * @return true if {@code v} is its own successor
+     */
+    boolean hasSelfLoop(int v) {
+      for (int s : successors[v]) {
+        if (s == v) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Finds the strongly connected components reachable from {@code root} within {@code scope},
+     * with an explicit stack instead of recursion.
+     *
+     * @param root the block at which to start
+     * @param scope the blocks of the subgraph
+     * @param counter the next discovery index, in a one-element array
+     * @param components where to add the components; each starts with its root
+     */
+    void strongConnect(int root, BitSet scope, int[] counter, List<int[]> components) {
+      List<Integer> tarjanStack = new ArrayList<>();
+      // Each frame is a block and the index of its next successor to visit.
+      List<int[]> callStack = new ArrayList<>();
+      discover(root, counter, tarjanStack, callStack);
+      while (!callStack.isEmpty()) {
+        int[] frame = callStack.get(callStack.size() - 1);
+        int v = frame[0];
+        if (frame[1] < successors[v].length) {
+          int w = successors[v][frame[1]++];
+          if (!scope.get(w)) {
+            continue;
+          }
+          if (index[w] == -1) {
+            discover(w, counter, tarjanStack, callStack);
+          } else if (onStack.get(w)) {
+            lowLink[v] = Math.min(lowLink[v], index[w]);
+          }
+          continue;
+        }
+        callStack.remove(callStack.size() - 1);
+        if (lowLink[v] == index[v]) {
+          int start = tarjanStack.lastIndexOf(v);
+          int[] component = new int[tarjanStack.size() - start];
+          for (int i = 0; i < component.length; i++) {
+            component[i] = tarjanStack.get(start + i);
+            onStack.clear(component[i]);
+          }
+          tarjanStack.subList(start, tarjanStack.size()).clear();
+          components.add(component);
+        }
+        if (!callStack.isEmpty()) {
+          int u = callStack.get(callStack.size() - 1)[0];
+          lowLink[u] = Math.min(lowLink[u], lowLink[v]);
+        }
+      }
+    }
+
+    /**
+     * Discovers {@code v}: gives it a discovery index and pushes it on both stacks.
+     *
+     * @param v a block
+     * @param counter the next discovery index, in a one-element array
+     * @param tarjanStack the Tarjan stack
+     * @param callStack the stack that replaces recursion
+     */
+    void discover(int v, int[] counter, List<Integer> tarjanStack, List<int[]> callStack) {
+      index[v] = counter[0];
+      lowLink[v] = counter[0];
+      counter[0]++;
+      tarjanStack.add(v);
+      onStack.set(v);
+      callStack.add(new int[] {v, 0});
+    }
+  }
+}
@@ -12,6 +12,7 @@ import javax.lang.model.element.TypeElement;
 import org.checkerframework.checker.nullness.qual.EnsuresNonNullIf;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGMethod;
 import org.checkerframework.dataflow.cfg.builder.CFGBuilder;
 import org.checkerframework.dataflow.qual.Pure;
 import org.checkerframework.javacutil.BasicTypeProcessor;
@@ -32,6 +33,9 @@ public class CFGProcessor extends BasicTypeProcessor {
   /** Name of a specified method to generate the CFG for. */
   private final String methodName;
 
+  /** Should the nodes in a try frame share one exceptional exit? */
+  private final boolean summarizeExceptionalEdges;
+
   /** AST for source file. */
   private @Nullable CompilationUnitTree rootTree;
 
@@ -52,8 +56,21 @@ public class CFGProcessor extends BasicTypeProcessor {
    * @param methodName the name of the method to generate the CFG for
    */
   public CFGProcessor(String className, String methodName) {
+    this(className, methodName, false);
+  }
+
+  /**
+   * Create a CFG processor.
+   *
+   * @param className the qualified name of class which includes the specified method to generate
+   *     the CFG for
+   * @param methodName the name of the method to generate the CFG for
+   * @param summarizeExceptionalEdges should the nodes in a try frame share one exceptional exit?
+   */
+  public CFGProcessor(String className, String methodName, boolean summarizeExceptionalEdges) {
     this.className = className;
     this.methodName = methodName;
+    this.summarizeExceptionalEdges = summarizeExceptionalEdges;
   }
 
   /**
@@ -78,7 +95,14 @@ public class CFGProcessor extends BasicTypeProcessor {
       if (log.nerrors > 0) {
         result = new CFGProcessResult("Compilation issued an error.");
       } else {
-        ControlFlowGraph cfg = CFGBuilder.build(rootTree, methodTree, classTree, processingEnv);
+        ControlFlowGraph cfg =
+            CFGBuilder.build(
+                rootTree,
+                new CFGMethod(methodTree, classTree),
+                false,
+                false,
+                summarizeExceptionalEdges,
+                processingEnv);
         result = new CFGProcessResult(cfg);
       }
     }
@@ -19,13 +19,16 @@ import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import javax.lang.model.type.TypeMirror;
 import org.checkerframework.checker.initialization.qual.UnknownInitialization;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.analysis.AnalysisResult;
 import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.block.BlockImpl;
 import org.checkerframework.dataflow.cfg.block.ConditionalBlock;
 import org.checkerframework.dataflow.cfg.block.ExceptionBlock;
 import org.checkerframework.dataflow.cfg.block.RegularBlock;
@@ -116,6 +119,18 @@ public class ControlFlowGraph implements UniqueId {
    */
   protected final List<LambdaExpressionTree> declaredLambdas;
 
+  /** The dense ID of the first block of the next graph to be numbered. */
+  private static final AtomicInteger nextBlockDenseId = new AtomicInteger(0);
+
+  /** The dense ID of the first node of the next graph to be numbered. */
+  private static final AtomicInteger nextNodeDenseId = new AtomicInteger(0);
+
+  /**
+   * The reachable blocks, each once, in depth-first order. Null until {@link #getNumberedBlocks} is
+   * first called.
+   */
+  private @MonotonicNonNull List<Block> numberedBlocks = null;
+
   public ControlFlowGraph(
       SpecialBlock entryBlock,
       SpecialBlockImpl regularExitBlock,
@@ -380,6 +395,50 @@ public class ControlFlowGraph implements UniqueId {
     return dfsOrderResult;
   }
 
+  /**
+   * Returns the reachable blocks of this control flow graph, each once, in reversed depth-first
+   * postorder. The position of each block in the result is its {@link Block#getDepthFirstIndex()}.
+   * When a block appears more than once in {@link #getDepthFirstOrderedBlocks}, its last occurrence
+   * determines its position.
+   *
+   * <p>The blocks are numbered the first time this method is called; the graph must not be changed
+   * afterward. This also assigns the {@link Block#getDenseId() dense IDs} of the blocks and the
+   * {@link Node#getDenseId() dense IDs} of their nodes.
+   *
+   * @return the reachable blocks of this control flow graph, in depth-first order
+   */
+  public List<Block> getNumberedBlocks() {
+    if (numberedBlocks == null) {
+      List<Block> depthFirstOrderedBlocks = getDepthFirstOrderedBlocks();
+      Set<Block> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+      List<Block> result = new ArrayList<>(depthFirstOrderedBlocks.size());
+      for (int i = depthFirstOrderedBlocks.size() - 1; i >= 0; i--) {
+        Block b = depthFirstOrderedBlocks.get(i);
+        if (seen.add(b)) {
+          result.add(b);
+        }
+      }
+      Collections.reverse(result);
+      int nodeCount = 0;
+      for (Block b : result) {
+        nodeCount += b.getNodes().size();
+      }
+      int blockBase = nextBlockDenseId.getAndAdd(result.size());
+      int nodeBase = nextNodeDenseId.getAndAdd(nodeCount);
+      for (int i = 0; i < result.size(); i++) {
+        BlockImpl b = (BlockImpl) result.get(i);
+        b.setDepthFirstIndex(i);
+        // After 2^31 IDs, wrap around; dense IDs need not be unique.
+        b.setDenseId((blockBase + i) & Integer.MAX_VALUE);
+        for (Node n : b.getNodes()) {
+          n.setDenseId(nodeBase++ & Integer.MAX_VALUE);
+        }
+      }
+      numberedBlocks = Collections.unmodifiableList(result);
+    }
+    return numberedBlocks;
+  }
+
   /**
    * Returns an unmodifiable view of the tree-lookup map. Ignores convertedTreeLookup, though {@link
    * #getNodesCorrespondingToTree} uses that field.
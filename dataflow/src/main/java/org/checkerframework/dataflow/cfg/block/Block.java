@@ -67,4 +67,23 @@ public interface Block extends UniqueId {
    * @return the last node of this block or {@code null}
    */
   @Nullable Node getLastNode();
+
+  /**
+   * Returns the position of this block in the depth-first order of its control flow graph, or -1 if
+   * the block is not reachable or its graph has not been numbered. See {@link
+   * org.checkerframework.dataflow.cfg.ControlFlowGraph#getNumberedBlocks}.
+   *
+   * @return the depth-first index of this block, or -1
+   */
+  int getDepthFirstIndex();
+
+  /**
+   * Returns the dense ID of this block, or -1 if its graph has not been numbered. Unlike {@link
+   * #getDepthFirstIndex()}, dense IDs differ between the blocks of different graphs, and the blocks
+   * of one graph have consecutive dense IDs. Dense IDs are hints for {@link
+   * org.checkerframework.dataflow.util.DenseIdMap}; they are not guaranteed to be unique.
+   *
+   * @return the dense ID of this block, or -1
+   */
+  int getDenseId();
 }
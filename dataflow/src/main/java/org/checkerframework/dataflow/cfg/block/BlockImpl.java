@@ -25,6 +25,12 @@ public abstract class BlockImpl implements Block {
     return uid;
   }
 
+  /** The depth-first index of this block, or -1 if it has not been numbered. */
+  private int depthFirstIndex = -1;
+
+  /** The dense ID of this block, or -1 if it has not been numbered. */
+  private int denseId = -1;
+
   /**
    * Create a new BlockImpl.
    *
@@ -41,6 +47,36 @@ public abstract class BlockImpl implements Block {
     return type;
   }
 
+  @Override
+  public int getDepthFirstIndex() {
+    return depthFirstIndex;
+  }
+
+  /**
+   * Sets the depth-first index of this block. Only {@link
+   * org.checkerframework.dataflow.cfg.ControlFlowGraph#getNumberedBlocks} should call this.
+   *
+   * @param depthFirstIndex the depth-first index of this block
+   */
+  public void setDepthFirstIndex(int depthFirstIndex) {
+    this.depthFirstIndex = depthFirstIndex;
+  }
+
+  @Override
+  public int getDenseId() {
+    return denseId;
+  }
+
+  /**
+   * Sets the dense ID of this block. Only {@link
+   * org.checkerframework.dataflow.cfg.ControlFlowGraph#getNumberedBlocks} should call this.
+   *
+   * @param denseId the dense ID of this block
+   */
+  public void setDenseId(int denseId) {
+    this.denseId = denseId;
+  }
+
   @Override
   public Set<Block> getPredecessors() {
     // Not "Collections.unmodifiableSet(predecessors)" which has nondeterministic iteration
@@ -18,6 +18,8 @@ import org.checkerframework.dataflow.cfg.block.ConditionalBlockImpl;
 import org.checkerframework.dataflow.cfg.block.ExceptionBlockImpl;
 import org.checkerframework.dataflow.cfg.block.SingleSuccessorBlockImpl;
 import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.util.DataflowEvents;
+import org.checkerframework.dataflow.util.DataflowEvents.CfgBuildEvent;
 import org.checkerframework.javacutil.AnnotationProvider;
 import org.checkerframework.javacutil.BasicAnnotationProvider;
 import org.checkerframework.javacutil.trees.TreeBuilder;
@@ -65,14 +67,50 @@ public abstract class CFGBuilder {
       boolean assumeAssertionsEnabled,
       boolean assumeAssertionsDisabled,
       ProcessingEnvironment env) {
+    return build(
+        root, underlyingAST, assumeAssertionsEnabled, assumeAssertionsDisabled, false, env);
+  }
+
+  /**
+   * Build the control flow graph of some code.
+   *
+   * @param root the compilation unit
+   * @param underlyingAST the AST that underlies the control frow graph
+   * @param assumeAssertionsDisabled can assertions be assumed to be disabled?
+   * @param assumeAssertionsEnabled can assertions be assumed to be enabled?
+   * @param summarizeExceptionalEdges should the nodes in a try frame share one exceptional exit?
+   * @param env annotation processing environment containing type utilities
+   * @return a control flow graph
+   */
+  public static ControlFlowGraph build(
+      CompilationUnitTree root,
+      UnderlyingAST underlyingAST,
+      boolean assumeAssertionsEnabled,
+      boolean assumeAssertionsDisabled,
+      boolean summarizeExceptionalEdges,
+      ProcessingEnvironment env) {
+    CfgBuildEvent event = DataflowEvents.ENABLED ? new CfgBuildEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
     TreeBuilder builder = new TreeBuilder(env);
     AnnotationProvider annotationProvider = new BasicAnnotationProvider();
     PhaseOneResult phase1result =
         new CFGTranslationPhaseOne(
-                builder, annotationProvider, assumeAssertionsEnabled, assumeAssertionsDisabled, env)
+                builder,
+                annotationProvider,
+                assumeAssertionsEnabled,
+                assumeAssertionsDisabled,
+                summarizeExceptionalEdges,
+                env)
             .process(root, underlyingAST);
     ControlFlowGraph phase2result = CFGTranslationPhaseTwo.process(phase1result);
     ControlFlowGraph phase3result = CFGTranslationPhaseThree.process(phase2result);
+    if (event != null && event.shouldCommit()) {
+      event.method = DataflowEvents.describe(underlyingAST);
+      event.blockCount = DataflowEvents.blockCount(phase3result);
+      event.commit();
+    }
     return phase3result;
   }
 
@@ -86,6 +124,10 @@ public abstract class CFGBuilder {
       boolean assumeAssertionsEnabled,
       boolean assumeAssertionsDisabled,
       ProcessingEnvironment env) {
+    CfgBuildEvent event = DataflowEvents.ENABLED ? new CfgBuildEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
     TreeBuilder builder = new TreeBuilder(env);
     AnnotationProvider annotationProvider = new BasicAnnotationProvider();
     PhaseOneResult phase1result =
@@ -94,6 +136,11 @@ public abstract class CFGBuilder {
             .process(bodyPath, underlyingAST);
     ControlFlowGraph phase2result = CFGTranslationPhaseTwo.process(phase1result);
     ControlFlowGraph phase3result = CFGTranslationPhaseThree.process(phase2result);
+    if (event != null && event.shouldCommit()) {
+      event.method = DataflowEvents.describe(underlyingAST);
+      event.blockCount = DataflowEvents.blockCount(phase3result);
+      event.commit();
+    }
     return phase3result;
   }
 
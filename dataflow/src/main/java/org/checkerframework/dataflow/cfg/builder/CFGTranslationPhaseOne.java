@@ -88,6 +88,7 @@ import org.checkerframework.checker.interning.qual.FindDistinct;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.analysis.Store.FlowRule;
 import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.builder.ExtendedNode.ExtendedNodeType;
 import org.checkerframework.dataflow.cfg.node.ArrayAccessNode;
 import org.checkerframework.dataflow.cfg.node.ArrayCreationNode;
 import org.checkerframework.dataflow.cfg.node.ArrayTypeNode;
@@ -239,6 +240,24 @@ public class CFGTranslationPhaseOne extends TreeScanner<Node, Void> {
   /** Can assertions be assumed to be enabled? */
   protected final boolean assumeAssertionsEnabled;
 
+  /**
+   * Should the nodes in a try frame share one exceptional exit? If true, every node that may throw
+   * within the innermost try frame (a try block, or the catch blocks of a try statement with a
+   * finally block) has one exceptional edge per exception type, to a summary node at the end of
+   * the frame. The summary node has the edges to the catch and finally handlers. Its input store
+   * is the join of the exceptional stores of all the nodes in the frame, which over-approximates
+   * the store of each of them. This makes the control flow graph of try-heavy code much smaller,
+   * at the cost of precision in catch and finally blocks.
+   */
+  protected final boolean summarizeExceptionalEdges;
+
+  /**
+   * The summary exceptional exits of the open try frames. Only used if {@link
+   * #summarizeExceptionalEdges} is true.
+   */
+  private final IdentityHashMap<TryFrame, ExceptionalExitSummary> exceptionalExitSummaries =
+      new IdentityHashMap<>();
+
   /* --------------------------------------------------------- */
   /* Extended Node Types and Labels */
   /* --------------------------------------------------------- */
@@ -397,6 +416,32 @@ public class CFGTranslationPhaseOne extends TreeScanner<Node, Void> {
       boolean assumeAssertionsEnabled,
       boolean assumeAssertionsDisabled,
       ProcessingEnvironment env) {
+    this(
+        treeBuilder,
+        annotationProvider,
+        assumeAssertionsEnabled,
+        assumeAssertionsDisabled,
+        false,
+        env);
+  }
+
+  /**
+   * Creates {@link CFGTranslationPhaseOne}.
+   *
+   * @param treeBuilder builder for new AST nodes
+   * @param annotationProvider extracts annotations from AST nodes
+   * @param assumeAssertionsDisabled can assertions be assumed to be disabled?
+   * @param assumeAssertionsEnabled can assertions be assumed to be enabled?
+   * @param summarizeExceptionalEdges should the nodes in a try frame share one exceptional exit?
+   * @param env annotation processing environment containing type utilities
+   */
+  public CFGTranslationPhaseOne(
+      TreeBuilder treeBuilder,
+      AnnotationProvider annotationProvider,
+      boolean assumeAssertionsEnabled,
+      boolean assumeAssertionsDisabled,
+      boolean summarizeExceptionalEdges,
+      ProcessingEnvironment env) {
     this.env = env;
     this.treeBuilder = treeBuilder;
     this.annotationProvider = annotationProvider;
@@ -404,6 +449,7 @@ public class CFGTranslationPhaseOne extends TreeScanner<Node, Void> {
     assert !(assumeAssertionsDisabled && assumeAssertionsEnabled);
     this.assumeAssertionsEnabled = assumeAssertionsEnabled;
     this.assumeAssertionsDisabled = assumeAssertionsDisabled;
+    this.summarizeExceptionalEdges = summarizeExceptionalEdges;
 
     elements = env.getElementUtils();
     types = env.getTypeUtils();
@@ -744,13 +790,88 @@ public class CFGTranslationPhaseOne extends TreeScanner<Node, Void> {
     addToLookupMap(node);
     Map<TypeMirror, Set<Label>> exceptions = new ArrayMap<>(causes.size());
     for (TypeMirror cause : causes) {
-      exceptions.put(cause, tryStack.possibleLabels(cause));
+      exceptions.put(cause, possibleLabels(cause));
     }
     NodeWithExceptionsHolder exNode = new NodeWithExceptionsHolder(node, exceptions);
     extendWithExtendedNode(exNode);
     return exNode;
   }
 
+  /**
+   * Returns the labels to which an exception of type {@code cause}, thrown at the current position,
+   * may flow. If {@link #summarizeExceptionalEdges} is true and the current position is in a try
+   * frame, that is the summary exceptional exit of the innermost frame.
+   *
+   * @param cause the type of a thrown exception
+   * @return the labels to which the exception may flow
+   */
+  private Set<Label> possibleLabels(TypeMirror cause) {
+    if (summarizeExceptionalEdges) {
+      TryFrame frame = tryStack.innermostFrame();
+      if (frame != null) {
+        ExceptionalExitSummary summary =
+            exceptionalExitSummaries.computeIfAbsent(frame, f -> new ExceptionalExitSummary());
+        summary.causes.add(cause);
+        Set<Label> labels = new ArraySet<>(1);
+        labels.add(summary.label);
+        return labels;
+      }
+    }
+    return tryStack.possibleLabels(cause);
+  }
+
+  /**
+   * Pops the innermost try frame. If {@link #summarizeExceptionalEdges} is true and some node of
+   * the frame may throw, first adds the summary exceptional exit of the frame: a node that is only
+   * reached by exceptional edges, and that rethrows each exception to the handlers that the frame
+   * and its enclosing frames have for it.
+   *
+   * @param markerTree the tree to reference in the summary node
+   */
+  private void popTryFrame(Tree markerTree) {
+    TryFrame frame = tryStack.innermostFrame();
+    ExceptionalExitSummary summary = frame == null ? null : exceptionalExitSummaries.remove(frame);
+    if (summary != null) {
+      Label afterSummary = null;
+      ExtendedNode last = nodeList.isEmpty() ? null : nodeList.get(nodeList.size() - 1);
+      if (last == null
+          || leaders.contains(nodeList.size())
+          || (last.getType() != ExtendedNodeType.UNCONDITIONAL_JUMP
+              && !last.getTerminatesExecution())) {
+        // Control can reach the end of the node list; make it skip the summary.
+        afterSummary = new Label();
+        extendWithExtendedNode(new UnconditionalJump(afterSummary));
+      }
+      addLabelForNextNode(summary.label);
+      Map<TypeMirror, Set<Label>> exceptions = new ArrayMap<>(summary.causes.size());
+      for (TypeMirror cause : summary.causes) {
+        exceptions.put(cause, tryStack.possibleLabels(cause));
+      }
+      MarkerNode summaryNode =
+          new MarkerNode(
+              markerTree,
+              "exceptional exit of try frame #" + TreeUtils.treeUids.get(markerTree),
+              env.getTypeUtils());
+      addToLookupMap(summaryNode);
+      NodeWithExceptionsHolder exNode = new NodeWithExceptionsHolder(summaryNode, exceptions);
+      exNode.setTerminatesExecution(true);
+      extendWithExtendedNode(exNode);
+      if (afterSummary != null) {
+        addLabelForNextNode(afterSummary);
+      }
+    }
+    tryStack.popFrame();
+  }
+
+  /** The summary exceptional exit of a try frame; see {@link #summarizeExceptionalEdges}. */
+  private static class ExceptionalExitSummary {
+    /** The label of the summary node. */
+    final Label label = new Label();
+
+    /** The types of the exceptions that flow to the summary node. */
+    final Set<TypeMirror> causes = new ArraySet<>(4);
+  }
+
   /**
    * Extend a list of extended nodes with a ClassName node.
    *
@@ -806,7 +927,7 @@ public class CFGTranslationPhaseOne extends TreeScanner<Node, Void> {
     addToLookupMap(node);
     Map<TypeMirror, Set<Label>> exceptions = new ArrayMap<>(causes.size());
     for (TypeMirror cause : causes) {
-      exceptions.put(cause, tryStack.possibleLabels(cause));
+      exceptions.put(cause, possibleLabels(cause));
     }
     NodeWithExceptionsHolder exNode = new NodeWithExceptionsHolder(node, exceptions);
     insertExtendedNodeAfter(exNode, pred);
@@ -3704,7 +3825,7 @@ public class CFGTranslationPhaseOne extends TreeScanner<Node, Void> {
     extendWithExtendedNode(new UnconditionalJump(firstNonNull(finallyLabel, doneLabel)));
 
     // This pops the try-catch frame
-    tryStack.popFrame();
+    popTryFrame(tree);
 
     int catchIndex = 0;
     for (CatchTree c : catches) {
@@ -3907,7 +4028,7 @@ public class CFGTranslationPhaseOne extends TreeScanner<Node, Void> {
       Map<Name, Label> oldContinueLabels) {
     // Reset values before analyzing the finally block!
 
-    tryStack.popFrame();
+    popTryFrame(markerTree);
 
     { // Scan 'finallyBlock' for only 'finallyLabel' (a successful path)
       addLabelForNextNode(finallyLabel);
@@ -4,6 +4,7 @@ import java.util.ArrayDeque;
 import java.util.Set;
 import java.util.StringJoiner;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.plumelib.util.ArraySet;
 
 /**
@@ -42,6 +43,15 @@ import org.plumelib.util.ArraySet;
     frames.removeFirst();
   }
 
+  /**
+   * Returns the innermost frame, or null if there is none.
+   *
+   * @return the innermost frame, or null
+   */
+  public @Nullable TryFrame innermostFrame() {
+    return frames.peekFirst();
+  }
+
   /**
    * Returns the set of possible {@link Label}s where control may transfer when an exception of the
    * given type is thrown.
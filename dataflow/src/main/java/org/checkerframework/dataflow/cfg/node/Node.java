@@ -10,6 +10,7 @@ import org.checkerframework.checker.initialization.qual.UnknownInitialization;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.cfg.block.Block;
 import org.checkerframework.dataflow.cfg.builder.CFGBuilder;
+import org.checkerframework.dataflow.expression.JavaExpression;
 import org.checkerframework.dataflow.qual.Pure;
 import org.checkerframework.dataflow.qual.SideEffectFree;
 import org.plumelib.util.UniqueId;
@@ -82,6 +83,17 @@ public abstract class Node implements UniqueId {
     return uid;
   }
 
+  /**
+   * The dense ID of this node, or -1 if it has not been numbered. Is set by {@link #setDenseId}.
+   */
+  private int denseId = -1;
+
+  /**
+   * The {@link JavaExpression} that this node denotes, or null if it has not been computed. Is set
+   * by {@link #setJavaExpression}.
+   */
+  private @Nullable JavaExpression javaExpression = null;
+
   /**
    * Creates a new Node.
    *
@@ -109,6 +121,50 @@ public abstract class Node implements UniqueId {
     block = b;
   }
 
+  /**
+   * Returns the dense ID of this node, or -1 if it has not been numbered. The nodes of the
+   * reachable blocks of a control flow graph have consecutive dense IDs; see {@link
+   * org.checkerframework.dataflow.cfg.ControlFlowGraph#getNumberedBlocks}. Dense IDs are hints for
+   * {@link org.checkerframework.dataflow.util.DenseIdMap}; they are not guaranteed to be unique.
+   *
+   * @return the dense ID of this node, or -1
+   */
+  @Pure
+  public int getDenseId() {
+    return denseId;
+  }
+
+  /**
+   * Sets the dense ID of this node.
+   *
+   * @param denseId the dense ID of this node
+   */
+  public void setDenseId(int denseId) {
+    this.denseId = denseId;
+  }
+
+  /**
+   * Returns the {@link JavaExpression} that this node denotes, or null if it has not been computed.
+   * Clients should call {@link JavaExpression#fromNode}, which computes it on the first request and
+   * then returns the same object for this node.
+   *
+   * @return the JavaExpression that this node denotes, or null
+   */
+  @Pure
+  public @Nullable JavaExpression getJavaExpression() {
+    return javaExpression;
+  }
+
+  /**
+   * Sets the {@link JavaExpression} that this node denotes. Is called by {@link
+   * JavaExpression#fromNode}.
+   *
+   * @param javaExpression the JavaExpression that this node denotes
+   */
+  public void setJavaExpression(JavaExpression javaExpression) {
+    this.javaExpression = javaExpression;
+  }
+
   /**
    * Returns the {@link Tree} in the abstract syntax tree, or {@code null} if no corresponding tree
    * exists. For instance, this is the case for an {@link ImplicitThisNode}.
@@ -216,7 +216,21 @@ public final class CFGVisualizeLauncher {
    * @return control flow graph of the specified method
    */
   public static ControlFlowGraph generateMethodCFG(String file, String clas, String method) {
-    CFGProcessor cfgProcessor = new CFGProcessor(clas, method);
+    return generateMethodCFG(file, clas, method, false);
+  }
+
+  /**
+   * Generate the control flow graph of a method in a class.
+   *
+   * @param file a Java source file, used as input
+   * @param clas name of the class which includes the method to generate the CFG for
+   * @param method name of the method to generate the CFG for
+   * @param summarizeExceptionalEdges should the nodes in a try frame share one exceptional exit?
+   * @return control flow graph of the specified method
+   */
+  public static ControlFlowGraph generateMethodCFG(
+      String file, String clas, String method, boolean summarizeExceptionalEdges) {
+    CFGProcessor cfgProcessor = new CFGProcessor(clas, method, summarizeExceptionalEdges);
 
     Context context = new Context();
     Options.instance(context).put("compilePolicy", "ATTR_ONLY");
@@ -15,6 +15,9 @@ public class ArrayAccess extends JavaExpression {
   /** The index; an expression of type int. */
   protected final JavaExpression index;
 
+  /** The hash code of this expression, computed once because the expression is immutable. */
+  private final int hash;
+
   /**
    * Create a new ArrayAccess.
    *
@@ -26,6 +29,7 @@ public class ArrayAccess extends JavaExpression {
     super(type);
     this.array = array;
     this.index = index;
+    this.hash = Objects.hash(array, index);
   }
 
   @SuppressWarnings("unchecked") // generic cast
@@ -95,16 +99,19 @@ public class ArrayAccess extends JavaExpression {
 
   @Override
   public boolean equals(@Nullable Object obj) {
+    if (this == obj) {
+      return true;
+    }
     if (!(obj instanceof ArrayAccess)) {
       return false;
     }
     ArrayAccess other = (ArrayAccess) obj;
-    return array.equals(other.array) && index.equals(other.index);
+    return hash == other.hash && array.equals(other.array) && index.equals(other.index);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(array, index);
+    return hash;
   }
 
   @Override
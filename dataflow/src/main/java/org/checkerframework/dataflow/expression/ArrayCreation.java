@@ -22,6 +22,9 @@ public class ArrayCreation extends JavaExpression {
   /** List of initializers. */
   protected final List<JavaExpression> initializers;
 
+  /** The hash code of this expression, computed once because the expression is immutable. */
+  private final int hash;
+
   /**
    * Creates an ArrayCreation object.
    *
@@ -38,6 +41,7 @@ public class ArrayCreation extends JavaExpression {
     assert type.getKind() == TypeKind.ARRAY;
     this.dimensions = dimensions;
     this.initializers = initializers;
+    this.hash = Objects.hash(dimensions, initializers, type.toString());
   }
 
   /**
@@ -87,7 +91,7 @@ public class ArrayCreation extends JavaExpression {
 
   @Override
   public int hashCode() {
-    return Objects.hash(dimensions, initializers, getType().toString());
+    return hash;
   }
 
   @Override
@@ -96,7 +100,8 @@ public class ArrayCreation extends JavaExpression {
       return false;
     }
     ArrayCreation other = (ArrayCreation) obj;
-    return this.dimensions.equals(other.getDimensions())
+    return hash == other.hash
+        && this.dimensions.equals(other.getDimensions())
         && this.initializers.equals(other.getInitializers())
         // It might be better to use Types.isSameType(getType(), other.getType()), but I
         // don't have a Types object.
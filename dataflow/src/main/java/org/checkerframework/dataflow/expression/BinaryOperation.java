@@ -21,6 +21,9 @@ public class BinaryOperation extends JavaExpression {
   /** The right operand. */
   protected final JavaExpression right;
 
+  /** The hash code of this expression, computed once because the expression is immutable. */
+  private final int hash;
+
   /**
    * Create a binary operation.
    *
@@ -35,6 +38,11 @@ public class BinaryOperation extends JavaExpression {
     this.operationKind = operationKind;
     this.left = left;
     this.right = right;
+    // Consistent with equals(), which ignores the order of the operands of a commutative operation.
+    this.hash =
+        isCommutative(operationKind)
+            ? Objects.hash(operationKind, left.hashCode() + right.hashCode())
+            : Objects.hash(operationKind, left, right);
   }
 
   /**
@@ -129,19 +137,22 @@ public class BinaryOperation extends JavaExpression {
 
   @Override
   public int hashCode() {
-    return Objects.hash(operationKind, left, right);
+    return hash;
   }
 
   @Override
   public boolean equals(@Nullable Object other) {
+    if (this == other) {
+      return true;
+    }
     if (!(other instanceof BinaryOperation)) {
       return false;
     }
     BinaryOperation biOp = (BinaryOperation) other;
-    if (!(operationKind == biOp.getOperationKind())) {
+    if (hash != biOp.hash || !(operationKind == biOp.getOperationKind())) {
       return false;
     }
-    if (isCommutative()) {
+    if (isCommutative(operationKind)) {
       return (left.equals(biOp.left) && right.equals(biOp.right))
           || (left.equals(biOp.right) && right.equals(biOp.left));
     }
@@ -151,9 +162,10 @@ public class BinaryOperation extends JavaExpression {
   /**
    * Returns true if the binary operation is commutative, e.g., x + y == y + x.
    *
+   * @param operationKind the binary operation kind
    * @return true if the binary operation is commutative
    */
-  private boolean isCommutative() {
+  private static boolean isCommutative(Tree.Kind operationKind) {
     switch (operationKind) {
       case PLUS:
       case MULTIPLY:
@@ -24,6 +24,9 @@ public class FieldAccess extends JavaExpression {
   /** The field being accessed. */
   protected final VariableElement field;
 
+  /** The hash code of this expression, computed once because the expression is immutable. */
+  private final int hash;
+
   /**
    * Returns the receiver.
    *
@@ -73,6 +76,7 @@ public class FieldAccess extends JavaExpression {
     super(type);
     this.receiver = receiver;
     this.field = fieldElement;
+    this.hash = Objects.hash(fieldElement, receiver);
     String fieldName = fieldElement.toString();
     if (fieldName.equals("class") || fieldName.equals("this")) {
       BugInCF e =
@@ -96,11 +100,14 @@ public class FieldAccess extends JavaExpression {
 
   @Override
   public boolean equals(@Nullable Object obj) {
+    if (this == obj) {
+      return true;
+    }
     if (!(obj instanceof FieldAccess)) {
       return false;
     }
     FieldAccess fa = (FieldAccess) obj;
-    if (!fa.getField().equals(getField())) {
+    if (fa.hash != hash || !fa.getField().equals(getField())) {
       return false;
     }
 
@@ -115,7 +122,7 @@ public class FieldAccess extends JavaExpression {
 
   @Override
   public int hashCode() {
-    return Objects.hash(getField(), getReceiver());
+    return hash;
   }
 
   @Override
@@ -21,6 +21,9 @@ public class FormalParameter extends JavaExpression {
   /** The element for this formal parameter. */
   protected final VariableElement element;
 
+  /** The hash code of this expression, computed once because the expression is immutable. */
+  private final int hash;
+
   /**
    * Creates a FormalParameter.
    *
@@ -31,6 +34,13 @@ public class FormalParameter extends JavaExpression {
     super(ElementUtils.getType(element));
     this.index = index;
     this.element = element;
+    VarSymbol vs = (VarSymbol) element;
+    this.hash =
+        Objects.hash(
+            index,
+            vs.name.toString(),
+            TypeAnnotationUtils.unannotatedType(vs.type).toString(),
+            vs.owner.toString());
   }
 
   @Override
@@ -63,12 +73,7 @@ public class FormalParameter extends JavaExpression {
 
   @Override
   public int hashCode() {
-    VarSymbol vs = (VarSymbol) element;
-    return Objects.hash(
-        index,
-        vs.name.toString(),
-        TypeAnnotationUtils.unannotatedType(vs.type).toString(),
-        vs.owner.toString());
+    return hash;
   }
 
   @Override
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
@@ -374,10 +375,36 @@ public abstract class JavaExpression {
   /**
    * We ignore operations such as widening and narrowing when computing the internal representation.
    *
+   * <p>The result is computed once per node: later calls for the same node return the same object,
+   * so that stores and maps that are keyed by it find it by its identity and cached hash code.
+   * Results that contain {@link Unknown}, or that call a constructor, are not reused, because those
+   * are not equal to any other expression.
+   *
    * @param receiverNode a node to convert to a JavaExpression
    * @return the internal representation of the given node. Might contain {@link Unknown}.
    */
   public static JavaExpression fromNode(Node receiverNode) {
+    JavaExpression result = receiverNode.getJavaExpression();
+    if (result != null) {
+      return result;
+    }
+    result = fromNodeUncached(receiverNode);
+    if (!result.containsUnknown()
+        && !(result instanceof MethodCall
+            && ((MethodCall) result).getElement().getKind() == ElementKind.CONSTRUCTOR)) {
+      receiverNode.setJavaExpression(result);
+    }
+    return result;
+  }
+
+  /**
+   * Computes the internal representation of a node, without consulting or updating the cache of
+   * {@link #fromNode}.
+   *
+   * @param receiverNode a node to convert to a JavaExpression
+   * @return the internal representation of the given node. Might contain {@link Unknown}.
+   */
+  private static JavaExpression fromNodeUncached(Node receiverNode) {
     JavaExpression result = null;
     if (receiverNode instanceof FieldAccessNode) {
       result = fromNodeFieldAccess((FieldAccessNode) receiverNode);
@@ -8,8 +8,8 @@ import org.plumelib.util.CollectionsPlume;
 /**
  * This class calls {@link #convert(JavaExpression)} on each subexpression of the {@link
  * JavaExpression} and returns a new {@code JavaExpression} built from the result of calling {@code
- * convert} on each subexpression. (If an expression has no subexpression, then the expression
- * itself is returned.)
+ * convert} on each subexpression. (If an expression has no subexpression, or if {@code convert}
+ * returns each of its subexpressions unchanged, then the expression itself is returned.)
  *
  * <p>This class makes it easy to implement a subclass that converts subexpressions of a {@link
  * JavaExpression} based on which kind of {@code JavaExpression} the subexpression is. Subclasses
@@ -46,10 +46,34 @@ public abstract class JavaExpressionConverter extends JavaExpressionVisitor<Java
         list);
   }
 
+  /**
+   * Returns true if each element of {@code converted} is the same object as the corresponding
+   * element of {@code original}.
+   *
+   * @param original a list of expressions
+   * @param converted the result of {@link #convert(List)} on {@code original}
+   * @return true if converting {@code original} changed none of its elements
+   */
+  @SuppressWarnings("interning:not.interned") // checking whether the expressions were converted
+  private static boolean sameElements(
+      List<? extends @Nullable JavaExpression> original,
+      List<? extends @Nullable JavaExpression> converted) {
+    for (int i = 0; i < original.size(); i++) {
+      if (original.get(i) != converted.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
+  @SuppressWarnings("interning:not.interned") // checking whether the subexpressions were converted
   protected JavaExpression visitArrayAccess(ArrayAccess arrayAccessExpr, Void unused) {
     JavaExpression array = convert(arrayAccessExpr.getArray());
     JavaExpression index = convert(arrayAccessExpr.getIndex());
+    if (array == arrayAccessExpr.getArray() && index == arrayAccessExpr.getIndex()) {
+      return arrayAccessExpr;
+    }
     return new ArrayAccess(arrayAccessExpr.type, array, index);
   }
 
@@ -57,13 +81,21 @@ public abstract class JavaExpressionConverter extends JavaExpressionVisitor<Java
   protected JavaExpression visitArrayCreation(ArrayCreation arrayCreationExpr, Void unused) {
     List<@Nullable JavaExpression> dims = convert(arrayCreationExpr.getDimensions());
     List<JavaExpression> inits = convert(arrayCreationExpr.getInitializers());
+    if (sameElements(arrayCreationExpr.getDimensions(), dims)
+        && sameElements(arrayCreationExpr.getInitializers(), inits)) {
+      return arrayCreationExpr;
+    }
     return new ArrayCreation(arrayCreationExpr.getType(), dims, inits);
   }
 
   @Override
+  @SuppressWarnings("interning:not.interned") // checking whether the subexpressions were converted
   protected JavaExpression visitBinaryOperation(BinaryOperation binaryOpExpr, Void unused) {
     JavaExpression left = convert(binaryOpExpr.getLeft());
     JavaExpression right = convert(binaryOpExpr.getRight());
+    if (left == binaryOpExpr.getLeft() && right == binaryOpExpr.getRight()) {
+      return binaryOpExpr;
+    }
     return new BinaryOperation(
         binaryOpExpr.getType(), binaryOpExpr.getOperationKind(), left, right);
   }
@@ -74,8 +106,12 @@ public abstract class JavaExpressionConverter extends JavaExpressionVisitor<Java
   }
 
   @Override
+  @SuppressWarnings("interning:not.interned") // checking whether the receiver was converted
   protected JavaExpression visitFieldAccess(FieldAccess fieldAccessExpr, Void unused) {
     JavaExpression receiver = convert(fieldAccessExpr.getReceiver());
+    if (receiver == fieldAccessExpr.getReceiver()) {
+      return fieldAccessExpr;
+    }
     return new FieldAccess(receiver, fieldAccessExpr.getType(), fieldAccessExpr.getField());
   }
 
@@ -90,9 +126,14 @@ public abstract class JavaExpressionConverter extends JavaExpressionVisitor<Java
   }
 
   @Override
+  @SuppressWarnings("interning:not.interned") // checking whether the subexpressions were converted
   protected JavaExpression visitMethodCall(MethodCall methodCallExpr, Void unused) {
     JavaExpression receiver = convert(methodCallExpr.getReceiver());
     List<JavaExpression> args = convert(methodCallExpr.getArguments());
+    if (receiver == methodCallExpr.getReceiver()
+        && sameElements(methodCallExpr.getArguments(), args)) {
+      return methodCallExpr;
+    }
     return new MethodCall(methodCallExpr.getType(), methodCallExpr.getElement(), receiver, args);
   }
 
@@ -107,8 +148,12 @@ public abstract class JavaExpressionConverter extends JavaExpressionVisitor<Java
   }
 
   @Override
+  @SuppressWarnings("interning:not.interned") // checking whether the operand was converted
   protected JavaExpression visitUnaryOperation(UnaryOperation unaryOpExpr, Void unused) {
     JavaExpression operand = convert(unaryOpExpr.getOperand());
+    if (operand == unaryOpExpr.getOperand()) {
+      return unaryOpExpr;
+    }
     return new UnaryOperation(unaryOpExpr.getType(), unaryOpExpr.getOperationKind(), operand);
   }
 
@@ -19,6 +19,9 @@ public class LocalVariable extends JavaExpression {
   /** The element for this local variable. */
   protected final VariableElement element;
 
+  /** The hash code of this expression, computed once because the expression is immutable. */
+  private final int hash;
+
   /**
    * Creates a new LocalVariable.
    *
@@ -27,6 +30,7 @@ public class LocalVariable extends JavaExpression {
   public LocalVariable(LocalVariableNode localVar) {
     super(localVar.getType());
     this.element = localVar.getElement();
+    this.hash = computeHashCode(this.element);
   }
 
   /**
@@ -37,6 +41,7 @@ public class LocalVariable extends JavaExpression {
   public LocalVariable(VariableElement element) {
     super(ElementUtils.getType(element));
     this.element = element;
+    this.hash = computeHashCode(this.element);
   }
 
   @Override
@@ -67,6 +72,18 @@ public class LocalVariable extends JavaExpression {
     return vs1.pos == vs2.pos && vs1.name == vs2.name && vs1.owner.equals(vs2.owner);
   }
 
+  /**
+   * Returns the hash code of a local variable with the given element, consistent with {@link
+   * #sameElement}.
+   *
+   * @param element the element of a local variable
+   * @return the hash code of a local variable with the given element
+   */
+  private static int computeHashCode(VariableElement element) {
+    VarSymbol vs = (VarSymbol) element;
+    return Objects.hash(vs.pos, vs.name, vs.owner);
+  }
+
   /**
    * Returns the element for this variable.
    *
@@ -78,8 +95,7 @@ public class LocalVariable extends JavaExpression {
 
   @Override
   public int hashCode() {
-    VarSymbol vs = (VarSymbol) element;
-    return Objects.hash(vs.pos, vs.name, vs.owner);
+    return hash;
   }
 
   @Override
@@ -24,6 +24,9 @@ public class MethodCall extends JavaExpression {
   /** The arguments. */
   protected final List<JavaExpression> arguments;
 
+  /** The hash code of this expression, computed once because the expression is immutable. */
+  private final int hash;
+
   /**
    * Creates a new MethodCall.
    *
@@ -41,6 +44,7 @@ public class MethodCall extends JavaExpression {
     this.receiver = receiver;
     this.arguments = arguments;
     this.method = method;
+    this.hash = Objects.hash(method, receiver, arguments);
   }
 
   /**
@@ -93,6 +97,8 @@ public class MethodCall extends JavaExpression {
 
   @Override
   public boolean isDeterministic(AnnotationProvider provider) {
+    // The provider also knows the purity of unannotated methods, for example from summaries of
+    // their bodies.
     return (PurityUtils.isDeterministic(provider, method) || provider.isDeterministic(method))
         && listIsDeterministic(arguments, provider);
   }
@@ -155,6 +161,9 @@ public class MethodCall extends JavaExpression {
       return false;
     }
     MethodCall other = (MethodCall) obj;
+    if (hash != other.hash) {
+      return false;
+    }
     boolean isComparingSuperWithThis =
         (receiver instanceof SuperReference && other.receiver instanceof ThisReference)
             || (receiver instanceof ThisReference && other.receiver instanceof SuperReference);
@@ -165,10 +174,7 @@ public class MethodCall extends JavaExpression {
 
   @Override
   public int hashCode() {
-    if (method.getKind() == ElementKind.CONSTRUCTOR) {
-      return System.identityHashCode(this);
-    }
-    return Objects.hash(method, receiver, arguments);
+    return hash;
   }
 
   @Override
@@ -18,6 +18,9 @@ public class UnaryOperation extends JavaExpression {
   /** The operand. */
   protected final JavaExpression operand;
 
+  /** The hash code of this expression, computed once because the expression is immutable. */
+  private final int hash;
+
   /**
    * Create a unary operation.
    *
@@ -29,6 +32,7 @@ public class UnaryOperation extends JavaExpression {
     super(operand.type);
     this.operationKind = operationKind;
     this.operand = operand;
+    this.hash = Objects.hash(operationKind, operand);
   }
 
   /**
@@ -104,16 +108,21 @@ public class UnaryOperation extends JavaExpression {
 
   @Override
   public int hashCode() {
-    return Objects.hash(operationKind, operand);
+    return hash;
   }
 
   @Override
   public boolean equals(@Nullable Object other) {
+    if (this == other) {
+      return true;
+    }
     if (!(other instanceof UnaryOperation)) {
       return false;
     }
     UnaryOperation unOp = (UnaryOperation) other;
-    return operationKind == unOp.getOperationKind() && operand.equals(unOp.operand);
+    return hash == unOp.hash
+        && operationKind == unOp.getOperationKind()
+        && operand.equals(unOp.operand);
   }
 
   @Override
@@ -17,6 +17,9 @@ public class ValueLiteral extends JavaExpression {
   /** The value of the literal. */
   protected final @Nullable Object value;
 
+  /** The hash code of this expression, computed once because the expression is immutable. */
+  private final int hash;
+
   /** The negative of Long.MIN_VALUE, which does not fit in a long. */
   private static final BigInteger NEGATIVE_LONG_MIN_VALUE = new BigInteger("9223372036854775808");
 
@@ -30,6 +33,7 @@ public class ValueLiteral extends JavaExpression {
   public ValueLiteral(TypeMirror type, ValueLiteralNode node) {
     super(type);
     value = node.getValue();
+    this.hash = Objects.hash(value, type.toString());
   }
 
   /**
@@ -41,6 +45,7 @@ public class ValueLiteral extends JavaExpression {
   public ValueLiteral(TypeMirror type, @Nullable Object value) {
     super(type);
     this.value = value;
+    this.hash = Objects.hash(value, type.toString());
   }
 
   /**
@@ -163,7 +168,7 @@ public class ValueLiteral extends JavaExpression {
 
   @Override
   public int hashCode() {
-    return Objects.hash(value, type.toString());
+    return hash;
   }
 
   @Override
@@ -31,6 +31,16 @@ public class LiveVarNode {
     this.liveVariable = n;
   }
 
+  /**
+   * Returns the node that represents this live variable.
+   *
+   * @return a {@link org.checkerframework.dataflow.cfg.node.LocalVariableNode} or {@link
+   *     org.checkerframework.dataflow.cfg.node.FieldAccessNode}
+   */
+  public Node getNode() {
+    return liveVariable;
+  }
+
   @Override
   public int hashCode() {
     return this.liveVariable.hashCode();
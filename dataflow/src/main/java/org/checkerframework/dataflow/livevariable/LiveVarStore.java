@@ -1,5 +1,6 @@
 package org.checkerframework.dataflow.livevariable;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -40,6 +41,15 @@ public class LiveVarStore implements Store<LiveVarStore> {
     this.liveVarNodeSet = liveVarNodeSet;
   }
 
+  /**
+   * Returns the live variables in this store.
+   *
+   * @return an unmodifiable view of the live variables in this store
+   */
+  public Set<LiveVarNode> getLiveVariables() {
+    return Collections.unmodifiableSet(liveVarNodeSet);
+  }
+
   /**
    * Add the information of a live variable into the live variable set.
    *
@@ -0,0 +1,143 @@
+package org.checkerframework.dataflow.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGLambda;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGMethod;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGStatement;
+
+/**
+ * JDK Flight Recorder events for the phases of dataflow analysis. Open a recording in JDK Mission
+ * Control to see how much time is spent building control flow graphs and running analyses, and on
+ * which methods.
+ *
+ * <p>An event costs almost nothing unless a recording that enables it is in progress. Clients
+ * should create an event only if {@link #ENABLED} is true, and should compute its fields only if
+ * {@link Event#shouldCommit()} returns true:
+ *
+ * <pre>{@code
+ * CfgBuildEvent event = DataflowEvents.ENABLED ? new CfgBuildEvent() : null;
+ * if (event != null) {
+ *   event.begin();
+ * }
+ * ... // do the work
+ * if (event != null && event.shouldCommit()) {
+ *   event.method = ...;
+ *   event.commit();
+ * }
+ * }</pre>
+ */
+public final class DataflowEvents {
+
+  /**
+   * True if the running JVM supports Flight Recorder events. It does not on some Java 8 JVMs; on
+   * those, the event classes must not be loaded.
+   */
+  public static final boolean ENABLED = isFlightRecorderAvailable();
+
+  /** Do not instantiate. */
+  private DataflowEvents() {
+    throw new Error("Do not instantiate");
+  }
+
+  /**
+   * Returns true if the running JVM supports Flight Recorder events.
+   *
+   * @return true if the running JVM supports Flight Recorder events
+   */
+  private static boolean isFlightRecorderAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns a short description of the code that a control flow graph represents, such as {@code
+   * MyClass.myMethod}.
+   *
+   * @param ast the code that a control flow graph represents
+   * @return a short description of {@code ast}
+   */
+  public static String describe(UnderlyingAST ast) {
+    switch (ast.getKind()) {
+      case METHOD:
+        CFGMethod method = (CFGMethod) ast;
+        return method.getSimpleClassName() + "." + method.getMethodName();
+      case LAMBDA:
+        CFGLambda lambda = (CFGLambda) ast;
+        return lambda.getSimpleClassName() + "." + lambda.getMethodName() + " (lambda)";
+      case ARBITRARY_CODE:
+        return ((CFGStatement) ast).getSimpleClassName() + " (initializer)";
+      default:
+        return ast.toString();
+    }
+  }
+
+  /**
+   * Returns the number of basic blocks in a control flow graph.
+   *
+   * @param cfg a control flow graph
+   * @return the number of basic blocks in {@code cfg}
+   */
+  public static int blockCount(ControlFlowGraph cfg) {
+    return cfg.getAllBlocks().size();
+  }
+
+  /** The construction of a control flow graph. */
+  @Name("org.checkerframework.CFGBuild")
+  @Label("Build CFG")
+  @Category({"Checker Framework", "Dataflow"})
+  @Description("Construction of the control flow graph of a method, lambda, or initializer")
+  public static final class CfgBuildEvent extends Event {
+
+    /** The code whose control flow graph was built. */
+    @Label("Method")
+    public String method = "";
+
+    /** The number of basic blocks in the control flow graph. */
+    @Label("Blocks")
+    public int blockCount;
+
+    /** Creates a CfgBuildEvent. */
+    public CfgBuildEvent() {}
+  }
+
+  /** A run of a dataflow analysis over one control flow graph, to a fixpoint. */
+  @Name("org.checkerframework.DataflowAnalysis")
+  @Label("Dataflow Analysis")
+  @Category({"Checker Framework", "Dataflow"})
+  @Description("Fixpoint iteration of a dataflow analysis over one control flow graph")
+  public static final class AnalysisEvent extends Event {
+
+    /** The code that was analyzed. */
+    @Label("Method")
+    public String method = "";
+
+    /** The transfer function, which identifies the checker that ran the analysis. */
+    @Label("Transfer Function")
+    public String transferFunction = "";
+
+    /** The number of basic blocks in the control flow graph. */
+    @Label("Blocks")
+    public int blockCount;
+
+    /** The number of times a block was taken from the worklist and analyzed. */
+    @Label("Iterations")
+    public int iterationCount;
+
+    /** The order in which the analysis visited the blocks. */
+    @Label("Iteration Strategy")
+    public String iterationStrategy = "";
+
+    /** Creates an AnalysisEvent. */
+    public AnalysisEvent() {}
+  }
+}
@@ -0,0 +1,235 @@
+package org.checkerframework.dataflow.util;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.node.Node;
+
+/**
+ * A map from {@link Node}s or {@link Block}s to values, stored in arrays indexed by the dense IDs
+ * of the keys (see {@link Node#getDenseId()} and {@link Block#getDenseId()}). Lookups need neither
+ * hashing nor entry objects. Keys compare by identity, as in an {@link IdentityHashMap}.
+ *
+ * <p>The arrays cover the range of dense IDs of the keys, so the map is compact when its keys come
+ * from a few control flow graphs that were numbered at about the same time, such as the graphs of
+ * one class. A key whose dense ID is -1, would make the arrays too sparse, or is shared with
+ * another key, is stored in an {@link IdentityHashMap} instead.
+ *
+ * <p>Only {@link #get}, {@link #containsKey}, {@link #put}, {@link #remove}, {@link #clear}, and
+ * {@link #size} are efficient. The views returned by {@link #entrySet} and the other view methods
+ * are unmodifiable snapshots.
+ *
+ * @param <K> the type of keys: {@link Node} or {@link Block}
+ * @param <V> the type of values
+ */
+public final class DenseIdMap<K, V> extends AbstractMap<K, V> {
+
+  /**
+   * The arrays may have at most this many slots per entry, plus {@link #MIN_CAPACITY}, before keys
+   * are stored in {@link #overflow} instead.
+   */
+  private static final int MAX_SLOTS_PER_ENTRY = 4;
+
+  /** The initial length of the arrays. */
+  private static final int MIN_CAPACITY = 64;
+
+  /** Returns the dense ID of a key, or -1 if the object is not a key of this map's key type. */
+  private final ToIntFunction<@Nullable Object> denseId;
+
+  /** The dense ID of the key in slot 0 of {@link #keys} and {@link #values}. */
+  private int base = 0;
+
+  /** The keys, indexed by dense ID minus {@link #base}; null for an empty slot. */
+  private @Nullable Object[] keys = new Object[0];
+
+  /** The values, indexed by dense ID minus {@link #base}; null for an empty slot. */
+  private @Nullable Object[] values = new Object[0];
+
+  /** The number of non-empty slots. */
+  private int slotCount = 0;
+
+  /** The entries that are not stored in the arrays. */
+  private final IdentityHashMap<K, V> overflow = new IdentityHashMap<>();
+
+  /**
+   * Creates a DenseIdMap.
+   *
+   * @param denseId returns the dense ID of a key, or -1 if the object is not a key
+   */
+  private DenseIdMap(ToIntFunction<@Nullable Object> denseId) {
+    this.denseId = denseId;
+  }
+
+  /**
+   * Returns a new, empty map whose keys are nodes.
+   *
+   * @param <V> the type of values
+   * @return a new, empty map whose keys are nodes
+   */
+  public static <V> DenseIdMap<Node, V> forNodes() {
+    return new DenseIdMap<>(key -> key instanceof Node ? ((Node) key).getDenseId() : -1);
+  }
+
+  /**
+   * Returns a new, empty map whose keys are blocks.
+   *
+   * @param <V> the type of values
+   * @return a new, empty map whose keys are blocks
+   */
+  public static <V> DenseIdMap<Block, V> forBlocks() {
+    return new DenseIdMap<>(key -> key instanceof Block ? ((Block) key).getDenseId() : -1);
+  }
+
+  /**
+   * Returns the slot of {@code key} in the arrays, or -1 if the key is not stored there.
+   *
+   * @param key a key
+   * @return the slot of {@code key}, or -1
+   */
+  @SuppressWarnings("interning:not.interned") // keys compare by identity
+  private int slotOf(@Nullable Object key) {
+    int id = denseId.applyAsInt(key);
+    if (id < 0) {
+      return -1;
+    }
+    int slot = id - base;
+    if (slot < 0 || slot >= keys.length || keys[slot] != key) {
+      return -1;
+    }
+    return slot;
+  }
+
+  @Override
+  public int size() {
+    return slotCount + overflow.size();
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    return slotOf(key) >= 0 || overflow.containsKey(key);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked") // only values of type V are stored
+  public @Nullable V get(@Nullable Object key) {
+    int slot = slotOf(key);
+    if (slot >= 0) {
+      return (V) values[slot];
+    }
+    return overflow.isEmpty() ? null : overflow.get(key);
+  }
+
+  @Override
+  @SuppressWarnings({
+    "unchecked", // only values of type V are stored
+    "interning:not.interned" // keys compare by identity
+  })
+  public @Nullable V put(K key, V value) {
+    int id = denseId.applyAsInt(key);
+    if (id >= 0 && value != null && ensureSlot(id)) {
+      int slot = id - base;
+      Object oldKey = keys[slot];
+      if (oldKey == null || oldKey == key) {
+        V old;
+        if (oldKey == null) {
+          // An earlier entry for the key might be in the overflow map.
+          old = overflow.isEmpty() ? null : overflow.remove(key);
+          slotCount++;
+        } else {
+          old = (V) values[slot];
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        return old;
+      }
+    }
+    // The key cannot be stored in the arrays, but an earlier entry for it might be.
+    V old = remove(key);
+    overflow.put(key, value);
+    return old;
+  }
+
+  /**
+   * Grows the arrays, if necessary and if they do not become too sparse, to include a slot for
+   * dense ID {@code id}.
+   *
+   * @param id a non-negative dense ID
+   * @return true if the arrays include a slot for {@code id}
+   */
+  private boolean ensureSlot(int id) {
+    if (keys.length == 0) {
+      keys = new Object[MIN_CAPACITY];
+      values = new Object[MIN_CAPACITY];
+      base = id;
+      return true;
+    }
+    if (id >= base && id - base < keys.length) {
+      return true;
+    }
+    long newBase = Math.min((long) base, id);
+    long newEnd = Math.max((long) base + keys.length, (long) id + 1);
+    // Grow by at least half, to make a sequence of puts take linear time.
+    long newLength = Math.max(newEnd - newBase, keys.length + (keys.length >> 1));
+    if (newLength > (long) MAX_SLOTS_PER_ENTRY * (slotCount + 1) + MIN_CAPACITY
+        || newLength > Integer.MAX_VALUE - 8) {
+      return false;
+    }
+    if (id < base) {
+      // Leave the extra room below the lowest ID, where the next IDs probably are.
+      newBase = Math.max(0, newEnd - newLength);
+    }
+    int shift = (int) (base - newBase);
+    Object[] newKeys = new Object[(int) newLength];
+    Object[] newValues = new Object[(int) newLength];
+    System.arraycopy(keys, 0, newKeys, shift, keys.length);
+    System.arraycopy(values, 0, newValues, shift, values.length);
+    keys = newKeys;
+    values = newValues;
+    base = (int) newBase;
+    return id >= base && id - base < keys.length;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked") // only values of type V are stored
+  public @Nullable V remove(@Nullable Object key) {
+    int slot = slotOf(key);
+    if (slot >= 0) {
+      V old = (V) values[slot];
+      keys[slot] = null;
+      values[slot] = null;
+      slotCount--;
+      return old;
+    }
+    return overflow.isEmpty() ? null : overflow.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    keys = new Object[0];
+    values = new Object[0];
+    slotCount = 0;
+    overflow.clear();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked") // only keys of type K and values of type V are stored
+  public Set<Map.Entry<K, V>> entrySet() {
+    // Nodes override equals(), so use an identity set to keep distinct entries.
+    Set<Map.Entry<K, V>> result = Collections.newSetFromMap(new IdentityHashMap<>(size()));
+    for (int i = 0; i < keys.length; i++) {
+      Object key = keys[i];
+      if (key != null) {
+        result.add(new SimpleImmutableEntry<>((K) key, (V) values[i]));
+      }
+    }
+    for (Map.Entry<K, V> entry : overflow.entrySet()) {
+      result.add(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+    }
+    return Collections.unmodifiableSet(result);
+  }
+}
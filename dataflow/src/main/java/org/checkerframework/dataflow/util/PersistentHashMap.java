@@ -0,0 +1,623 @@
+package org.checkerframework.dataflow.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A hash map whose copies share structure. The entries are stored in an immutable hash array
+ * mapped trie; a modification replaces the path from the root to the modified entry and shares the
+ * rest of the trie with earlier versions. Therefore:
+ *
+ * <ul>
+ *   <li>{@link #PersistentHashMap(PersistentHashMap) copying} takes constant time, and so does a
+ *       {@link #PersistentHashMap(PersistentHashMap) copy} that is modified a little;
+ *   <li>{@link #allMatchExceptShared} visits only the entries that are not in subtrees that two
+ *       maps share, so comparing or joining a map with a slightly modified copy is fast; and
+ *   <li>an iterator iterates over the entries that the map had when the iterator was created. The
+ *       map may be modified during the iteration, and {@link Iterator#remove} is supported.
+ * </ul>
+ *
+ * <p>Lookups and modifications take time logarithmic in the size of the map, with a base of 32.
+ * Keys and values may be null.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+  /** The number of hash bits that select a child at each level of the trie. */
+  private static final int BITS_PER_LEVEL = 5;
+
+  /** Masks the hash bits that select a child at one level of the trie. */
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+  /** The trie of an empty map. */
+  private static final Branch EMPTY = new Branch(0, new Object[0]);
+
+  /** The root of the trie. */
+  private Trie root;
+
+  /** The number of entries. */
+  private int size;
+
+  /** Creates an empty map. */
+  public PersistentHashMap() {
+    this.root = EMPTY;
+    this.size = 0;
+  }
+
+  /**
+   * Creates a map with the same entries as {@code other}, in constant time. Later modifications of
+   * either map do not affect the other.
+   *
+   * @param other the map to copy
+   */
+  public PersistentHashMap(PersistentHashMap<K, V> other) {
+    this.root = other.root;
+    this.size = other.size;
+  }
+
+  /**
+   * Makes this map have the same entries as {@code other}, in constant time. Later modifications
+   * of either map do not affect the other.
+   *
+   * @param other the map whose entries to use
+   */
+  public void setTo(PersistentHashMap<K, V> other) {
+    this.root = other.root;
+    this.size = other.size;
+  }
+
+  /**
+   * Returns true if this map certainly has the same entries as {@code other}, because neither was
+   * modified since one was copied from the other. If this returns false, the maps might still be
+   * equal.
+   *
+   * @param other another map
+   * @return true if this map and {@code other} share all their entries
+   */
+  public boolean isSameAs(PersistentHashMap<K, V> other) {
+    return root == other.root;
+  }
+
+  /**
+   * Returns true if {@code predicate} holds for every entry of this map that is not in a subtree
+   * that this map shares with {@code other}. An entry that is not visited is mapped to the very
+   * same value in {@code other}. Stops at the first entry for which {@code predicate} is false.
+   *
+   * <p>For example, {@code a.allMatchExceptShared(b, (k, v) -> Objects.equals(b.get(k), v))} is
+   * true iff {@code b} contains all the entries of {@code a}, and visits only the entries that
+   * were put into {@code a} or {@code b} since one was copied from the other.
+   *
+   * @param other another map
+   * @param predicate the predicate to test the entries with
+   * @return true if {@code predicate} holds for every visited entry
+   */
+  @SuppressWarnings("unchecked") // only keys of type K and values of type V are stored
+  public boolean allMatchExceptShared(
+      PersistentHashMap<K, V> other, BiPredicate<? super K, ? super V> predicate) {
+    return allMatchExceptShared(root, other.root, (BiPredicate<Object, Object>) predicate);
+  }
+
+  /**
+   * Implements {@link #allMatchExceptShared(PersistentHashMap, BiPredicate)} for one subtree.
+   *
+   * @param trie a subtree of this map
+   * @param otherTrie the subtree of the other map at the same position, or null
+   * @param predicate the predicate to test the entries with
+   * @return true if {@code predicate} holds for every visited entry
+   */
+  @SuppressWarnings("interning:not.interned") // shared subtrees are the same object
+  private static boolean allMatchExceptShared(
+      Trie trie, @Nullable Trie otherTrie, BiPredicate<Object, Object> predicate) {
+    if (trie == otherTrie) {
+      return true;
+    }
+    if (trie instanceof Collision) {
+      for (Leaf leaf : ((Collision) trie).leaves) {
+        if (!predicate.test(leaf.key, leaf.value)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    Branch branch = (Branch) trie;
+    Branch otherBranch = otherTrie instanceof Branch ? (Branch) otherTrie : null;
+    int bitmap = branch.bitmap;
+    for (int i = 0; bitmap != 0; i++) {
+      int bit = Integer.lowestOneBit(bitmap);
+      bitmap &= ~bit;
+      Object slot = branch.slots[i];
+      Object otherSlot = otherBranch == null ? null : otherBranch.slotFor(bit);
+      if (slot == otherSlot) {
+        continue;
+      }
+      if (slot instanceof Leaf) {
+        Leaf leaf = (Leaf) slot;
+        if (!predicate.test(leaf.key, leaf.value)) {
+          return false;
+        }
+      } else if (!allMatchExceptShared(
+          (Trie) slot, otherSlot instanceof Trie ? (Trie) otherSlot : null, predicate)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the hash code of a key, with its bits spread so that keys whose hash codes differ only
+   * in their high bits get different children near the root.
+   *
+   * @param key a key
+   * @return the hash code of {@code key}
+   */
+  private static int hash(@Nullable Object key) {
+    int h = key == null ? 0 : key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    return root.find(key, hash(key), 0) != null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked") // only values of type V are stored
+  public @Nullable V get(@Nullable Object key) {
+    Leaf leaf = root.find(key, hash(key), 0);
+    return leaf == null ? null : (V) leaf.value;
+  }
+
+  @Override
+  @SuppressWarnings({
+    "unchecked", // only values of type V are stored
+    "interning:not.interned" // an unchanged value needs no new trie
+  })
+  public @Nullable V put(K key, V value) {
+    int hash = hash(key);
+    Leaf old = root.find(key, hash, 0);
+    if (old != null && old.value == value) {
+      return value;
+    }
+    root = root.put(new Leaf(key, hash, value), 0);
+    if (old == null) {
+      size++;
+      return null;
+    }
+    return (V) old.value;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked") // only values of type V are stored
+  public @Nullable V remove(@Nullable Object key) {
+    int hash = hash(key);
+    Leaf old = root.find(key, hash, 0);
+    if (old == null) {
+      return null;
+    }
+    Object newRoot = root.remove(key, hash, 0);
+    if (newRoot instanceof Leaf) {
+      root = EMPTY.put((Leaf) newRoot, 0);
+    } else {
+      root = newRoot == null ? EMPTY : (Trie) newRoot;
+    }
+    size--;
+    return (V) old.value;
+  }
+
+  @Override
+  public void clear() {
+    root = EMPTY;
+    size = 0;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public void clear() {
+        PersistentHashMap.this.clear();
+      }
+    };
+  }
+
+  /**
+   * Iterates over the entries that the map had when the iterator was created, depth-first. Removes
+   * entries from the map, not from the snapshot.
+   */
+  private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+    /** The subtrees being iterated over, from the root down. */
+    private final Trie[] stack = new Trie[Integer.SIZE / BITS_PER_LEVEL + 2];
+
+    /** The index of the next slot or leaf of each subtree in {@link #stack}. */
+    private final int[] indexes = new int[stack.length];
+
+    /** The number of subtrees in {@link #stack}. */
+    private int depth;
+
+    /** The next leaf to return, or null if there is none. */
+    private @Nullable Leaf next;
+
+    /** The leaf that was returned last, or null if it was removed or none was returned. */
+    private @Nullable Leaf last = null;
+
+    /** Creates an EntryIterator. */
+    EntryIterator() {
+      stack[0] = root;
+      indexes[0] = 0;
+      depth = 1;
+      next = advance();
+    }
+
+    /**
+     * Returns the next leaf in depth-first order, or null if there is none.
+     *
+     * @return the next leaf, or null
+     */
+    private @Nullable Leaf advance() {
+      while (depth > 0) {
+        Trie trie = stack[depth - 1];
+        int index = indexes[depth - 1]++;
+        if (trie instanceof Collision) {
+          Leaf[] leaves = ((Collision) trie).leaves;
+          if (index < leaves.length) {
+            return leaves[index];
+          }
+          depth--;
+          continue;
+        }
+        Object[] slots = ((Branch) trie).slots;
+        if (index >= slots.length) {
+          depth--;
+        } else if (slots[index] instanceof Leaf) {
+          return (Leaf) slots[index];
+        } else {
+          stack[depth] = (Trie) slots[index];
+          indexes[depth] = 0;
+          depth++;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // only keys of type K and values of type V are stored
+    public Map.Entry<K, V> next() {
+      Leaf result = next;
+      if (result == null) {
+        throw new NoSuchElementException();
+      }
+      next = advance();
+      last = result;
+      return new SimpleImmutableEntry<>((K) result.key, (V) result.value);
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      PersistentHashMap.this.remove(last.key);
+      last = null;
+    }
+  }
+
+  /** An immutable node of the trie: a {@link Branch} or a {@link Collision}. */
+  private abstract static class Trie {
+
+    /**
+     * Returns the leaf for {@code key}, or null if there is none.
+     *
+     * @param key a key
+     * @param hash the hash of {@code key}
+     * @param shift the number of hash bits that select the path to this trie
+     * @return the leaf for {@code key}, or null
+     */
+    abstract @Nullable Leaf find(@Nullable Object key, int hash, int shift);
+
+    /**
+     * Returns a trie with the entries of this one and {@code leaf}, which replaces the leaf for the
+     * same key, if any.
+     *
+     * @param leaf the entry to add
+     * @param shift the number of hash bits that select the path to this trie
+     * @return a trie with {@code leaf}
+     */
+    abstract Trie put(Leaf leaf, int shift);
+
+    /**
+     * Returns the entries of this trie without {@code key}: a trie, a single leaf that the caller
+     * should store in place of this trie, or null if no entries remain. Requires that this trie
+     * contains {@code key}.
+     *
+     * @param key a key of this trie
+     * @param hash the hash of {@code key}
+     * @param shift the number of hash bits that select the path to this trie
+     * @return the remaining entries: a trie, a leaf, or null
+     */
+    abstract @Nullable Object remove(@Nullable Object key, int hash, int shift);
+  }
+
+  /** An entry of the map. */
+  private static final class Leaf {
+
+    /** The key. */
+    final @Nullable Object key;
+
+    /** The hash of {@link #key}. */
+    final int hash;
+
+    /** The value. */
+    final @Nullable Object value;
+
+    /**
+     * Creates a Leaf.
+     *
+     * @param key the key
+     * @param hash the hash of {@code key}
+     * @param value the value
+     */
+    Leaf(@Nullable Object key, int hash, @Nullable Object value) {
+      this.key = key;
+      this.hash = hash;
+      this.value = value;
+    }
+
+    /**
+     * Returns true if this is the leaf for {@code key}.
+     *
+     * @param key a key
+     * @param hash the hash of {@code key}
+     * @return true if this is the leaf for {@code key}
+     */
+    boolean matches(@Nullable Object key, int hash) {
+      return this.hash == hash && Objects.equals(this.key, key);
+    }
+  }
+
+  /**
+   * A trie node with up to 32 children, selected by {@link #BITS_PER_LEVEL} bits of the hash. Each
+   * child is a {@link Leaf} or a {@link Trie}.
+   */
+  private static final class Branch extends Trie {
+
+    /** Has a bit set for each child that is present. */
+    final int bitmap;
+
+    /** The children that are present, in the order of their bits in {@link #bitmap}. */
+    final Object[] slots;
+
+    /**
+     * Creates a Branch.
+     *
+     * @param bitmap has a bit set for each child that is present
+     * @param slots the children
+     */
+    Branch(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    /**
+     * Returns the bit in {@link #bitmap} that selects the child for {@code hash}.
+     *
+     * @param hash a hash
+     * @param shift the number of hash bits that select the path to this trie
+     * @return the bit for {@code hash}
+     */
+    static int bitFor(int hash, int shift) {
+      return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    /**
+     * Returns the index in {@link #slots} of the child selected by {@code bit}.
+     *
+     * @param bit a bit of {@link #bitmap}
+     * @return the index of the child selected by {@code bit}
+     */
+    int indexOf(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /**
+     * Returns the child selected by {@code bit}, or null if there is none.
+     *
+     * @param bit a single bit
+     * @return the child selected by {@code bit}, or null
+     */
+    @Nullable Object slotFor(int bit) {
+      return (bitmap & bit) == 0 ? null : slots[indexOf(bit)];
+    }
+
+    @Override
+    @Nullable Leaf find(@Nullable Object key, int hash, int shift) {
+      Object slot = slotFor(bitFor(hash, shift));
+      if (slot instanceof Leaf) {
+        Leaf leaf = (Leaf) slot;
+        return leaf.matches(key, hash) ? leaf : null;
+      }
+      return slot == null ? null : ((Trie) slot).find(key, hash, shift + BITS_PER_LEVEL);
+    }
+
+    @Override
+    Trie put(Leaf leaf, int shift) {
+      int bit = bitFor(leaf.hash, shift);
+      int index = indexOf(bit);
+      if ((bitmap & bit) == 0) {
+        Object[] newSlots = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, newSlots, 0, index);
+        newSlots[index] = leaf;
+        System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+        return new Branch(bitmap | bit, newSlots);
+      }
+      Object slot = slots[index];
+      Object newSlot;
+      if (slot instanceof Leaf) {
+        Leaf oldLeaf = (Leaf) slot;
+        newSlot =
+            oldLeaf.matches(leaf.key, leaf.hash)
+                ? leaf
+                : merge(oldLeaf, leaf, shift + BITS_PER_LEVEL);
+      } else {
+        newSlot = ((Trie) slot).put(leaf, shift + BITS_PER_LEVEL);
+      }
+      return withSlot(index, newSlot);
+    }
+
+    /**
+     * Returns a trie that contains two leaves with different keys.
+     *
+     * @param a a leaf
+     * @param b another leaf
+     * @param shift the number of hash bits that select the path to the new trie
+     * @return a trie that contains {@code a} and {@code b}
+     */
+    static Trie merge(Leaf a, Leaf b, int shift) {
+      if (a.hash == b.hash) {
+        return new Collision(a.hash, new Leaf[] {a, b});
+      }
+      int bitA = bitFor(a.hash, shift);
+      int bitB = bitFor(b.hash, shift);
+      if (bitA == bitB) {
+        return new Branch(bitA, new Object[] {merge(a, b, shift + BITS_PER_LEVEL)});
+      }
+      // Compare unsigned, because the bit of child 31 is the sign bit.
+      Object[] slots =
+          Integer.compareUnsigned(bitA, bitB) < 0 ? new Object[] {a, b} : new Object[] {b, a};
+      return new Branch(bitA | bitB, slots);
+    }
+
+    /**
+     * Returns a copy of this with a different child at {@code index}.
+     *
+     * @param index an index into {@link #slots}
+     * @param slot the new child
+     * @return a copy of this with {@code slot} at {@code index}
+     */
+    Branch withSlot(int index, Object slot) {
+      Object[] newSlots = slots.clone();
+      newSlots[index] = slot;
+      return new Branch(bitmap, newSlots);
+    }
+
+    @Override
+    @Nullable Object remove(@Nullable Object key, int hash, int shift) {
+      int bit = bitFor(hash, shift);
+      int index = indexOf(bit);
+      Object slot = slots[index];
+      Object newSlot =
+          slot instanceof Leaf ? null : ((Trie) slot).remove(key, hash, shift + BITS_PER_LEVEL);
+      if (newSlot != null) {
+        return withSlot(index, newSlot);
+      }
+      if (slots.length == 1) {
+        return null;
+      }
+      if (slots.length == 2 && slots[1 - index] instanceof Leaf) {
+        // Let the parent store the remaining leaf directly.
+        return slots[1 - index];
+      }
+      Object[] newSlots = new Object[slots.length - 1];
+      System.arraycopy(slots, 0, newSlots, 0, index);
+      System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+      return new Branch(bitmap & ~bit, newSlots);
+    }
+  }
+
+  /** A trie node for keys whose hashes are equal. */
+  private static final class Collision extends Trie {
+
+    /** The hash of all the keys. */
+    final int hash;
+
+    /** The leaves; at least two. */
+    final Leaf[] leaves;
+
+    /**
+     * Creates a Collision.
+     *
+     * @param hash the hash of all the keys
+     * @param leaves the leaves
+     */
+    Collision(int hash, Leaf[] leaves) {
+      this.hash = hash;
+      this.leaves = leaves;
+    }
+
+    @Override
+    @Nullable Leaf find(@Nullable Object key, int hash, int shift) {
+      if (hash == this.hash) {
+        for (Leaf leaf : leaves) {
+          if (leaf.matches(key, hash)) {
+            return leaf;
+          }
+        }
+      }
+      return null;
+    }
+
+    @Override
+    Trie put(Leaf leaf, int shift) {
+      if (leaf.hash != hash) {
+        // The hashes differ in a later level: make a branch that holds both.
+        int bit = Branch.bitFor(hash, shift);
+        return new Branch(bit, new Object[] {this}).put(leaf, shift);
+      }
+      for (int i = 0; i < leaves.length; i++) {
+        if (leaves[i].matches(leaf.key, leaf.hash)) {
+          Leaf[] newLeaves = leaves.clone();
+          newLeaves[i] = leaf;
+          return new Collision(hash, newLeaves);
+        }
+      }
+      Leaf[] newLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+      newLeaves[leaves.length] = leaf;
+      return new Collision(hash, newLeaves);
+    }
+
+    @Override
+    Object remove(@Nullable Object key, int hash, int shift) {
+      int index = 0;
+      while (!leaves[index].matches(key, hash)) {
+        index++;
+      }
+      if (leaves.length == 2) {
+        return leaves[1 - index];
+      }
+      Leaf[] newLeaves = new Leaf[leaves.length - 1];
+      System.arraycopy(leaves, 0, newLeaves, 0, index);
+      System.arraycopy(leaves, index + 1, newLeaves, index, leaves.length - index - 1);
+      return new Collision(hash, newLeaves);
+    }
+  }
+}
@@ -245,25 +245,33 @@ public class PurityChecker {
     @Override
     public Void visitMethodInvocation(MethodInvocationTree tree, Void ignore) {
       ExecutableElement elt = TreeUtils.elementFromUse(tree);
-      if (!PurityUtils.hasPurityAnnotation(annoProvider, elt)) {
-        purityResult.addNotBothReason(tree, "call");
+      EnumSet<Pure.Kind> purityKinds;
+      if ((assumeDeterministic && assumeSideEffectFree)
+          || (assumePureGetters && ElementUtils.isGetter(elt))) {
+        // Avoid computation if not necessary
+        purityKinds = detAndSeFree;
+      } else if (PurityUtils.hasPurityAnnotation(annoProvider, elt)) {
+        purityKinds = PurityUtils.getPurityKinds(annoProvider, elt);
       } else {
-        EnumSet<Pure.Kind> purityKinds =
-            ((assumeDeterministic && assumeSideEffectFree)
-                    || (assumePureGetters && ElementUtils.isGetter(elt)))
-                // Avoid computation if not necessary
-                ? detAndSeFree
-                : PurityUtils.getPurityKinds(annoProvider, elt);
-        boolean det = assumeDeterministic || purityKinds.contains(Pure.Kind.DETERMINISTIC);
-        boolean seFree = assumeSideEffectFree || purityKinds.contains(Pure.Kind.SIDE_EFFECT_FREE);
-        if (!det && !seFree) {
-          purityResult.addNotBothReason(tree, "call");
-        } else if (!det) {
-          purityResult.addNotDetReason(tree, "call");
-        } else if (!seFree) {
-          purityResult.addNotSEFreeReason(tree, "call");
+        // The annotation provider may know the purity of an unannotated method, for example from
+        // a summary of its body.
+        purityKinds = EnumSet.noneOf(Pure.Kind.class);
+        if (annoProvider.isDeterministic(elt)) {
+          purityKinds.add(Pure.Kind.DETERMINISTIC);
+        }
+        if (annoProvider.isSideEffectFree(elt)) {
+          purityKinds.add(Pure.Kind.SIDE_EFFECT_FREE);
         }
       }
+      boolean det = assumeDeterministic || purityKinds.contains(Pure.Kind.DETERMINISTIC);
+      boolean seFree = assumeSideEffectFree || purityKinds.contains(Pure.Kind.SIDE_EFFECT_FREE);
+      if (!det && !seFree) {
+        purityResult.addNotBothReason(tree, "call");
+      } else if (!det) {
+        purityResult.addNotDetReason(tree, "call");
+      } else if (!seFree) {
+        purityResult.addNotSEFreeReason(tree, "call");
+      }
       return super.visitMethodInvocation(tree, ignore);
     }
 
@@ -0,0 +1,183 @@
+package exceptionaledges;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.block.ExceptionBlock;
+import org.checkerframework.dataflow.cfg.node.MarkerNode;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.cfg.visualize.CFGVisualizeLauncher;
+
+/**
+ * Used in exceptionalEdgesTest Gradle task to test the shape of control flow graphs whose
+ * exceptional edges are summarized per try frame.
+ */
+public class ExceptionalEdges {
+
+  /** The prefix of the message of a summary exceptional exit. */
+  private static final String SUMMARY_PREFIX = "exceptional exit of try frame";
+
+  /**
+   * The main method expects to be run in dataflow/tests/exceptional-edges directory.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    // The methods of Test.java, and the number of their try frames in which some node may throw.
+    check("tryCatch", 1, false);
+    check("manyCalls", 1, true);
+    check("tryCatchFinally", 2, false);
+    check("nested", 2, false);
+  }
+
+  /**
+   * Builds the control flow graph of {@code method} with and without summarized exceptional edges,
+   * and checks the shape of both.
+   *
+   * @param method the name of a method of Test.java
+   * @param frames the number of try frames of the method in which some node may throw
+   * @param fewerEdges true if summarizing should remove exceptional edges: that is so when many
+   *     nodes of a try block may throw to several handlers
+   */
+  private static void check(String method, int frames, boolean fewerEdges) {
+    ControlFlowGraph full = CFGVisualizeLauncher.generateMethodCFG("Test.java", "Test", method);
+    ControlFlowGraph summarized =
+        CFGVisualizeLauncher.generateMethodCFG("Test.java", "Test", method, true);
+    full.checkInvariants();
+    summarized.checkInvariants();
+
+    expect(summaryBlocks(full).isEmpty(), method, "a summary node without summarizing");
+    Set<Block> summaries = summaryBlocks(summarized);
+    expect(summaries.size() == frames, method, summaries.size() + " summary nodes");
+
+    for (Block block : summarized.getAllBlocks()) {
+      if (!(block instanceof ExceptionBlock)) {
+        continue;
+      }
+      ExceptionBlock exceptionBlock = (ExceptionBlock) block;
+      if (summaries.contains(block)) {
+        expect(
+            exceptionBlock.getSuccessor() == null, method, "control falls out of a summary node");
+        for (Block pred : block.getPredecessors()) {
+          expect(
+              pred instanceof ExceptionBlock && ((ExceptionBlock) pred).getSuccessor() != block,
+              method,
+              "a summary node is reached by a regular edge");
+        }
+        continue;
+      }
+      // Every other node throws only to the summary of its frame, or out of the method.
+      Set<Block> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (Set<Block> successors : exceptionBlock.getExceptionalSuccessors().values()) {
+        targets.addAll(successors);
+      }
+      expect(
+          targets.size() <= 1
+              && (targets.isEmpty()
+                  || summaries.containsAll(targets)
+                  || targets.contains(summarized.getExceptionalExitBlock())),
+          method,
+          exceptionBlock.getNode() + " throws to " + targets.size() + " blocks");
+    }
+
+    expect(
+        handlers(full).equals(handlers(summarized)),
+        method,
+        "different handlers: " + handlers(full) + " and " + handlers(summarized));
+    if (fewerEdges) {
+      expect(
+          exceptionalEdgeCount(summarized) < exceptionalEdgeCount(full),
+          method,
+          "summarizing did not remove exceptional edges");
+    }
+  }
+
+  /**
+   * Returns the blocks of the summary exceptional exits of {@code cfg}.
+   *
+   * @param cfg a control flow graph
+   * @return the blocks of the summary exceptional exits of {@code cfg}
+   */
+  private static Set<Block> summaryBlocks(ControlFlowGraph cfg) {
+    Set<Block> result = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Block block : cfg.getAllBlocks()) {
+      if (block instanceof ExceptionBlock) {
+        Node node = ((ExceptionBlock) block).getNode();
+        if (node instanceof MarkerNode
+            && ((MarkerNode) node).getMessage().startsWith(SUMMARY_PREFIX)) {
+          result.add(block);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns a description of the blocks that exceptional edges lead to, other than summary
+   * exceptional exits: the first node of each, without the unique IDs of trees.
+   *
+   * @param cfg a control flow graph
+   * @return the sorted descriptions of the targets of exceptional edges
+   */
+  private static List<String> handlers(ControlFlowGraph cfg) {
+    Set<Block> summaries = summaryBlocks(cfg);
+    Set<String> result = new HashSet<>();
+    for (Block block : cfg.getAllBlocks()) {
+      if (!(block instanceof ExceptionBlock)) {
+        continue;
+      }
+      for (Set<Block> successors :
+          ((ExceptionBlock) block).getExceptionalSuccessors().values()) {
+        for (Block successor : successors) {
+          if (!summaries.contains(successor)) {
+            List<Node> nodes = successor.getNodes();
+            String first =
+                nodes.isEmpty() ? successor.getType().toString() : nodes.get(0).toString();
+            result.add(first.replaceAll("#\\d+", "#"));
+          }
+        }
+      }
+    }
+    List<String> sorted = new ArrayList<>(result);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  /**
+   * Returns the number of exceptional edges of {@code cfg}.
+   *
+   * @param cfg a control flow graph
+   * @return the number of exceptional edges of {@code cfg}
+   */
+  private static int exceptionalEdgeCount(ControlFlowGraph cfg) {
+    int result = 0;
+    for (Block block : cfg.getAllBlocks()) {
+      if (block instanceof ExceptionBlock) {
+        for (Map.Entry<?, Set<Block>> entry :
+            ((ExceptionBlock) block).getExceptionalSuccessors().entrySet()) {
+          result += entry.getValue().size();
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Throws an error unless {@code condition} holds.
+   *
+   * @param condition an expectation
+   * @param method the method whose control flow graph is checked
+   * @param message what went wrong
+   */
+  private static void expect(boolean condition, String method, String message) {
+    if (!condition) {
+      throw new AssertionError(method + ": " + message);
+    }
+  }
+}
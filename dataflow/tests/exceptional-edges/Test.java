@@ -0,0 +1,63 @@
+public class Test {
+
+  void a() {}
+
+  void b() {}
+
+  void c() {}
+
+  void d() {}
+
+  public void tryCatch() {
+    try {
+      a();
+      b();
+      c();
+    } catch (IllegalStateException e1) {
+      d();
+    } catch (RuntimeException e2) {
+      d();
+    }
+  }
+
+  public void manyCalls() {
+    try {
+      a();
+      b();
+      c();
+      d();
+      a();
+      b();
+      c();
+      d();
+    } catch (IllegalStateException e6) {
+      a();
+    } catch (RuntimeException e7) {
+      b();
+    }
+  }
+
+  public void tryCatchFinally() {
+    try {
+      a();
+      b();
+    } catch (RuntimeException e3) {
+      c();
+    } finally {
+      d();
+    }
+  }
+
+  public void nested() {
+    try {
+      try {
+        a();
+      } catch (IllegalStateException e4) {
+        b();
+      }
+      c();
+    } catch (RuntimeException e5) {
+      d();
+    }
+  }
+}
@@ -2,16 +2,21 @@ package org.checkerframework.common.basetype;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.ClassGetName;
 import org.checkerframework.dataflow.cfg.visualize.CFGVisualizer;
+import org.checkerframework.framework.flow.PuritySummaries;
 import org.checkerframework.framework.qual.SubtypeOf;
 import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.framework.stub.AnnotationFileElementTypes;
+import org.checkerframework.framework.stub.StubPrefetcher;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
 import org.checkerframework.framework.type.QualifierHierarchy;
@@ -69,9 +74,51 @@ public abstract class BaseTypeChecker extends SourceChecker {
   /** An array containing just {@code BaseTypeChecker.class}. */
   protected static Class<?>[] baseTypeCheckerClassArray = new Class<?>[] {BaseTypeChecker.class};
 
+  /**
+   * Parses stub files on background threads for this compilation, if {@code -AstubParserThreads} is
+   * positive. Only the ultimate parent checker has one; use {@link #getStubPrefetcher()} to
+   * read this field.
+   */
+  private @Nullable StubPrefetcher stubPrefetcher = null;
+
   /** Create a new BaseTypeChecker. */
   protected BaseTypeChecker() {}
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>If this is the ultimate parent checker and {@code -AstubParserThreads} is positive, this
+   * implementation first starts parsing the stub files of this checker and of all its subcheckers
+   * concurrently, before their type factories are created one after another.
+   */
+  @Override
+  public void initChecker() {
+    if (!(parentChecker instanceof BaseTypeChecker)) {
+      int threads = getStubParserThreads();
+      if (threads > 0) {
+        stubPrefetcher = new StubPrefetcher(threads);
+        List<SourceChecker> checkers = new ArrayList<>(getSubcheckers());
+        checkers.add(this);
+        AnnotationFileElementTypes.prefetchStubFiles(checkers, stubPrefetcher);
+      }
+    }
+    super.initChecker();
+  }
+
+  /**
+   * Returns the object that parses stub files on background threads for this compilation, which is
+   * shared by this checker, its parent, and its subcheckers. Returns null unless {@code
+   * -AstubParserThreads} is positive.
+   *
+   * @return the stub prefetcher of this compilation, or null
+   */
+  public @Nullable StubPrefetcher getStubPrefetcher() {
+    if (parentChecker instanceof BaseTypeChecker) {
+      return ((BaseTypeChecker) parentChecker).getStubPrefetcher();
+    }
+    return stubPrefetcher;
+  }
+
   /**
    * Returns the appropriate visitor that type-checks the compilation unit according to the type
    * system rules.
@@ -170,6 +217,67 @@ public abstract class BaseTypeChecker extends SourceChecker {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This implementation also writes the purity summary file, if {@code -ApuritySummaryOutput}
+   * was passed on the command line, and stops the threads of the stub prefetcher, if this checker
+   * owns it.
+   */
+  @Override
+  public void typeProcessingOver() {
+    BaseTypeVisitor<?> visitor = getVisitor();
+    if (visitor != null) {
+      PuritySummaries puritySummaries = visitor.getTypeFactory().getPuritySummaries();
+      if (puritySummaries != null) {
+        puritySummaries.write();
+      }
+    }
+    super.typeProcessingOver();
+    if (stubPrefetcher != null) {
+      stubPrefetcher.shutdown();
+      stubPrefetcher = null;
+    }
+  }
+
+  /**
+   * Returns true if the control flow graphs of this checker should give every try frame one
+   * summarized exceptional exit, rather than an edge from every node that may throw to every
+   * handler of the exception. The graphs of try-heavy code are then much smaller and their
+   * dataflow analysis converges faster, but the stores at the start of catch and finally blocks
+   * are less precise: each is the join of the stores at all the nodes of the try frame that may
+   * throw.
+   *
+   * <p>The default implementation returns true if the {@code -AsummarizeExceptionalEdges}
+   * command-line option was passed. A checker that does not need precise stores in catch and
+   * finally blocks can override this method to return true. Subcheckers use the control flow
+   * graphs of their ultimate parent checker, so only the ultimate parent checker's choice matters.
+   *
+   * @return true if exceptional edges should be summarized per try frame
+   */
+  public boolean shouldSummarizeExceptionalEdges() {
+    return hasOption("summarizeExceptionalEdges");
+  }
+
+  /**
+   * Returns true if dataflow analysis should drop the values of dead local variables from its
+   * stores at the start of each basic block. A local variable is dead if the code does not read its
+   * current value any more. Long methods then do not carry the values of all the local variables
+   * that they ever assigned through each store operation. Formal parameters, local variables that
+   * lambdas and local classes refer to, and local variables whose names occur in annotations, such
+   * as {@code lock} in {@code @GuardedBy("lock")}, are kept.
+   *
+   * <p>The default implementation returns true if the {@code -ApruneDeadLocalVariables}
+   * command-line option was passed. A checker whose visitor reads the values of local variables
+   * where the code does not, such as at the end of their scope, should override this method to
+   * return false. The ultimate parent checker's choice applies to all of its subcheckers.
+   *
+   * @return true if dataflow analysis should drop the values of dead local variables
+   */
+  public boolean shouldPruneDeadLocalVariables() {
+    return hasOption("pruneDeadLocalVariables");
+  }
+
   @Override
   protected boolean shouldAddShutdownHook() {
     if (super.shouldAddShutdownHook() || getTypeFactory().getCFGVisualizer() != null) {
@@ -100,10 +100,12 @@ import org.checkerframework.framework.ajava.InsertAjavaAnnotations;
 import org.checkerframework.framework.ajava.JointVisitorWithDefaultAction;
 import org.checkerframework.framework.flow.CFAbstractStore;
 import org.checkerframework.framework.flow.CFAbstractValue;
+import org.checkerframework.framework.flow.PuritySummaries;
 import org.checkerframework.framework.qual.DefaultQualifier;
 import org.checkerframework.framework.qual.HasQualifierParameter;
 import org.checkerframework.framework.qual.Unused;
 import org.checkerframework.framework.source.DiagMessage;
+import org.checkerframework.framework.source.MethodResultCache;
 import org.checkerframework.framework.source.SourceVisitor;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeFactory.ParameterizedExecutableType;
@@ -122,6 +124,8 @@ import org.checkerframework.framework.type.TypeHierarchy;
 import org.checkerframework.framework.type.poly.QualifierPolymorphism;
 import org.checkerframework.framework.type.visitor.SimpleAnnotatedTypeScanner;
 import org.checkerframework.framework.util.AnnotatedTypes;
+import org.checkerframework.framework.util.CheckerEvents;
+import org.checkerframework.framework.util.CheckerEvents.VisitClassEvent;
 import org.checkerframework.framework.util.Contract;
 import org.checkerframework.framework.util.Contract.ConditionalPostcondition;
 import org.checkerframework.framework.util.Contract.Postcondition;
@@ -545,6 +549,10 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
       // visitors on subtrees; we want to skip the class entirely.
       return null;
     }
+    VisitClassEvent event = CheckerEvents.ENABLED ? new VisitClassEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
     atypeFactory.preProcessClassTree(classTree);
 
     TreePath preTreePath = atypeFactory.getVisitorTreePath();
@@ -561,6 +569,11 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
       atypeFactory.setVisitorTreePath(preTreePath);
       methodTree = preMT;
     }
+    if (event != null && event.shouldCommit()) {
+      event.checker = checker.getClass().getSimpleName();
+      event.className = classTree.getSimpleName().toString();
+      event.commit();
+    }
     return null;
   }
 
@@ -951,7 +964,28 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
     if (checker.shouldSkipDefs(enclosingClass, tree)) {
       return null;
     }
-    processMethodTree("<unknown from visitMethod>", tree);
+    // With -AlazyFlowAnalysis, the method may not have been analyzed yet.  Analyze it even if
+    // no check queries a dataflow result, so that the diagnostics of postAnalyze are issued.
+    atypeFactory.performDeferredFlowAnalysis(tree);
+    MethodResultCache methodResultCache = checker.getMethodResultCache();
+    if (methodResultCache == null) {
+      processMethodTree("<unknown from visitMethod>", tree);
+      return null;
+    }
+    if (methodResultCache.isUnchanged(tree, enclosingClass)) {
+      methodResultCache.replay(checker, tree);
+      PuritySummaries puritySummaries = atypeFactory.getPuritySummaries();
+      if (puritySummaries != null) {
+        puritySummaries.summarize(tree);
+      }
+      return null;
+    }
+    methodResultCache.beginMethod(tree);
+    try {
+      processMethodTree("<unknown from visitMethod>", tree);
+    } finally {
+      methodResultCache.endMethod(tree);
+    }
     return null;
   }
 
@@ -996,6 +1030,10 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
       }
 
       checkPurityAnnotations(tree);
+      PuritySummaries puritySummaries = atypeFactory.getPuritySummaries();
+      if (puritySummaries != null) {
+        puritySummaries.summarize(tree);
+      }
 
       // Passing the whole method/constructor validates the return type
       validateTypeOf(tree);
@@ -1117,8 +1155,12 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
       body = atypeFactory.getPath(tree.getBody());
       bodyAssigned = true;
       PurityResult r;
+      PuritySummaries puritySummaries = atypeFactory.getPuritySummaries();
       if (body == null) {
         r = new PurityResult();
+      } else if (puritySummaries != null) {
+        // Reuse the result if a call site already needed it.
+        r = puritySummaries.getResult(body, TreeUtils.elementFromDeclaration(tree));
       } else {
         r =
             PurityChecker.checkPurity(
@@ -10,9 +10,11 @@ import javax.lang.model.util.Types;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.analysis.ForwardAnalysisImpl;
+import org.checkerframework.dataflow.analysis.Store;
 import org.checkerframework.dataflow.analysis.TransferInput;
 import org.checkerframework.dataflow.analysis.TransferResult;
 import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.block.Block;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.expression.FieldAccess;
 import org.checkerframework.framework.source.SourceChecker;
@@ -27,6 +29,7 @@ import org.checkerframework.framework.util.dependenttypes.DependentTypesHelper;
 import org.checkerframework.javacutil.AnnotationMirrorSet;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.TypesUtils;
+import org.checkerframework.javacutil.UserError;
 
 /**
  * {@link CFAbstractAnalysis} is an extensible org.checkerframework.dataflow analysis for the
@@ -104,6 +107,14 @@ public abstract class CFAbstractAnalysis<
   /** Instance of the types utility. */
   protected final Types types;
 
+  /**
+   * The live local variables of the control flow graph being analyzed, if the values of dead local
+   * variables are dropped from the stores at block boundaries; otherwise null.
+   *
+   * @see BaseTypeChecker#shouldPruneDeadLocalVariables
+   */
+  protected final @Nullable LiveLocalVariables liveLocalVariables;
+
   /**
    * Create a CFAbstractAnalysis.
    *
@@ -125,6 +136,26 @@ public abstract class CFAbstractAnalysis<
     this.checker = checker;
     this.transferFunction = createTransferFunction();
     this.fieldValues = new ArrayList<>();
+    String checkpointOption = checker.getOption("storeCheckpointInterval");
+    if (checkpointOption != null) {
+      int interval;
+      try {
+        interval = Integer.parseInt(checkpointOption);
+      } catch (NumberFormatException e) {
+        throw new UserError("storeCheckpointInterval was not an integer: " + checkpointOption);
+      }
+      if (interval < 0) {
+        throw new UserError("storeCheckpointInterval must not be negative: " + checkpointOption);
+      }
+      setCheckpointInterval(interval);
+    }
+    if (checker.hasOption("weakTopologicalOrder")) {
+      setIterationStrategy(IterationStrategy.WEAK_TOPOLOGICAL_ORDER);
+    }
+    this.liveLocalVariables =
+        checker.getUltimateParentChecker().shouldPruneDeadLocalVariables()
+            ? new LiveLocalVariables()
+            : null;
   }
 
   /**
@@ -151,6 +182,36 @@ public abstract class CFAbstractAnalysis<
     super.performAnalysis(cfg);
   }
 
+  @Override
+  protected void initFields(ControlFlowGraph cfg) {
+    super.initFields(cfg);
+    if (liveLocalVariables != null) {
+      liveLocalVariables.compute(cfg);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This implementation first drops the values of the local variables that are dead at the
+   * start of {@code b}, if {@link #liveLocalVariables} is non-null. Local variables that an
+   * annotation of a value in {@code s} names are not dead.
+   */
+  @Override
+  protected void addStoreBefore(
+      Block b, @Nullable Node node, S s, Store.Kind kind, boolean addBlockToWorklist) {
+    LiveLocalVariables live = liveLocalVariables;
+    if (live != null) {
+      // A checker with dependent types may read the value of a local variable wherever an
+      // annotation names it.
+      s =
+          s.removeDeadLocalVariables(
+              localVar -> live.isLive(b, localVar),
+              dependentTypesHelper.hasDependentAnnotations());
+    }
+    super.addStoreBefore(b, node, s, kind, addBlockToWorklist);
+  }
+
   /**
    * A list of initial abstract values for the fields.
    *
@@ -1,16 +1,21 @@
 package org.checkerframework.framework.flow;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.StringJoiner;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.VariableElement;
@@ -36,6 +41,7 @@ import org.checkerframework.dataflow.expression.MethodCall;
 import org.checkerframework.dataflow.expression.SuperReference;
 import org.checkerframework.dataflow.expression.ThisReference;
 import org.checkerframework.dataflow.qual.SideEffectFree;
+import org.checkerframework.dataflow.util.PersistentHashMap;
 import org.checkerframework.framework.qual.MonotonicQualifier;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
@@ -70,13 +76,13 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
   protected final CFAbstractAnalysis<V, S, ?> analysis;
 
   /** Information collected about local variables (including method parameters). */
-  protected final Map<LocalVariable, V> localVariableValues;
+  protected final PersistentHashMap<LocalVariable, V> localVariableValues;
 
   /** Information collected about the current object. */
   protected V thisValue;
 
   /** Information collected about fields, using the internal representation {@link FieldAccess}. */
-  protected Map<FieldAccess, V> fieldValues;
+  protected PersistentHashMap<FieldAccess, V> fieldValues;
 
   /**
    * Returns information about fields. Clients should not side-effect the returned value, which is
@@ -92,19 +98,19 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
    * Information collected about array elements, using the internal representation {@link
    * ArrayAccess}.
    */
-  protected final Map<ArrayAccess, V> arrayValues;
+  protected final PersistentHashMap<ArrayAccess, V> arrayValues;
 
   /**
    * Information collected about the expressions to which method calls evaluate, using the internal
    * representation {@link MethodCall}.
    */
-  protected final Map<MethodCall, V> methodCallExpressions;
+  protected final PersistentHashMap<MethodCall, V> methodCallExpressions;
 
   /**
    * Information collected about <i>classname</i>.class values, using the internal representation
    * {@link ClassName}.
    */
-  protected final Map<ClassName, V> classValues;
+  protected final PersistentHashMap<ClassName, V> classValues;
 
   /**
    * Should the analysis use sequential Java semantics (i.e., assume that only one thread is running
@@ -141,12 +147,12 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
    */
   protected CFAbstractStore(CFAbstractAnalysis<V, S, ?> analysis, boolean sequentialSemantics) {
     this.analysis = analysis;
-    this.localVariableValues = new HashMap<>();
+    this.localVariableValues = new PersistentHashMap<>();
     this.thisValue = null;
-    this.fieldValues = new HashMap<>();
-    this.methodCallExpressions = new HashMap<>();
-    this.arrayValues = new HashMap<>();
-    this.classValues = new HashMap<>();
+    this.fieldValues = new PersistentHashMap<>();
+    this.methodCallExpressions = new PersistentHashMap<>();
+    this.arrayValues = new PersistentHashMap<>();
+    this.classValues = new PersistentHashMap<>();
     this.sequentialSemantics = sequentialSemantics;
     this.assumeSideEffectFree =
         analysis.checker.hasOption("assumeSideEffectFree")
@@ -155,18 +161,19 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
   }
 
   /**
-   * Copy constructor.
+   * Copy constructor. Takes constant time, because the copy shares the maps' structure with {@code
+   * other}.
    *
    * @param other a CFAbstractStore to copy into this
    */
   protected CFAbstractStore(CFAbstractStore<V, S> other) {
     this.analysis = other.analysis;
-    this.localVariableValues = new HashMap<>(other.localVariableValues);
+    this.localVariableValues = new PersistentHashMap<>(other.localVariableValues);
     this.thisValue = other.thisValue;
-    this.fieldValues = new HashMap<>(other.fieldValues);
-    this.methodCallExpressions = new HashMap<>(other.methodCallExpressions);
-    this.arrayValues = new HashMap<>(other.arrayValues);
-    this.classValues = new HashMap<>(other.classValues);
+    this.fieldValues = new PersistentHashMap<>(other.fieldValues);
+    this.methodCallExpressions = new PersistentHashMap<>(other.methodCallExpressions);
+    this.arrayValues = new PersistentHashMap<>(other.arrayValues);
+    this.classValues = new PersistentHashMap<>(other.classValues);
     this.sequentialSemantics = other.sequentialSemantics;
     this.assumeSideEffectFree = other.assumeSideEffectFree;
     this.assumePureGetters = other.assumePureGetters;
@@ -371,7 +378,7 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
    */
   private void updateFieldValuesForMethodCall(
       GenericAnnotatedTypeFactory<V, S, ?, ?> atypeFactory) {
-    Map<FieldAccess, V> newFieldValues = new HashMap<>(CollectionsPlume.mapCapacity(fieldValues));
+    // The iteration is over a snapshot, so the map can be updated in place.
     for (Map.Entry<FieldAccess, V> e : fieldValues.entrySet()) {
       FieldAccess fieldAccess = e.getKey();
       V value = e.getValue();
@@ -379,10 +386,11 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
       V newValue = newFieldValueAfterMethodCall(fieldAccess, atypeFactory, value);
       if (newValue != null) {
         // Keep information for all hierarchies where we had a monotonic annotation.
-        newFieldValues.put(fieldAccess, newValue);
+        fieldValues.put(fieldAccess, newValue);
+      } else {
+        fieldValues.remove(fieldAccess);
       }
     }
-    fieldValues = newFieldValues;
   }
 
   /**
@@ -780,6 +788,105 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
     }
   }
 
+  /**
+   * Returns a store that has no information about the local variables that {@code isLive} rejects.
+   * Returns this store if it has no such information, and otherwise a copy; this store is not
+   * modified.
+   *
+   * <p>If {@code keepNamedInAnnotations} is true, the local variables whose names occur in a string
+   * in an annotation of a value in this store are kept too, even if {@code isLive} rejects them.
+   * For example, a value {@code @GuardedBy("lock")} keeps the value of {@code lock}.
+   *
+   * @param isLive returns true for the local variables whose values to keep
+   * @param keepNamedInAnnotations whether to keep the local variables that annotations name
+   * @return this store, or a copy of it without the values of the rejected local variables
+   */
+  @SuppressWarnings("unchecked") // this is an S
+  public S removeDeadLocalVariables(
+      Predicate<LocalVariable> isLive, boolean keepNamedInAnnotations) {
+    for (LocalVariable localVar : localVariableValues.keySet()) {
+      if (!isLive.test(localVar)) {
+        Set<String> named =
+            keepNamedInAnnotations ? identifiersInAnnotations() : Collections.emptySet();
+        S result = copy();
+        result
+            .localVariableValues
+            .keySet()
+            .removeIf(
+                var ->
+                    !isLive.test(var)
+                        && !named.contains(var.getElement().getSimpleName().toString()));
+        return result;
+      }
+    }
+    return (S) this;
+  }
+
+  /**
+   * Returns the Java identifiers that occur in the string elements of the annotations of the values
+   * in this store.
+   *
+   * @return the identifiers in the annotations of the values in this store
+   */
+  private Set<String> identifiersInAnnotations() {
+    Set<String> result = new HashSet<>();
+    List<Collection<V>> valueCollections =
+        Arrays.asList(
+            localVariableValues.values(),
+            fieldValues.values(),
+            arrayValues.values(),
+            classValues.values(),
+            methodCallExpressions.values());
+    for (Collection<V> values : valueCollections) {
+      for (V value : values) {
+        addIdentifiersInAnnotations(value, result);
+      }
+    }
+    if (thisValue != null) {
+      addIdentifiersInAnnotations(thisValue, result);
+    }
+    return result;
+  }
+
+  /**
+   * Adds the Java identifiers that occur in the string elements of the annotations of {@code value}
+   * to {@code identifiers}.
+   *
+   * @param value an abstract value
+   * @param identifiers the set to add the identifiers to
+   */
+  private static void addIdentifiersInAnnotations(
+      CFAbstractValue<?> value, Set<String> identifiers) {
+    for (AnnotationMirror anno : value.getAnnotations()) {
+      for (AnnotationValue elementValue : anno.getElementValues().values()) {
+        addIdentifiersInAnnotationValue(elementValue.getValue(), identifiers);
+      }
+    }
+  }
+
+  /**
+   * Adds the Java identifiers that occur in the strings of an annotation element value to {@code
+   * identifiers}.
+   *
+   * @param elementValue the value of an annotation element, as returned by {@link
+   *     AnnotationValue#getValue()}
+   * @param identifiers the set to add the identifiers to
+   */
+  private static void addIdentifiersInAnnotationValue(
+      Object elementValue, Set<String> identifiers) {
+    if (elementValue instanceof String) {
+      LiveLocalVariables.addIdentifiers((String) elementValue, identifiers);
+    } else if (elementValue instanceof List) {
+      for (Object element : (List<?>) elementValue) {
+        addIdentifiersInAnnotationValue(((AnnotationValue) element).getValue(), identifiers);
+      }
+    } else if (elementValue instanceof AnnotationMirror) {
+      for (AnnotationValue nested : ((AnnotationMirror) elementValue).getElementValues().values()) {
+        addIdentifiersInAnnotationValue(nested.getValue(), identifiers);
+      }
+    }
+  }
+
   /**
    * Returns the current abstract value of a Java expression, or {@code null} if no information is
    * available.
@@ -1174,20 +1281,10 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
   private S upperBound(S other, boolean shouldWiden) {
     S newStore = analysis.createEmptyStore(sequentialSemantics);
 
-    for (Map.Entry<LocalVariable, V> e : other.localVariableValues.entrySet()) {
-      // local variables that are only part of one store, but not the other are discarded, as
-      // one of store implicitly contains 'top' for that variable.
-      LocalVariable localVar = e.getKey();
-      V thisVal = localVariableValues.get(localVar);
-      if (thisVal != null) {
-        V otherVal = e.getValue();
-        V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-
-        if (mergedVal != null) {
-          newStore.localVariableValues.put(localVar, mergedVal);
-        }
-      }
-    }
+    // Information that is only part of one store, but not the other, is discarded, as the other
+    // store implicitly contains 'top' for it.
+    upperBoundOfMaps(
+        localVariableValues, other.localVariableValues, newStore.localVariableValues, shouldWiden);
 
     // information about the current object
     {
@@ -1200,59 +1297,52 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
       }
     }
 
-    for (Map.Entry<FieldAccess, V> e : other.fieldValues.entrySet()) {
-      // information about fields that are only part of one store, but not the other are
-      // discarded, as one store implicitly contains 'top' for that field.
-      FieldAccess el = e.getKey();
-      V thisVal = fieldValues.get(el);
-      if (thisVal != null) {
-        V otherVal = e.getValue();
-        V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-        if (mergedVal != null) {
-          newStore.fieldValues.put(el, mergedVal);
-        }
-      }
-    }
-    for (Map.Entry<ArrayAccess, V> e : other.arrayValues.entrySet()) {
-      // information about arrays that are only part of one store, but not the other are
-      // discarded, as one store implicitly contains 'top' for that array access.
-      ArrayAccess el = e.getKey();
-      V thisVal = arrayValues.get(el);
-      if (thisVal != null) {
-        V otherVal = e.getValue();
-        V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-        if (mergedVal != null) {
-          newStore.arrayValues.put(el, mergedVal);
-        }
-      }
-    }
-    for (Map.Entry<MethodCall, V> e : other.methodCallExpressions.entrySet()) {
-      // information about methods that are only part of one store, but not the other are
-      // discarded, as one store implicitly contains 'top' for that field.
-      MethodCall el = e.getKey();
-      V thisVal = methodCallExpressions.get(el);
-      if (thisVal != null) {
-        V otherVal = e.getValue();
-        V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-        if (mergedVal != null) {
-          newStore.methodCallExpressions.put(el, mergedVal);
-        }
-      }
-    }
-    for (Map.Entry<ClassName, V> e : other.classValues.entrySet()) {
-      ClassName el = e.getKey();
-      V thisVal = classValues.get(el);
-      if (thisVal != null) {
-        V otherVal = e.getValue();
-        V mergedVal = upperBoundOfValues(otherVal, thisVal, shouldWiden);
-        if (mergedVal != null) {
-          newStore.classValues.put(el, mergedVal);
-        }
-      }
-    }
+    upperBoundOfMaps(fieldValues, other.fieldValues, newStore.fieldValues, shouldWiden);
+    upperBoundOfMaps(arrayValues, other.arrayValues, newStore.arrayValues, shouldWiden);
+    upperBoundOfMaps(
+        methodCallExpressions,
+        other.methodCallExpressions,
+        newStore.methodCallExpressions,
+        shouldWiden);
+    upperBoundOfMaps(classValues, other.classValues, newStore.classValues, shouldWiden);
     return newStore;
   }
 
+  /**
+   * Sets {@code result} to map each key of both {@code thisValues} and {@code otherValues} to an
+   * upper bound of its values. Entries that the two maps share are not visited: the upper bound of
+   * a value and itself is that value.
+   *
+   * @param <K> the type of keys
+   * @param thisValues the values in this store
+   * @param otherValues the values in the other store
+   * @param result the map to set
+   * @param shouldWiden true if widening should be used
+   */
+  @SuppressWarnings("interning:not.interned") // an unchanged value needs no new entry
+  private <K> void upperBoundOfMaps(
+      PersistentHashMap<K, V> thisValues,
+      PersistentHashMap<K, V> otherValues,
+      PersistentHashMap<K, V> result,
+      boolean shouldWiden) {
+    result.setTo(thisValues);
+    thisValues.allMatchExceptShared(
+        otherValues,
+        (key, thisVal) -> {
+          V otherVal = otherValues.get(key);
+          V mergedVal =
+              thisVal == null || otherVal == null
+                  ? null
+                  : upperBoundOfValues(otherVal, thisVal, shouldWiden);
+          if (mergedVal == null) {
+            result.remove(key);
+          } else if (mergedVal != thisVal) {
+            result.put(key, mergedVal);
+          }
+          return true;
+        });
+  }
+
   private V upperBoundOfValues(V otherVal, V thisVal, boolean shouldWiden) {
     return shouldWiden ? thisVal.widenUpperBound(otherVal) : thisVal.leastUpperBound(otherVal);
   }
@@ -1264,45 +1354,34 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
    * predicate.
    */
   protected boolean supersetOf(CFAbstractStore<V, S> other) {
-    for (Map.Entry<LocalVariable, V> e : other.localVariableValues.entrySet()) {
-      LocalVariable key = e.getKey();
-      V value = localVariableValues.get(key);
-      if (value == null || !value.equals(e.getValue())) {
-        return false;
-      }
-    }
     if (!Objects.equals(thisValue, other.thisValue)) {
       return false;
     }
-    for (Map.Entry<FieldAccess, V> e : other.fieldValues.entrySet()) {
-      FieldAccess key = e.getKey();
-      V value = fieldValues.get(key);
-      if (value == null || !value.equals(e.getValue())) {
-        return false;
-      }
-    }
-    for (Map.Entry<ArrayAccess, V> e : other.arrayValues.entrySet()) {
-      ArrayAccess key = e.getKey();
-      V value = arrayValues.get(key);
-      if (value == null || !value.equals(e.getValue())) {
-        return false;
-      }
-    }
-    for (Map.Entry<MethodCall, V> e : other.methodCallExpressions.entrySet()) {
-      MethodCall key = e.getKey();
-      V value = methodCallExpressions.get(key);
-      if (value == null || !value.equals(e.getValue())) {
-        return false;
-      }
-    }
-    for (Map.Entry<ClassName, V> e : other.classValues.entrySet()) {
-      ClassName key = e.getKey();
-      V value = classValues.get(key);
-      if (value == null || !value.equals(e.getValue())) {
-        return false;
-      }
-    }
-    return true;
+    return containsAll(localVariableValues, other.localVariableValues)
+        && containsAll(fieldValues, other.fieldValues)
+        && containsAll(arrayValues, other.arrayValues)
+        && containsAll(methodCallExpressions, other.methodCallExpressions)
+        && containsAll(classValues, other.classValues);
+  }
+
+  /**
+   * Returns true if {@code values} contains all the entries of {@code otherValues}. Visits only the
+   * entries that the two maps do not share.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @param values a map
+   * @param otherValues another map
+   * @return true if {@code values} contains all the entries of {@code otherValues}
+   */
+  private static <K, V> boolean containsAll(
+      PersistentHashMap<K, V> values, PersistentHashMap<K, V> otherValues) {
+    return otherValues.allMatchExceptShared(
+        values,
+        (key, otherValue) -> {
+          V value = values.get(key);
+          return value != null && value.equals(otherValue);
+        });
   }
 
   @Override
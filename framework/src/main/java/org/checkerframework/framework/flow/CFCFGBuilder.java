@@ -8,13 +8,21 @@ import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.cfg.ControlFlowGraph;
 import org.checkerframework.dataflow.cfg.UnderlyingAST;
@@ -26,6 +34,7 @@ import org.checkerframework.dataflow.cfg.builder.PhaseOneResult;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
+import org.checkerframework.javacutil.AnnotationProvider;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.TreePathUtil;
 import org.checkerframework.javacutil.TreeUtils;
@@ -53,13 +62,13 @@ public class CFCFGBuilder extends CFGBuilder {
           "Assertions cannot be assumed to be enabled and disabled at the same time.");
     }
 
-    // Subcheckers with dataflow share control-flow graph structure to
+    // Checkers with dataflow share control-flow graph structure, to save time and to
     // allow a super-checker to query the stores of a subchecker.
+    SharedCFGCache sharedCFGs = null;
     if (factory instanceof GenericAnnotatedTypeFactory) {
-      GenericAnnotatedTypeFactory<?, ?, ?, ?> asGATF =
-          (GenericAnnotatedTypeFactory<?, ?, ?, ?>) factory;
-      if (asGATF.hasOrIsSubchecker) {
-        ControlFlowGraph sharedCFG = asGATF.getSharedCFGForTree(underlyingAST.getCode());
+      sharedCFGs = ((GenericAnnotatedTypeFactory<?, ?, ?, ?>) factory).getSharedCFGCache();
+      if (sharedCFGs != null) {
+        ControlFlowGraph sharedCFG = sharedCFGs.get(underlyingAST.getCode(), checker, factory);
         if (sharedCFG != null) {
           return sharedCFG;
         }
@@ -67,18 +76,23 @@ public class CFCFGBuilder extends CFGBuilder {
     }
 
     CFTreeBuilder builder = new CFTreeBuilder(env);
-    PhaseOneResult phase1result =
+    // A checker hierarchy shares one graph, so its ultimate parent decides.
+    boolean summarizeExceptionalEdges =
+        checker.getUltimateParentChecker().shouldSummarizeExceptionalEdges();
+    CFCFGTranslationPhaseOne phaseOne =
         new CFCFGTranslationPhaseOne(
-                builder, checker, factory, assumeAssertionsEnabled, assumeAssertionsDisabled, env)
-            .process(root, underlyingAST);
+            builder,
+            checker,
+            factory,
+            assumeAssertionsEnabled,
+            assumeAssertionsDisabled,
+            summarizeExceptionalEdges,
+            env);
+    PhaseOneResult phase1result = phaseOne.process(root, underlyingAST);
     ControlFlowGraph phase2result = CFGTranslationPhaseTwo.process(phase1result);
     ControlFlowGraph phase3result = CFGTranslationPhaseThree.process(phase2result);
-    if (factory instanceof GenericAnnotatedTypeFactory) {
-      GenericAnnotatedTypeFactory<?, ?, ?, ?> asGATF =
-          (GenericAnnotatedTypeFactory<?, ?, ?, ?>) factory;
-      if (asGATF.hasOrIsSubchecker) {
-        asGATF.addSharedCFGForTree(underlyingAST.getCode(), phase3result);
-      }
+    if (sharedCFGs != null) {
+      sharedCFGs.put(underlyingAST.getCode(), checker, phase3result, phaseOne);
     }
     return phase3result;
   }
@@ -125,6 +139,12 @@ public class CFCFGBuilder extends CFGBuilder {
     /** Type factory to provide types used during CFG building. */
     protected final AnnotatedTypeFactory factory;
 
+    /** True if the CFG depends on the checker because of an {@code @AssumeAssertion} string. */
+    private boolean dependsOnChecker = false;
+
+    /** The enclosing elements of the artificial trees that this builder created. */
+    private final Map<Tree, Element> artificialTrees = new HashMap<>();
+
     public CFCFGTranslationPhaseOne(
         CFTreeBuilder builder,
         BaseTypeChecker checker,
@@ -132,13 +152,74 @@ public class CFCFGBuilder extends CFGBuilder {
         boolean assumeAssertionsEnabled,
         boolean assumeAssertionsDisabled,
         ProcessingEnvironment env) {
-      super(builder, factory, assumeAssertionsEnabled, assumeAssertionsDisabled, env);
+      this(
+          builder, checker, factory, assumeAssertionsEnabled, assumeAssertionsDisabled, false, env);
+    }
+
+    /**
+     * Creates a CFCFGTranslationPhaseOne.
+     *
+     * @param builder the tree builder
+     * @param checker the checker
+     * @param factory the type factory
+     * @param assumeAssertionsEnabled can assertions be assumed to be enabled?
+     * @param assumeAssertionsDisabled can assertions be assumed to be disabled?
+     * @param summarizeExceptionalEdges should the nodes in a try frame share one exceptional exit?
+     * @param env the processing environment
+     */
+    public CFCFGTranslationPhaseOne(
+        CFTreeBuilder builder,
+        BaseTypeChecker checker,
+        AnnotatedTypeFactory factory,
+        boolean assumeAssertionsEnabled,
+        boolean assumeAssertionsDisabled,
+        boolean summarizeExceptionalEdges,
+        ProcessingEnvironment env) {
+      super(
+          builder,
+          new RecordingAnnotationProvider(factory),
+          assumeAssertionsEnabled,
+          assumeAssertionsDisabled,
+          summarizeExceptionalEdges,
+          env);
       this.checker = checker;
       this.factory = factory;
     }
 
+    /**
+     * Returns true if the CFG built by this depends on the checker hierarchy, so other checkers
+     * must not use it.
+     *
+     * @return true if the CFG depends on the checker hierarchy
+     */
+    boolean dependsOnChecker() {
+      return dependsOnChecker;
+    }
+
+    /**
+     * Returns the enclosing elements of the artificial trees that this builder created.
+     *
+     * @return the enclosing elements of the artificial trees that this builder created
+     */
+    Map<Tree, Element> getArtificialTrees() {
+      return artificialTrees;
+    }
+
+    /**
+     * Returns the declaration annotations that this builder looked up.
+     *
+     * @return the declaration annotations that this builder looked up
+     */
+    List<SharedCFGCache.DeclAnnotationLookup> getDeclAnnotationLookups() {
+      return ((RecordingAnnotationProvider) annotationProvider).lookups;
+    }
+
     @Override
     protected boolean assumeAssertionsEnabledFor(AssertTree tree) {
+      ExpressionTree detail = tree.getDetail();
+      if (detail != null && detail.toString().contains("@AssumeAssertion(")) {
+        dependsOnChecker = true;
+      }
       if (assumeAssertionsActivatedForAssertTree(checker, tree)) {
         return true;
       }
@@ -151,11 +232,13 @@ public class CFCFGBuilder extends CFGBuilder {
       if (enclosingMethod != null) {
         Element methodElement = TreeUtils.elementFromDeclaration(enclosingMethod);
         factory.setEnclosingElementForArtificialTree(tree, methodElement);
+        artificialTrees.put(tree, methodElement);
       } else {
         ClassTree enclosingClass = TreePathUtil.enclosingClass(getCurrentPath());
         if (enclosingClass != null) {
           Element classElement = TreeUtils.elementFromDeclaration(enclosingClass);
           factory.setEnclosingElementForArtificialTree(tree, classElement);
+          artificialTrees.put(tree, classElement);
         }
       }
     }
@@ -217,4 +300,51 @@ public class CFCFGBuilder extends CFGBuilder {
       return arrayVariable;
     }
   }
+
+  /**
+   * An annotation provider that delegates to a type factory and records the declaration annotations
+   * that were looked up, so that {@link SharedCFGCache} can tell whether another checker would
+   * build the same CFG.
+   */
+  private static class RecordingAnnotationProvider implements AnnotationProvider {
+
+    /** The type factory. */
+    private final AnnotatedTypeFactory factory;
+
+    /** The declaration annotations that were looked up, in order. */
+    final List<SharedCFGCache.DeclAnnotationLookup> lookups = new ArrayList<>();
+
+    /**
+     * Creates a RecordingAnnotationProvider.
+     *
+     * @param factory the type factory
+     */
+    RecordingAnnotationProvider(AnnotatedTypeFactory factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    public @Nullable AnnotationMirror getDeclAnnotation(
+        Element elt, Class<? extends Annotation> anno) {
+      AnnotationMirror result = factory.getDeclAnnotation(elt, anno);
+      lookups.add(new SharedCFGCache.DeclAnnotationLookup(elt, anno, result));
+      return result;
+    }
+
+    @Override
+    public @Nullable AnnotationMirror getAnnotationMirror(
+        Tree tree, Class<? extends Annotation> target) {
+      return factory.getAnnotationMirror(tree, target);
+    }
+
+    @Override
+    public boolean isSideEffectFree(ExecutableElement methodElement) {
+      return factory.isSideEffectFree(methodElement);
+    }
+
+    @Override
+    public boolean isDeterministic(ExecutableElement methodElement) {
+      return factory.isDeterministic(methodElement);
+    }
+  }
 }
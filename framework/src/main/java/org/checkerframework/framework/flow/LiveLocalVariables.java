@@ -0,0 +1,247 @@
+package org.checkerframework.framework.flow;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Name;
+import javax.lang.model.element.VariableElement;
+import org.checkerframework.dataflow.analysis.AnalysisResult;
+import org.checkerframework.dataflow.analysis.BackwardAnalysisImpl;
+import org.checkerframework.dataflow.analysis.RegularTransferResult;
+import org.checkerframework.dataflow.analysis.TransferInput;
+import org.checkerframework.dataflow.analysis.UnusedAbstractValue;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.node.AssignmentNode;
+import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.expression.LocalVariable;
+import org.checkerframework.dataflow.livevariable.LiveVarNode;
+import org.checkerframework.dataflow.livevariable.LiveVarStore;
+import org.checkerframework.dataflow.livevariable.LiveVarTransfer;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * The local variables that are live at the start of each block of a control flow graph, that is,
+ * whose current values may still be read. {@link CFAbstractAnalysis} uses them to drop the values
+ * of dead local variables from the stores at block boundaries, so that long methods do not carry
+ * every local variable that they ever assigned through each copy, join, and comparison of stores.
+ *
+ * <p>Liveness is computed by a backward analysis with {@link LiveVarTransfer}, extended so that
+ * every read of a local variable is a use. Some local variables are live everywhere, because
+ * checkers read their values where the analyzed code does not: formal parameters, which
+ * postconditions may refer to at the exit of a method, and the local variables that a lambda or a
+ * class declared in the analyzed code refers to, because those are analyzed with the store at
+ * their declaration. So are the local variables whose names occur in a string in an annotation in
+ * the analyzed code, such as {@code lock} in {@code @GuardedBy("lock") Object guarded}: the
+ * checker reads the value of {@code lock} wherever {@code guarded} is used, which the control flow
+ * graph does not show.
+ *
+ * <p>Local variables are identified by name, as {@link LiveVarNode} does. A name that is live in
+ * one scope keeps the values of the variables of the same name in other scopes, which is safe.
+ */
+public final class LiveLocalVariables {
+
+  /** The backward analysis that computes liveness; reused for each control flow graph. */
+  private final BackwardAnalysisImpl<UnusedAbstractValue, LiveVarStore, LocalUseTransfer>
+      analysis = new BackwardAnalysisImpl<>(new LocalUseTransfer());
+
+  /**
+   * The names of the local variables that are live at the start of each block. A block that is
+   * absent, because it cannot reach an exit, keeps all local variables.
+   */
+  private final IdentityHashMap<Block, Set<Name>> liveAtBlockStart = new IdentityHashMap<>();
+
+  /** The names of the local variables that lambdas and classes in the analyzed code refer to. */
+  private final Set<Name> captured = new HashSet<>();
+
+  /** The identifiers that occur in a string in an annotation in the analyzed code. */
+  private final Set<String> namedInAnnotations = new HashSet<>();
+
+  /** Creates a LiveLocalVariables. */
+  public LiveLocalVariables() {}
+
+  /**
+   * Computes the live local variables of {@code cfg}, replacing those of the previous control flow
+   * graph.
+   *
+   * @param cfg a control flow graph
+   */
+  public void compute(ControlFlowGraph cfg) {
+    liveAtBlockStart.clear();
+    captured.clear();
+    namedInAnnotations.clear();
+    analysis.performAnalysis(cfg);
+    AnalysisResult<UnusedAbstractValue, LiveVarStore> result = analysis.getResult();
+    for (Block b : cfg.getAllBlocks()) {
+      if (analysis.getInput(b) == null) {
+        continue;
+      }
+      Set<Name> live = new HashSet<>();
+      for (LiveVarNode liveVar : result.getStoreBefore(b).getLiveVariables()) {
+        Node node = liveVar.getNode();
+        if (node instanceof LocalVariableNode) {
+          live.add(((LocalVariableNode) node).getElement().getSimpleName());
+        }
+      }
+      liveAtBlockStart.put(b, live);
+    }
+    new CapturedVariableScanner().scan(cfg.getUnderlyingAST().getCode(), null);
+  }
+
+  /**
+   * Returns true if the value of {@code localVar} may be needed at the start of {@code b}.
+   *
+   * @param b a block of the current control flow graph
+   * @param localVar a local variable
+   * @return true if the store before {@code b} should keep the value of {@code localVar}
+   */
+  public boolean isLive(Block b, LocalVariable localVar) {
+    Set<Name> live = liveAtBlockStart.get(b);
+    if (live == null) {
+      return true;
+    }
+    VariableElement element = localVar.getElement();
+    if (element.getKind() == ElementKind.PARAMETER) {
+      return true;
+    }
+    Name name = element.getSimpleName();
+    return live.contains(name)
+        || captured.contains(name)
+        || namedInAnnotations.contains(name.toString());
+  }
+
+  /**
+   * Adds the Java identifiers that occur in {@code s} to {@code identifiers}. For example, for
+   * {@code "#1.lock"} it adds {@code lock}, and for {@code "a.length - 1"} it adds {@code a} and
+   * {@code length}.
+   *
+   * @param s a string, such as a Java expression in an annotation
+   * @param identifiers the set to add the identifiers to
+   */
+  static void addIdentifiers(String s, Set<String> identifiers) {
+    int i = 0;
+    while (i < s.length()) {
+      if (!Character.isJavaIdentifierStart(s.charAt(i))) {
+        i++;
+        continue;
+      }
+      int start = i;
+      do {
+        i++;
+      } while (i < s.length() && Character.isJavaIdentifierPart(s.charAt(i)));
+      identifiers.add(s.substring(start, i));
+    }
+  }
+
+  /** A liveness transfer function in which every read of a local variable is a use. */
+  private static class LocalUseTransfer extends LiveVarTransfer {
+
+    /** Creates a LocalUseTransfer. */
+    LocalUseTransfer() {}
+
+    @Override
+    public RegularTransferResult<UnusedAbstractValue, LiveVarStore> visitLocalVariable(
+        LocalVariableNode n, TransferInput<UnusedAbstractValue, LiveVarStore> p) {
+      RegularTransferResult<UnusedAbstractValue, LiveVarStore> transferResult = visitNode(n, p);
+      if (!n.isLValue()) {
+        transferResult.getRegularStore().putLiveVar(new LiveVarNode(n));
+      }
+      return transferResult;
+    }
+
+    // The superclass assumes that every target is a local variable or a field.  The uses on the
+    // right-hand side need no handling here: each is a node of its own.
+    @Override
+    public RegularTransferResult<UnusedAbstractValue, LiveVarStore> visitAssignment(
+        AssignmentNode n, TransferInput<UnusedAbstractValue, LiveVarStore> p) {
+      RegularTransferResult<UnusedAbstractValue, LiveVarStore> transferResult = visitNode(n, p);
+      Node target = n.getTarget();
+      if (target instanceof LocalVariableNode) {
+        transferResult.getRegularStore().killLiveVar(new LiveVarNode(target));
+      }
+      return transferResult;
+    }
+  }
+
+  /**
+   * Collects the local variables that lambdas and classes in the analyzed code refer to, and the
+   * identifiers in the strings in its annotations.
+   */
+  private class CapturedVariableScanner extends TreeScanner<Void, Void> {
+
+    /** The number of lambdas and classes that enclose the current tree. */
+    private int depth = 0;
+
+    /** The number of annotations that enclose the current tree. */
+    private int annotationDepth = 0;
+
+    /** Creates a CapturedVariableScanner. */
+    CapturedVariableScanner() {}
+
+    @Override
+    public Void visitLambdaExpression(LambdaExpressionTree tree, Void p) {
+      depth++;
+      super.visitLambdaExpression(tree, p);
+      depth--;
+      return null;
+    }
+
+    @Override
+    public Void visitClass(ClassTree tree, Void p) {
+      depth++;
+      super.visitClass(tree, p);
+      depth--;
+      return null;
+    }
+
+    @Override
+    public Void visitAnnotation(AnnotationTree tree, Void p) {
+      annotationDepth++;
+      super.visitAnnotation(tree, p);
+      annotationDepth--;
+      return null;
+    }
+
+    @Override
+    public Void visitLiteral(LiteralTree tree, Void p) {
+      if (annotationDepth > 0 && tree.getKind() == Tree.Kind.STRING_LITERAL) {
+        addIdentifiers((String) tree.getValue(), namedInAnnotations);
+      }
+      return super.visitLiteral(tree, p);
+    }
+
+    @Override
+    public Void visitIdentifier(IdentifierTree tree, Void p) {
+      if (depth > 0) {
+        Element element = TreeUtils.elementFromTree(tree);
+        if (element != null && isLocal(element)) {
+          captured.add(element.getSimpleName());
+        }
+      }
+      return super.visitIdentifier(tree, p);
+    }
+
+    /**
+     * Returns true if {@code element} is a local variable or a formal parameter.
+     *
+     * @param element an element
+     * @return true if {@code element} is a local variable or a formal parameter
+     */
+    private boolean isLocal(Element element) {
+      return ElementUtils.isLocalVariable(element)
+          || ElementUtils.isBindingVariable(element)
+          || element.getKind() == ElementKind.PARAMETER;
+    }
+  }
+}
@@ -0,0 +1,382 @@
+package org.checkerframework.framework.flow;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.util.TreePath;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.Types;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.qual.Pure;
+import org.checkerframework.dataflow.util.PurityChecker;
+import org.checkerframework.dataflow.util.PurityChecker.PurityResult;
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * The purity of unannotated methods, computed from their bodies by the {@link PurityChecker}. Each
+ * method body is checked at most once per checker, and the result is reused by every call site and
+ * by {@link org.checkerframework.common.basetype.BaseTypeVisitor}.
+ *
+ * <p>With {@code -ApuritySummaries}, {@link AnnotatedTypeFactory#isSideEffectFree} and {@link
+ * AnnotatedTypeFactory#isDeterministic} also return true for methods that are side-effect-free or
+ * deterministic according to their bodies, so that calls to them do not discard what the store
+ * knows. This is done only for methods that no other method can override, because a call might
+ * otherwise dispatch to an impure overrider.
+ *
+ * <p>With {@code -ApuritySummaryOutput=dir}, the summaries of the non-private methods of the
+ * compiled classes are written to a file in {@code dir}. A downstream compilation that passes
+ * {@code -ApuritySummaryPath=dir} uses them for calls into the compiled classes, for example a
+ * library jar, without their source code. Summaries are per checker, because the checkers may see
+ * different purity annotations in their stub files.
+ */
+public class PuritySummaries {
+
+  /** The file name extension of a purity summary file. */
+  public static final String FILE_EXTENSION = ".purity";
+
+  /** The version of the format of summary files. */
+  private static final int FORMAT_VERSION = 1;
+
+  /** The type factory whose annotations the purity checks use. */
+  private final AnnotatedTypeFactory atypeFactory;
+
+  /** True if -AassumeSideEffectFree or -AassumePure was passed on the command line. */
+  private final boolean assumeSideEffectFree;
+
+  /** True if -AassumeDeterministic or -AassumePure was passed on the command line. */
+  private final boolean assumeDeterministic;
+
+  /** True if -AassumePureGetters was passed on the command line. */
+  private final boolean assumePureGetters;
+
+  /** True if -ApuritySummaries or -ApuritySummaryPath was passed on the command line. */
+  private final boolean useInferredPurity;
+
+  /** The directory given by -ApuritySummaryOutput, or null. */
+  private final @Nullable Path outputDirectory;
+
+  /** The results of checking the bodies of methods. */
+  private final Map<ExecutableElement, PurityResult> results = new HashMap<>();
+
+  /**
+   * The methods whose bodies are being checked. A recursive call to one of them is not known to be
+   * pure.
+   */
+  private final Set<ExecutableElement> inProgress = new HashSet<>();
+
+  /** The purity of methods that were read from summary files, by {@link #key}. */
+  private final Map<String, EnumSet<Pure.Kind>> readSummaries = new HashMap<>();
+
+  /** The purity of the methods to write to the summary file, by {@link #key}. */
+  private final Map<String, EnumSet<Pure.Kind>> summariesToWrite = new TreeMap<>();
+
+  /**
+   * Creates a PuritySummaries and reads the summary files of the checker of {@code atypeFactory}
+   * from the directories given by {@code -ApuritySummaryPath}.
+   *
+   * @param atypeFactory the type factory whose annotations the purity checks use
+   */
+  public PuritySummaries(AnnotatedTypeFactory atypeFactory) {
+    this.atypeFactory = atypeFactory;
+    SourceChecker checker = atypeFactory.getChecker();
+    this.assumeSideEffectFree =
+        checker.hasOption("assumeSideEffectFree") || checker.hasOption("assumePure");
+    this.assumeDeterministic =
+        checker.hasOption("assumeDeterministic") || checker.hasOption("assumePure");
+    this.assumePureGetters = checker.hasOption("assumePureGetters");
+    this.useInferredPurity =
+        checker.hasOption("puritySummaries") || checker.hasOption("puritySummaryPath");
+    String output = checker.getOption("puritySummaryOutput");
+    this.outputDirectory = output == null ? null : Paths.get(output);
+    String path = checker.getOption("puritySummaryPath");
+    if (path != null) {
+      for (String directory : path.split(File.pathSeparator)) {
+        if (!directory.isEmpty()) {
+          read(Paths.get(directory).resolve(fileName()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns true if the checker was passed any of the command-line options that enable purity
+   * summaries.
+   *
+   * @param checker a checker
+   * @return true if purity summaries are enabled for {@code checker}
+   */
+  public static boolean isEnabled(SourceChecker checker) {
+    return checker.hasOption("puritySummaries")
+        || checker.hasOption("puritySummaryPath")
+        || checker.hasOption("puritySummaryOutput");
+  }
+
+  /**
+   * Returns the name of the summary file of this checker.
+   *
+   * @return the name of the summary file of this checker
+   */
+  private String fileName() {
+    return atypeFactory.getChecker().getClass().getName() + FILE_EXTENSION;
+  }
+
+  /**
+   * Returns the result of checking the purity of the body of {@code method}, computing it if this
+   * is the first request.
+   *
+   * @param body the path to the body of {@code method}
+   * @param method a method with a body
+   * @return the result of checking the purity of {@code method}
+   */
+  public PurityResult getResult(TreePath body, ExecutableElement method) {
+    PurityResult result = results.get(method);
+    if (result == null) {
+      // The check asks the type factory about the purity of the methods that the body calls,
+      // which may lead back here.
+      inProgress.add(method);
+      try {
+        result =
+            PurityChecker.checkPurity(
+                body, atypeFactory, assumeSideEffectFree, assumeDeterministic, assumePureGetters);
+      } finally {
+        inProgress.remove(method);
+      }
+      results.put(method, result);
+      if (outputDirectory != null
+          && isNotOverridable(method)
+          && !method.getModifiers().contains(Modifier.PRIVATE)
+          && !result.getKinds().isEmpty()) {
+        summariesToWrite.put(key(method), result.getKinds());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes the purity of {@code tree}, if its summary would be written to the summary file.
+   *
+   * @param tree a method declaration of the class being checked
+   */
+  public void summarize(MethodTree tree) {
+    if (outputDirectory == null || tree.getBody() == null) {
+      return;
+    }
+    ExecutableElement method = TreeUtils.elementFromDeclaration(tree);
+    if (isNotOverridable(method) && !method.getModifiers().contains(Modifier.PRIVATE)) {
+      TreePath body = atypeFactory.getPath(tree.getBody());
+      if (body != null) {
+        getResult(body, method);
+      }
+    }
+  }
+
+  /**
+   * Returns the kinds of purity that the body of {@code method} has, or an empty set if they are
+   * not known or should not be used. They are used only with {@code -ApuritySummaries} or {@code
+   * -ApuritySummaryPath}. They are known if the method cannot be overridden and either its summary
+   * was read from a summary file or it is declared in the compilation unit being checked.
+   *
+   * @param method a method
+   * @return the kinds of purity of the body of {@code method}, if known
+   */
+  public EnumSet<Pure.Kind> getInferredKinds(ExecutableElement method) {
+    if (!useInferredPurity || !isNotOverridable(method) || inProgress.contains(method)) {
+      return EnumSet.noneOf(Pure.Kind.class);
+    }
+    PurityResult result = results.get(method);
+    if (result != null) {
+      return result.getKinds();
+    }
+    EnumSet<Pure.Kind> summary = readSummaries.get(key(method));
+    if (summary != null) {
+      return summary;
+    }
+    // Other compilation units might not have been attributed yet.
+    CompilationUnitTree root = atypeFactory.getRoot();
+    TreePath path = root == null ? null : atypeFactory.getTreeUtils().getPath(method);
+    if (path == null
+        || path.getCompilationUnit() != root
+        || !(path.getLeaf() instanceof MethodTree)) {
+      return EnumSet.noneOf(Pure.Kind.class);
+    }
+    MethodTree tree = (MethodTree) path.getLeaf();
+    if (tree.getBody() == null) {
+      return EnumSet.noneOf(Pure.Kind.class);
+    }
+    return getResult(new TreePath(path, tree.getBody()), method).getKinds();
+  }
+
+  /**
+   * Returns true if no method can override {@code method}.
+   *
+   * @param method a method
+   * @return true if no method can override {@code method}
+   */
+  private static boolean isNotOverridable(ExecutableElement method) {
+    if (method.getKind() != ElementKind.METHOD) {
+      return false;
+    }
+    Set<Modifier> modifiers = method.getModifiers();
+    if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.NATIVE)) {
+      return false;
+    }
+    if (modifiers.contains(Modifier.STATIC)
+        || modifiers.contains(Modifier.PRIVATE)
+        || modifiers.contains(Modifier.FINAL)) {
+      return true;
+    }
+    Element enclosing = method.getEnclosingElement();
+    return ElementUtils.isTypeElement(enclosing)
+        && enclosing.getModifiers().contains(Modifier.FINAL);
+  }
+
+  /**
+   * Returns the key of {@code method} in a summary file: the binary name of its class, "#", its
+   * name, and its erased parameter types in parentheses.
+   *
+   * @param method a method
+   * @return the key of {@code method}
+   */
+  private String key(ExecutableElement method) {
+    Types types = atypeFactory.getProcessingEnv().getTypeUtils();
+    String className = ElementUtils.getBinaryName((TypeElement) method.getEnclosingElement());
+    StringJoiner result =
+        new StringJoiner(",", className + "#" + method.getSimpleName() + "(", ")");
+    for (VariableElement parameter : method.getParameters()) {
+      result.add(types.erasure(parameter.asType()).toString());
+    }
+    return result.toString();
+  }
+
+  /**
+   * Returns the configuration that the summaries depend on: the version of the file format, the
+   * checker and its version, and the options that change how method bodies are checked. A summary
+   * file records the configuration that wrote it.
+   *
+   * @return the configuration that the summaries depend on
+   */
+  private String configuration() {
+    SourceChecker checker = atypeFactory.getChecker();
+    String version;
+    try {
+      version = checker.getCheckerVersion();
+    } catch (RuntimeException e) {
+      // There is no version when running from a build directory.
+      version = "unknown";
+    }
+    return String.join(
+        " ",
+        "config",
+        Integer.toString(FORMAT_VERSION),
+        checker.getClass().getName(),
+        version,
+        "assumeSideEffectFree=" + assumeSideEffectFree,
+        "assumeDeterministic=" + assumeDeterministic,
+        "assumePureGetters=" + assumePureGetters);
+  }
+
+  /**
+   * Reads a summary file, if it exists. The first line that is not a comment must be the {@link
+   * #configuration} of this checker. Each other line is a comment starting with "#", or a
+   * comma-separated list of {@link Pure.Kind}s, a space, and a {@link #key}.
+   *
+   * @param file the summary file
+   * @throws UserError if the file is malformed or was written with a different configuration
+   */
+  private void read(Path file) {
+    if (!Files.isRegularFile(file)) {
+      return;
+    }
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UserError("Cannot read purity summary file %s: %s", file, e.getMessage());
+    }
+    boolean sawConfiguration = false;
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i).trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      if (!sawConfiguration) {
+        if (!line.equals(configuration())) {
+          throw new UserError(
+              "Purity summary file %s was written by a different version or configuration of"
+                  + " the checker; regenerate it with -ApuritySummaryOutput",
+              file);
+        }
+        sawConfiguration = true;
+        continue;
+      }
+      int space = line.indexOf(' ');
+      if (space < 0) {
+        throw new UserError("Malformed line %d in purity summary file %s", i + 1, file);
+      }
+      EnumSet<Pure.Kind> kinds = EnumSet.noneOf(Pure.Kind.class);
+      try {
+        for (String kind : line.substring(0, space).split(",")) {
+          kinds.add(Pure.Kind.valueOf(kind));
+        }
+      } catch (IllegalArgumentException e) {
+        throw new UserError("Malformed line %d in purity summary file %s", i + 1, file);
+      }
+      readSummaries.put(line.substring(space + 1).trim(), kinds);
+    }
+  }
+
+  /**
+   * Writes the summary file, if {@code -ApuritySummaryOutput} was passed on the command line. The
+   * file contains the summaries that were read, followed by those that were computed.
+   */
+  public void write() {
+    if (outputDirectory == null) {
+      return;
+    }
+    Map<String, EnumSet<Pure.Kind>> summaries = new TreeMap<>(readSummaries);
+    summaries.putAll(summariesToWrite);
+    Path file = outputDirectory.resolve(fileName());
+    try {
+      Files.createDirectories(outputDirectory);
+      try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        writer.write("# Purity summaries for " + atypeFactory.getChecker().getClass().getName());
+        writer.newLine();
+        writer.write(configuration());
+        writer.newLine();
+        for (Map.Entry<String, EnumSet<Pure.Kind>> entry : summaries.entrySet()) {
+          StringJoiner kinds = new StringJoiner(",");
+          for (Pure.Kind kind : entry.getValue()) {
+            kinds.add(kind.name());
+          }
+          writer.write(kinds + " " + entry.getKey());
+          writer.newLine();
+        }
+      }
+    } catch (IOException e) {
+      throw new UserError("Cannot write purity summary file %s: %s", file, e.getMessage());
+    }
+  }
+}
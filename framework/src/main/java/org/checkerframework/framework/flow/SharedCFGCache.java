@@ -0,0 +1,378 @@
+package org.checkerframework.framework.flow;
+
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.javacutil.AnnotationUtils;
+
+/**
+ * The control flow graphs of the top-level class that is currently being type-checked, shared by
+ * all the checkers that run in one compilation. There is one cache per compilation, stored in the
+ * javac {@link Context}.
+ *
+ * <p>javac passes each top-level class to every checker in turn, so without sharing, each checker
+ * (for example, {@code -processor NullnessChecker,ResourceLeakChecker}) builds its own control flow
+ * graph for every method. With sharing, a graph is built once per method.
+ *
+ * <p>A graph built by one checker hierarchy (a checker and its subcheckers) is reused by another
+ * only if it does not depend on the checker that built it. That is, if both were built with the
+ * same options for assertions, if the code contains no {@code @AssumeAssertion} string, and if both
+ * checkers see the same declaration annotations (such as {@code @TerminatesExecution}) on the
+ * methods that the code invokes. All the checkers of one hierarchy use the same graph, because a
+ * superchecker queries the dataflow results of its subcheckers by node.
+ *
+ * <p>The graphs are released when every top-level checker has finished the class, or at the latest
+ * when the next class is started.
+ */
+public final class SharedCFGCache {
+
+  /** The key under which the cache is stored in the javac context. */
+  private static final Context.Key<SharedCFGCache> SHARED_CFG_CACHE_KEY = new Context.Key<>();
+
+  /** The {@link #builderOptions} bit for {@code -AassumeAssertionsAreEnabled}. */
+  private static final int ASSUME_ASSERTIONS_ENABLED = 1;
+
+  /** The {@link #builderOptions} bit for {@code -AassumeAssertionsAreDisabled}. */
+  private static final int ASSUME_ASSERTIONS_DISABLED = 2;
+
+  /**
+   * The {@link #builderOptions} bit for {@link BaseTypeChecker#shouldSummarizeExceptionalEdges}.
+   */
+  private static final int SUMMARIZE_EXCEPTIONAL_EDGES = 4;
+
+  /** The number of top-level checkers in this compilation. */
+  private int participants = 0;
+
+  /** The top-level class whose control flow graphs are in the cache, or null if none. */
+  private @Nullable Tree currentClass = null;
+
+  /** The number of top-level checkers that have finished {@link #currentClass}. */
+  private int finishedParticipants = 0;
+
+  /**
+   * Maps the code of a method, lambda, or initializer to the control flow graphs built for it. The
+   * list usually has one element, and has more only if some checkers could not share a graph.
+   */
+  private final Map<Tree, List<Entry>> cfgs = new HashMap<>();
+
+  /** Creates a SharedCFGCache. Use {@link #instance} instead. */
+  private SharedCFGCache() {}
+
+  /**
+   * Returns the cache for the given processing environment, creating it if necessary.
+   *
+   * @param env the processing environment
+   * @return the cache for {@code env}
+   */
+  public static SharedCFGCache instance(ProcessingEnvironment env) {
+    Context context = ((JavacProcessingEnvironment) env).getContext();
+    synchronized (context) {
+      SharedCFGCache cache = context.get(SHARED_CFG_CACHE_KEY);
+      if (cache == null) {
+        cache = new SharedCFGCache();
+        context.put(SHARED_CFG_CACHE_KEY, cache);
+      }
+      return cache;
+    }
+  }
+
+  /**
+   * Registers a top-level checker. Must be called once for each checker that javac runs, before
+   * any of them type-checks a class.
+   */
+  public void addParticipant() {
+    participants++;
+  }
+
+  /**
+   * Returns the number of top-level checkers in this compilation.
+   *
+   * @return the number of top-level checkers in this compilation
+   */
+  public int getParticipants() {
+    return participants;
+  }
+
+  /**
+   * Notes that a top-level checker is about to type-check {@code classTree}. If it is a new class,
+   * every checker has finished the previous one, so its control flow graphs are released.
+   *
+   * @param classTree a top-level class
+   */
+  @SuppressWarnings("interning:not.interned") // trees are compared by reference
+  public void startClass(Tree classTree) {
+    if (classTree != currentClass) {
+      cfgs.clear();
+      currentClass = classTree;
+      finishedParticipants = 0;
+    }
+  }
+
+  /**
+   * Notes that a top-level checker has finished type-checking {@code classTree}. When every checker
+   * has, the control flow graphs of the class are released.
+   *
+   * @param classTree a top-level class
+   */
+  @SuppressWarnings("interning:not.interned") // trees are compared by reference
+  public void finishClass(Tree classTree) {
+    if (classTree == currentClass && ++finishedParticipants >= participants) {
+      cfgs.clear();
+      currentClass = null;
+    }
+  }
+
+  /**
+   * Returns a control flow graph for {@code code} that {@code checker} can use, or null if there is
+   * none. If the graph was built by another checker hierarchy, records the artificial trees of the
+   * graph in {@code factory}.
+   *
+   * @param code the code of a method, lambda, or initializer
+   * @param checker the checker that needs a control flow graph
+   * @param factory the type factory of {@code checker}
+   * @return a control flow graph for {@code code}, or null
+   */
+  public @Nullable ControlFlowGraph get(
+      Tree code, BaseTypeChecker checker, AnnotatedTypeFactory factory) {
+    List<Entry> entries = cfgs.get(code);
+    if (entries == null) {
+      return null;
+    }
+    BaseTypeChecker hierarchy = checker.getUltimateParentChecker();
+    for (Entry entry : entries) {
+      if (entry.hierarchies.contains(hierarchy)) {
+        entry.addArtificialTrees(factory);
+        return entry.cfg;
+      }
+    }
+    int options = builderOptions(checker);
+    for (Entry entry : entries) {
+      if (entry.isReusableBy(options, factory)) {
+        entry.hierarchies.add(hierarchy);
+        entry.addArtificialTrees(factory);
+        return entry.cfg;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Adds a control flow graph that only the checker hierarchy of {@code checker} may use.
+   *
+   * @param code the code of a method, lambda, or initializer
+   * @param checker the checker that built {@code cfg}
+   * @param cfg the control flow graph of {@code code}
+   */
+  public void put(Tree code, BaseTypeChecker checker, ControlFlowGraph cfg) {
+    add(code, checker, cfg, true, Collections.emptyMap(), Collections.emptyList());
+  }
+
+  /**
+   * Adds a control flow graph, which other checker hierarchies may use if it does not depend on the
+   * checker that built it.
+   *
+   * @param code the code of a method, lambda, or initializer
+   * @param checker the checker that built {@code cfg}
+   * @param cfg the control flow graph of {@code code}
+   * @param phaseOne the first phase of the construction of {@code cfg}
+   */
+  void put(
+      Tree code,
+      BaseTypeChecker checker,
+      ControlFlowGraph cfg,
+      CFCFGBuilder.CFCFGTranslationPhaseOne phaseOne) {
+    add(
+        code,
+        checker,
+        cfg,
+        phaseOne.dependsOnChecker(),
+        phaseOne.getArtificialTrees(),
+        phaseOne.getDeclAnnotationLookups());
+  }
+
+  /**
+   * Adds a control flow graph.
+   *
+   * @param code the code of a method, lambda, or initializer
+   * @param checker the checker that built {@code cfg}
+   * @param cfg the control flow graph of {@code code}
+   * @param dependsOnChecker true if other checker hierarchies must not use {@code cfg}
+   * @param artificialTrees the enclosing elements of the artificial trees in {@code cfg}
+   * @param lookups the declaration annotations that the construction of {@code cfg} looked up
+   */
+  private void add(
+      Tree code,
+      BaseTypeChecker checker,
+      ControlFlowGraph cfg,
+      boolean dependsOnChecker,
+      Map<Tree, Element> artificialTrees,
+      List<DeclAnnotationLookup> lookups) {
+    BaseTypeChecker hierarchy = checker.getUltimateParentChecker();
+    List<Entry> entries = cfgs.computeIfAbsent(code, k -> new ArrayList<>(1));
+    for (Entry entry : entries) {
+      if (entry.hierarchies.contains(hierarchy)) {
+        // Another checker of the hierarchy already added a graph.
+        return;
+      }
+    }
+    entries.add(
+        new Entry(
+            cfg, builderOptions(checker), hierarchy, dependsOnChecker, artificialTrees, lookups));
+  }
+
+  /**
+   * Returns the options of {@code checker} that affect the construction of control flow graphs.
+   *
+   * @param checker a checker
+   * @return the options of {@code checker} that affect the construction of control flow graphs,
+   *     as a bit set
+   */
+  private static int builderOptions(BaseTypeChecker checker) {
+    int result = 0;
+    if (checker.hasOption("assumeAssertionsAreEnabled")) {
+      result |= ASSUME_ASSERTIONS_ENABLED;
+    }
+    if (checker.hasOption("assumeAssertionsAreDisabled")) {
+      result |= ASSUME_ASSERTIONS_DISABLED;
+    }
+    if (checker.getUltimateParentChecker().shouldSummarizeExceptionalEdges()) {
+      result |= SUMMARIZE_EXCEPTIONAL_EDGES;
+    }
+    return result;
+  }
+
+  /** The result of a lookup of a declaration annotation during the construction of a graph. */
+  static final class DeclAnnotationLookup {
+
+    /** The element whose annotation was looked up. */
+    final Element element;
+
+    /** The annotation class that was looked up. */
+    final Class<? extends Annotation> annotation;
+
+    /** The result of the lookup. */
+    final @Nullable AnnotationMirror result;
+
+    /**
+     * Creates a DeclAnnotationLookup.
+     *
+     * @param element the element whose annotation was looked up
+     * @param annotation the annotation class that was looked up
+     * @param result the result of the lookup
+     */
+    DeclAnnotationLookup(
+        Element element,
+        Class<? extends Annotation> annotation,
+        @Nullable AnnotationMirror result) {
+      this.element = element;
+      this.annotation = annotation;
+      this.result = result;
+    }
+
+    /**
+     * Returns true if {@code factory} finds the same declaration annotation.
+     *
+     * @param factory a type factory
+     * @return true if {@code factory} finds the same declaration annotation
+     */
+    boolean hasSameResult(AnnotatedTypeFactory factory) {
+      AnnotationMirror other = factory.getDeclAnnotation(element, annotation);
+      if (result == null || other == null) {
+        return result == other;
+      }
+      return AnnotationUtils.areSame(result, other);
+    }
+  }
+
+  /** A control flow graph and what its construction depended on. */
+  private static final class Entry {
+
+    /** The control flow graph. */
+    final ControlFlowGraph cfg;
+
+    /** The {@link #builderOptions} of the checker that built the graph. */
+    final int options;
+
+    /** The checker hierarchies, identified by their ultimate parent, that use the graph. */
+    final Set<BaseTypeChecker> hierarchies = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** True if other checker hierarchies must not use the graph. */
+    final boolean dependsOnChecker;
+
+    /** The enclosing elements of the artificial trees in the graph. */
+    final Map<Tree, Element> artificialTrees;
+
+    /** The declaration annotations that the construction of the graph looked up. */
+    final List<DeclAnnotationLookup> lookups;
+
+    /**
+     * Creates an Entry.
+     *
+     * @param cfg the control flow graph
+     * @param options the builder options of the checker that built the graph
+     * @param hierarchy the ultimate parent of the checker that built the graph
+     * @param dependsOnChecker true if other checker hierarchies must not use the graph
+     * @param artificialTrees the enclosing elements of the artificial trees in the graph
+     * @param lookups the declaration annotations that the construction of the graph looked up
+     */
+    Entry(
+        ControlFlowGraph cfg,
+        int options,
+        BaseTypeChecker hierarchy,
+        boolean dependsOnChecker,
+        Map<Tree, Element> artificialTrees,
+        List<DeclAnnotationLookup> lookups) {
+      this.cfg = cfg;
+      this.options = options;
+      this.hierarchies.add(hierarchy);
+      this.dependsOnChecker = dependsOnChecker;
+      this.artificialTrees = artificialTrees;
+      this.lookups = lookups;
+    }
+
+    /**
+     * Returns true if a checker hierarchy that does not yet use the graph may use it.
+     *
+     * @param options the builder options of the checker
+     * @param factory the type factory of the checker
+     * @return true if the checker may use the graph
+     */
+    boolean isReusableBy(int options, AnnotatedTypeFactory factory) {
+      if (dependsOnChecker || options != this.options) {
+        return false;
+      }
+      for (DeclAnnotationLookup lookup : lookups) {
+        if (!lookup.hasSameResult(factory)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Records the enclosing elements of the artificial trees of the graph in {@code factory}.
+     *
+     * @param factory a type factory that uses the graph
+     */
+    void addArtificialTrees(AnnotatedTypeFactory factory) {
+      for (Map.Entry<Tree, Element> entry : artificialTrees.entrySet()) {
+        factory.setEnclosingElementForArtificialTree(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+}
@@ -0,0 +1,977 @@
+package org.checkerframework.framework.source;
+
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.EnhancedForLoopTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TryTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.TreeUtils;
+import org.checkerframework.javacutil.TypesUtils;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * The diagnostics of methods from an earlier compilation, for incremental checking.
+ *
+ * <p>With {@code -AincrementalCache=dir}, the diagnostics that the checkers issue for each method
+ * are stored in a file in {@code dir}, together with a hash of everything that they depend on: the
+ * method's tree; the header, field declarations, and initializers of its class; the declarations of
+ * the classes, methods, and fields that it refers to, calls implicitly, or overrides, together with
+ * the annotations of the classes and packages that enclose them and the headers of their
+ * supertypes; and the checker's options and stub files. In a later compilation, a method whose
+ * hash is unchanged is neither analyzed by dataflow nor visited; its diagnostics are re-issued
+ * instead.
+ *
+ * <p>One cache is shared by a checker and all its subcheckers, so that they all skip the same
+ * methods: a checker may query the types that a subchecker computes for a method's body.
+ *
+ * <p>Only methods whose results cannot affect other code are cached: constructors (whose exit
+ * stores determine field initialization) and methods that contain class declarations are always
+ * checked. A method is also always checked if a diagnostic issued while checking it is not located
+ * within it, if a checker crashed, or if the target of one of its implicit calls cannot be
+ * determined.
+ */
+public class MethodResultCache {
+
+  /** The file name extension of a cache file. */
+  public static final String FILE_EXTENSION = ".results";
+
+  /** The root checker, which owns this cache. */
+  private final SourceChecker checker;
+
+  /** The cache file. */
+  private final Path file;
+
+  /**
+   * A hash of the checker's configuration: its class, the Checker Framework version, the
+   * command-line options, and the contents of its stub files. If it changes, no entry is reused.
+   */
+  private final String configurationHash;
+
+  /** The entries read from the cache file, by {@link #methodId}. */
+  private final Map<String, Entry> readEntries = new HashMap<>();
+
+  /** The entries to write to the cache file, by {@link #methodId}. */
+  private final Map<String, Entry> entriesToWrite = new TreeMap<>();
+
+  /** The binary names of the classes that have been checked. */
+  private final Set<String> checkedClasses = new HashSet<>();
+
+  /** The methods of the current top-level class that have been looked up. */
+  private final Map<MethodTree, MethodState> methodStates = new IdentityHashMap<>();
+
+  /**
+   * The methods whose diagnostics are being recorded, innermost first. Contains {@link
+   * #NOT_RECORDED} for a method that is not cached.
+   */
+  private final ArrayDeque<MethodState> recording = new ArrayDeque<>();
+
+  /** True if a checker crashed while checking the current top-level class. */
+  private boolean classFailed = false;
+
+  /** The state of a method that is not cached. */
+  private static final MethodState NOT_RECORDED = new MethodState(null, "", null, false);
+
+  /**
+   * The command-line options with which {@code -AincrementalCache} has no effect. The first four
+   * need to see every method, or depend on the bodies of other methods; with the last, diagnostics
+   * would contain stale positions.
+   */
+  private static final List<String> INCOMPATIBLE_OPTIONS =
+      Arrays.asList(
+          "warnUnneededSuppressions",
+          "infer",
+          "puritySummaries",
+          "puritySummaryPath",
+          "detailedmsgtext");
+
+  /**
+   * Returns true if the checker was passed {@code -AincrementalCache}, and no command-line option
+   * that is incompatible with skipping methods. Issues a warning if {@code -AincrementalCache} is
+   * ignored because of such an option.
+   *
+   * @param checker a checker
+   * @return true if incremental checking is enabled for {@code checker}
+   */
+  public static boolean isEnabled(SourceChecker checker) {
+    if (!checker.hasOption("incrementalCache")) {
+      return false;
+    }
+    for (String option : INCOMPATIBLE_OPTIONS) {
+      if (checker.hasOption(option)) {
+        checker.message(
+            Diagnostic.Kind.WARNING,
+            "-AincrementalCache is ignored because -A%s was also given",
+            option);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates a MethodResultCache and reads its file from the directory given by {@code
+   * -AincrementalCache}.
+   *
+   * @param checker the root checker
+   */
+  public MethodResultCache(SourceChecker checker) {
+    this.checker = checker;
+    String directory = checker.getOption("incrementalCache");
+    if (directory == null || directory.isEmpty()) {
+      throw new UserError("Must supply an argument to -AincrementalCache");
+    }
+    this.file = Paths.get(directory).resolve(checker.getClass().getName() + FILE_EXTENSION);
+    this.configurationHash = computeConfigurationHash();
+    read();
+  }
+
+  /**
+   * Starts checking a top-level class. Forgets the methods of the previous class, whose results
+   * were not committed by {@link #endClass} if checking stopped early.
+   */
+  public void beginClass() {
+    methodStates.clear();
+    recording.clear();
+    classFailed = false;
+  }
+
+  /** Finishes checking a top-level class, and commits the results of its methods. */
+  public void endClass() {
+    if (!classFailed) {
+      for (MethodState state : methodStates.values()) {
+        if (state.hash == null) {
+          continue;
+        }
+        if (state.unchanged) {
+          entriesToWrite.put(state.id, readEntries.get(state.id));
+        } else if (state.cacheable) {
+          entriesToWrite.put(state.id, new Entry(state.hash, state.messages));
+        }
+      }
+    }
+    beginClass();
+  }
+
+  /** Notes that a checker crashed, so that no result of the current top-level class is cached. */
+  public void classFailed() {
+    classFailed = true;
+  }
+
+  /**
+   * Returns true if the results of {@code method} in the cache are still valid, so that it need not
+   * be analyzed or visited. Every checker gets the same answer for a method.
+   *
+   * @param method a method
+   * @param enclosingClass the class that declares {@code method}
+   * @return true if the cached results of {@code method} are still valid
+   */
+  public boolean isUnchanged(MethodTree method, ClassTree enclosingClass) {
+    return getState(method, enclosingClass).unchanged;
+  }
+
+  /**
+   * Returns the state of {@code method}, computing its hash if necessary.
+   *
+   * @param method a method
+   * @param enclosingClass the class that declares {@code method}
+   * @return the state of {@code method}
+   */
+  private MethodState getState(MethodTree method, ClassTree enclosingClass) {
+    MethodState state = methodStates.get(method);
+    if (state == null) {
+      state = computeState(method, enclosingClass);
+      methodStates.put(method, state);
+    }
+    return state;
+  }
+
+  /**
+   * Starts recording the diagnostics of {@code method}. Has no effect if {@code method} is not
+   * cached, or if {@link #isUnchanged} has not been called for it.
+   *
+   * @param method a method
+   */
+  public void beginMethod(MethodTree method) {
+    MethodState state = methodStates.get(method);
+    recording.push(state == null || state.hash == null ? NOT_RECORDED : state);
+  }
+
+  /**
+   * Stops recording the diagnostics of {@code method}, which was passed to the matching call of
+   * {@link #beginMethod}.
+   *
+   * @param method a method
+   */
+  public void endMethod(MethodTree method) {
+    recording.pop();
+  }
+
+  /**
+   * Records a diagnostic of the method whose diagnostics are being recorded, if any.
+   *
+   * @param reporter the checker that issued the diagnostic
+   * @param kind the kind of the diagnostic
+   * @param message the text of the diagnostic
+   * @param source the location of the diagnostic: a tree or an element
+   */
+  void record(SourceChecker reporter, Diagnostic.Kind kind, String message, Object source) {
+    MethodState state = recording.peek();
+    if (state == null || state.hash == null || !state.cacheable) {
+      return;
+    }
+    int index = source instanceof Tree ? TreeIndexer.indexOf(state.tree, (Tree) source) : -1;
+    if (index < 0 || kind == Diagnostic.Kind.NOTE) {
+      // The diagnostic could not be re-issued at the right place.
+      state.cacheable = false;
+      return;
+    }
+    state.messages.add(new Message(reporter.getClass().getName(), kind, index, message));
+  }
+
+  /**
+   * Re-issues the cached diagnostics that {@code reporter} issued for {@code method}, which must be
+   * unchanged.
+   *
+   * @param reporter a checker
+   * @param method a method for which {@link #isUnchanged} returned true
+   */
+  public void replay(SourceChecker reporter, MethodTree method) {
+    MethodState state = methodStates.get(method);
+    Entry entry = state == null ? null : readEntries.get(state.id);
+    if (entry == null) {
+      return;
+    }
+    String reporterName = reporter.getClass().getName();
+    CompilationUnitTree root = reporter.currentRoot;
+    for (Message message : entry.messages) {
+      if (message.checker.equals(reporterName)) {
+        Tree tree = TreeIndexer.treeAt(method, message.treeIndex);
+        if (tree != null && root != null) {
+          reporter.printOrStoreMessage(message.kind, message.text, tree, root);
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes the state of a method: whether it can be cached, its hash, and whether that hash
+   * matches the cache file.
+   *
+   * @param method a method
+   * @param enclosingClass the class that declares {@code method}
+   * @return the state of {@code method}
+   */
+  private MethodState computeState(MethodTree method, ClassTree enclosingClass) {
+    ExecutableElement methodElt = TreeUtils.elementFromDeclaration(method);
+    TypeElement classElt = TreeUtils.elementFromDeclaration(enclosingClass);
+    if (method.getBody() == null
+        || TreeUtils.isConstructor(method)
+        || (classElt.getNestingKind() != NestingKind.TOP_LEVEL
+            && classElt.getNestingKind() != NestingKind.MEMBER)
+        || containsClassDeclaration(method)) {
+      return new MethodState(method, "", null, false);
+    }
+    Set<Element> dependencies = dependencies(method);
+    if (dependencies == null) {
+      return new MethodState(method, "", null, false);
+    }
+
+    Hasher hasher = new Hasher();
+    hasher.add(configurationHash);
+    hasher.add(method.toString());
+    hasher.add(enclosingClass.getModifiers().toString());
+    hasher.add(enclosingClass.getTypeParameters().toString());
+    hasher.add(String.valueOf(enclosingClass.getExtendsClause()));
+    hasher.add(enclosingClass.getImplementsClause().toString());
+    for (Tree member : enclosingClass.getMembers()) {
+      if (member.getKind() == Tree.Kind.VARIABLE || member.getKind() == Tree.Kind.BLOCK) {
+        hasher.add(member.toString());
+      }
+    }
+    for (Element e = classElt; e != null; e = e.getEnclosingElement()) {
+      hasher.add(describe(e));
+    }
+    Types types = checker.getProcessingEnvironment().getTypeUtils();
+    for (ExecutableElement overridden : ElementUtils.getOverriddenMethods(methodElt, types)) {
+      hasher.add(describe(overridden));
+    }
+    for (Element dependency : dependencies) {
+      hasher.add(describe(dependency));
+    }
+
+    String id = methodId(methodElt, classElt);
+    checkedClasses.add(ElementUtils.getBinaryName(classElt));
+    String hash = hasher.finish();
+    Entry entry = readEntries.get(id);
+    return new MethodState(method, id, hash, entry != null && entry.hash.equals(hash));
+  }
+
+  /**
+   * Returns the classes, methods, and fields that {@code method} refers to, including the methods
+   * that it calls implicitly: {@code iterator()}, {@code hasNext()}, and {@code next()} in an
+   * enhanced for loop, {@code close()} in a try-with-resources statement, the unboxing methods,
+   * and {@code toString()} in a string concatenation.
+   *
+   * @param method a method
+   * @return the classes, methods, and fields that {@code method} refers to, or null if the target
+   *     of an implicit call cannot be determined
+   */
+  private @Nullable Set<Element> dependencies(MethodTree method) {
+    Set<Element> result = new LinkedHashSet<>();
+    Types types = checker.getProcessingEnvironment().getTypeUtils();
+    Elements elements = checker.getProcessingEnvironment().getElementUtils();
+    boolean[] unknownTarget = {false};
+    new TreeScanner<Void, Void>() {
+      @Override
+      public Void scan(@Nullable Tree tree, Void p) {
+        if (tree instanceof ExpressionTree) {
+          TypeMirror type = TreeUtils.typeOf(tree);
+          // Conservatively, any boxed value may be unboxed.
+          if (type != null && TypesUtils.isBoxedPrimitive(type)) {
+            addMethod(type, types.unboxedType(type).toString() + "Value");
+          }
+        }
+        return super.scan(tree, p);
+      }
+
+      @Override
+      public Void visitEnhancedForLoop(EnhancedForLoopTree tree, Void p) {
+        TypeMirror iterableType = TreeUtils.typeOf(tree.getExpression());
+        if (iterableType.getKind() != TypeKind.ARRAY) {
+          ExecutableElement iterator = addMethod(iterableType, "iterator");
+          if (iterator != null) {
+            addMethod(iterator.getReturnType(), "hasNext");
+            addMethod(iterator.getReturnType(), "next");
+          }
+        }
+        return super.visitEnhancedForLoop(tree, p);
+      }
+
+      @Override
+      public Void visitTry(TryTree tree, Void p) {
+        for (Tree resource : tree.getResources()) {
+          TypeMirror resourceType =
+              resource instanceof VariableTree
+                  ? TreeUtils.elementFromDeclaration((VariableTree) resource).asType()
+                  : TreeUtils.typeOf(resource);
+          addMethod(resourceType, "close");
+        }
+        return super.visitTry(tree, p);
+      }
+
+      @Override
+      public Void visitBinary(BinaryTree tree, Void p) {
+        if (tree.getKind() == Tree.Kind.PLUS && TypesUtils.isString(TreeUtils.typeOf(tree))) {
+          addToString(tree.getLeftOperand());
+          addToString(tree.getRightOperand());
+        }
+        return super.visitBinary(tree, p);
+      }
+
+      @Override
+      public Void visitCompoundAssignment(CompoundAssignmentTree tree, Void p) {
+        if (tree.getKind() == Tree.Kind.PLUS_ASSIGNMENT
+            && TypesUtils.isString(TreeUtils.typeOf(tree.getVariable()))) {
+          addToString(tree.getExpression());
+        }
+        return super.visitCompoundAssignment(tree, p);
+      }
+
+      @Override
+      public Void visitIdentifier(IdentifierTree tree, Void p) {
+        add(TreeUtils.elementFromTree(tree));
+        return super.visitIdentifier(tree, p);
+      }
+
+      @Override
+      public Void visitMemberSelect(MemberSelectTree tree, Void p) {
+        add(TreeUtils.elementFromTree(tree));
+        return super.visitMemberSelect(tree, p);
+      }
+
+      @Override
+      public Void visitMemberReference(MemberReferenceTree tree, Void p) {
+        add(TreeUtils.elementFromTree(tree));
+        return super.visitMemberReference(tree, p);
+      }
+
+      @Override
+      public Void visitNewClass(NewClassTree tree, Void p) {
+        add(TreeUtils.elementFromTree(tree));
+        return super.visitNewClass(tree, p);
+      }
+
+      /**
+       * Adds the {@code toString()} method that a string concatenation calls on the value of {@code
+       * operand}, if it is a reference other than a string.
+       *
+       * @param operand an operand of a string concatenation
+       */
+      private void addToString(ExpressionTree operand) {
+        TypeMirror type = TreeUtils.typeOf(operand);
+        if (!type.getKind().isPrimitive()
+            && type.getKind() != TypeKind.NULL
+            && !TypesUtils.isString(type)) {
+          addMethod(type, "toString");
+        }
+      }
+
+      /**
+       * Adds the method without parameters with the given name that is a member of {@code
+       * receiverType}, and returns it. If there is none, records that the method cannot be cached.
+       *
+       * @param receiverType the type of the receiver of an implicit call
+       * @param name the name of the called method
+       * @return the called method, or null if it cannot be determined
+       */
+      private @Nullable ExecutableElement addMethod(TypeMirror receiverType, String name) {
+        TypeMirror erased =
+            receiverType.getKind() == TypeKind.ARRAY
+                ? elements.getTypeElement("java.lang.Object").asType()
+                : types.erasure(receiverType);
+        if (erased.getKind() == TypeKind.DECLARED) {
+          TypeElement receiverElt = (TypeElement) ((DeclaredType) erased).asElement();
+          for (ExecutableElement m : ElementFilter.methodsIn(elements.getAllMembers(receiverElt))) {
+            if (m.getSimpleName().contentEquals(name) && m.getParameters().isEmpty()) {
+              result.add(receiverElt);
+              result.add(m);
+              return m;
+            }
+          }
+        }
+        unknownTarget[0] = true;
+        return null;
+      }
+
+      /**
+       * Adds {@code element} to the result, unless it is local to the method.
+       *
+       * @param element an element, or null
+       */
+      private void add(@Nullable Element element) {
+        if (element == null) {
+          return;
+        }
+        Element enclosing = element.getEnclosingElement();
+        if (element instanceof TypeElement
+            || element instanceof PackageElement
+            || enclosing instanceof TypeElement) {
+          result.add(element);
+        }
+      }
+    }.scan(method, null);
+    return unknownTarget[0] ? null : result;
+  }
+
+  /**
+   * Returns true if {@code method} declares a local or anonymous class. The classes in a method are
+   * analyzed with the stores of the method, so the method cannot be skipped separately.
+   *
+   * @param method a method
+   * @return true if {@code method} contains a class declaration
+   */
+  private static boolean containsClassDeclaration(MethodTree method) {
+    Boolean result =
+        new TreeScanner<Boolean, Void>() {
+          @Override
+          public Boolean visitClass(ClassTree tree, Void p) {
+            return true;
+          }
+
+          @Override
+          public Boolean reduce(Boolean r1, Boolean r2) {
+            return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+          }
+        }.scan(method.getBody(), null);
+    return Boolean.TRUE.equals(result);
+  }
+
+  /**
+   * Returns a description of a declaration that includes everything that a checker can see of it:
+   * its kind, name, modifiers, annotations, type (including type annotations), and the bounds of
+   * its type parameters; the annotations of the classes and package that enclose it, such as
+   * {@code @DefaultQualifier} and {@code @AnnotatedFor}, which determine its defaulted types; and
+   * for a class, the headers of all its supertypes.
+   *
+   * @param element a declaration
+   * @return a description of {@code element}
+   */
+  private String describe(Element element) {
+    StringJoiner result = new StringJoiner(" ");
+    describeDeclaration(element, result);
+    result.add(element.getModifiers().toString());
+    if (element instanceof TypeElement) {
+      Types types = checker.getProcessingEnvironment().getTypeUtils();
+      Set<TypeElement> visited = new HashSet<>();
+      ArrayDeque<TypeMirror> worklist = new ArrayDeque<>();
+      worklist.add(element.asType());
+      while (!worklist.isEmpty()) {
+        for (TypeMirror supertype : types.directSupertypes(worklist.remove())) {
+          result.add(supertype.toString());
+          TypeElement supertypeElt = (TypeElement) types.asElement(supertype);
+          if (supertypeElt != null && visited.add(supertypeElt)) {
+            describeDeclaration(supertypeElt, result);
+            worklist.add(supertypeElt.asType());
+          }
+        }
+      }
+    } else if (element instanceof ExecutableElement) {
+      for (VariableElement parameter : ((ExecutableElement) element).getParameters()) {
+        result.add(parameter.getAnnotationMirrors().toString());
+      }
+    } else if (element instanceof VariableElement) {
+      result.add(String.valueOf(((VariableElement) element).getConstantValue()));
+    }
+    return result.toString();
+  }
+
+  /**
+   * Adds to {@code result} the kind, name, annotations, and type of {@code element}, the bounds of
+   * its type parameters, and the names and annotations of the classes and package that enclose it.
+   *
+   * @param element a declaration
+   * @param result where to add the description
+   */
+  private static void describeDeclaration(Element element, StringJoiner result) {
+    result.add(element.getKind().toString());
+    result.add(element.toString());
+    result.add(element.getAnnotationMirrors().toString());
+    result.add(element.asType().toString());
+    List<? extends TypeParameterElement> typeParameters =
+        element instanceof TypeElement
+            ? ((TypeElement) element).getTypeParameters()
+            : element instanceof ExecutableElement
+                ? ((ExecutableElement) element).getTypeParameters()
+                : Collections.emptyList();
+    for (TypeParameterElement typeParameter : typeParameters) {
+      result.add(typeParameter.getAnnotationMirrors().toString());
+      result.add(typeParameter.getBounds().toString());
+    }
+    for (Element enclosing = element.getEnclosingElement();
+        enclosing != null;
+        enclosing = enclosing.getEnclosingElement()) {
+      result.add(enclosing.getKind().toString());
+      result.add(enclosing.toString());
+      result.add(enclosing.getAnnotationMirrors().toString());
+      if (enclosing instanceof PackageElement) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Returns the key of {@code method} in the cache file: the binary name of its class, "#", its
+   * name, and its erased parameter types in parentheses.
+   *
+   * @param method a method
+   * @param classElt the class that declares {@code method}
+   * @return the key of {@code method}
+   */
+  private String methodId(ExecutableElement method, TypeElement classElt) {
+    Types types = checker.getProcessingEnvironment().getTypeUtils();
+    StringJoiner result =
+        new StringJoiner(
+            ",", ElementUtils.getBinaryName(classElt) + "#" + method.getSimpleName() + "(", ")");
+    for (VariableElement parameter : method.getParameters()) {
+      result.add(types.erasure(parameter.asType()).toString());
+    }
+    return result.toString();
+  }
+
+  /**
+   * Computes {@link #configurationHash}.
+   *
+   * @return the hash of the checker's configuration
+   */
+  private String computeConfigurationHash() {
+    Hasher hasher = new Hasher();
+    hasher.add(checker.getClass().getName());
+    try {
+      hasher.add(checker.getCheckerVersion());
+    } catch (RuntimeException e) {
+      // There is no version when running from a build directory.
+    }
+    // The numbering of trees by TreeIndexer could differ between JDKs.
+    hasher.add(System.getProperty("java.version"));
+    hasher.add(checker.getProcessingEnvironment().getSourceVersion().toString());
+    Map<String, String> options = new TreeMap<>(checker.getProcessingEnvironment().getOptions());
+    options.remove("incrementalCache");
+    hasher.add(options.toString());
+    for (String option : new String[] {"stubs", "ajava"}) {
+      String paths = options.get(option);
+      if (paths == null) {
+        continue;
+      }
+      for (String path : paths.split(File.pathSeparator)) {
+        try (Stream<Path> files = Files.walk(Paths.get(path))) {
+          for (Path stubFile : files.sorted().collect(Collectors.toList())) {
+            if (Files.isRegularFile(stubFile)) {
+              hasher.add(stubFile.toString());
+              hasher.add(new String(Files.readAllBytes(stubFile), StandardCharsets.UTF_8));
+            }
+          }
+        } catch (IOException | RuntimeException e) {
+          // The path names a resource in a jar, or no file at all; its name was hashed above.
+        }
+      }
+    }
+    return hasher.finish();
+  }
+
+  /**
+   * Reads the cache file, if it exists and its configuration hash matches {@link
+   * #configurationHash}. The first line is "config" and the configuration hash. Each method starts
+   * with a line "method", its {@link #methodId}, and its hash, followed by its diagnostics, one per
+   * line: "message", the checker class, the kind, the index of the tree (see {@link TreeIndexer}),
+   * and the escaped text.
+   */
+  private void read() {
+    if (!Files.isRegularFile(file)) {
+      return;
+    }
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UserError("Cannot read incremental cache file %s: %s", file, e.getMessage());
+    }
+    if (lines.isEmpty() || !lines.get(0).equals("config " + configurationHash)) {
+      return;
+    }
+    Entry entry = null;
+    for (int i = 1; i < lines.size(); i++) {
+      String[] fields = lines.get(i).split(" ", 5);
+      try {
+        if (fields[0].equals("method") && fields.length == 3) {
+          entry = new Entry(fields[2], new ArrayList<>());
+          readEntries.put(fields[1], entry);
+        } else if (fields[0].equals("message") && fields.length == 5 && entry != null) {
+          entry.messages.add(
+              new Message(
+                  fields[1],
+                  Diagnostic.Kind.valueOf(fields[2]),
+                  Integer.parseInt(fields[3]),
+                  unescape(fields[4])));
+        } else {
+          throw new IllegalArgumentException();
+        }
+      } catch (IllegalArgumentException e) {
+        throw new UserError(
+            "Malformed line %d in incremental cache file %s; delete the file", i + 1, file);
+      }
+    }
+  }
+
+  /**
+   * Writes the cache file. It contains the entries of the methods that were checked or skipped,
+   * and the entries that were read for classes that were not checked.
+   */
+  public void write() {
+    Map<String, Entry> entries = new TreeMap<>();
+    for (Map.Entry<String, Entry> entry : readEntries.entrySet()) {
+      String id = entry.getKey();
+      if (!checkedClasses.contains(id.substring(0, id.indexOf('#')))) {
+        entries.put(id, entry.getValue());
+      }
+    }
+    entries.putAll(entriesToWrite);
+    try {
+      Files.createDirectories(file.getParent());
+      try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        writer.write("config " + configurationHash);
+        writer.newLine();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+          writer.write("method " + entry.getKey() + " " + entry.getValue().hash);
+          writer.newLine();
+          for (Message message : entry.getValue().messages) {
+            writer.write(
+                String.join(
+                    " ",
+                    "message",
+                    message.checker,
+                    message.kind.name(),
+                    Integer.toString(message.treeIndex),
+                    escape(message.text)));
+            writer.newLine();
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UserError("Cannot write incremental cache file %s: %s", file, e.getMessage());
+    }
+  }
+
+  /**
+   * Escapes backslashes and line terminators, so that {@code s} fits on one line.
+   *
+   * @param s a string
+   * @return {@code s}, escaped
+   */
+  private static String escape(String s) {
+    return s.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+  }
+
+  /**
+   * Reverses {@link #escape}.
+   *
+   * @param s an escaped string
+   * @return {@code s}, unescaped
+   */
+  private static String unescape(String s) {
+    StringBuilder result = new StringBuilder(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '\\' && i + 1 < s.length()) {
+        char next = s.charAt(++i);
+        result.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+      } else {
+        result.append(c);
+      }
+    }
+    return result.toString();
+  }
+
+  /** The cached results of a method. */
+  private static class Entry {
+    /** The hash of everything that the results depend on. */
+    final String hash;
+
+    /** The diagnostics of the method, in the order in which they were issued. */
+    final List<Message> messages;
+
+    /**
+     * Creates an Entry.
+     *
+     * @param hash the hash of everything that the results depend on
+     * @param messages the diagnostics of the method
+     */
+    Entry(String hash, List<Message> messages) {
+      this.hash = hash;
+      this.messages = messages;
+    }
+  }
+
+  /** A diagnostic of a method. */
+  private static class Message {
+    /** The class name of the checker that issued the diagnostic. */
+    final String checker;
+
+    /** The kind of the diagnostic. */
+    final Diagnostic.Kind kind;
+
+    /** The location of the diagnostic, as an index computed by {@link TreeIndexer}. */
+    final int treeIndex;
+
+    /** The text of the diagnostic. */
+    final String text;
+
+    /**
+     * Creates a Message.
+     *
+     * @param checker the class name of the checker that issued the diagnostic
+     * @param kind the kind of the diagnostic
+     * @param treeIndex the location of the diagnostic
+     * @param text the text of the diagnostic
+     */
+    Message(String checker, Diagnostic.Kind kind, int treeIndex, String text) {
+      this.checker = checker;
+      this.kind = kind;
+      this.treeIndex = treeIndex;
+      this.text = text;
+    }
+  }
+
+  /** What this cache knows about a method of the current top-level class. */
+  private static class MethodState {
+    /** The method, or null for {@link #NOT_RECORDED}. */
+    final @Nullable MethodTree tree;
+
+    /** The {@link #methodId} of the method. */
+    final String id;
+
+    /** The hash of everything the method's results depend on, or null if it is not cached. */
+    final @Nullable String hash;
+
+    /** True if the cache file has results for the method with the same hash. */
+    final boolean unchanged;
+
+    /** False if a diagnostic of the method could not be recorded. */
+    boolean cacheable = true;
+
+    /** The diagnostics recorded for the method. */
+    final List<Message> messages = new ArrayList<>();
+
+    /**
+     * Creates a MethodState.
+     *
+     * @param tree the method
+     * @param id the {@link #methodId} of the method
+     * @param hash the hash of everything the method's results depend on, or null
+     * @param unchanged true if the cache file has results for the method with the same hash
+     */
+    MethodState(@Nullable MethodTree tree, String id, @Nullable String hash, boolean unchanged) {
+      this.tree = tree;
+      this.id = id;
+      this.hash = hash;
+      this.unchanged = unchanged;
+    }
+  }
+
+  /**
+   * Numbers the trees within a method in preorder, so that a diagnostic of an unchanged method can
+   * be re-issued at the corresponding tree of a new compilation.
+   */
+  private static class TreeIndexer extends TreeScanner<Void, Void> {
+    /** The tree to find, or null. */
+    private final @Nullable Tree target;
+
+    /** The index to find, or -1. */
+    private final int targetIndex;
+
+    /** The index of the next tree. */
+    private int index = 0;
+
+    /** The tree that was found, or null. */
+    private @Nullable Tree found = null;
+
+    /**
+     * Creates a TreeIndexer.
+     *
+     * @param target the tree to find, or null
+     * @param targetIndex the index to find, or -1
+     */
+    private TreeIndexer(@Nullable Tree target, int targetIndex) {
+      this.target = target;
+      this.targetIndex = targetIndex;
+    }
+
+    /**
+     * Returns the index of {@code tree} within {@code method}, or -1 if it is not within it.
+     *
+     * @param method a method
+     * @param tree a tree
+     * @return the index of {@code tree} within {@code method}, or -1
+     */
+    static int indexOf(@Nullable MethodTree method, Tree tree) {
+      TreeIndexer indexer = new TreeIndexer(tree, -1);
+      indexer.scan(method, null);
+      return indexer.found == null ? -1 : indexer.index;
+    }
+
+    /**
+     * Returns the tree with the given index within {@code method}, or null if there is none.
+     *
+     * @param method a method
+     * @param index an index returned by {@link #indexOf}
+     * @return the tree with the given index within {@code method}, or null
+     */
+    static @Nullable Tree treeAt(MethodTree method, int index) {
+      TreeIndexer indexer = new TreeIndexer(null, index);
+      indexer.scan(method, null);
+      return indexer.found;
+    }
+
+    @Override
+    @SuppressWarnings("interning:not.interned") // looking for a specific tree
+    public Void scan(@Nullable Tree tree, Void p) {
+      if (tree == null || found != null) {
+        return null;
+      }
+      if (tree == target || index == targetIndex) {
+        found = tree;
+        return null;
+      }
+      index++;
+      return super.scan(tree, p);
+    }
+  }
+
+  /** Computes a SHA-256 hash of a sequence of strings. */
+  private static class Hasher {
+    /** The digest. */
+    private final MessageDigest digest;
+
+    /** Creates a Hasher. */
+    Hasher() {
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new Error("SHA-256 is required of every Java platform", e);
+      }
+    }
+
+    /**
+     * Adds a string to the hash.
+     *
+     * @param s a string
+     */
+    void add(String s) {
+      digest.update(s.getBytes(StandardCharsets.UTF_8));
+      // Separate the strings, so that "ab","c" and "a","bc" differ.
+      digest.update((byte) 0);
+    }
+
+    /**
+     * Returns the hash, in hexadecimal.
+     *
+     * @return the hash
+     */
+    String finish() {
+      StringBuilder result = new StringBuilder();
+      for (byte b : digest.digest()) {
+        result.append(String.format("%02x", b));
+      }
+      return result.toString();
+    }
+  }
+}
@@ -48,6 +48,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
@@ -75,8 +76,12 @@ import org.checkerframework.checker.signature.qual.ClassGetName;
 import org.checkerframework.checker.signature.qual.FullyQualifiedName;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.reflection.MethodValChecker;
+import org.checkerframework.framework.flow.SharedCFGCache;
 import org.checkerframework.framework.qual.AnnotatedFor;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.framework.util.CacheStatistics;
+import org.checkerframework.framework.util.CheckerEvents;
+import org.checkerframework.framework.util.CheckerEvents.TypeProcessEvent;
 import org.checkerframework.framework.util.CheckerMain;
 import org.checkerframework.framework.util.OptionConfiguration;
 import org.checkerframework.framework.util.TreePathCacher;
@@ -211,6 +216,34 @@ import org.plumelib.util.UtilPlume;
   // org.checkerframework.common.basetype.BaseTypeVisitor.visitMethod(MethodTree, Void)
   "suggestPureMethods",
 
+  // Whether to use the purity of unannotated methods that cannot be overridden, computed from
+  // their bodies, and where to read and write purity summary files
+  // org.checkerframework.framework.flow.PuritySummaries
+  "puritySummaries",
+  "puritySummaryPath",
+  "puritySummaryOutput",
+
+  // Where to cache the diagnostics of each method, so that unchanged methods are skipped in
+  // later compilations
+  // org.checkerframework.framework.source.MethodResultCache
+  "incrementalCache",
+
+  // Whether each try frame of a control flow graph has one summarized exceptional exit
+  // org.checkerframework.common.basetype.BaseTypeChecker.shouldSummarizeExceptionalEdges
+  "summarizeExceptionalEdges",
+
+  // Whether to analyze each method only when its dataflow results are first needed
+  // org.checkerframework.framework.type.GenericAnnotatedTypeFactory
+  "lazyFlowAnalysis",
+
+  // Whether dataflow analysis follows a weak topological order and widens only at loop heads
+  // org.checkerframework.framework.flow.CFAbstractAnalysis
+  "weakTopologicalOrder",
+
+  // Whether dataflow analysis drops the values of dead local variables from its stores
+  // org.checkerframework.common.basetype.BaseTypeChecker.shouldPruneDeadLocalVariables
+  "pruneDeadLocalVariables",
+
   // Whether to resolve reflective method invocations.
   // "-AresolveReflection=debug" causes debugging information
   // to be output.
@@ -405,6 +438,15 @@ import org.plumelib.util.UtilPlume;
   // Sets AnnotatedTypeFactory shouldCache to false
   "atfDoNotCache",
 
+  // Bound the AnnotatedTypeFactory type caches by an approximate memory budget, in megabytes,
+  // rather than by atfCacheSize entries
+  "atfCacheMegabytes",
+
+  // The number of nodes between two stores that are kept when dataflow results are queried
+  // within a long basic block; 0 disables them
+  // org.checkerframework.framework.flow.CFAbstractAnalysis
+  "storeCheckpointInterval",
+
   // Language Server Protocol (LSP) Support
 
   // TODO: document `-AlspTypeInfo` in manual, as a debugging option.
@@ -418,6 +460,14 @@ import org.plumelib.util.UtilPlume;
   // org.checkerframework.framework.source.SourceChecker.shutdownHook()
   "resourceStats",
 
+  // Whether to output cache hit, miss, and eviction statistics at the end of each compilation
+  // org.checkerframework.framework.source.SourceChecker.printCacheStats()
+  "cacheStats",
+
+  // The number of background threads that parse stub files and annotated JDK files
+  // org.checkerframework.framework.source.SourceChecker.getStubParserThreads()
+  "stubParserThreads",
+
   // Run checks that test ajava files.
   //
   // Whenever processing a source file, parse it with JavaParser and check that the AST can be
@@ -449,6 +499,14 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
   /** File name of the localized messages. */
   protected static final String MSGS_FILE = "messages.properties";
 
+  /**
+   * The contents of the {@link #MSGS_FILE} of each class, read once per JVM. The cache is weak in
+   * its keys so that it does not prevent unloading of checkers, for example in a {@link
+   * org.checkerframework.framework.util.CheckerDaemon}.
+   */
+  private static final Map<Class<?>, Properties> messagesFiles =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
   /** True if the Checker Framework version number has already been printed. */
   private static boolean printedVersion = false;
 
@@ -500,6 +558,15 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
    */
   protected @MonotonicNonNull TreeSet<CheckerMessage> messageStore;
 
+  /**
+   * The cached diagnostics of methods, for {@code -AincrementalCache}. Only the root checker has
+   * one; use {@link #getMethodResultCache()} to read this field.
+   */
+  private @MonotonicNonNull MethodResultCache methodResultCache;
+
+  /** True if {@link #methodResultCache} has been initialized, or never will be. */
+  private boolean methodResultCacheInitialized = false;
+
   /**
    * Exceptions to {@code -AwarnUnneededSuppressions} processing. No warning about unneeded
    * suppressions is issued if the SuppressWarnings string matches this pattern.
@@ -660,6 +727,12 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
    */
   protected TreePathCacher treePathCacher = null;
 
+  /**
+   * The statistics for the caches of this checker. Null unless the {@code -AcacheStats}
+   * command-line option was supplied. Use {@link #getCacheStatistics()} to read this field.
+   */
+  private @MonotonicNonNull CacheStatistics cacheStatistics = null;
+
   /** Creates a source checker. */
   protected SourceChecker() {}
 
@@ -670,6 +743,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     super.init(unwrappedEnv);
     // Sets processing enviroment and other related fields.
     setProcessingEnvironment(unwrappedEnv);
+    // Every checker that javac runs shares control flow graphs with the others.
+    SharedCFGCache.instance(unwrappedEnv).addParticipant();
 
     if (!hasOption("warnUnneededSuppressionsExceptions")) {
       warnUnneededSuppressionsExceptions = null;
@@ -733,6 +808,25 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     return this.parentChecker;
   }
 
+  /**
+   * Returns the cached diagnostics of methods, which are shared by this checker, its parent, and
+   * its subcheckers. Returns null unless {@code -AincrementalCache} was passed on the command line.
+   *
+   * @return the cached diagnostics of methods, or null
+   */
+  public @Nullable MethodResultCache getMethodResultCache() {
+    if (parentChecker != null) {
+      return parentChecker.getMethodResultCache();
+    }
+    if (!methodResultCacheInitialized) {
+      methodResultCacheInitialized = true;
+      if (MethodResultCache.isEnabled(this)) {
+        methodResultCache = new MethodResultCache(this);
+      }
+    }
+    return methodResultCache;
+  }
+
   /**
    * Invoked when the current compilation unit root changes.
    *
@@ -891,7 +985,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     }
 
     for (Class<?> checker : checkers) {
-      messagesProperties.putAll(getProperties(checker, MSGS_FILE, true));
+      messagesProperties.putAll(
+          messagesFiles.computeIfAbsent(checker, c -> getProperties(c, MSGS_FILE, true)));
     }
     return messagesProperties;
   }
@@ -1053,6 +1148,14 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     for (SourceChecker checker : getSubcheckers()) {
       checker.typeProcessingOver();
     }
+    if (parentChecker == null && methodResultCache != null) {
+      methodResultCache.write();
+    }
+    if (parentChecker == null && hasOption("cacheStats")) {
+      // Not in a shutdown hook: a JVM that runs many compilations would accumulate the hooks, and
+      // the checkers that they reference.
+      printCacheStats();
+    }
 
     super.typeProcessingOver();
   }
@@ -1235,6 +1338,46 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     return treePathCacher;
   }
 
+  /**
+   * Returns the statistics for the caches of this checker, or null if the {@code -AcacheStats}
+   * command-line option was not supplied. Code that creates a cache for this checker should
+   * register it with {@link CacheStatistics#wrap} if the result is non-null.
+   *
+   * @return the statistics for the caches of this checker, or null if they are not collected
+   */
+  public @Nullable CacheStatistics getCacheStatistics() {
+    if (cacheStatistics == null && hasOption("cacheStats")) {
+      cacheStatistics = new CacheStatistics();
+    }
+    return cacheStatistics;
+  }
+
+  /**
+   * Returns the number of background threads that parse stub files and annotated JDK files ahead of
+   * their use, as specified by the {@code -AstubParserThreads} command-line option. The default is
+   * 0, which parses every file on demand. These threads only run JavaParser; type-checking, and
+   * reading the annotations of the parsed files, always run on javac's thread, because javac's data
+   * structures are not thread-safe.
+   *
+   * @return the number of background threads that parse stub files
+   */
+  public int getStubParserThreads() {
+    String option = getOption("stubParserThreads");
+    if (option == null) {
+      return 0;
+    }
+    int threads;
+    try {
+      threads = Integer.parseInt(option);
+    } catch (NumberFormatException ex) {
+      throw new UserError("stubParserThreads was not an integer: " + option);
+    }
+    if (threads < 0) {
+      throw new UserError("stubParserThreads must not be negative: " + option);
+    }
+    return threads;
+  }
+
   /**
    * Type-check the code using this checker's visitor.
    *
@@ -1245,6 +1388,13 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     if (messageStore != null && parentChecker == null) {
       messageStore.clear();
     }
+    if (parentChecker == null && p != null) {
+      SharedCFGCache.instance(processingEnv).startClass(p.getLeaf());
+    }
+    MethodResultCache methodResultCache = getMethodResultCache();
+    if (parentChecker == null && methodResultCache != null) {
+      methodResultCache.beginClass();
+    }
 
     // Errors (or other messages) issued via
     //   SourceChecker#message(Diagnostic.Kind, Object, String, Object...)
@@ -1341,10 +1491,17 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
       }
     }
 
+    TypeProcessEvent event = CheckerEvents.ENABLED ? new TypeProcessEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
     // Visit the attributed tree.
     try {
       visitor.visit(p);
       warnUnneededSuppressions();
+      if (parentChecker == null && methodResultCache != null) {
+        methodResultCache.endClass();
+      }
     } catch (UserError ce) {
       logUserError(ce);
     } catch (TypeSystemError ce) {
@@ -1362,6 +1519,14 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
         // Update errsOnLastExit to reflect the errors issued.
         this.errsOnLastExit = log.nerrors;
       }
+      if (event != null && event.shouldCommit()) {
+        event.checker = getClass().getSimpleName();
+        event.className = e.getQualifiedName().toString();
+        event.commit();
+      }
+      if (parentChecker == null) {
+        SharedCFGCache.instance(processingEnv).finishClass(p.getLeaf());
+      }
     }
   }
 
@@ -1434,7 +1599,11 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
       }
     }
 
+    MethodResultCache methodResultCache = getMethodResultCache();
     if (kind == Diagnostic.Kind.NOTE) {
+      if (methodResultCache != null) {
+        methodResultCache.record(this, kind, messageKey, source);
+      }
       System.err.println("(NOTE) " + String.format(messageKey, args));
       return;
     }
@@ -1468,6 +1637,9 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
       kind = Diagnostic.Kind.MANDATORY_WARNING;
     }
 
+    if (methodResultCache != null) {
+      methodResultCache.record(this, kind, messageText, source);
+    }
     if (source instanceof Element) {
       messager.printMessage(kind, messageText, (Element) source);
     } else if (source instanceof Tree) {
@@ -3086,6 +3258,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
    * @param ce the user error to output
    */
   private void logUserError(UserError ce) {
+    invalidateMethodResults();
     String msg = ce.getMessage();
     printMessage(msg);
   }
@@ -3127,6 +3300,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
    * @param culprit a message to print about the cause
    */
   private void logBug(Throwable ce, String culprit) {
+    invalidateMethodResults();
     String lineSeparator =
         getOptions().getOrDefault("exceptionLineSeparator", System.lineSeparator());
     StringJoiner msg = new StringJoiner(lineSeparator);
@@ -3259,6 +3433,34 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     }
   }
 
+  /**
+   * Print the cache statistics of this checker and of all its subcheckers, in the format described
+   * by {@link CacheStatistics#HEADER}.
+   */
+  protected void printCacheStats() {
+    System.out.println(CacheStatistics.HEADER);
+    List<SourceChecker> checkers = new ArrayList<>(getSubcheckers());
+    checkers.add(this);
+    for (SourceChecker checker : checkers) {
+      CacheStatistics stats = checker.getCacheStatistics();
+      if (stats != null) {
+        stats.print(checker.getClass().getSimpleName(), System.out);
+      }
+    }
+    if (treePathCacher != null) {
+      // The TreePathCacher is shared by this checker and its subcheckers.
+      CacheStatistics.printLine(
+          System.out,
+          getClass().getSimpleName(),
+          "treePathCache",
+          treePathCacher.getHits(),
+          treePathCacher.getMisses(),
+          0,
+          -1,
+          treePathCacher.size());
+    }
+  }
+
   // ///////////////////////////////////////////////////////////////////////////
   // Miscellaneous
   //
@@ -3319,12 +3521,24 @@ public abstract class SourceChecker extends AbstractTypeProcessor implements Opt
     }
   }
 
+  /**
+   * Prevents the diagnostics of the current class from being cached, because a checker crashed
+   * while checking it.
+   */
+  private void invalidateMethodResults() {
+    MethodResultCache methodResultCache = getMethodResultCache();
+    if (methodResultCache != null) {
+      methodResultCache.classFailed();
+    }
+  }
+
   /**
    * Returns the version of the Checker Framework.
    *
    * @return the Checker Framework version
+   * @throws BugInCF if the version is not known, as when running from a build directory
    */
-  private String getCheckerVersion() {
+  public String getCheckerVersion() {
     Properties gitProperties = getProperties(getClass(), "/git.properties", false);
     String version = gitProperties.getProperty("git.build.version");
     if (version == null) {
@@ -1,28 +1,41 @@
 package org.checkerframework.framework.stub;
 
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ast.StubUnit;
 import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ImportTree;
 import io.github.classgraph.ClassGraph;
 import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.ProcessBuilder.Redirect;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
 import java.net.JarURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
@@ -46,6 +59,9 @@ import org.checkerframework.framework.stub.AnnotationFileUtil.AnnotationFileType
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.framework.util.CheckerEvents;
+import org.checkerframework.framework.util.CheckerEvents.StubLoadEvent;
+import org.checkerframework.framework.util.JavaParserUtil;
 import org.checkerframework.javacutil.AnnotationMirrorSet;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.ElementUtils;
@@ -60,6 +76,36 @@ import org.plumelib.util.SystemPlume;
  * using an ajava file, only holds information on public elements as with stub files.
  */
 public class AnnotationFileElementTypes {
+  /**
+   * The resource that lists the files of the annotated JDK, one jar entry name per line. It is
+   * written by the build (see task {@code copyAndMinimizeAnnotatedJdkFiles}) so that {@link
+   * #prepJdkFromJar} need not enumerate every entry of checker.jar.
+   */
+  private static final String JDK_INDEX_RESOURCE = "/annotated-jdk/jdk-index.txt";
+
+  /**
+   * JavaParser ASTs of annotated JDK files and of stub files that are resources of a checker,
+   * shared by every instance of this class in the JVM. Keys are the URL of the file (for a jar
+   * entry, the URL of the jar followed by the entry name). Stub files on the file system are not
+   * cached, because they may change while the JVM runs.
+   *
+   * <p>Parsing a file does not depend on the checker, so compound checkers and checkers that run
+   * together need not each re-parse the same file. The values are soft references, so the cache
+   * does not keep the ASTs alive when memory is tight; see {@link #expungeEvictedStubUnits}.
+   */
+  private static final Map<String, StubUnitReference> parsedStubUnits = new ConcurrentHashMap<>();
+
+  /** The references in {@link #parsedStubUnits} whose ASTs have been garbage-collected. */
+  private static final ReferenceQueue<StubUnit> evictedStubUnits = new ReferenceQueue<>();
+
+  /**
+   * Parses annotation files on background threads, so that their ASTs are in {@link
+   * #parsedStubUnits} before they are needed; see {@link #prefetchJdkStubs} and {@link
+   * #prefetchStubFiles}. Shared by the type factories of one compilation. Null unless {@code
+   * -AstubParserThreads} is positive.
+   */
+  private final @Nullable StubPrefetcher stubPrefetcher;
+
   /** Annotations from annotation files (but not from annotated JDK files). */
   private final AnnotationFileAnnotations annotationFileAnnos;
 
@@ -88,6 +134,12 @@ public class AnnotationFileElementTypes {
    */
   private final Map<String, String> remainingJdkStubFilesJar = new HashMap<>();
 
+  /**
+   * The URL of checker.jar followed by "!/", such that appending a jar entry name yields the URL of
+   * that entry. Set by {@link #prepJdkFromJar}.
+   */
+  private String jdkJarUrlPrefix = "";
+
   /** Which version number of the annotated JDK should be used? */
   private final String annotatedJdkVersion;
 
@@ -123,6 +175,8 @@ public class AnnotationFileElementTypes {
     this.permitMissingJdk = factory.getChecker().hasOption("permitMissingJdk");
     this.ignorejdkastub = factory.getChecker().hasOption("ignorejdkastub");
     this.stubDebug = factory.getChecker().hasOption("stubDebug");
+
+    this.stubPrefetcher = factory.getChecker().getStubPrefetcher();
   }
 
   /**
@@ -162,6 +216,10 @@ public class AnnotationFileElementTypes {
           "entered parseStubFiles() for %s, ignorejdkastub=%s%n",
           factory.getClass().getSimpleName(), ignorejdkastub);
     }
+    StubLoadEvent event = CheckerEvents.ENABLED ? new StubLoadEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
     parsing = true;
     BaseTypeChecker checker = factory.getChecker();
     if (!ignorejdkastub) {
@@ -208,6 +266,12 @@ public class AnnotationFileElementTypes {
 
     parsing = false;
 
+    if (event != null && event.shouldCommit()) {
+      event.checker = checker.getClass().getSimpleName();
+      event.file = "startup stub files";
+      event.commit();
+    }
+
     if (stubDebug) {
       System.out.printf("exited parseStubFiles() for %s%n", factory.getClass().getSimpleName());
     }
@@ -222,6 +286,22 @@ public class AnnotationFileElementTypes {
   private void parseOneStubFile(Class<?> checkerClass, String stubFileName) {
     BaseTypeChecker checker = factory.getChecker();
     ProcessingEnvironment processingEnv = factory.getProcessingEnv();
+    URL stubFileUrl = checkerClass.getResource(stubFileName);
+    if (stubFileUrl == null) {
+      return;
+    }
+    StubUnit stubUnit = getOrParseStubResource(stubFileUrl);
+    if (stubUnit != null) {
+      AnnotationFileParser.parseStubFile(
+          stubFileUrl.toString(),
+          stubUnit,
+          factory,
+          processingEnv,
+          annotationFileAnnos,
+          AnnotationFileType.BUILTIN_STUB);
+      return;
+    }
+    // The file could not be parsed.  Parse it again, to issue warnings about it.
     try (InputStream jdkVersionStubIn = checkerClass.getResourceAsStream(stubFileName)) {
       if (jdkVersionStubIn != null) {
         if (stubDebug) {
@@ -360,6 +440,13 @@ public class AnnotationFileElementTypes {
         if (path.startsWith("checker.jar/")) {
           path = "/" + path.substring("checker.jar/".length());
         }
+        URL resourceUrl = checker.getClass().getResource(path);
+        StubUnit stubUnit = resourceUrl == null ? null : getOrParseStubResource(resourceUrl);
+        if (stubUnit != null) {
+          AnnotationFileParser.parseStubFile(
+              path, stubUnit, factory, processingEnv, annotationFileAnnos, fileType);
+          continue;
+        }
         try (InputStream in = checker.getClass().getResourceAsStream(path)) {
           if (in != null) {
             AnnotationFileParser.parseStubFile(
@@ -737,18 +824,36 @@ public class AnnotationFileElementTypes {
    * @param path path to file to parse
    */
   private void parseJdkStubFile(Path path) {
+    StubLoadEvent event = CheckerEvents.ENABLED ? new StubLoadEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
     parsing = true;
-    try (FileInputStream jdkStub = new FileInputStream(path.toFile())) {
-      AnnotationFileParser.parseJdkFileAsStub(
-          path.toFile().getName(),
-          jdkStub,
-          factory,
-          factory.getProcessingEnv(),
-          annotationFileAnnos);
+    try {
+      String key = path.toUri().toString();
+      StubUnit stubUnit = getParsedStubUnit(key);
+      if (stubUnit == null) {
+        try (FileInputStream jdkStub = new FileInputStream(path.toFile())) {
+          stubUnit = parseAndCacheStubUnit(key, jdkStub);
+        }
+      }
+      if (stubUnit != null) {
+        AnnotationFileParser.parseJdkFileAsStub(
+            path.toFile().getName(),
+            stubUnit,
+            factory,
+            factory.getProcessingEnv(),
+            annotationFileAnnos);
+      }
     } catch (IOException e) {
       throw new BugInCF("cannot open the jdk stub file " + path, e);
     } finally {
       parsing = false;
+      if (event != null && event.shouldCommit()) {
+        event.checker = factory.getChecker().getClass().getSimpleName();
+        event.file = path.toString();
+        event.commit();
+      }
     }
   }
 
@@ -762,21 +867,39 @@ public class AnnotationFileElementTypes {
       System.out.printf("entered parseJdkJarEntry(%s)%n", jarEntryName);
     }
 
-    JarURLConnection connection = getJarURLConnectionToJdk();
+    StubLoadEvent event = CheckerEvents.ENABLED ? new StubLoadEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
+    String key = jdkJarUrlPrefix + jarEntryName;
     parsing = true;
-    try (JarFile jarFile = connection.getJarFile()) {
-      try (InputStream jdkStub = jarFile.getInputStream(jarFile.getJarEntry(jarEntryName))) {
+    try {
+      StubUnit stubUnit = getParsedStubUnit(key);
+      if (stubUnit == null) {
+        JarURLConnection connection = getJarURLConnectionToJdk();
+        try (JarFile jarFile = connection.getJarFile()) {
+          try (InputStream jdkStub = jarFile.getInputStream(jarFile.getJarEntry(jarEntryName))) {
+            stubUnit = parseAndCacheStubUnit(key, jdkStub);
+          } catch (IOException e) {
+            throw new BugInCF("cannot open the jdk stub file " + jarEntryName, e);
+          }
+        } catch (IOException e) {
+          throw new BugInCF("cannot open the Jar file " + connection.getEntryName(), e);
+        }
+      }
+      if (stubUnit != null) {
         AnnotationFileParser.parseJdkFileAsStub(
-            jarEntryName, jdkStub, factory, factory.getProcessingEnv(), annotationFileAnnos);
-      } catch (IOException e) {
-        throw new BugInCF("cannot open the jdk stub file " + jarEntryName, e);
+            jarEntryName, stubUnit, factory, factory.getProcessingEnv(), annotationFileAnnos);
       }
-    } catch (IOException e) {
-      throw new BugInCF("cannot open the Jar file " + connection.getEntryName(), e);
     } catch (BugInCF e) {
       throw new BugInCF("Exception while parsing " + jarEntryName + ": " + e.getMessage(), e);
     } finally {
       parsing = false;
+      if (event != null && event.shouldCommit()) {
+        event.checker = factory.getChecker().getClass().getSimpleName();
+        event.file = jarEntryName;
+        event.commit();
+      }
     }
 
     if (stubDebug) {
@@ -784,6 +907,318 @@ public class AnnotationFileElementTypes {
     }
   }
 
+  /**
+   * Starts parsing, on background threads, the stub files that are resources of the given checkers:
+   * their {@code jdk.astub} files and the files named by their {@link StubFiles} annotations, as
+   * well as the {@code jdk.astub} files of the framework. Each file is parsed on its own thread, so
+   * that the type factories of a checker and its subcheckers, which are created one after another,
+   * find the ASTs already parsed.
+   *
+   * @param checkers a checker and all of its subcheckers
+   * @param prefetcher the prefetcher of the compilation
+   */
+  public static void prefetchStubFiles(
+      Collection<? extends SourceChecker> checkers, StubPrefetcher prefetcher) {
+    Set<URL> urls = new LinkedHashSet<>();
+    for (SourceChecker checker : checkers) {
+      Class<?> checkerClass = checker.getClass();
+      if (!checker.hasOption("ignorejdkastub")) {
+        // The same files as parseStubFiles reads.
+        String release = SystemUtil.getReleaseValue(checker.getProcessingEnvironment());
+        String version = release != null ? release : String.valueOf(SystemUtil.jreVersion);
+        List<String> jdkStubNames = new ArrayList<>();
+        jdkStubNames.add("jdk.astub");
+        jdkStubNames.add("jdk" + version + ".astub");
+        if (version.equals("8")) {
+          jdkStubNames.add("jdk11.astub");
+        }
+        for (String name : jdkStubNames) {
+          addResource(urls, AnnotationFileElementTypes.class, name);
+          addResource(urls, checkerClass, name);
+        }
+      }
+      StubFiles stubFiles = checkerClass.getAnnotation(StubFiles.class);
+      if (stubFiles != null) {
+        for (String name : stubFiles.value()) {
+          addResource(urls, checkerClass, name);
+        }
+      }
+    }
+    for (URL url : urls) {
+      if (prefetcher.claim(url.toString())) {
+        prefetcher.execute(() -> getOrParseStubResource(url));
+      }
+    }
+  }
+
+  /**
+   * Adds to {@code urls} the URL of the resource {@code name} of {@code c}, if it exists.
+   *
+   * @param urls a set of URLs; side-effected by this method
+   * @param c the class relative to which {@code name} is resolved
+   * @param name the name of a resource
+   */
+  private static void addResource(Set<URL> urls, Class<?> c, String name) {
+    URL url = c.getResource(name);
+    if (url != null) {
+      urls.add(url);
+    }
+  }
+
+  /**
+   * Starts parsing, on background threads, the annotated JDK files for the classes and packages
+   * imported by {@code root}, so that their ASTs are cached before type-checking needs them. The
+   * files are only parsed with JavaParser; reading their annotations, which uses javac, still
+   * happens on demand on javac's thread. Does nothing unless {@code -AstubParserThreads} is
+   * positive.
+   *
+   * @param root a compilation unit that is about to be type-checked
+   */
+  public void prefetchJdkStubs(CompilationUnitTree root) {
+    StubPrefetcher prefetcher = stubPrefetcher;
+    if (prefetcher == null || !shouldParseJdk) {
+      return;
+    }
+    List<String> jarEntryNames = new ArrayList<>();
+    List<Path> paths = new ArrayList<>();
+    for (ImportTree importTree : root.getImports()) {
+      for (String className : importedJdkClasses(importTree)) {
+        String jarEntryName = remainingJdkStubFilesJar.get(className);
+        if (jarEntryName != null) {
+          if (prefetcher.claim(jdkJarUrlPrefix + jarEntryName)) {
+            jarEntryNames.add(jarEntryName);
+          }
+          continue;
+        }
+        Path path = remainingJdkStubFiles.get(className);
+        if (path != null && prefetcher.claim(path.toUri().toString())) {
+          paths.add(path);
+        }
+      }
+    }
+    if (!jarEntryNames.isEmpty()) {
+      // One task, so that the jar file is opened once per compilation unit.
+      String urlPrefix = jdkJarUrlPrefix;
+      prefetcher.execute(() -> prefetchJdkJarEntries(urlPrefix, jarEntryNames));
+    }
+    for (Path path : paths) {
+      prefetcher.execute(() -> prefetchJdkStubFile(path));
+    }
+  }
+
+  /**
+   * Returns the annotated JDK classes that are imported by {@code importTree}: the outermost class
+   * that contains the imported class or member, or every class of an imported package.
+   *
+   * @param importTree an import declaration
+   * @return the fully-qualified names of the annotated JDK classes imported by {@code importTree}
+   */
+  private List<String> importedJdkClasses(ImportTree importTree) {
+    String name = importTree.getQualifiedIdentifier().toString();
+    boolean isWildcard = name.endsWith(".*");
+    if (isWildcard) {
+      name = name.substring(0, name.length() - 2);
+    } else if (importTree.isStatic()) {
+      // Remove the name of the member.
+      name = name.substring(0, Math.max(0, name.lastIndexOf('.')));
+    }
+    // The name may be that of a nested class; look for the outermost class.
+    for (String prefix = name; !prefix.isEmpty(); ) {
+      if (remainingJdkStubFilesJar.containsKey(prefix)
+          || remainingJdkStubFiles.containsKey(prefix)) {
+        return Collections.singletonList(prefix);
+      }
+      prefix = prefix.substring(0, Math.max(0, prefix.lastIndexOf('.')));
+    }
+    if (!isWildcard) {
+      return Collections.emptyList();
+    }
+    // A package import: every class of the package, but not of its subpackages.
+    String packagePrefix = name + ".";
+    List<String> result = new ArrayList<>();
+    for (String className : remainingJdkStubFilesJar.keySet()) {
+      if (className.startsWith(packagePrefix)
+          && className.indexOf('.', packagePrefix.length()) == -1) {
+        result.add(className);
+      }
+    }
+    for (String className : remainingJdkStubFiles.keySet()) {
+      if (className.startsWith(packagePrefix)
+          && className.indexOf('.', packagePrefix.length()) == -1) {
+        result.add(className);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Parses the given annotated JDK files from checker.jar into {@link #parsedStubUnits}. Runs on
+   * a background thread, so it must not use javac or any mutable state of this object. Failures
+   * are ignored; the file will be parsed again when it is needed.
+   *
+   * @param urlPrefix the value of {@link #jdkJarUrlPrefix}
+   * @param jarEntryNames the names of the jar entries to parse
+   */
+  private void prefetchJdkJarEntries(String urlPrefix, List<String> jarEntryNames) {
+    try (JarFile jarFile = getJarURLConnectionToJdk().getJarFile()) {
+      for (String jarEntryName : jarEntryNames) {
+        String key = urlPrefix + jarEntryName;
+        if (getParsedStubUnit(key) != null) {
+          continue;
+        }
+        try (InputStream jdkStub = jarFile.getInputStream(jarFile.getJarEntry(jarEntryName))) {
+          parseAndCacheStubUnit(key, jdkStub);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      // Ignore; the file will be parsed again, and the problem reported, when it is needed.
+    }
+  }
+
+  /**
+   * Parses the given annotated JDK file from the file system into {@link #parsedStubUnits}.
+   * Runs on a background thread, so it must not use javac or any mutable state of this object.
+   * Failures are ignored; the file will be parsed again when it is needed.
+   *
+   * @param path the annotated JDK file to parse
+   */
+  private void prefetchJdkStubFile(Path path) {
+    String key = path.toUri().toString();
+    if (getParsedStubUnit(key) != null) {
+      return;
+    }
+    try (FileInputStream jdkStub = new FileInputStream(path.toFile())) {
+      parseAndCacheStubUnit(key, jdkStub);
+    } catch (IOException | RuntimeException e) {
+      // Ignore; the file will be parsed again, and the problem reported, when it is needed.
+    }
+  }
+
+  /**
+   * Returns the JavaParser AST for the annotation file {@code key}, if any instance of this class
+   * has already parsed it and the AST has not been garbage-collected.
+   *
+   * @param key the URL of an annotation file
+   * @return the AST of the file, or null if it is not cached
+   */
+  private static @Nullable StubUnit getParsedStubUnit(String key) {
+    expungeEvictedStubUnits();
+    StubUnitReference ref = parsedStubUnits.get(key);
+    return ref == null ? null : ref.get();
+  }
+
+  /**
+   * Removes from {@link #parsedStubUnits} the entries whose ASTs have been garbage-collected, and
+   * tells the prefetchers, so that those files are prefetched again when they are next needed.
+   */
+  private static void expungeEvictedStubUnits() {
+    Reference<? extends StubUnit> ref;
+    while ((ref = evictedStubUnits.poll()) != null) {
+      String key = ((StubUnitReference) ref).key;
+      parsedStubUnits.remove(key, ref);
+      StubPrefetcher.evicted(key);
+    }
+  }
+
+  /**
+   * Parses an annotated JDK file and caches the AST in {@link #parsedStubUnits}.
+   *
+   * @param key the URL of the annotated JDK file
+   * @param jdkStub the contents of the file
+   * @return the AST of the file, or null if the file could not be parsed
+   */
+  private @Nullable StubUnit parseAndCacheStubUnit(String key, InputStream jdkStub) {
+    try {
+      return parseAndCache(key, jdkStub);
+    } catch (ParseProblemException e) {
+      // Warnings about JDK stub files are never issued; see AnnotationFileParser.warn.
+      if (stubDebug) {
+        System.out.printf("could not parse %s: %s%n", key, e.getMessage());
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Returns the AST of the stub file at {@code url}, which is a resource of a checker, parsing and
+   * caching it in {@link #parsedStubUnits} if necessary.
+   *
+   * @param url the URL of a stub file that is a resource of a checker
+   * @return the AST of the file, or null if the file could not be read or parsed
+   */
+  private static @Nullable StubUnit getOrParseStubResource(URL url) {
+    String key = url.toString();
+    StubUnit stubUnit = getParsedStubUnit(key);
+    if (stubUnit != null) {
+      return stubUnit;
+    }
+    try (InputStream in = url.openStream()) {
+      return parseAndCache(key, in);
+    } catch (IOException | ParseProblemException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parses an annotation file and caches the AST in {@link #parsedStubUnits}.
+   *
+   * @param key the URL of the file
+   * @param in the contents of the file
+   * @return the AST of the file
+   * @throws ParseProblemException if the file could not be parsed
+   */
+  private static StubUnit parseAndCache(String key, InputStream in) {
+    StubUnit stubUnit = JavaParserUtil.parseStubUnit(in);
+    expungeEvictedStubUnits();
+    parsedStubUnits.put(key, new StubUnitReference(key, stubUnit));
+    return stubUnit;
+  }
+
+  /** A soft reference to the AST of an annotation file, in {@link #parsedStubUnits}. */
+  private static class StubUnitReference extends SoftReference<StubUnit> {
+    /** The key of this reference in {@link #parsedStubUnits}. */
+    final String key;
+
+    /**
+     * Creates a StubUnitReference that is enqueued in {@link #evictedStubUnits} when its AST is
+     * garbage-collected.
+     *
+     * @param key the URL of the annotation file
+     * @param stubUnit the AST of the file
+     */
+    StubUnitReference(String key, StubUnit stubUnit) {
+      super(stubUnit, evictedStubUnits);
+      this.key = key;
+    }
+  }
+
+  /**
+   * Returns the jar entry names listed in the index of the annotated JDK, or null if checker.jar
+   * contains no index (for example, if it was built by an older build script).
+   *
+   * @return the jar entry names of the annotated JDK files, or null
+   */
+  private @Nullable List<String> readJdkIndex() {
+    try (InputStream in = factory.getClass().getResourceAsStream(JDK_INDEX_RESOURCE)) {
+      if (in == null) {
+        return null;
+      }
+      List<String> result = new ArrayList<>();
+      try (BufferedReader reader =
+          new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (!line.isEmpty()) {
+            result.add(line);
+          }
+        }
+      }
+      return result;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   /**
    * Returns a JarURLConnection to "/jdk*".
    *
@@ -893,22 +1328,33 @@ public class AnnotationFileElementTypes {
 
   /**
    * Walk through the JDK directory and create a mapping, {@link #remainingJdkStubFilesJar}, from
-   * file name to the class contained with in it. Also, parses all package-info.java files.
+   * file name to the class contained with in it. Also, parses all package-info.java files. Uses the
+   * index {@link #JDK_INDEX_RESOURCE} if checker.jar contains it, rather than enumerating every
+   * entry of the jar.
    *
    * @param jdkJarfile the URL pointing to the JDK jarfile
    */
-  private void prepJdkFromJar(@SuppressWarnings("UnusedVariable") URL jdkJarfile) {
-    JarURLConnection connection = getJarURLConnectionToJdk();
+  private void prepJdkFromJar(URL jdkJarfile) {
+    String jdkUrl = jdkJarfile.toString();
+    jdkJarUrlPrefix = jdkUrl.substring(0, jdkUrl.lastIndexOf("annotated-jdk"));
 
-    try (JarFile jarFile = connection.getJarFile()) {
-      ArrayList<JarEntry> entries = CollectionsPlume.makeArrayList(jarFile.entries());
-      entries.sort(Comparator.comparing(Object::toString));
-      for (JarEntry jarEntry : entries) {
-        // filter out directories and non-Java files
-        if (jarEntry.isDirectory()) {
-          continue;
+    List<String> jarEntryNames = readJdkIndex();
+    try {
+      if (jarEntryNames == null) {
+        jarEntryNames = new ArrayList<>();
+        try (JarFile jarFile = getJarURLConnectionToJdk().getJarFile()) {
+          ArrayList<JarEntry> entries = CollectionsPlume.makeArrayList(jarFile.entries());
+          entries.sort(Comparator.comparing(Object::toString));
+          for (JarEntry jarEntry : entries) {
+            // filter out directories
+            if (!jarEntry.isDirectory()) {
+              jarEntryNames.add(jarEntry.getName());
+            }
+          }
         }
-        String jarEntryName = jarEntry.getName();
+      }
+      for (String jarEntryName : jarEntryNames) {
+        // filter out non-Java files
         if (!(jarEntryName.startsWith("annotated-jdk") && jarEntryName.endsWith(".java"))
             // JavaParser can't parse module-info files, so skip them.
             || jarEntryName.endsWith("module-info.java")) {
@@ -926,7 +1372,7 @@ public class AnnotationFileElementTypes {
       }
       if (stubDebug) {
         String factoryClass = factory.getClass().getSimpleName().toString();
-        String jarFileURL = connection.getJarFileURL().toString();
+        String jarFileURL = getJarURLConnectionToJdk().getJarFileURL().toString();
         System.out.printf(
             "Contents of remainingJdkStubFilesJar for %s from %s:%n", factoryClass, jarFileURL);
         printSortedIndented(remainingJdkStubFilesJar.keySet());
@@ -951,7 +1397,7 @@ public class AnnotationFileElementTypes {
         System.out.printf("End of %s.%n", jarFileURL);
       }
     } catch (IOException e) {
-      throw new BugInCF("Cannot open the jar file " + connection.getJarFileURL(), e);
+      throw new BugInCF("Cannot open the jar file " + jdkJarfile, e);
     }
   }
 
@@ -669,6 +669,31 @@ public class AnnotationFileParser {
     }
   }
 
+  /**
+   * Like {@link #parseStubFile(String, InputStream, AnnotatedTypeFactory, ProcessingEnvironment,
+   * AnnotationFileAnnotations, AnnotationFileType)}, but takes an already-parsed AST. The AST is
+   * not side-effected, so it may be shared by all type factories that read the same file.
+   *
+   * @param filename name of stub file, used only for diagnostic messages
+   * @param stubUnit the AST of the stub file, as returned by {@link JavaParserUtil#parseStubUnit}
+   * @param atypeFactory the type factory
+   * @param processingEnv the processing environment
+   * @param annotationFileAnnos annotations from the annotation file; side-effected by this method
+   * @param fileType the annotation file type and source
+   */
+  public static void parseStubFile(
+      String filename,
+      StubUnit stubUnit,
+      AnnotatedTypeFactory atypeFactory,
+      ProcessingEnvironment processingEnv,
+      AnnotationFileAnnotations annotationFileAnnos,
+      AnnotationFileType fileType) {
+    AnnotationFileParser afp =
+        new AnnotationFileParser(filename, atypeFactory, processingEnv, fileType);
+    afp.setStubUnit(stubUnit);
+    afp.process(annotationFileAnnos);
+  }
+
   /**
    * The main entry point when parsing an ajava file. Parses an ajava file and side-effects the last
    * two arguments.
@@ -730,6 +755,39 @@ public class AnnotationFileParser {
         filename, inputStream, atypeFactory, processingEnv, stubAnnos, AnnotationFileType.JDK_STUB);
   }
 
+  /**
+   * Like {@link #parseJdkFileAsStub(String, InputStream, AnnotatedTypeFactory,
+   * ProcessingEnvironment, AnnotationFileAnnotations)}, but takes an already-parsed AST. The AST
+   * is not side-effected, so it may be shared by all type factories that read the same file.
+   *
+   * @param filename name of stub file, used only for diagnostic messages
+   * @param stubUnit the AST of the stub file, as returned by {@link JavaParserUtil#parseStubUnit}
+   * @param atypeFactory the type factory
+   * @param processingEnv the processing environment
+   * @param stubAnnos annotations from the stub file; side-effected by this method
+   */
+  public static void parseJdkFileAsStub(
+      String filename,
+      StubUnit stubUnit,
+      AnnotatedTypeFactory atypeFactory,
+      ProcessingEnvironment processingEnv,
+      AnnotationFileAnnotations stubAnnos) {
+    Map<String, String> options = processingEnv.getOptions();
+    boolean debugAnnotationFileParser = options.containsKey("stubDebug");
+    if (debugAnnotationFileParser) {
+      stubDebugStatic(
+          processingEnv,
+          "parseJdkFileAsStub(%s, <StubUnit>, %s, _, _)%n",
+          filename,
+          atypeFactory.getClass().getSimpleName());
+    }
+    AnnotationFileParser afp =
+        new AnnotationFileParser(
+            filename, atypeFactory, processingEnv, AnnotationFileType.JDK_STUB);
+    afp.setStubUnit(stubUnit);
+    afp.process(stubAnnos);
+  }
+
   /**
    * Delegate to the Stub Parser to parse the annotation file to an AST, and save it in {@link
    * #stubUnit}. Also sets {@link #allAnnotations}. Does not copy annotations out of {@link
@@ -743,7 +801,22 @@ public class AnnotationFileParser {
     stubDebug(
         "started parsing annotation file %s for %s",
         filename, atypeFactory.getClass().getSimpleName());
-    stubUnit = JavaParserUtil.parseStubUnit(inputStream);
+    setStubUnit(JavaParserUtil.parseStubUnit(inputStream));
+
+    if (debugAnnotationFileParser) {
+      stubDebug(
+          "finished parsing annotation file %s for %s",
+          filename, atypeFactory.getClass().getSimpleName());
+    }
+  }
+
+  /**
+   * Sets {@link #stubUnit} to the given AST and sets {@link #allAnnotations} from its imports.
+   *
+   * @param stubUnit the AST of the annotation file
+   */
+  private void setStubUnit(StubUnit stubUnit) {
+    this.stubUnit = stubUnit;
 
     // getImportedAnnotations() also modifies importedConstants and importedTypes. This should
     // be refactored to be nicer.
@@ -760,12 +833,6 @@ public class AnnotationFileParser {
     }
     // Annotations in java.lang might be used without an import statement, so add them in case.
     allAnnotations.putAll(annosInPackage(findPackage("java.lang", null)));
-
-    if (debugAnnotationFileParser) {
-      stubDebug(
-          "finished parsing annotation file %s for %s",
-          filename, atypeFactory.getClass().getSimpleName());
-    }
   }
 
   /**
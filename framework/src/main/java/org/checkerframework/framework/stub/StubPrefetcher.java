@@ -0,0 +1,98 @@
+package org.checkerframework.framework.stub;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses annotation files on background threads, so that their ASTs are in the JVM-wide cache of
+ * {@link AnnotationFileElementTypes} before they are needed. There is one per compilation, owned
+ * by the ultimate parent checker, which creates it with the number of threads that its {@code
+ * -AstubParserThreads} option gives and shuts it down when type-checking is over.
+ *
+ * <p>Each file is parsed at most once, unless its AST is evicted from the cache; then it may be
+ * parsed again.
+ */
+public final class StubPrefetcher {
+
+  /** The prefetchers that have not been shut down, which must forget evicted files. */
+  private static final Set<StubPrefetcher> activePrefetchers = ConcurrentHashMap.newKeySet();
+
+  /** How long an idle thread waits for a task before it exits, in seconds. */
+  private static final long KEEP_ALIVE_SECONDS = 10;
+
+  /** The threads that parse the files. */
+  private final ThreadPoolExecutor executor;
+
+  /** The keys of the annotation files that have been submitted and not evicted since. */
+  private final Set<String> submittedKeys = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Creates a StubPrefetcher.
+   *
+   * @param threads the number of background threads to use; must be positive
+   */
+  public StubPrefetcher(int threads) {
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+              Thread thread = new Thread(runnable, "checker-framework-stub-parser");
+              // Do not keep javac alive after type-checking is done.
+              thread.setDaemon(true);
+              return thread;
+            });
+    // Idle threads exit, even if the compilation never calls shutdown.
+    executor.allowCoreThreadTimeOut(true);
+    activePrefetchers.add(this);
+  }
+
+  /**
+   * Claims the annotation file {@code key} for prefetching: returns true if it has not been claimed
+   * yet, or its AST has been evicted from the cache since. The caller must then {@link #execute} a
+   * task that parses it.
+   *
+   * @param key the URL of an annotation file
+   * @return true if the caller should parse the file
+   */
+  boolean claim(String key) {
+    return !executor.isShutdown() && submittedKeys.add(key);
+  }
+
+  /**
+   * Runs {@code task} on a background thread. The task parses annotation files that were {@link
+   * #claim claimed} into the cache, and must not use javac.
+   *
+   * @param task the task to run
+   */
+  void execute(Runnable task) {
+    if (!executor.isShutdown()) {
+      executor.execute(task);
+    }
+  }
+
+  /**
+   * Notes that the AST of the annotation file {@code key} was evicted from the cache, so that every
+   * prefetcher submits it again when it is next requested.
+   *
+   * @param key the URL of an annotation file
+   */
+  static void evicted(String key) {
+    for (StubPrefetcher prefetcher : activePrefetchers) {
+      prefetcher.submittedKeys.remove(key);
+    }
+  }
+
+  /** Stops the background threads. Files that are being parsed are still added to the cache. */
+  public void shutdown() {
+    activePrefetchers.remove(this);
+    executor.shutdown();
+    submittedKeys.clear();
+  }
+}
@@ -365,7 +365,8 @@ public class AnnotatedTypeCopier
    */
   protected void maybeCopyPrimaryAnnotations(AnnotatedTypeMirror source, AnnotatedTypeMirror dest) {
     if (copyAnnotations) {
-      dest.addAnnotations(source.getPrimaryAnnotationsField());
+      // The copy shares the source's annotation set until either of them is modified.
+      source.sharePrimaryAnnotationsWith(dest);
     }
   }
 }
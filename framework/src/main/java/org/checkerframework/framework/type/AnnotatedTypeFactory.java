@@ -93,7 +93,9 @@ import org.checkerframework.common.wholeprograminference.WholeProgramInferenceIm
 import org.checkerframework.common.wholeprograminference.WholeProgramInferenceJavaParserStorage;
 import org.checkerframework.common.wholeprograminference.WholeProgramInferenceJavaParserStorage.InferredDeclared;
 import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenesStorage;
+import org.checkerframework.dataflow.qual.Pure;
 import org.checkerframework.dataflow.qual.SideEffectFree;
+import org.checkerframework.framework.flow.PuritySummaries;
 import org.checkerframework.framework.qual.AnnotatedFor;
 import org.checkerframework.framework.qual.EnsuresQualifier;
 import org.checkerframework.framework.qual.EnsuresQualifierIf;
@@ -117,10 +119,12 @@ import org.checkerframework.framework.type.visitor.AnnotatedTypeCombiner;
 import org.checkerframework.framework.type.visitor.SimpleAnnotatedTypeScanner;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.AnnotatedTypes.TypeArguments;
+import org.checkerframework.framework.util.CacheStatistics;
 import org.checkerframework.framework.util.CheckerMain;
 import org.checkerframework.framework.util.FieldInvariants;
 import org.checkerframework.framework.util.TreePathCacher;
 import org.checkerframework.framework.util.TypeInformationPresenter;
+import org.checkerframework.framework.util.WeightedLfuCache;
 import org.checkerframework.framework.util.typeinference8.DefaultTypeArgumentInference;
 import org.checkerframework.framework.util.typeinference8.TypeArgumentInference;
 import org.checkerframework.javacutil.AnnotationBuilder;
@@ -386,6 +390,15 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
   /** True if -AmergeStubsWithSource was provided on the command line. */
   private final boolean mergeStubsWithSource;
 
+  /** True if any of the -ApuritySummaries command-line options was provided. */
+  private final boolean puritySummariesEnabled;
+
+  /**
+   * The purity of unannotated methods, computed from their bodies. Null unless {@link
+   * #puritySummariesEnabled}. Use {@link #getPuritySummaries()} to read this field.
+   */
+  private @MonotonicNonNull PuritySummaries puritySummaries = null;
+
   /**
    * Initializes all fields of {@code type}.
    *
@@ -499,6 +512,23 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
   /** Size of LRU cache if one isn't specified using the atfCacheSize option. */
   private static final int DEFAULT_CACHE_SIZE = 300;
 
+  /**
+   * The approximate number of bytes retained by one node of a cached {@link AnnotatedTypeMirror},
+   * including its annotation set. Used to convert the {@code -AatfCacheMegabytes} budget into a
+   * maximum number of type nodes.
+   */
+  private static final int BYTES_PER_CACHED_TYPE_NODE = 200;
+
+  /** The number of caches of annotated types that share the {@code -AatfCacheMegabytes} budget. */
+  private static final int NUMBER_OF_TYPE_CACHES = 6;
+
+  /**
+   * Counts the nodes of an annotated type; used to weigh the entries of the type caches. A scanner
+   * is stateful, so each factory has its own.
+   */
+  private final SimpleAnnotatedTypeScanner<Integer, Void> typeNodeCounter =
+      new SimpleAnnotatedTypeScanner<>((type, p) -> 1, Integer::sum, 0);
+
   /** Mapping from a Tree to its annotated type; defaults have been applied. */
   private final Map<Tree, AnnotatedTypeMirror> classAndMethodTreeCache;
 
@@ -574,6 +604,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     this.assumeDeterministic =
         checker.hasOption("assumeDeterministic") || checker.hasOption("assumePure");
     this.assumePureGetters = checker.hasOption("assumePureGetters");
+    this.puritySummariesEnabled = PuritySummaries.isEnabled(checker);
 
     this.trees = Trees.instance(processingEnv);
     this.elements = processingEnv.getElementUtils();
@@ -592,14 +623,25 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     this.shouldCache = !checker.hasOption("atfDoNotCache");
     if (shouldCache) {
       int cacheSize = getCacheSize();
-      this.classAndMethodTreeCache = CollectionsPlume.createLruCache(cacheSize);
-      this.fromExpressionTreeCache = CollectionsPlume.createLruCache(cacheSize);
-      this.fromMemberTreeCache = CollectionsPlume.createLruCache(cacheSize);
-      this.fromTypeTreeCache = CollectionsPlume.createLruCache(cacheSize);
-      this.elementCache = CollectionsPlume.createLruCache(cacheSize);
-      this.elementToTreeCache = CollectionsPlume.createLruCache(cacheSize);
+      long typeCacheWeight = getTypeCacheWeight();
+      this.classAndMethodTreeCache =
+          recordCacheStatistics(
+              "classAndMethodTreeCache", createTypeCache(cacheSize, typeCacheWeight));
+      this.fromExpressionTreeCache =
+          recordCacheStatistics(
+              "fromExpressionTreeCache", createTypeCache(cacheSize, typeCacheWeight));
+      this.fromMemberTreeCache =
+          recordCacheStatistics("fromMemberTreeCache", createTypeCache(cacheSize, typeCacheWeight));
+      this.fromTypeTreeCache =
+          recordCacheStatistics("fromTypeTreeCache", createTypeCache(cacheSize, typeCacheWeight));
+      this.elementCache =
+          recordCacheStatistics("elementCache", createTypeCache(cacheSize, typeCacheWeight));
+      this.elementToTreeCache =
+          recordCacheStatistics("elementToTreeCache", CollectionsPlume.createLruCache(cacheSize));
       this.annotationClassNames =
-          Collections.synchronizedMap(CollectionsPlume.createLruCache(ANNOTATION_CACHE_SIZE));
+          Collections.synchronizedMap(
+              recordCacheStatistics(
+                  "annotationClassNames", CollectionsPlume.createLruCache(ANNOTATION_CACHE_SIZE)));
     } else {
       this.classAndMethodTreeCache = null;
       this.fromExpressionTreeCache = null;
@@ -897,6 +939,29 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     }
   }
 
+  /**
+   * Returns the CompilationUnitTree that is being checked, or null if there is none.
+   *
+   * @return the CompilationUnitTree that is being checked, or null
+   */
+  public @Nullable CompilationUnitTree getRoot() {
+    return root;
+  }
+
+  /**
+   * Returns the purity of unannotated methods, computed from their bodies, or null if none of the
+   * {@code -ApuritySummaries}, {@code -ApuritySummaryPath}, and {@code -ApuritySummaryOutput}
+   * command-line options was provided.
+   *
+   * @return the purity summaries of this factory, or null
+   */
+  public @Nullable PuritySummaries getPuritySummaries() {
+    if (puritySummaries == null && puritySummariesEnabled) {
+      puritySummaries = new PuritySummaries(this);
+    }
+    return puritySummaries;
+  }
+
   /**
    * Set the CompilationUnitTree that should be used.
    *
@@ -936,6 +1001,15 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
       // elementCache.clear();
     }
 
+    // The type hierarchy caches subtyping results for one compilation unit at a time.
+    if (typeHierarchy instanceof DefaultTypeHierarchy) {
+      ((DefaultTypeHierarchy) typeHierarchy).clearSubtypeCache();
+    }
+
+    if (root != null) {
+      stubTypes.prefetchJdkStubs(root);
+    }
+
     if (root != null && checker.hasOption("ajava")) {
       // Search for an ajava file with annotations for the current source file and the current
       // checker. It will be in a directory specified by the "ajava" option in a subdirectory
@@ -1331,6 +1405,17 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
    * @return cache size passed as argument to checker or DEFAULT_CACHE_SIZE
    */
   protected int getCacheSize() {
+    return getCacheSize(checker);
+  }
+
+  /**
+   * Returns the size for LRU caches of the given checker. It is either the value supplied via the
+   * {@code -AatfCacheSize} option or the default cache size.
+   *
+   * @param checker a checker
+   * @return cache size passed as argument to {@code checker} or DEFAULT_CACHE_SIZE
+   */
+  static int getCacheSize(SourceChecker checker) {
     String option = checker.getOption("atfCacheSize");
     if (option == null) {
       return DEFAULT_CACHE_SIZE;
@@ -1342,6 +1427,63 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     }
   }
 
+  /**
+   * Returns the maximum weight, in type nodes, of each cache of annotated types, as specified by
+   * the {@code -AatfCacheMegabytes} option. Returns 0 if the option was not supplied.
+   *
+   * @return the maximum weight of each cache of annotated types, or 0 to use LRU caches of {@link
+   *     #getCacheSize()} entries
+   */
+  private long getTypeCacheWeight() {
+    String option = checker.getOption("atfCacheMegabytes");
+    if (option == null) {
+      return 0;
+    }
+    long megabytes;
+    try {
+      megabytes = Long.parseLong(option);
+    } catch (NumberFormatException ex) {
+      throw new UserError("atfCacheMegabytes was not an integer: " + option);
+    }
+    if (megabytes <= 0) {
+      throw new UserError("atfCacheMegabytes must be positive: " + option);
+    }
+    long bytesPerCache = megabytes * 1024 * 1024 / NUMBER_OF_TYPE_CACHES;
+    return Math.max(1, bytesPerCache / BYTES_PER_CACHED_TYPE_NODE);
+  }
+
+  /**
+   * Returns {@code cache}, instrumented to record hit, miss, and eviction counts if the {@code
+   * -AcacheStats} command-line option was supplied.
+   *
+   * @param <K> the type of the keys of the cache
+   * @param <V> the type of the values of the cache
+   * @param name the name of the cache, used when printing the statistics
+   * @param cache a cache
+   * @return {@code cache}, or a view of it that records statistics
+   */
+  protected final <K, V> Map<K, V> recordCacheStatistics(String name, Map<K, V> cache) {
+    CacheStatistics stats = checker.getCacheStatistics();
+    return stats == null ? cache : stats.wrap(name, cache);
+  }
+
+  /**
+   * Creates a cache of annotated types. If {@code maximumWeight} is positive, the cache is a {@link
+   * WeightedLfuCache} that weighs each type by its number of nodes. Otherwise, it is an LRU cache
+   * with {@code cacheSize} entries.
+   *
+   * @param <K> the type of the keys of the cache
+   * @param cacheSize the maximum number of entries, if {@code maximumWeight} is 0
+   * @param maximumWeight the maximum total number of type nodes, or 0
+   * @return a new cache of annotated types
+   */
+  private <K> Map<K, AnnotatedTypeMirror> createTypeCache(int cacheSize, long maximumWeight) {
+    if (maximumWeight > 0) {
+      return new WeightedLfuCache<>(maximumWeight, typeNodeCounter::visit);
+    }
+    return CollectionsPlume.createLruCache(cacheSize);
+  }
+
   /**
    * Returns an AnnotatedTypeMirror representing the annotated type of {@code elt}.
    *
@@ -5810,7 +5952,9 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         return true;
       }
     }
-    return false;
+    PuritySummaries summaries = getPuritySummaries();
+    return summaries != null
+        && summaries.getInferredKinds(methodElement).contains(Pure.Kind.SIDE_EFFECT_FREE);
   }
 
   @Override
@@ -5829,7 +5973,9 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         return true;
       }
     }
-    return false;
+    PuritySummaries summaries = getPuritySummaries();
+    return summaries != null
+        && summaries.getInferredKinds(methodElement).contains(Pure.Kind.DETERMINISTIC);
   }
 
   /**
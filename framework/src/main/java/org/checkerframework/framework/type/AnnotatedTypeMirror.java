@@ -57,7 +57,10 @@ import org.plumelib.util.DeepCopyable;
  * <p>To implement operations based on the class of an {@code AnnotatedTypeMirror} object, either
  * use a visitor or use the result of the {@link #getKind()} method.
  *
- * <p>This class is mutable.
+ * <p>This class is mutable. Copies made by {@link #deepCopy()} and {@link #shallowCopy()} share
+ * their primary annotation sets with the original until either type's primary annotations are
+ * modified, so copying a type that is only read, such as a cached type, does not copy its
+ * annotations.
  *
  * @see TypeMirror
  */
@@ -86,7 +89,16 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
   // AnnotationMirror doesn't override Object.hashCode, .equals, so we use
   // the class name of Annotation instead.
   // Caution: Assumes that a type can have at most one AnnotationMirror for any Annotation type.
-  protected final AnnotationMirrorSet primaryAnnotations = new AnnotationMirrorSet();
+  // Not final because it is shared with copies of this type; see sharePrimaryAnnotationsWith.
+  // Code that modifies it must first call primaryAnnotationsForWrite. Subclasses outside this file
+  // use getPrimaryAnnotations to read it and getPrimaryAnnotationsField to modify it.
+  private AnnotationMirrorSet primaryAnnotations = new AnnotationMirrorSet();
+
+  /**
+   * True if {@link #primaryAnnotations} may be referenced by another AnnotatedTypeMirror, in which
+   * case it must be copied before it is modified.
+   */
+  private boolean primaryAnnotationsShared = false;
 
   // /** The explicitly written annotations on this type. */
   // TODO: use this to cache the result once computed? For generic types?
@@ -333,6 +345,9 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
    * #getPrimaryAnnotationInHierarchy}. If there is only one hierarchy, you can use {@link
    * #getPrimaryAnnotation}.
    *
+   * <p>The returned set is a copy: it does not reflect later changes to the annotations on this
+   * type. Call this method again after modifying this type.
+   *
    * @return an unmodifiable set of the annotations on this
    */
   public final AnnotationMirrorSet getPrimaryAnnotations() {
@@ -340,8 +355,9 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
   }
 
   /**
-   * Returns the annotations on this type; mutations affect this object, because the return type is
-   * an alias of the {@code annotations} field. It does not include annotations in deep types (type
+   * Returns the annotations on this type; mutations affect this object and no other, because the
+   * return type is an alias of the {@code primaryAnnotations} field, which is first copied if it
+   * is shared with a copy of this type. It does not include annotations in deep types (type
    * arguments, array components, etc).
    *
    * <p>The returned set should not be modified, but for efficiency reasons modification is not
@@ -350,9 +366,47 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
    * @return the set of the annotations on this; mutations affect this object
    */
   protected final AnnotationMirrorSet getPrimaryAnnotationsField() {
+    return primaryAnnotationsForWrite();
+  }
+
+  /**
+   * Returns {@link #primaryAnnotations}, first copying it if it is shared with another type. Every
+   * modification of {@link #primaryAnnotations} must go through this method.
+   *
+   * @return the set of the annotations on this, which is not shared with any other type
+   */
+  private AnnotationMirrorSet primaryAnnotationsForWrite() {
+    if (primaryAnnotationsShared) {
+      primaryAnnotations = primaryAnnotations.deepCopy();
+      primaryAnnotationsShared = false;
+    }
     return primaryAnnotations;
   }
 
+  /**
+   * Gives {@code copy}, a newly-created copy of this type, the same primary annotations as this.
+   * The two types share one set of annotations until either of them is modified, so this is
+   * cheaper than {@code copy.addAnnotations(getPrimaryAnnotationsField())}, which has the same
+   * effect.
+   *
+   * @param copy a copy of this type that has no primary annotations
+   */
+  /*package-private*/ void sharePrimaryAnnotationsWith(AnnotatedTypeMirror copy) {
+    if (primaryAnnotations.isEmpty()) {
+      return;
+    }
+    if (!copy.primaryAnnotations.isEmpty()
+        // A type without a hierarchy may hold unsupported annotations, which addAnnotation
+        // would filter out of the copy.
+        || this instanceof AnnotatedDeclaredTypeNoHierarchy) {
+      copy.addAnnotations(primaryAnnotations);
+      return;
+    }
+    copy.primaryAnnotations = primaryAnnotations;
+    copy.primaryAnnotationsShared = true;
+    primaryAnnotationsShared = true;
+  }
+
   /**
    * Returns the single primary annotations on this type. For {@link AnnotatedTypeVariable}s and
    * {@link AnnotatedWildcardType}s, the returned annotations may be empty or missing annotations in
@@ -638,7 +692,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
       throw new BugInCF("AnnotatedTypeMirror.addAnnotation: null argument.");
     }
     if (atypeFactory.isSupportedQualifier(annotation)) {
-      this.primaryAnnotations.add(annotation);
+      primaryAnnotationsForWrite().add(annotation);
     } else {
       AnnotationMirror canonical = atypeFactory.canonicalAnnotation(annotation);
       if (atypeFactory.isSupportedQualifier(canonical)) {
@@ -746,7 +800,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
   public boolean removePrimaryAnnotation(AnnotationMirror a) {
     AnnotationMirror anno = AnnotationUtils.getSame(primaryAnnotations, a);
     if (anno != null) {
-      return primaryAnnotations.remove(anno);
+      return primaryAnnotationsForWrite().remove(anno);
     }
     return false;
   }
@@ -760,7 +814,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
   public boolean removePrimaryAnnotationByClass(Class<? extends Annotation> a) {
     AnnotationMirror anno = atypeFactory.getAnnotationByClass(primaryAnnotations, a);
     if (anno != null) {
-      return primaryAnnotations.remove(anno);
+      return primaryAnnotationsForWrite().remove(anno);
     }
     return false;
   }
@@ -814,7 +868,12 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
 
   /** Removes all primary annotations on this type. */
   public void clearPrimaryAnnotations() {
-    primaryAnnotations.clear();
+    if (primaryAnnotationsShared) {
+      primaryAnnotations = new AnnotationMirrorSet();
+      primaryAnnotationsShared = false;
+    } else {
+      primaryAnnotations.clear();
+    }
   }
 
   @SideEffectFree
@@ -1167,7 +1226,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
       AnnotatedDeclaredType type =
           new AnnotatedDeclaredType(getUnderlyingType(), atypeFactory, declaration);
       if (copyAnnotations) {
-        type.addAnnotations(this.getPrimaryAnnotationsField());
+        sharePrimaryAnnotationsWith(type);
       }
       type.setEnclosingType(getEnclosingType());
       type.setTypeArguments(getTypeArguments());
@@ -1254,7 +1313,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
 
     @Override
     public void addAnnotation(AnnotationMirror annotation) {
-      primaryAnnotations.add(annotation);
+      primaryAnnotationsForWrite().add(annotation);
     }
   }
 
@@ -1666,7 +1725,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
     public AnnotatedArrayType shallowCopy(boolean copyAnnotations) {
       AnnotatedArrayType type = new AnnotatedArrayType((ArrayType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getPrimaryAnnotationsField());
+        sharePrimaryAnnotationsWith(type);
       }
       type.setComponentType(getComponentType());
       return type;
@@ -1830,8 +1889,8 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
     // The type of "@Nullable X" has to be "@Nullable X extends @Nullable Object",
     // because otherwise the annotations are inconsistent.
     private void fixupBoundAnnotations() {
-      if (!this.getPrimaryAnnotationsField().isEmpty()) {
-        AnnotationMirrorSet newAnnos = this.getPrimaryAnnotationsField();
+      if (!this.primaryAnnotations.isEmpty()) {
+        AnnotationMirrorSet newAnnos = this.primaryAnnotations;
         if (upperBound != null) {
           upperBound.replaceAnnotations(newAnnos);
         }
@@ -1908,7 +1967,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
       // return a deep copy instead.
       AnnotatedTypeVariable type = deepCopy(true);
       if (!copyAnnotations) {
-        type.getPrimaryAnnotationsField().clear();
+        type.clearPrimaryAnnotations();
       }
       return type;
     }
@@ -1982,7 +2041,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
     public AnnotatedNoType shallowCopy(boolean copyAnnotations) {
       AnnotatedNoType type = new AnnotatedNoType((NoType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getPrimaryAnnotationsField());
+        sharePrimaryAnnotationsWith(type);
       }
       return type;
     }
@@ -2024,7 +2083,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
     public AnnotatedNullType shallowCopy(boolean copyAnnotations) {
       AnnotatedNullType type = new AnnotatedNullType((NullType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getPrimaryAnnotationsField());
+        sharePrimaryAnnotationsWith(type);
       }
       return type;
     }
@@ -2070,7 +2129,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
       AnnotatedPrimitiveType type =
           new AnnotatedPrimitiveType((PrimitiveType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getPrimaryAnnotationsField());
+        sharePrimaryAnnotationsWith(type);
       }
       return type;
     }
@@ -2181,12 +2240,12 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
     }
 
     private void fixupBoundAnnotations() {
-      if (!this.getPrimaryAnnotationsField().isEmpty()) {
+      if (!this.primaryAnnotations.isEmpty()) {
         if (superBound != null) {
-          superBound.replaceAnnotations(this.getPrimaryAnnotationsField());
+          superBound.replaceAnnotations(this.primaryAnnotations);
         }
         if (extendsBound != null) {
-          extendsBound.replaceAnnotations(this.getPrimaryAnnotationsField());
+          extendsBound.replaceAnnotations(this.primaryAnnotations);
         }
       }
     }
@@ -2247,7 +2306,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
       // deep copy instead.
       AnnotatedWildcardType type = deepCopy(true);
       if (!copyAnnotations) {
-        type.getPrimaryAnnotationsField().clear();
+        type.clearPrimaryAnnotations();
       }
       return type;
     }
@@ -2327,8 +2386,8 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
      * the same hierarchy.
      */
     private void fixupBoundAnnotations() {
-      if (!this.getPrimaryAnnotationsField().isEmpty()) {
-        AnnotationMirrorSet newAnnos = this.getPrimaryAnnotationsField();
+      if (!this.primaryAnnotations.isEmpty()) {
+        AnnotationMirrorSet newAnnos = this.primaryAnnotations;
         if (bounds != null) {
           for (AnnotatedTypeMirror bound : bounds) {
             if (bound.getKind() != TypeKind.TYPEVAR) {
@@ -2364,7 +2423,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
       AnnotatedIntersectionType type =
           new AnnotatedIntersectionType((IntersectionType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getPrimaryAnnotationsField());
+        sharePrimaryAnnotationsWith(type);
       }
       type.bounds = this.bounds;
       return type;
@@ -2471,7 +2530,7 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
     public AnnotatedUnionType shallowCopy(boolean copyAnnotations) {
       AnnotatedUnionType type = new AnnotatedUnionType((UnionType) underlyingType, atypeFactory);
       if (copyAnnotations) {
-        type.addAnnotations(this.getPrimaryAnnotationsField());
+        sharePrimaryAnnotationsWith(type);
       }
       type.alternatives = this.alternatives;
       return type;
@@ -2651,9 +2710,8 @@ public abstract class AnnotatedTypeMirror implements DeepCopyable<AnnotatedTypeM
   }
 
   /**
-   * Returns the annotations on this type; mutations affect this object, because the return type is
-   * an alias of the {@code annotations} field. It does not include annotations in deep types (type
-   * arguments, array components, etc).
+   * Returns the annotations on this type; mutations affect this object and no other. It does not
+   * include annotations in deep types (type arguments, array components, etc).
    *
    * <p>The returned set should not be modified, but for efficiency reasons modification is not
    * prevented. Modifications might break invariants.
@@ -1,8 +1,10 @@
 package org.checkerframework.framework.type;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
@@ -10,6 +12,7 @@ import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Types;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.framework.qual.AnnotatedFor;
 import org.checkerframework.framework.qual.Covariant;
@@ -24,11 +27,13 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcard
 import org.checkerframework.framework.type.visitor.AbstractAtmComboVisitor;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.AtmCombo;
+import org.checkerframework.framework.util.CacheStatistics;
 import org.checkerframework.javacutil.AnnotationMirrorSet;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypesUtils;
+import org.plumelib.util.CollectionsPlume;
 
 /**
  * Default implementation of TypeHierarchy that implements the JLS specification with minor
@@ -83,6 +88,29 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Void>
   /** The Covariant.value field/element. */
   final ExecutableElement covariantValueElement;
 
+  /**
+   * Caches the result of top-level calls to {@link #isSubtype(AnnotatedTypeMirror,
+   * AnnotatedTypeMirror)}, for types that satisfy {@link #shouldCacheSubtype} and {@link
+   * SubtypeCacheKey#create}. Holds as many entries as the other caches of the type factory ({@code
+   * -AatfCacheSize}). Cleared when the compilation unit changes. Null if the {@code
+   * -AatfDoNotCache} command-line option was supplied.
+   */
+  private final @Nullable Map<SubtypeCacheKey, Boolean> subtypeCache;
+
+  /** The number of lookups in {@link #subtypeCache} that found a result. */
+  private long subtypeCacheHits = 0;
+
+  /** The number of lookups in {@link #subtypeCache} that did not find a result. */
+  private long subtypeCacheMisses = 0;
+
+  /**
+   * The number of calls to {@link #isSubtype(AnnotatedTypeMirror, AnnotatedTypeMirror,
+   * AnnotationMirror)}, the entry point of every subtyping check, that are in progress. The cache
+   * is only used when this is 0, because a nested call may observe partial results in {@link
+   * #isSubtypeVisitHistory}.
+   */
+  private int isSubtypeDepth = 0;
+
   /**
    * Creates a DefaultTypeHierarchy.
    *
@@ -108,6 +136,16 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Void>
 
     covariantValueElement =
         TreeUtils.getMethod(Covariant.class, "value", 0, checker.getProcessingEnvironment());
+
+    CacheStatistics cacheStatistics = checker.getCacheStatistics();
+    if (checker.hasOption("atfDoNotCache")) {
+      this.subtypeCache = null;
+    } else {
+      Map<SubtypeCacheKey, Boolean> cache =
+          CollectionsPlume.createLruCache(AnnotatedTypeFactory.getCacheSize(checker));
+      this.subtypeCache =
+          cacheStatistics == null ? cache : cacheStatistics.wrap("subtypeCache", cache);
+    }
   }
 
   /**
@@ -133,15 +171,235 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Void>
    */
   @Override
   public boolean isSubtype(AnnotatedTypeMirror subtype, AnnotatedTypeMirror supertype) {
+    if (subtypeCache == null || isSubtypeDepth != 0 || !shouldCacheSubtype(subtype, supertype)) {
+      return isSubtypeInAllHierarchies(subtype, supertype);
+    }
+    SubtypeCacheKey key = SubtypeCacheKey.create(subtype, supertype);
+    if (key == null) {
+      return isSubtypeInAllHierarchies(subtype, supertype);
+    }
+
+    Boolean cached = subtypeCache.get(key);
+    if (cached != null) {
+      subtypeCacheHits++;
+      return cached;
+    }
+    subtypeCacheMisses++;
+    boolean result = isSubtypeInAllHierarchies(subtype, supertype);
+    subtypeCache.put(key, result);
+    return result;
+  }
+
+  /**
+   * Returns true if subtype {@literal <:} supertype in every qualifier hierarchy. Does not use
+   * {@link #subtypeCache}.
+   *
+   * @param subtype expected subtype
+   * @param supertype expected supertype
+   * @return true if subtype is a subtype of supertype or equal to it
+   */
+  private boolean isSubtypeInAllHierarchies(
+      AnnotatedTypeMirror subtype, AnnotatedTypeMirror supertype) {
     for (AnnotationMirror top : qualHierarchy.getTopAnnotations()) {
       if (!isSubtype(subtype, supertype, top)) {
         return false;
       }
     }
+    return true;
+  }
 
+  /**
+   * Returns true if the result of {@link #isSubtype(AnnotatedTypeMirror, AnnotatedTypeMirror)} for
+   * the given types may be cached. It may not be cached if the result could depend on anything
+   * other than the structure and annotations of the two types.
+   *
+   * <p>Regardless of this method, results are only cached when neither type contains a type
+   * variable (including a captured wildcard), a wildcard, a raw type, or an intersection or union
+   * type. This implementation returns true. Subclasses whose subtyping depends on other state
+   * should override this method to return false.
+   *
+   * @param subtype expected subtype
+   * @param supertype expected supertype
+   * @return true if the result of isSubtype for the given types may be cached
+   */
+  protected boolean shouldCacheSubtype(AnnotatedTypeMirror subtype, AnnotatedTypeMirror supertype) {
     return true;
   }
 
+  /**
+   * Clears the cache of subtyping results. Called when the compilation unit changes, because the
+   * annotated types of declarations in it may be refined later.
+   */
+  public void clearSubtypeCache() {
+    if (subtypeCache != null) {
+      subtypeCache.clear();
+    }
+  }
+
+  /**
+   * Returns the number of top-level subtyping queries that were answered from the cache.
+   *
+   * @return the number of subtyping cache hits
+   */
+  public long getSubtypeCacheHits() {
+    return subtypeCacheHits;
+  }
+
+  /**
+   * Returns the number of cacheable top-level subtyping queries that were not in the cache.
+   *
+   * @return the number of subtyping cache misses
+   */
+  public long getSubtypeCacheMisses() {
+    return subtypeCacheMisses;
+  }
+
+  /**
+   * A pair of types, used as a key in {@link #subtypeCache}. The key does not refer to the types,
+   * which the caller may side-effect later, but to a flat snapshot of them: a preorder list of the
+   * kind or class of each node, its primary annotations, and its number of children. For the types
+   * that may be cached, two keys are equal exactly when the types have the same underlying types
+   * and the same annotations.
+   */
+  private static final class SubtypeCacheKey {
+
+    /**
+     * The nodes of the expected subtype and then of the expected supertype. Each element is a
+     * {@link TypeKind}, a {@link TypeElement}, an {@link Integer} count, or an {@link
+     * AnnotationMirror}.
+     */
+    private final Object[] parts;
+
+    /** The hash code of this key. */
+    private final int hashCode;
+
+    /**
+     * Creates a SubtypeCacheKey.
+     *
+     * @param parts the nodes of the two types
+     */
+    private SubtypeCacheKey(Object[] parts) {
+      this.parts = parts;
+      int hash = 1;
+      for (Object part : parts) {
+        // The hash code of an AnnotationMirror is not consistent with AnnotationUtils.areSame.
+        Object hashed =
+            part instanceof AnnotationMirror
+                ? ((AnnotationMirror) part).getAnnotationType().asElement()
+                : part;
+        hash = 31 * hash + hashed.hashCode();
+      }
+      this.hashCode = hash;
+    }
+
+    /**
+     * Returns the key for the given types, or null if their subtyping may not be cached because
+     * one of them contains a type variable, a wildcard, a raw type, or an intersection or union
+     * type.
+     *
+     * @param subtype expected subtype
+     * @param supertype expected supertype
+     * @return the key for the given types, or null if they may not be cached
+     */
+    static @Nullable SubtypeCacheKey create(
+        AnnotatedTypeMirror subtype, AnnotatedTypeMirror supertype) {
+      List<Object> parts = new ArrayList<>();
+      if (!addParts(subtype, parts) || !addParts(supertype, parts)) {
+        return null;
+      }
+      return new SubtypeCacheKey(parts.toArray());
+    }
+
+    /**
+     * Appends the nodes of {@code type} to {@code parts}.
+     *
+     * @param type a type
+     * @param parts the nodes of the types visited so far
+     * @return false if subtyping results for {@code type} may not be cached
+     */
+    private static boolean addParts(AnnotatedTypeMirror type, List<Object> parts) {
+      switch (type.getKind()) {
+        case ARRAY:
+          parts.add(TypeKind.ARRAY);
+          addAnnotations(type, parts);
+          return addParts(((AnnotatedArrayType) type).getComponentType(), parts);
+        case DECLARED:
+          AnnotatedDeclaredType declaredType = (AnnotatedDeclaredType) type;
+          if (TypesUtils.isRaw(declaredType.getUnderlyingType())) {
+            return false;
+          }
+          parts.add(declaredType.getUnderlyingType().asElement());
+          addAnnotations(type, parts);
+          AnnotatedDeclaredType enclosingType = declaredType.getEnclosingType();
+          if (enclosingType == null) {
+            parts.add(TypeKind.NONE);
+          } else if (!addParts(enclosingType, parts)) {
+            return false;
+          }
+          List<? extends AnnotatedTypeMirror> typeArgs = declaredType.getTypeArguments();
+          parts.add(typeArgs.size());
+          for (AnnotatedTypeMirror typeArg : typeArgs) {
+            if (!addParts(typeArg, parts)) {
+              return false;
+            }
+          }
+          return true;
+        default:
+          if (!type.getKind().isPrimitive()) {
+            return false;
+          }
+          parts.add(type.getKind());
+          addAnnotations(type, parts);
+          return true;
+      }
+    }
+
+    /**
+     * Appends the number of primary annotations of {@code type}, and then the annotations, to
+     * {@code parts}.
+     *
+     * @param type a type
+     * @param parts the nodes of the types visited so far
+     */
+    private static void addAnnotations(AnnotatedTypeMirror type, List<Object> parts) {
+      AnnotationMirrorSet annotations = type.getPrimaryAnnotations();
+      parts.add(annotations.size());
+      // An AnnotationMirrorSet is sorted, so equal sets list their annotations in the same order.
+      parts.addAll(annotations);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof SubtypeCacheKey)) {
+        return false;
+      }
+      SubtypeCacheKey other = (SubtypeCacheKey) obj;
+      if (hashCode != other.hashCode || parts.length != other.parts.length) {
+        return false;
+      }
+      for (int i = 0; i < parts.length; i++) {
+        Object part = parts[i];
+        Object otherPart = other.parts[i];
+        if (part instanceof AnnotationMirror && otherPart instanceof AnnotationMirror) {
+          if (!AnnotationUtils.areSame((AnnotationMirror) part, (AnnotationMirror) otherPart)) {
+            return false;
+          }
+        } else if (!part.equals(otherPart)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
   /** A set of annotations and a {@link TypeMirror}. */
   @AnnotatedFor("nullness")
   private static class ShallowType {
@@ -255,8 +513,13 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Void>
   protected boolean isSubtype(
       AnnotatedTypeMirror subtype, AnnotatedTypeMirror supertype, AnnotationMirror top) {
     assert top != null;
-    currentTop = top;
-    return AtmCombo.accept(subtype, supertype, null, this);
+    isSubtypeDepth++;
+    try {
+      currentTop = top;
+      return AtmCombo.accept(subtype, supertype, null, this);
+    } finally {
+      isSubtypeDepth--;
+    }
   }
 
   /**
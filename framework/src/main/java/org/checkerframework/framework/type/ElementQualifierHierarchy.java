@@ -107,7 +107,7 @@ public abstract class ElementQualifierHierarchy extends QualifierHierarchy {
   protected QualifierKindHierarchy createQualifierKindHierarchy(
       @UnderInitialization ElementQualifierHierarchy this,
       Collection<Class<? extends Annotation>> qualifierClasses) {
-    return new DefaultQualifierKindHierarchy(qualifierClasses);
+    return DefaultQualifierKindHierarchy.forQualifiers(qualifierClasses);
   }
 
   /**
@@ -14,6 +14,8 @@ import com.sun.source.tree.Tree;
 import com.sun.source.tree.UnaryTree;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePath;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeInfo;
 import java.lang.annotation.Annotation;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -27,6 +29,7 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.TreeMap;
 import java.util.regex.Pattern;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
@@ -80,6 +83,7 @@ import org.checkerframework.framework.flow.CFCFGBuilder;
 import org.checkerframework.framework.flow.CFStore;
 import org.checkerframework.framework.flow.CFTransfer;
 import org.checkerframework.framework.flow.CFValue;
+import org.checkerframework.framework.flow.SharedCFGCache;
 import org.checkerframework.framework.qual.DefaultFor;
 import org.checkerframework.framework.qual.DefaultQualifier;
 import org.checkerframework.framework.qual.DefaultQualifierInHierarchy;
@@ -90,6 +94,7 @@ import org.checkerframework.framework.qual.QualifierForLiterals;
 import org.checkerframework.framework.qual.RelevantJavaTypes;
 import org.checkerframework.framework.qual.RequiresQualifier;
 import org.checkerframework.framework.qual.TypeUseLocation;
+import org.checkerframework.framework.source.MethodResultCache;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
@@ -301,29 +306,10 @@ public abstract class GenericAnnotatedTypeFactory<
       flowResultAnalysisCaches;
 
   /**
-   * Subcheckers share the same ControlFlowGraph for each analyzed code statement. This maps from
-   * code statements to the shared control flow graphs. This map is null in all subcheckers (i.e.
-   * any checker for which getParentChecker() returns non-null). This map is also unused (and
-   * therefore null) for a checker with no subcheckers with which it can share CFGs.
-   *
-   * <p>The initial capacity of the map is set by {@link #getCacheSize()}.
-   */
-  protected @MonotonicNonNull Map<Tree, ControlFlowGraph> subcheckerSharedCFG;
-
-  /**
-   * If true, {@link #setRoot(CompilationUnitTree)} should clear the {@link #subcheckerSharedCFG}
-   * map, freeing memory.
-   *
-   * <p>For each compilation unit, all the subcheckers run first and finally the ultimate parent
-   * checker runs. The ultimate parent checker's {@link #setRoot(CompilationUnitTree)} (the last to
-   * run) sets this field to true.
-   *
-   * <p>In first subchecker to run for the next compilation unit, {@link
-   * #setRoot(CompilationUnitTree)} observes the true value, clears the {@link #subcheckerSharedCFG}
-   * map, and sets this field back to false. That first subchecker will create a CFG and re-populate
-   * the map, and subsequent subcheckers will use the map.
+   * The control flow graphs shared with the subcheckers, the supercheckers, and the other checkers
+   * of this compilation. Use {@link #getSharedCFGCache()} to read this field.
    */
-  protected boolean shouldClearSubcheckerSharedCFGs = true;
+  private final SharedCFGCache sharedCFGCache;
 
   /**
    * Creates a type factory. Its compilation unit is not yet set.
@@ -349,15 +335,20 @@ public abstract class GenericAnnotatedTypeFactory<
 
     this.cfgVisualizer = createCFGVisualizer();
     this.handleCFGViz = checker.hasOption("flowdotdir") || checker.hasOption("cfgviz");
+    this.lazyFlowAnalysis = checker.hasOption("lazyFlowAnalysis");
 
     if (shouldCache) {
       int cacheSize = getCacheSize();
-      flowResultAnalysisCaches = CollectionsPlume.createLruCache(cacheSize);
-      initializerCache = CollectionsPlume.createLruCache(cacheSize);
+      flowResultAnalysisCaches =
+          recordCacheStatistics(
+              "flowResultAnalysisCaches", CollectionsPlume.createLruCache(cacheSize));
+      initializerCache =
+          recordCacheStatistics("initializerCache", CollectionsPlume.createLruCache(cacheSize));
     } else {
       flowResultAnalysisCaches = null;
       initializerCache = null;
     }
+    sharedCFGCache = SharedCFGCache.instance(processingEnv);
 
     RelevantJavaTypes relevantJavaTypesAnno =
         checker.getClass().getAnnotation(RelevantJavaTypes.class);
@@ -450,6 +441,7 @@ public abstract class GenericAnnotatedTypeFactory<
 
     super.setRoot(root);
     this.scannedClasses.clear();
+    this.deferredMethods.clear();
     this.reachableNodes.clear();
     this.flowResult = null;
     this.regularExitStores.clear();
@@ -463,41 +455,10 @@ public abstract class GenericAnnotatedTypeFactory<
       this.flowResultAnalysisCaches.clear();
       this.initializerCache.clear();
       this.defaultQualifierForUseTypeAnnotator.clearCache();
-
-      if (this.checker.getParentChecker() == null) {
-        // This is an ultimate parent checker, so after it runs the shared CFG it is using
-        // will no longer be needed, and can be cleared.
-        this.shouldClearSubcheckerSharedCFGs = true;
-        if (this.checker.getSubcheckers().isEmpty()) {
-          // If this checker has no subcheckers, then any maps that are currently
-          // being maintained should be cleared right away.
-          clearSharedCFG(this);
-        }
-      } else {
-        GenericAnnotatedTypeFactory<?, ?, ?, ?> ultimateParentATF =
-            this.checker.getUltimateParentChecker().getTypeFactory();
-        clearSharedCFG(ultimateParentATF);
-      }
-    }
-  }
-
-  /**
-   * Clears the caches associated with the shared CFG for the given type factory, if it is safe to
-   * do so.
-   *
-   * @param factory a type factory
-   */
-  private void clearSharedCFG(GenericAnnotatedTypeFactory<?, ?, ?, ?> factory) {
-    if (factory.shouldClearSubcheckerSharedCFGs) {
-      // This is the first subchecker running in a group that share CFGs, so it must clear its
-      // ultimate parent's shared CFG before adding a new shared CFG.
-      factory.shouldClearSubcheckerSharedCFGs = false;
-      if (factory.subcheckerSharedCFG != null) {
-        factory.subcheckerSharedCFG.clear();
-      }
-      // The same applies to this map.
-      factory.artificialTreeToEnclosingElementMap.clear();
     }
+    // Every CFG that this factory uses for the new compilation unit records its artificial trees
+    // here, even if another checker built the CFG.
+    this.artificialTreeToEnclosingElementMap.clear();
   }
 
   // **********************************************************************
@@ -1091,6 +1052,19 @@ public abstract class GenericAnnotatedTypeFactory<
   /** Map from ClassTree to their dataflow analysis state. */
   protected final Map<ClassTree, ScanState> scannedClasses = new HashMap<>();
 
+  /** True if the analysis of methods is deferred until it is needed: {@code -AlazyFlowAnalysis}. */
+  private final boolean lazyFlowAnalysis;
+
+  /**
+   * The methods of the current compilation unit whose analysis has been deferred, keyed by their
+   * start position. Their ranges do not overlap, because the methods of a class that is declared
+   * in a method are only seen once that method is analyzed. Empty unless {@link
+   * #lazyFlowAnalysis} is true.
+   *
+   * @see #performDeferredFlowAnalysis(Tree)
+   */
+  private final TreeMap<Integer, DeferredMethod> deferredMethods = new TreeMap<>();
+
   /**
    * A set of trees whose corresponding nodes are reachable. This is not an exhaustive set of
    * reachable trees. Use {@link #isUnreachable(ExpressionTree)} instead of this set directly.
@@ -1140,6 +1114,7 @@ public abstract class GenericAnnotatedTypeFactory<
    * @return the regular exit store, or {@code null}
    */
   public @Nullable Store getRegularExitStore(Tree tree) {
+    performDeferredFlowAnalysis(tree);
     if (regularExitStores == null) {
       if (tree.getKind() == Tree.Kind.METHOD) {
         if (((MethodTree) tree).getBody() == null) {
@@ -1160,6 +1135,7 @@ public abstract class GenericAnnotatedTypeFactory<
    * @return the exceptional exit store, or {@code null}, if there is no such store
    */
   public @Nullable Store getExceptionalExitStore(Tree tree) {
+    performDeferredFlowAnalysis(tree);
     return exceptionalExitStores.get(tree);
   }
 
@@ -1174,6 +1150,7 @@ public abstract class GenericAnnotatedTypeFactory<
    */
   public List<IPair<ReturnNode, TransferResult<Value, Store>>> getReturnStatementStores(
       MethodTree methodTree) {
+    performDeferredFlowAnalysis(methodTree);
     assert returnStatementStores.containsKey(methodTree);
     return returnStatementStores.get(methodTree);
   }
@@ -1184,6 +1161,7 @@ public abstract class GenericAnnotatedTypeFactory<
    * @return the store immediately before a given {@link Tree}
    */
   public Store getStoreBefore(Tree tree) {
+    performDeferredFlowAnalysis(tree);
     if (!analysis.isRunning()) {
       return flowResult.getStoreBefore(tree);
     }
@@ -1246,6 +1224,7 @@ public abstract class GenericAnnotatedTypeFactory<
    * @return the store immediately after a given tree
    */
   public @Nullable Store getStoreAfter(Tree tree) {
+    performDeferredFlowAnalysis(tree);
     if (!analysis.isRunning()) {
       return flowResult.getStoreAfter(tree);
     }
@@ -1300,6 +1279,7 @@ public abstract class GenericAnnotatedTypeFactory<
    * @see org.checkerframework.dataflow.analysis.AnalysisResult#getNodesForTree(Tree)
    */
   public @Nullable Set<Node> getNodesForTree(Tree tree) {
+    performDeferredFlowAnalysis(tree);
     return flowResult.getNodesForTree(tree);
   }
 
@@ -1367,6 +1347,21 @@ public abstract class GenericAnnotatedTypeFactory<
     // No captured store for top-level classes.
     classQueue.add(IPair.of(classTree, null));
 
+    analyzeClassQueue(classQueue, fieldValues, classTree);
+  }
+
+  /**
+   * Analyzes the classes in {@code classQueue}, and the classes that are added to it while doing
+   * so.
+   *
+   * @param classQueue the queue of class trees and their initial stores
+   * @param fieldValues the abstract values for all fields seen so far
+   * @param classTree the top-level class that is being analyzed
+   */
+  private void analyzeClassQueue(
+      Queue<IPair<ClassTree, Store>> classQueue,
+      List<FieldInitialValue<Value>> fieldValues,
+      ClassTree classTree) {
     while (!classQueue.isEmpty()) {
       IPair<ClassTree, Store> qel = classQueue.remove();
       ClassTree ct = qel.first;
@@ -1476,35 +1471,48 @@ public abstract class GenericAnnotatedTypeFactory<
         // Now analyze all methods.
         // TODO: at this point, we don't have any information about
         // fields of superclasses.
+        MethodResultCache methodResultCache = checker.getMethodResultCache();
+        List<FieldInitialValue<Value>> deferredFieldValues = null;
         for (CFGMethod met : methods) {
-          analyze(
-              classQueue,
-              lambdaQueue,
-              met,
-              fieldValues,
-              classTree,
-              TreeUtils.isConstructor(met.getMethod()),
-              false,
-              false,
-              capturedStore);
+          MethodTree mt = met.getMethod();
+          if (methodResultCache != null && methodResultCache.isUnchanged(mt, ct)) {
+            // The visitor skips the method too, and re-issues its cached diagnostics.
+            continue;
+          }
+          if (lazyFlowAnalysis && !TreeUtils.isConstructor(mt)) {
+            // Constructors are analyzed now, because the initialization checks of the class
+            // need their exit stores.
+            if (deferredFieldValues == null) {
+              deferredFieldValues = new ArrayList<>(fieldValues);
+            }
+            DeferredMethod deferred =
+                new DeferredMethod(
+                    met, classTree, getVisitorTreePath(), deferredFieldValues, capturedStore);
+            deferredMethods.put(deferred.start, deferred);
+            continue;
+          }
+          if (methodResultCache != null) {
+            methodResultCache.beginMethod(mt);
+          }
+          try {
+            analyze(
+                classQueue,
+                lambdaQueue,
+                met,
+                fieldValues,
+                classTree,
+                TreeUtils.isConstructor(mt),
+                false,
+                false,
+                capturedStore);
+          } finally {
+            if (methodResultCache != null) {
+              methodResultCache.endMethod(mt);
+            }
+          }
         }
 
-        while (!lambdaQueue.isEmpty()) {
-          IPair<LambdaExpressionTree, @Nullable Store> lambdaPair = lambdaQueue.poll();
-          MethodTree mt =
-              (MethodTree)
-                  TreePathUtil.enclosingOfKind(getPath(lambdaPair.first), Tree.Kind.METHOD);
-          analyze(
-              classQueue,
-              lambdaQueue,
-              new CFGLambda(lambdaPair.first, classTree, mt),
-              fieldValues,
-              classTree,
-              false,
-              false,
-              false,
-              lambdaPair.second);
-        }
+        analyzeLambdaQueue(classQueue, lambdaQueue, fieldValues, classTree);
 
         // By convention we store the static initialization store as the regular exit
         // store of the class node, so that it can later be used to check
@@ -1523,6 +1531,162 @@ public abstract class GenericAnnotatedTypeFactory<
     }
   }
 
+  /**
+   * Analyzes the lambdas in {@code lambdaQueue}, and the lambdas that are added to it while doing
+   * so.
+   *
+   * @param classQueue the queue for encountered class trees and their initial stores
+   * @param lambdaQueue the queue of lambda expression trees and their initial stores
+   * @param fieldValues the abstract values for all fields of the same class
+   * @param classTree the top-level class that is being analyzed
+   */
+  private void analyzeLambdaQueue(
+      Queue<IPair<ClassTree, Store>> classQueue,
+      Queue<IPair<LambdaExpressionTree, @Nullable Store>> lambdaQueue,
+      List<FieldInitialValue<Value>> fieldValues,
+      ClassTree classTree) {
+    MethodResultCache methodResultCache = checker.getMethodResultCache();
+    while (!lambdaQueue.isEmpty()) {
+      IPair<LambdaExpressionTree, @Nullable Store> lambdaPair = lambdaQueue.poll();
+      MethodTree mt =
+          (MethodTree) TreePathUtil.enclosingOfKind(getPath(lambdaPair.first), Tree.Kind.METHOD);
+      if (methodResultCache != null && mt != null) {
+        methodResultCache.beginMethod(mt);
+      }
+      try {
+        analyze(
+            classQueue,
+            lambdaQueue,
+            new CFGLambda(lambdaPair.first, classTree, mt),
+            fieldValues,
+            classTree,
+            false,
+            false,
+            false,
+            lambdaPair.second);
+      } finally {
+        if (methodResultCache != null && mt != null) {
+          methodResultCache.endMethod(mt);
+        }
+      }
+    }
+  }
+
+  /**
+   * If {@code -AlazyFlowAnalysis} deferred the analysis of the method that contains {@code tree},
+   * analyzes that method now, together with the lambdas and the local and anonymous classes in it.
+   * Otherwise, does nothing: the method has already been analyzed, or it will be analyzed together
+   * with its class.
+   *
+   * <p>The accessors of the dataflow results, such as {@link #getInferredValueFor}, {@link
+   * #getStoreBefore(Tree)}, and {@link #getRegularExitStore}, call this method, so clients need
+   * not. It cannot analyze a method while another one is being analyzed; in that case the method
+   * is analyzed on the next query after the running analysis finishes.
+   *
+   * @param tree a tree, such as a method or an expression in a method body
+   */
+  public void performDeferredFlowAnalysis(Tree tree) {
+    if (deferredMethods.isEmpty() || analysis.isRunning()) {
+      return;
+    }
+    int pos = ((JCTree) tree).pos;
+    Map.Entry<Integer, DeferredMethod> entry = deferredMethods.floorEntry(pos);
+    if (entry == null || pos > entry.getValue().end) {
+      return;
+    }
+    DeferredMethod deferred = entry.getValue();
+    deferredMethods.remove(entry.getKey());
+
+    MethodTree mt = deferred.method.getMethod();
+    Queue<IPair<ClassTree, Store>> classQueue = new ArrayDeque<>();
+    Queue<IPair<LambdaExpressionTree, @Nullable Store>> lambdaQueue = new ArrayDeque<>();
+    // This may run in the middle of the analysis of a class, whose state must be kept.
+    TreePath preTreePath = getVisitorTreePath();
+    Store preInitializationStore = initializationStore;
+    Store preInitializationStaticStore = initializationStaticStore;
+    MethodResultCache methodResultCache = checker.getMethodResultCache();
+    setVisitorTreePath(deferred.classPath);
+    if (methodResultCache != null) {
+      methodResultCache.beginMethod(mt);
+    }
+    try {
+      try {
+        analyze(
+            classQueue,
+            lambdaQueue,
+            deferred.method,
+            deferred.fieldValues,
+            deferred.topLevelClass,
+            false,
+            false,
+            false,
+            deferred.capturedStore);
+      } finally {
+        if (methodResultCache != null) {
+          methodResultCache.endMethod(mt);
+        }
+      }
+      analyzeLambdaQueue(classQueue, lambdaQueue, deferred.fieldValues, deferred.topLevelClass);
+      if (!classQueue.isEmpty()) {
+        analyzeClassQueue(
+            classQueue, new ArrayList<>(deferred.fieldValues), deferred.topLevelClass);
+      }
+    } finally {
+      setVisitorTreePath(preTreePath);
+      initializationStore = preInitializationStore;
+      initializationStaticStore = preInitializationStaticStore;
+    }
+  }
+
+  /** A method whose analysis {@code -AlazyFlowAnalysis} deferred until it is needed. */
+  private class DeferredMethod {
+    /** The method. */
+    final CFGMethod method;
+
+    /** The top-level class that was being analyzed when the method was deferred. */
+    final ClassTree topLevelClass;
+
+    /** The path to the class that declares the method. */
+    final TreePath classPath;
+
+    /** The abstract values for all fields of the class. */
+    final List<FieldInitialValue<Value>> fieldValues;
+
+    /** The captured store of the class that declares the method. */
+    final @Nullable Store capturedStore;
+
+    /** The start position of the method. */
+    final int start;
+
+    /** The end position of the method body. */
+    final int end;
+
+    /**
+     * Creates a DeferredMethod.
+     *
+     * @param method the method
+     * @param topLevelClass the top-level class that was being analyzed
+     * @param classPath the path to the class that declares the method
+     * @param fieldValues the abstract values for all fields of the class
+     * @param capturedStore the captured store of the class that declares the method
+     */
+    DeferredMethod(
+        CFGMethod method,
+        ClassTree topLevelClass,
+        TreePath classPath,
+        List<FieldInitialValue<Value>> fieldValues,
+        @Nullable Store capturedStore) {
+      this.method = method;
+      this.topLevelClass = topLevelClass;
+      this.classPath = classPath;
+      this.fieldValues = fieldValues;
+      this.capturedStore = capturedStore;
+      JCTree.JCMethodDecl methodDecl = (JCTree.JCMethodDecl) method.getMethod();
+      this.start = TreeInfo.getStartPos(methodDecl);
+      this.end = methodDecl.getBody().endpos;
+    }
+  }
+
   /** Sorts a list of trees with the variables first. */
   private final Comparator<Tree> sortVariablesFirst =
       (t1, t2) -> {
@@ -1803,6 +1967,7 @@ public abstract class GenericAnnotatedTypeFactory<
     if (!useFlow) {
       return getAnnotatedType(tree);
     }
+    performDeferredFlowAnalysis(tree);
     BinaryTree binaryTree = flowResult.getPostfixBinaryTree(tree);
     return getAnnotatedType(binaryTree);
   }
@@ -2009,6 +2174,7 @@ public abstract class GenericAnnotatedTypeFactory<
       // find a non-existent inferred type, return null.
       return null;
     }
+    performDeferredFlowAnalysis(tree);
     Value as = null;
     if (analysis.isRunning()) {
       as = analysis.getValue(tree);
@@ -2962,9 +3128,22 @@ public abstract class GenericAnnotatedTypeFactory<
   }
 
   /**
-   * Add a new entry to the shared CFG. If this is a subchecker, this method delegates to the
-   * superchecker's GenericAnnotatedTypeFactory, if it exists. Duplicate keys must map to the same
-   * CFG.
+   * Returns the cache of control flow graphs that this checker shares with its subcheckers, its
+   * supercheckers, and the other checkers that javac runs. Returns null if there is no other
+   * checker, or if caching is disabled.
+   *
+   * @return the cache of shared control flow graphs, or null
+   */
+  public @Nullable SharedCFGCache getSharedCFGCache() {
+    if (!shouldCache || (!hasOrIsSubchecker && sharedCFGCache.getParticipants() <= 1)) {
+      return null;
+    }
+    return sharedCFGCache;
+  }
+
+  /**
+   * Add a new entry to the shared CFG. Only this checker, its subcheckers, and its supercheckers
+   * will use the entry. Duplicate keys must map to the same CFG.
    *
    * <p>Calls to this method should be guarded by checking {@link #hasOrIsSubchecker}; it is
    * nonsensical to have a shared CFG when a checker is running alone.
@@ -2974,67 +3153,28 @@ public abstract class GenericAnnotatedTypeFactory<
    * @return whether a shared CFG was found to actually add to (duplicate keys also return true)
    */
   public boolean addSharedCFGForTree(Tree tree, ControlFlowGraph cfg) {
-    if (!shouldCache) {
-      return false;
-    }
-    BaseTypeChecker parentChecker = this.checker.getUltimateParentChecker();
-    @SuppressWarnings("interning") // Checking reference equality.
-    boolean parentIsThisChecker = parentChecker == this.checker;
-    if (parentIsThisChecker) {
-      // This is the ultimate parent.
-      if (this.subcheckerSharedCFG == null) {
-        this.subcheckerSharedCFG = new HashMap<>(getCacheSize());
-      }
-      if (!this.subcheckerSharedCFG.containsKey(tree)) {
-        this.subcheckerSharedCFG.put(tree, cfg);
-      } else {
-        assert this.subcheckerSharedCFG.get(tree).equals(cfg);
-      }
-      return true;
-    }
-
-    // This is a subchecker.
-    if (parentChecker != null) {
-      GenericAnnotatedTypeFactory<?, ?, ?, ?> parentAtf = parentChecker.getTypeFactory();
-      return parentAtf.addSharedCFGForTree(tree, cfg);
-    } else {
+    SharedCFGCache cache = getSharedCFGCache();
+    if (cache == null) {
       return false;
     }
+    cache.put(tree, checker, cfg);
+    return true;
   }
 
   /**
-   * Get the shared control flow graph used for {@code tree} by this checker's topmost superchecker.
-   * Returns null if no information is available about the given tree, or if this checker has a
-   * parent checker that does not have a GenericAnnotatedTypeFactory.
+   * Get the shared control flow graph used for {@code tree} by this checker's subcheckers and
+   * supercheckers, or by another checker whose CFG this checker can use. Returns null if no
+   * information is available about the given tree.
    *
    * <p>Calls to this method should be guarded by checking {@link #hasOrIsSubchecker}; it is
    * nonsensical to have a shared CFG when a checker is running alone.
    *
    * @param tree the tree whose CFG should be looked up
-   * @return the CFG stored by this checker's uppermost superchecker for tree, or null if it is not
-   *     available
+   * @return the shared CFG for tree, or null if it is not available
    */
   public @Nullable ControlFlowGraph getSharedCFGForTree(Tree tree) {
-    if (!shouldCache) {
-      return null;
-    }
-    BaseTypeChecker parentChecker = this.checker.getUltimateParentChecker();
-    @SuppressWarnings("interning") // Checking reference equality.
-    boolean parentIsThisChecker = parentChecker == this.checker;
-    if (parentIsThisChecker) {
-      // This is the ultimate parent;
-      return this.subcheckerSharedCFG == null
-          ? null
-          : this.subcheckerSharedCFG.getOrDefault(tree, null);
-    }
-
-    // This is a subchecker.
-    if (parentChecker != null) {
-      GenericAnnotatedTypeFactory<?, ?, ?, ?> parentAtf = parentChecker.getTypeFactory();
-      return parentAtf.getSharedCFGForTree(tree);
-    } else {
-      return null;
-    }
+    SharedCFGCache cache = getSharedCFGCache();
+    return cache == null ? null : cache.get(tree, checker, this);
   }
 
   /**
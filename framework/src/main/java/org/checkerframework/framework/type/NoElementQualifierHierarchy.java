@@ -81,7 +81,7 @@ public class NoElementQualifierHierarchy extends QualifierHierarchy {
   protected QualifierKindHierarchy createQualifierKindHierarchy(
       @UnderInitialization NoElementQualifierHierarchy this,
       Collection<Class<? extends Annotation>> qualifierClasses) {
-    return new DefaultQualifierKindHierarchy(qualifierClasses);
+    return DefaultQualifierKindHierarchy.forQualifiers(qualifierClasses);
   }
 
   /**
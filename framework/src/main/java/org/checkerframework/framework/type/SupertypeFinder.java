@@ -367,7 +367,7 @@ final class SupertypeFinder {
       for (AnnotatedTypeMirror t : adt.getTypeArguments()) {
         // If the type argument of super is the same as the input type
         if (atypeFactory.types.isSameType(t.getUnderlyingType(), type.getUnderlyingType())) {
-          t.addAnnotations(type.primaryAnnotations);
+          t.addAnnotations(type.getPrimaryAnnotations());
         }
       }
       adt.addAnnotations(type.getPrimaryAnnotations());
@@ -0,0 +1,279 @@
+package org.checkerframework.framework.util;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Hit, miss, and eviction counts for the caches of one checker. Enabled by the {@code
+ * -AcacheStats} command-line option; see {@link
+ * org.checkerframework.framework.source.SourceChecker#getCacheStatistics()}.
+ *
+ * <p>A cache is instrumented by replacing it with the result of {@link #wrap}. The statistics are
+ * printed at JVM shutdown, one comma-separated line per cache, so that runs can be compared with
+ * standard tools.
+ */
+public class CacheStatistics {
+
+  /** The header line printed before the statistics; names the columns of {@link #print}. */
+  public static final String HEADER =
+      "checker,cache,hits,misses,evictions,mean-miss-cost-ns,size";
+
+  /** The instrumented caches, in the order they were registered. */
+  private final List<CountingMap<?, ?>> caches = new ArrayList<>();
+
+  /** Creates a CacheStatistics. */
+  public CacheStatistics() {}
+
+  /**
+   * Returns a view of {@code cache} that counts its hits, misses, and evictions. The caller should
+   * use the result instead of {@code cache}.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   * @param name the name of the cache, used in the output
+   * @param cache the cache to instrument
+   * @return a view of {@code cache} that records statistics
+   */
+  public <K, V> Map<K, V> wrap(String name, Map<K, V> cache) {
+    CountingMap<K, V> result = new CountingMap<>(name, cache);
+    caches.add(result);
+    return result;
+  }
+
+  /**
+   * Prints one line per instrumented cache to {@code out}, in the format described by {@link
+   * #HEADER}.
+   *
+   * @param checkerName the name of the checker that owns the caches
+   * @param out where to print the statistics
+   */
+  public void print(String checkerName, PrintStream out) {
+    for (CountingMap<?, ?> cache : caches) {
+      printLine(
+          out,
+          checkerName,
+          cache.name,
+          cache.hits,
+          cache.misses,
+          cache.evictions,
+          cache.missCostCount == 0 ? 0 : cache.missCostNanos / cache.missCostCount,
+          cache.size());
+    }
+  }
+
+  /**
+   * Prints one line of statistics to {@code out}, in the format described by {@link #HEADER}. Use
+   * this for a cache that counts its own hits and misses; pass -1 for an unknown count.
+   *
+   * @param out where to print the statistics
+   * @param checkerName the name of the checker that owns the cache
+   * @param cacheName the name of the cache
+   * @param hits the number of hits
+   * @param misses the number of misses
+   * @param evictions the number of evictions
+   * @param meanMissCostNanos the mean time between a miss and the insertion of the missing entry
+   * @param size the number of entries in the cache
+   */
+  public static void printLine(
+      PrintStream out,
+      String checkerName,
+      String cacheName,
+      long hits,
+      long misses,
+      long evictions,
+      long meanMissCostNanos,
+      long size) {
+    out.println(
+        String.join(
+            ",",
+            checkerName,
+            cacheName,
+            Long.toString(hits),
+            Long.toString(misses),
+            Long.toString(evictions),
+            Long.toString(meanMissCostNanos),
+            Long.toString(size)));
+  }
+
+  /**
+   * A map that delegates to a cache and counts hits, misses, and evictions.
+   *
+   * <p>A lookup is a call to {@link #containsKey} or {@link #get}. A {@code get} of the key that was
+   * just passed to {@code containsKey} is not counted again, because callers commonly write {@code
+   * if (cache.containsKey(k)) return cache.get(k);}. The cost of a miss is the time between the
+   * miss and the insertion of the same key.
+   *
+   * @param <K> the type of keys
+   * @param <V> the type of values
+   */
+  private static class CountingMap<K, V> implements Map<K, V> {
+
+    /** The maximum number of misses whose cost is being timed at once. */
+    private static final int MAX_PENDING_MISSES = 10_000;
+
+    /** The name of the cache. */
+    final String name;
+
+    /** The cache. */
+    private final Map<K, V> delegate;
+
+    /** The number of lookups that found an entry. */
+    long hits = 0;
+
+    /** The number of lookups that did not find an entry. */
+    long misses = 0;
+
+    /** The number of entries that the cache dropped when a new entry was inserted. */
+    long evictions = 0;
+
+    /** The total time between misses and the insertion of the missing entries. */
+    long missCostNanos = 0;
+
+    /** The number of misses whose cost is included in {@link #missCostNanos}. */
+    long missCostCount = 0;
+
+    /** The key of the most recent call to {@link #containsKey}. */
+    private @Nullable Object lastContainsKey = null;
+
+    /** Maps each key that missed, and was not yet inserted, to the time of the miss. */
+    private final Map<Object, Long> pendingMisses = new HashMap<>();
+
+    /**
+     * Creates a CountingMap.
+     *
+     * @param name the name of the cache
+     * @param delegate the cache
+     */
+    CountingMap(String name, Map<K, V> delegate) {
+      this.name = name;
+      this.delegate = delegate;
+    }
+
+    /**
+     * Records a lookup of {@code key}.
+     *
+     * @param key the key that was looked up
+     * @param found whether the cache contained {@code key}
+     */
+    private void recordLookup(@Nullable Object key, boolean found) {
+      if (found) {
+        hits++;
+      } else {
+        misses++;
+        if (key != null) {
+          if (pendingMisses.size() >= MAX_PENDING_MISSES) {
+            pendingMisses.clear();
+          }
+          pendingMisses.put(key, System.nanoTime());
+        }
+      }
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+      boolean result = delegate.containsKey(key);
+      recordLookup(key, result);
+      lastContainsKey = key;
+      return result;
+    }
+
+    @SuppressWarnings("interning:not.interned") // looking for the very same key
+    @Override
+    public @Nullable V get(@Nullable Object key) {
+      V result = delegate.get(key);
+      if (key != lastContainsKey) {
+        recordLookup(key, result != null);
+      }
+      lastContainsKey = null;
+      return result;
+    }
+
+    @Override
+    public @Nullable V put(K key, V value) {
+      lastContainsKey = null;
+      Long missTime = pendingMisses.remove(key);
+      if (missTime != null) {
+        missCostNanos += System.nanoTime() - missTime;
+        missCostCount++;
+      }
+      int oldSize = delegate.size();
+      boolean isNew = !delegate.containsKey(key);
+      V result = delegate.put(key, value);
+      if (isNew) {
+        evictions += Math.max(0, oldSize + 1 - delegate.size());
+      }
+      return result;
+    }
+
+    @Override
+    public int size() {
+      return delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return delegate.isEmpty();
+    }
+
+    @Override
+    public boolean containsValue(@Nullable Object value) {
+      return delegate.containsValue(value);
+    }
+
+    @Override
+    public @Nullable V remove(@Nullable Object key) {
+      lastContainsKey = null;
+      return delegate.remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+      for (Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
+        put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    @Override
+    public void clear() {
+      lastContainsKey = null;
+      pendingMisses.clear();
+      delegate.clear();
+    }
+
+    @Override
+    public Set<K> keySet() {
+      return delegate.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+      return delegate.values();
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+      return delegate.entrySet();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      return delegate.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+      return delegate.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return delegate.toString();
+    }
+  }
+}
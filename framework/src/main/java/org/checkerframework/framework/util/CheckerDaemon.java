@@ -0,0 +1,518 @@
+package org.checkerframework.framework.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * A long-running process that runs javac, and thus the Checker Framework, on behalf of clients.
+ *
+ * <p>Starting a JVM, loading the checkers, reading their {@code messages.properties} files,
+ * building their qualifier hierarchies, and parsing the annotated JDK can take longer than checking
+ * a few small files. The daemon pays those costs once: the classes on its classpath stay loaded,
+ * the JVM-wide caches of the Checker Framework (such as the parsed stub files and the qualifier
+ * kind hierarchies) stay populated, and the JIT-compiled code stays warm. Each request runs javac
+ * with a fresh compiler context, so no state of one compilation is visible to the next.
+ *
+ * <p>Start the daemon with checker.jar on the classpath, the same {@code --add-exports} and {@code
+ * --add-opens} options that {@link CheckerMain} passes to java, and optionally a port number:
+ *
+ * <pre>{@code
+ * java <options> -cp checker.jar org.checkerframework.framework.util.CheckerDaemon [port]
+ * }</pre>
+ *
+ * The daemon listens only on the loopback interface. It prints the port that it listens on, then
+ * serves one request at a time until a client sends {@link #STOP_REQUEST}, for example by running
+ * this class with arguments {@code --stop port}. Clients are {@link
+ * CheckerMain}, when given the {@code -daemonPort} option, and {@link #compile}.
+ *
+ * <p>Any local user can connect to a loopback port, so every request, including {@link
+ * #STOP_REQUEST}, must start with a random secret. The daemon writes the secret to {@link
+ * #secretFile}, which only its owner can read, and deletes it on exit; clients read it from there.
+ *
+ * <p>javac resolves relative paths against the working directory of the JVM, which cannot change.
+ * So the daemon refuses requests from clients in another working directory, and the client falls
+ * back to running javac itself. Likewise, javac loads the checkers through the daemon's class
+ * loader, so the daemon runs the checkers of its own checker.jar whatever processor path a client
+ * gives. So the daemon also refuses requests from clients of another checker.jar, of another
+ * version of it, or of the same file after it was rebuilt. Options to the JVM that runs javac, such
+ * as {@code -J-Xmx}, have no effect on the daemon. Output that a checker writes directly to {@code
+ * System.out} or {@code System.err}, rather than via javac's diagnostics, appears on the daemon's
+ * console.
+ */
+public class CheckerDaemon {
+
+  /** The argument list that makes the daemon exit. */
+  public static final String STOP_REQUEST = "--stop";
+
+  /** The exit status that the daemon returns for a request that it refuses to run. */
+  public static final int REFUSED = -1;
+
+  /** The maximum length of the secret, in bytes. */
+  private static final int MAX_SECRET_BYTES = 1024;
+
+  /** The maximum length of a directory name or an argument in a request, in bytes. */
+  private static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+
+  /** The maximum number of arguments in a request. */
+  private static final int MAX_ARGUMENTS = 65536;
+
+  /** How long the daemon waits for a client to send its request, in milliseconds. */
+  private static final int REQUEST_TIMEOUT_MILLIS = 60_000;
+
+  /** The socket on which this daemon accepts requests. */
+  private final ServerSocket serverSocket;
+
+  /** The secret that every request must start with, in UTF-8. */
+  private final byte[] secret;
+
+  /** The working directory of this JVM, which is where javac resolves relative paths. */
+  private final String workingDirectory;
+
+  /** The checker.jar, or directory, from which this JVM loads the checkers. */
+  private final String checkerJar;
+
+  /** The {@link #checkerVersion} of {@link #checkerJar} when this daemon started. */
+  private final String checkerVersion;
+
+  /**
+   * Creates a daemon that accepts requests on the given socket.
+   *
+   * @param serverSocket the socket on which to accept requests
+   * @param secret the secret that every request must start with
+   */
+  public CheckerDaemon(ServerSocket serverSocket, String secret) {
+    this.serverSocket = serverSocket;
+    this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    this.workingDirectory = normalize(System.getProperty("user.dir"));
+    this.checkerJar = normalize(loadedCheckerJar().getPath());
+    this.checkerVersion = checkerVersion(new File(checkerJar));
+  }
+
+  /**
+   * Runs a daemon on the loopback interface, or with arguments {@code --stop port}, stops the
+   * daemon that listens on {@code port}.
+   *
+   * @param args the port to listen on; if absent or 0, any free port
+   * @throws IOException if the daemon cannot listen on the port
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 2 && args[0].equals(STOP_REQUEST)) {
+      stop(Integer.parseInt(args[1]));
+      return;
+    }
+    int port = args.length == 0 ? 0 : Integer.parseInt(args[0]);
+    try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+      Path secretFile = secretFile(serverSocket.getLocalPort());
+      String secret = newSecret();
+      writeSecretFile(secretFile, secret);
+      secretFile.toFile().deleteOnExit();
+      try {
+        System.out.println("CheckerDaemon listening on port " + serverSocket.getLocalPort());
+        System.out.flush();
+        new CheckerDaemon(serverSocket, secret).serve();
+      } finally {
+        Files.deleteIfExists(secretFile);
+      }
+    }
+  }
+
+  /**
+   * Returns the file that holds the secret of the daemon that listens on {@code port}.
+   *
+   * @param port the port that the daemon listens on
+   * @return the file that holds the daemon's secret
+   */
+  public static Path secretFile(int port) {
+    return Paths.get(
+        System.getProperty("user.home"), ".checkerframework", "daemon-" + port + ".secret");
+  }
+
+  /**
+   * Returns the checker.jar, or the directory, from which this JVM loaded the Checker Framework.
+   *
+   * @return the location of the Checker Framework's classes, or the empty path if it is unknown
+   */
+  public static File loadedCheckerJar() {
+    CodeSource codeSource = CheckerDaemon.class.getProtectionDomain().getCodeSource();
+    if (codeSource == null) {
+      return new File("");
+    }
+    try {
+      return Paths.get(codeSource.getLocation().toURI()).toFile();
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return new File("");
+    }
+  }
+
+  /**
+   * Returns the version of the given checker.jar: the version and commit recorded in its {@code
+   * git.properties} file, and the time at which it was last modified, so that a jar that was
+   * rebuilt from a modified working tree has a different version.
+   *
+   * @param checkerJar a checker.jar, or a directory that holds the Checker Framework's classes
+   * @return the version of {@code checkerJar}
+   */
+  public static String checkerVersion(File checkerJar) {
+    Properties gitProperties = new Properties();
+    try {
+      if (checkerJar.isDirectory()) {
+        File file = new File(checkerJar, "git.properties");
+        if (file.exists()) {
+          try (InputStream in = Files.newInputStream(file.toPath())) {
+            gitProperties.load(in);
+          }
+        }
+      } else if (checkerJar.isFile()) {
+        try (JarFile jar = new JarFile(checkerJar)) {
+          ZipEntry entry = jar.getEntry("git.properties");
+          if (entry != null) {
+            try (InputStream in = jar.getInputStream(entry)) {
+              gitProperties.load(in);
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      // Compare only the modification times.
+    }
+    return String.format(
+        "%s, commit %s, modified %d",
+        gitProperties.getProperty("git.build.version", "unknown"),
+        gitProperties.getProperty("git.commit.id", "unknown"),
+        checkerJar.lastModified());
+  }
+
+  /**
+   * Returns a new random secret.
+   *
+   * @return a new random secret, in hexadecimal
+   */
+  private static String newSecret() {
+    byte[] bytes = new byte[32];
+    new SecureRandom().nextBytes(bytes);
+    StringBuilder result = new StringBuilder(2 * bytes.length);
+    for (byte b : bytes) {
+      result.append(String.format("%02x", b));
+    }
+    return result.toString();
+  }
+
+  /**
+   * Writes {@code secret} to {@code file}, which only the current user can read or write.
+   *
+   * @param file the file to write
+   * @param secret the secret
+   * @throws IOException if the file cannot be written
+   */
+  private static void writeSecretFile(Path file, String secret) throws IOException {
+    Files.deleteIfExists(file);
+    if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      Files.createDirectories(
+          file.getParent(),
+          PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+      Files.createFile(
+          file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    } else {
+      Files.createDirectories(file.getParent());
+      Files.createFile(file);
+      File f = file.toFile();
+      if (!(f.setReadable(false, false)
+          && f.setReadable(true, true)
+          && f.setWritable(false, false)
+          && f.setWritable(true, true))) {
+        Files.delete(file);
+        throw new IOException("Cannot restrict access to " + file);
+      }
+    }
+    Files.write(file, secret.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Reads the secret of the daemon that listens on {@code port}.
+   *
+   * @param port the port that the daemon listens on
+   * @return the daemon's secret
+   * @throws IOException if the secret file does not exist or cannot be read
+   */
+  private static String readSecret(int port) throws IOException {
+    return new String(Files.readAllBytes(secretFile(port)), StandardCharsets.UTF_8).trim();
+  }
+
+  /**
+   * Serves requests until a client sends {@link #STOP_REQUEST}.
+   *
+   * @throws IOException if the server socket fails
+   */
+  public void serve() throws IOException {
+    while (true) {
+      try (Socket socket = serverSocket.accept()) {
+        if (!handle(socket)) {
+          return;
+        }
+      } catch (IOException e) {
+        // A client disconnected early or sent a malformed request; keep serving the others.
+        if (serverSocket.isClosed()) {
+          throw e;
+        }
+      } catch (RuntimeException e) {
+        // A bug in javac or a checker must not bring down the daemon.
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Reads one request from {@code socket}, runs it, and writes the response.
+   *
+   * @param socket a connection to a client
+   * @return false if the request was {@link #STOP_REQUEST}
+   * @throws IOException if communication with the client fails or the request is malformed
+   */
+  private boolean handle(Socket socket) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+    if (!MessageDigest.isEqual(readBytes(in, MAX_SECRET_BYTES), secret)) {
+      writeResponse(out, "CheckerDaemon: wrong secret", REFUSED);
+      return true;
+    }
+    String clientDirectory = readString(in, MAX_STRING_BYTES);
+    String clientCheckerJar = readString(in, MAX_STRING_BYTES);
+    String clientCheckerVersion = readString(in, MAX_STRING_BYTES);
+    int argCount = in.readInt();
+    if (argCount < 0 || argCount > MAX_ARGUMENTS) {
+      throw new IOException("Bad argument count " + argCount);
+    }
+    String[] args = new String[argCount];
+    for (int i = 0; i < argCount; i++) {
+      args[i] = readString(in, MAX_STRING_BYTES);
+    }
+    socket.setSoTimeout(0);
+
+    if (argCount == 1 && args[0].equals(STOP_REQUEST)) {
+      writeResponse(out, "", 0);
+      return false;
+    }
+    if (!normalize(clientDirectory).equals(workingDirectory)) {
+      writeResponse(out, "CheckerDaemon runs in directory " + workingDirectory, REFUSED);
+      return true;
+    }
+    if (!normalize(clientCheckerJar).equals(checkerJar)
+        || !clientCheckerVersion.equals(checkerVersion)
+        || !checkerVersion(new File(checkerJar)).equals(checkerVersion)) {
+      writeResponse(
+          out,
+          String.format(
+              "CheckerDaemon runs the checkers in %s (%s), not %s (%s)",
+              checkerJar, checkerVersion, clientCheckerJar, clientCheckerVersion),
+          REFUSED);
+      return true;
+    }
+
+    StringWriter output = new StringWriter();
+    int exitStatus;
+    try (PrintWriter writer = new PrintWriter(output)) {
+      // Each call creates a new javac context.
+      exitStatus = com.sun.tools.javac.Main.compile(args, writer);
+    }
+    writeResponse(out, output.toString(), exitStatus);
+    return true;
+  }
+
+  /**
+   * Runs javac with the given arguments in the daemon that listens on {@code port}, using the
+   * secret in its {@link #secretFile}.
+   *
+   * @param port the port that the daemon listens on
+   * @param checkerJar the checker.jar whose checkers the client would run
+   * @param args the arguments to javac
+   * @param output where to write javac's output
+   * @return javac's exit status, or {@link #REFUSED} if the daemon refused the request, in which
+   *     case {@code output} contains the reason
+   * @throws IOException if no daemon listens on {@code port}, its secret file cannot be read, or
+   *     communication with it fails
+   */
+  public static int compile(int port, File checkerJar, List<String> args, OutputStream output)
+      throws IOException {
+    return compile(
+        port,
+        readSecret(port),
+        System.getProperty("user.dir"),
+        checkerJar.getPath(),
+        checkerVersion(checkerJar),
+        args,
+        output);
+  }
+
+  /**
+   * Sends {@link #STOP_REQUEST} to the daemon that listens on {@code port}, using the secret in its
+   * {@link #secretFile}.
+   *
+   * @param port the port that the daemon listens on
+   * @throws IOException if no daemon listens on {@code port}, its secret file cannot be read, or
+   *     communication with it fails
+   */
+  public static void stop(int port) throws IOException {
+    stop(port, readSecret(port));
+  }
+
+  /**
+   * Sends {@link #STOP_REQUEST} to the daemon that listens on {@code port}.
+   *
+   * @param port the port that the daemon listens on
+   * @param secret the daemon's secret
+   * @throws IOException if no daemon listens on {@code port}, or communication with it fails
+   */
+  public static void stop(int port, String secret) throws IOException {
+    compile(
+        port,
+        secret,
+        System.getProperty("user.dir"),
+        "",
+        "",
+        Collections.singletonList(STOP_REQUEST),
+        new ByteArrayOutputStream());
+  }
+
+  /**
+   * Runs javac with the given arguments in the daemon that listens on {@code port}, on behalf of a
+   * client in the given working directory that would run the checkers of the given checker.jar.
+   *
+   * @param port the port that the daemon listens on
+   * @param secret the daemon's secret
+   * @param clientDirectory the working directory of the client
+   * @param checkerJar the checker.jar whose checkers the client would run
+   * @param checkerVersion the {@link #checkerVersion} of {@code checkerJar}
+   * @param args the arguments to javac
+   * @param output where to write javac's output
+   * @return javac's exit status, or {@link #REFUSED} if the daemon refused the request
+   * @throws IOException if no daemon listens on {@code port}, or communication with it fails
+   */
+  public static int compile(
+      int port,
+      String secret,
+      String clientDirectory,
+      String checkerJar,
+      String checkerVersion,
+      List<String> args,
+      OutputStream output)
+      throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      writeString(out, secret);
+      writeString(out, clientDirectory);
+      writeString(out, checkerJar);
+      writeString(out, checkerVersion);
+      out.writeInt(args.size());
+      for (String arg : args) {
+        writeString(out, arg);
+      }
+      out.flush();
+
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      byte[] bytes = readBytes(in, Integer.MAX_VALUE);
+      int exitStatus = in.readInt();
+      output.write(bytes);
+      output.flush();
+      return exitStatus;
+    }
+  }
+
+  /**
+   * Writes a response to a client.
+   *
+   * @param out the stream to the client
+   * @param output javac's output
+   * @param exitStatus javac's exit status
+   * @throws IOException if communication with the client fails
+   */
+  private static void writeResponse(DataOutputStream out, String output, int exitStatus)
+      throws IOException {
+    writeString(out, output);
+    out.writeInt(exitStatus);
+    out.flush();
+  }
+
+  /**
+   * Writes a string of any length. ({@link DataOutputStream#writeUTF} is limited to 64KB, which a
+   * classpath can exceed.)
+   *
+   * @param out the stream to write to
+   * @param s the string to write
+   * @throws IOException if writing fails
+   */
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString}.
+   *
+   * @param in the stream to read from
+   * @param maxBytes the maximum length of the string in UTF-8, in bytes
+   * @return the string
+   * @throws IOException if reading fails, or the string is longer than {@code maxBytes}
+   */
+  private static String readString(DataInputStream in, int maxBytes) throws IOException {
+    return new String(readBytes(in, maxBytes), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads the bytes of a string written by {@link #writeString}.
+   *
+   * @param in the stream to read from
+   * @param maxBytes the maximum number of bytes
+   * @return the bytes
+   * @throws IOException if reading fails, or the length is negative or greater than {@code
+   *     maxBytes}
+   */
+  private static byte[] readBytes(DataInputStream in, int maxBytes) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > maxBytes) {
+      throw new IOException("Bad string length " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  /**
+   * Returns a canonical form of a file name, so that equal files compare equal.
+   *
+   * @param file a file name
+   * @return the absolute, normalized form of {@code file}
+   */
+  private static String normalize(String file) {
+    return Paths.get(file).toAbsolutePath().normalize().toString();
+  }
+}
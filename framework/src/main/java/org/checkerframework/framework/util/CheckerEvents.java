@@ -0,0 +1,110 @@
+package org.checkerframework.framework.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.checkerframework.dataflow.util.DataflowEvents;
+
+/**
+ * JDK Flight Recorder events for the phases of type-checking. Together with the events in {@link
+ * DataflowEvents}, they show whether the time of a slow build goes to parsing stub files, building
+ * control flow graphs, dataflow analysis, type argument inference, or the visitor.
+ *
+ * <p>To record them, run javac with {@code -XX:StartFlightRecorder}, or {@code
+ * -J-XX:StartFlightRecorder} when javac is run from the command line. The events cost almost
+ * nothing when no recording is in progress. See {@link DataflowEvents} for how to emit an event.
+ */
+public final class CheckerEvents {
+
+  /**
+   * True if the running JVM supports Flight Recorder events. If false, the event classes must not
+   * be loaded.
+   */
+  public static final boolean ENABLED = DataflowEvents.ENABLED;
+
+  /** Do not instantiate. */
+  private CheckerEvents() {
+    throw new Error("Do not instantiate");
+  }
+
+  /** The type-checking of one top-level class by one checker. */
+  @Name("org.checkerframework.TypeProcess")
+  @Label("Type-check Class")
+  @Category("Checker Framework")
+  @Description("SourceChecker.typeProcess: one checker type-checks one top-level class")
+  public static final class TypeProcessEvent extends Event {
+
+    /** The simple name of the checker. */
+    @Label("Checker")
+    public String checker = "";
+
+    /** The fully-qualified name of the class. */
+    @Label("Class")
+    public String className = "";
+
+    /** Creates a TypeProcessEvent. */
+    public TypeProcessEvent() {}
+  }
+
+  /** The visit of one class, including nested classes, by a checker's visitor. */
+  @Name("org.checkerframework.VisitClass")
+  @Label("Visit Class")
+  @Category("Checker Framework")
+  @Description("BaseTypeVisitor.visitClass, including the dataflow analysis of the class")
+  public static final class VisitClassEvent extends Event {
+
+    /** The simple name of the checker. */
+    @Label("Checker")
+    public String checker = "";
+
+    /** The simple name of the class. */
+    @Label("Class")
+    public String className = "";
+
+    /** Creates a VisitClassEvent. */
+    public VisitClassEvent() {}
+  }
+
+  /** The parsing of annotation files, such as stub files or the annotated JDK. */
+  @Name("org.checkerframework.StubLoad")
+  @Label("Load Annotation File")
+  @Category("Checker Framework")
+  @Description("Parsing of stub files, ajava files, or annotated JDK source files")
+  public static final class StubLoadEvent extends Event {
+
+    /** The simple name of the checker. */
+    @Label("Checker")
+    public String checker = "";
+
+    /**
+     * The annotation file, or a description such as "startup stub files" if the event covers more
+     * than one file.
+     */
+    @Label("File")
+    public String file = "";
+
+    /** Creates a StubLoadEvent. */
+    public StubLoadEvent() {}
+  }
+
+  /** The inference of the type arguments of one method invocation or member reference. */
+  @Name("org.checkerframework.TypeArgumentInference")
+  @Label("Type Argument Inference")
+  @Category("Checker Framework")
+  @Description("InvocationTypeInference.infer for one invocation or member reference")
+  public static final class InferenceEvent extends Event {
+
+    /** The simple name of the checker. */
+    @Label("Checker")
+    public String checker = "";
+
+    /** The expression whose type arguments were inferred, possibly truncated. */
+    @Label("Expression")
+    public String expression = "";
+
+    /** Creates an InferenceEvent. */
+    public InferenceEvent() {}
+  }
+}
@@ -2,6 +2,7 @@ package org.checkerframework.framework.util;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -106,6 +107,9 @@ public class CheckerMain {
   /** Command-line argument files (specified with @ on the command line). */
   private final List<File> argListFiles;
 
+  /** The port of the {@link CheckerDaemon} to run javac in, or null to run javac in a new JVM. */
+  private final @Nullable Integer daemonPort;
+
   /**
    * Option name for specifying an alternative checker-qual.jar location. The accompanying value
    * MUST be the path to the jar file (NOT the path to its encompassing directory)
@@ -130,6 +134,12 @@ public class CheckerMain {
    */
   public static final String JDK_PATH_OPT = "-jdkJar";
 
+  /**
+   * Option name for running javac in a {@link CheckerDaemon} rather than in a new JVM. The
+   * accompanying value MUST be the port that the daemon listens on.
+   */
+  public static final String DAEMON_PORT_OPT = "-daemonPort";
+
   /**
    * Construct all the relevant file locations and Java version given the path to this jar and a set
    * of directories in which to search for jars.
@@ -149,6 +159,7 @@ public class CheckerMain {
         extractFileArg(CHECKER_UTIL_PATH_OPT, new File(searchPath, "checker-util.jar"), args);
 
     this.javacJar = extractFileArg(JAVAC_PATH_OPT, new File(searchPath, "javac.jar"), args);
+    this.daemonPort = parseDaemonPort(extractArg(DAEMON_PORT_OPT, null, args));
 
     this.compilationBootclasspath = createCompilationBootclasspath(args);
     this.runtimeClasspath = createRuntimeClasspath(args);
@@ -557,6 +568,30 @@ public class CheckerMain {
     return Arrays.asList(jarFiles);
   }
 
+  /**
+   * Parses the argument of {@link #DAEMON_PORT_OPT}.
+   *
+   * @param port the argument, or null if the option was not given
+   * @return the port number, or null if the option was not given
+   * @throws UserError if {@code port} is not a valid port number
+   */
+  private static @Nullable Integer parseDaemonPort(@Nullable String port) {
+    if (port == null) {
+      return null;
+    }
+    int result;
+    try {
+      result = Integer.parseInt(port);
+    } catch (NumberFormatException e) {
+      result = -1;
+    }
+    if (result < 1 || result > 65535) {
+      throw new UserError(
+          "%s requires a port number between 1 and 65535, found: %s", DAEMON_PORT_OPT, port);
+    }
+    return result;
+  }
+
   /** Invoke the compiler with all relevant jars on its classpath and/or bootclasspath. */
   public int invokeCompiler() {
     List<String> args = getExecArguments();
@@ -572,10 +607,71 @@ public class CheckerMain {
       }
     }
 
+    if (daemonPort != null) {
+      Integer exitStatus = invokeDaemon(daemonPort, args);
+      if (exitStatus != null) {
+        return exitStatus;
+      }
+    }
+
     // Actually invoke the compiler
     return ExecUtil.execute(args.toArray(new String[0]), System.out, System.err);
   }
 
+  /**
+   * Runs javac in the {@link CheckerDaemon} that listens on the given port.
+   *
+   * @param port the port that the daemon listens on
+   * @param execArgs the command line that would run javac in a new JVM, as returned by {@link
+   *     #getExecArguments}
+   * @return javac's exit status, or null if javac must run in a new JVM instead, because there is
+   *     no daemon or it refused the request
+   */
+  private @Nullable Integer invokeDaemon(int port, List<String> execArgs) {
+    // The daemon is already running, so drop the arguments to java, and warn below about those
+    // that the user gave.
+    int mainIndex = execArgs.indexOf("com.sun.tools.javac.Main");
+    if (mainIndex == -1) {
+      return null;
+    }
+    List<String> javacArgs = new ArrayList<>(execArgs.size() - mainIndex - 1);
+    for (String arg : execArgs.subList(mainIndex + 1, execArgs.size())) {
+      // The daemon does not run a shell, so remove the quotes added by quote().
+      if (arg.length() > 1 && arg.startsWith("\"") && arg.endsWith("\"")) {
+        arg = arg.substring(1, arg.length() - 1);
+      }
+      javacArgs.add(arg);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int exitStatus;
+    try {
+      exitStatus = CheckerDaemon.compile(port, checkerJar, javacArgs, bytes);
+    } catch (IOException e) {
+      System.err.printf("No CheckerDaemon on port %d (%s); running javac directly.%n", port, e);
+      return null;
+    }
+    String output = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    if (exitStatus == CheckerDaemon.REFUSED) {
+      System.err.printf("%s; running javac directly.%n", output);
+      return null;
+    }
+    List<String> discardedJvmOpts = new ArrayList<>(jvmOpts);
+    for (String entry : runtimeClasspath) {
+      if (!entry.equals(javacJar.getAbsolutePath())) {
+        discardedJvmOpts.add("-classpath " + entry);
+      }
+    }
+    if (!discardedJvmOpts.isEmpty()) {
+      System.err.printf(
+          "Warning: the CheckerDaemon on port %d ignored the JVM options %s;"
+              + " pass them to java when starting the daemon.%n",
+          port, discardedJvmOpts);
+    }
+    System.err.print(output);
+    System.err.flush();
+    return exitStatus;
+  }
+
   private static void outputArgumentsToFile(String outputFilename, List<String> args) {
     if (outputFilename != null) {
       String errorMessage = null;
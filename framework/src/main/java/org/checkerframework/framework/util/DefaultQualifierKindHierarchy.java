@@ -3,6 +3,7 @@ package org.checkerframework.framework.util;
 import java.lang.annotation.Annotation;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -13,6 +14,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import org.checkerframework.checker.initialization.qual.UnderInitialization;
 import org.checkerframework.checker.initialization.qual.UnknownInitialization;
 import org.checkerframework.checker.interning.qual.Interned;
@@ -72,16 +74,32 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
 
   /**
    * Holds the lub of qualifier kinds. {@code lubs.get(kind1).get(kind2)} returns the lub of kind1
-   * and kind2.
+   * and kind2. {@link #leastUpperBound} reads {@link #lubTable} instead; this map is kept so that
+   * the two can be compared; see {@link #getLubsMap()}.
    */
   private final Map<QualifierKind, Map<QualifierKind, QualifierKind>> lubs;
 
   /**
    * Holds the glb of qualifier kinds. {@code glbs.get(kind1).get(kind2)} returns the glb of kind1
-   * and kind2.
+   * and kind2. {@link #greatestLowerBound} reads {@link #glbTable} instead; this map is kept so
+   * that the two can be compared; see {@link #getGlbsMap()}.
    */
   private final Map<QualifierKind, Map<QualifierKind, QualifierKind>> glbs;
 
+  /**
+   * Holds the lub of qualifier kinds, indexed by {@link #tableIndex}. {@code
+   * lubTable[tableIndex(kind1, kind2)]} is the lub of kind1 and kind2, or null if they are in
+   * different hierarchies. Created from {@link #lubs}.
+   */
+  private final @Nullable QualifierKind[] lubTable;
+
+  /**
+   * Holds the glb of qualifier kinds, indexed by {@link #tableIndex}. {@code
+   * glbTable[tableIndex(kind1, kind2)]} is the glb of kind1 and kind2, or null if they are in
+   * different hierarchies. Created from {@link #glbs}.
+   */
+  private final @Nullable QualifierKind[] glbTable;
+
   @Override
   public Set<? extends QualifierKind> getTops() {
     return tops;
@@ -94,16 +112,74 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
 
   @Override
   public @Nullable QualifierKind leastUpperBound(QualifierKind q1, QualifierKind q2) {
-    @SuppressWarnings("nullness:dereference.of.nullable") // All QualifierKinds are keys in lubs.
-    QualifierKind result = lubs.get(q1).get(q2);
-    return result;
+    return lubTable[tableIndex(q1, q2)];
   }
 
   @Override
   public @Nullable QualifierKind greatestLowerBound(QualifierKind q1, QualifierKind q2) {
-    @SuppressWarnings("nullness:dereference.of.nullable") // All QualifierKinds are keys in glbs.
-    QualifierKind result = glbs.get(q1).get(q2);
-    return result;
+    return glbTable[tableIndex(q1, q2)];
+  }
+
+  /**
+   * Returns the lubs of qualifier kinds, as created by {@link #createLubsMap()}. {@code
+   * getLubsMap().get(kind1).get(kind2)} is the same as {@code leastUpperBound(kind1, kind2)}, but
+   * is found by two map lookups rather than one table lookup. Subclasses and benchmarks can use
+   * this map to compare the two.
+   *
+   * @return an unmodifiable mapping of lubs
+   */
+  protected Map<QualifierKind, Map<QualifierKind, QualifierKind>> getLubsMap() {
+    return Collections.unmodifiableMap(lubs);
+  }
+
+  /**
+   * Returns the glbs of qualifier kinds, as created by {@link #createGlbsMap()}. {@code
+   * getGlbsMap().get(kind1).get(kind2)} is the same as {@code greatestLowerBound(kind1, kind2)},
+   * but is found by two map lookups rather than one table lookup. Subclasses and benchmarks can use
+   * this map to compare the two.
+   *
+   * @return an unmodifiable mapping of glbs
+   */
+  protected Map<QualifierKind, Map<QualifierKind, QualifierKind>> getGlbsMap() {
+    return Collections.unmodifiableMap(glbs);
+  }
+
+  /**
+   * Returns the index of the entry for {@code q1} and {@code q2} in {@link #lubTable} and {@link
+   * #glbTable}.
+   *
+   * @param q1 a qualifier kind of this hierarchy
+   * @param q2 a qualifier kind of this hierarchy
+   * @return the index of the entry for {@code q1} and {@code q2} in the lub and glb tables
+   * @throws BugInCF if {@code q1} or {@code q2} is not a qualifier kind of this hierarchy
+   */
+  @RequiresNonNull("this.qualifierKinds")
+  private int tableIndex(
+      @UnknownInitialization(DefaultQualifierKindHierarchy.class) DefaultQualifierKindHierarchy this,
+      QualifierKind q1,
+      QualifierKind q2) {
+    return kindIndex(q1) * qualifierKinds.size() + kindIndex(q2);
+  }
+
+  /**
+   * Returns the index of {@code kind} in {@link #qualifierKinds}.
+   *
+   * @param kind a qualifier kind of this hierarchy
+   * @return the index of {@code kind} in {@link #qualifierKinds}
+   * @throws BugInCF if {@code kind} is not a qualifier kind of this hierarchy
+   */
+  @RequiresNonNull("this.qualifierKinds")
+  private int kindIndex(
+      @UnknownInitialization(DefaultQualifierKindHierarchy.class) DefaultQualifierKindHierarchy this,
+      QualifierKind kind) {
+    if (kind instanceof DefaultQualifierKind) {
+      int index = ((DefaultQualifierKind) kind).index;
+      // A kind of another hierarchy may have an index that is in range here.
+      if (index >= 0 && index < qualifierKinds.size() && qualifierKinds.get(index) == kind) {
+        return index;
+      }
+    }
+    throw new BugInCF("%s is not a qualifier kind of %s", kind, qualifierKinds);
   }
 
   @Override
@@ -166,6 +242,9 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     this.nameToQualifierKind = createQualifierKinds(qualifierClasses);
     this.qualifierKinds = new ArrayList<>(nameToQualifierKind.values());
     Collections.sort(qualifierKinds);
+    for (int i = 0; i < qualifierKinds.size(); i++) {
+      qualifierKinds.get(i).index = i;
+    }
 
     Map<DefaultQualifierKind, Set<DefaultQualifierKind>> directSuperMap = createDirectSuperMap();
     if (bottom != null) {
@@ -175,12 +254,102 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     this.bottoms = createBottomsSet(directSuperMap);
     initializePolymorphicQualifiers();
     initializeQualifierKindFields(directSuperMap);
+    for (DefaultQualifierKind qualifierKind : qualifierKinds) {
+      qualifierKind.initializeSuperTypeIndexes();
+    }
     this.lubs = createLubsMap();
     this.glbs = createGlbsMap();
+    this.lubTable = createTable(lubs);
+    this.glbTable = createTable(glbs);
 
     verifyHierarchy(directSuperMap);
   }
 
+  /**
+   * Hierarchies created by {@link #forQualifiers}, keyed by their qualifier classes. The map for a
+   * set of qualifier classes is attached to its {@link #anchorClass}, so the hierarchies, which
+   * refer to the qualifier classes, are freed together with them: a hierarchy does not keep the
+   * class loader of one compilation alive in a JVM that runs many.
+   */
+  private static final ClassValue<
+          Map<Set<Class<? extends Annotation>>, DefaultQualifierKindHierarchy>>
+      sharedHierarchies =
+          new ClassValue<Map<Set<Class<? extends Annotation>>, DefaultQualifierKindHierarchy>>() {
+            @Override
+            protected Map<Set<Class<? extends Annotation>>, DefaultQualifierKindHierarchy>
+                computeValue(Class<?> type) {
+              return new ConcurrentHashMap<>();
+            }
+          };
+
+  /**
+   * Returns a {@link DefaultQualifierKindHierarchy} for the given qualifier classes. A hierarchy is
+   * immutable once created, so this returns the same hierarchy for the same set of classes every
+   * time, across type factories and compilations in the same JVM, for as long as the classes are
+   * loaded. Use it instead of {@link #DefaultQualifierKindHierarchy(Collection)} unless you need a
+   * new instance.
+   *
+   * @param qualifierClasses all the classes of qualifiers supported by the hierarchy
+   * @return a hierarchy for {@code qualifierClasses}
+   */
+  public static DefaultQualifierKindHierarchy forQualifiers(
+      Collection<Class<? extends Annotation>> qualifierClasses) {
+    Class<?> anchor = anchorClass(qualifierClasses);
+    if (anchor == null) {
+      return new DefaultQualifierKindHierarchy(qualifierClasses);
+    }
+    Set<Class<? extends Annotation>> key = new HashSet<>(qualifierClasses);
+    return sharedHierarchies.get(anchor).computeIfAbsent(key, DefaultQualifierKindHierarchy::new);
+  }
+
+  /**
+   * Returns the class among {@code classes} with the least name whose class loader is, or
+   * delegates to, the loader of every class in {@code classes}. That class is unloaded no later
+   * than any of the others. Returns null if there is no such class, for example if the classes come
+   * from unrelated class loaders, or if {@code classes} is empty.
+   *
+   * @param classes some classes
+   * @return the class whose unloading frees the others, or null if there is none
+   */
+  private static @Nullable Class<?> anchorClass(Collection<? extends Class<?>> classes) {
+    Class<?> result = null;
+    for (Class<?> candidate : classes) {
+      if (result != null && candidate.getName().compareTo(result.getName()) >= 0) {
+        continue;
+      }
+      boolean isAnchor = true;
+      for (Class<?> other : classes) {
+        if (!delegatesTo(candidate.getClassLoader(), other.getClassLoader())) {
+          isAnchor = false;
+          break;
+        }
+      }
+      if (isAnchor) {
+        result = candidate;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if {@code loader} is {@code ancestor} or one of its parents is.
+   *
+   * @param loader a class loader, or null for the bootstrap class loader
+   * @param ancestor a class loader, or null for the bootstrap class loader
+   * @return true if {@code loader} delegates to {@code ancestor}
+   */
+  private static boolean delegatesTo(@Nullable ClassLoader loader, @Nullable ClassLoader ancestor) {
+    if (ancestor == null) {
+      return true;
+    }
+    for (ClassLoader l = loader; l != null; l = l.getParent()) {
+      if (l == ancestor) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Verifies that the {@link DefaultQualifierKindHierarchy} is a valid hierarchy.
    *
@@ -477,6 +646,27 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     }
   }
 
+  /**
+   * Converts a lub or glb map, as created by {@link #createLubsMap()} or {@link #createGlbsMap()},
+   * into a table indexed by {@link #tableIndex}.
+   *
+   * @param map a mapping from two qualifier kinds to their lub or glb
+   * @return a table holding the values of {@code map}
+   */
+  @RequiresNonNull("this.qualifierKinds")
+  private @Nullable QualifierKind[] createTable(
+      @UnderInitialization DefaultQualifierKindHierarchy this,
+      Map<QualifierKind, Map<QualifierKind, QualifierKind>> map) {
+    int size = qualifierKinds.size();
+    @Nullable QualifierKind[] table = new QualifierKind[size * size];
+    for (Map.Entry<QualifierKind, Map<QualifierKind, QualifierKind>> entry1 : map.entrySet()) {
+      for (Map.Entry<QualifierKind, QualifierKind> entry2 : entry1.getValue().entrySet()) {
+        table[tableIndex(entry1.getKey(), entry2.getKey())] = entry2.getValue();
+      }
+    }
+    return table;
+  }
+
   /**
    * Returns the set of all qualifier kinds that are a strict supertype of {@code qualifierKind}.
    *
@@ -710,6 +900,13 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     /** True if the annotation class of this has annotation elements/arguments. */
     private final boolean hasElements;
 
+    /**
+     * The position of this in {@link DefaultQualifierKindHierarchy#qualifierKinds}. Used to index
+     * the lub and glb tables and {@link #superTypeIndexes}.
+     */
+    // Set while creating the QualifierKindHierarchy.
+    private int index = -1;
+
     /** The top of the hierarchy to which this belongs. */
     // Set while creating the QualifierKindHierarchy.
     protected @MonotonicNonNull DefaultQualifierKind top;
@@ -729,6 +926,13 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
     // Set while creating the QualifierKindHierarchy.
     protected @MonotonicNonNull Set<QualifierKind> strictSuperTypes;
 
+    /**
+     * The {@link #index}es of this and of all the qualifier kinds in {@link #strictSuperTypes}.
+     * Null until the QualifierKindHierarchy has initialized {@link #strictSuperTypes}.
+     */
+    // Set while creating the QualifierKindHierarchy.
+    private @MonotonicNonNull BitSet superTypeIndexes;
+
     /**
      * Creates a {@link DefaultQualifierKind} for the given annotation class.
      *
@@ -814,8 +1018,31 @@ public class DefaultQualifierKindHierarchy implements QualifierKindHierarchy {
       return this.top == other.getTop();
     }
 
+    /**
+     * Sets {@link #superTypeIndexes} from {@link #strictSuperTypes}, if the latter is set. Requires
+     * that the index of every qualifier kind has been set.
+     */
+    private void initializeSuperTypeIndexes() {
+      if (strictSuperTypes == null) {
+        return;
+      }
+      BitSet indexes = new BitSet();
+      indexes.set(index);
+      for (QualifierKind superType : strictSuperTypes) {
+        indexes.set(((DefaultQualifierKind) superType).index);
+      }
+      superTypeIndexes = indexes;
+    }
+
     @Override
     public boolean isSubtypeOf(QualifierKind superQualKind) {
+      if (superTypeIndexes != null && superQualKind instanceof DefaultQualifierKind) {
+        DefaultQualifierKind superDefaultQualKind = (DefaultQualifierKind) superQualKind;
+        // The top check rules out a qualifier kind from another QualifierKindHierarchy.
+        return this == superQualKind
+            || (top == superDefaultQualKind.top
+                && superTypeIndexes.get(superDefaultQualKind.index));
+      }
       if (strictSuperTypes == null) {
         throw new BugInCF(
             "DefaultQualifierKind#isSubtypeOf: strictSuperTypes was null. Don't call this method"
@@ -26,6 +26,12 @@ public class TreePathCacher extends TreeScanner<TreePath, Tree> {
    */
   private @Nullable TreePath path;
 
+  /** The number of calls to {@link #getPath} that found the path in the cache. */
+  private long hits = 0;
+
+  /** The number of calls to {@link #getPath} that had to search for the path. */
+  private long misses = 0;
+
   /**
    * Returns true if the tree is cached.
    *
@@ -59,8 +65,10 @@ public class TreePathCacher extends TreeScanner<TreePath, Tree> {
     // stop the superclass from scanning other subtrees when target is found.
 
     if (foundPaths.containsKey(target)) {
+      hits++;
       return foundPaths.get(target);
     }
+    misses++;
 
     TreePath path = new TreePath(root);
     if (path.getLeaf() == target) {
@@ -100,6 +108,33 @@ public class TreePathCacher extends TreeScanner<TreePath, Tree> {
     foundPaths.clear();
   }
 
+  /**
+   * Returns the number of calls to {@link #getPath} that found the path in the cache.
+   *
+   * @return the number of cache hits
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of calls to {@link #getPath} that had to search for the path.
+   *
+   * @return the number of cache misses
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of trees whose paths are cached.
+   *
+   * @return the number of trees whose paths are cached
+   */
+  public int size() {
+    return foundPaths.size();
+  }
+
   /** Scan a single node. The current path is updated for the duration of the scan. */
   @SuppressWarnings("interning:not.interned") // assertion
   @Override
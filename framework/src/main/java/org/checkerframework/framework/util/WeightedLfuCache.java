@@ -0,0 +1,315 @@
+package org.checkerframework.framework.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A cache bounded by the total weight of its values rather than by the number of entries, with
+ * frequency-aware admission.
+ *
+ * <p>New entries go into a small LRU "window" that holds 1% of the weight budget. When an entry
+ * leaves the window, it is admitted to the main LRU region only if it has been used more often than
+ * the entry it would evict. Usage frequencies are estimated by a small count-min sketch that
+ * remembers keys that are no longer in the cache, and that is periodically halved so that old uses
+ * are forgotten. (This is the W-TinyLFU policy.) As a result, a single scan over many entries that
+ * are used only once, such as the expressions of a huge class, cannot flush the frequently-used
+ * entries.
+ *
+ * <p>Only {@link #get}, {@link #containsKey}, {@link #put}, {@link #remove}, {@link #clear}, and
+ * {@link #size} are efficient. The views returned by {@link #entrySet} and the other view methods
+ * are unmodifiable snapshots.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class WeightedLfuCache<K, V> extends AbstractMap<K, V> {
+
+  /** The maximum total weight of the values in this cache. */
+  private final long maximumWeight;
+
+  /** The maximum total weight of the values in {@link #window}. */
+  private final long windowMaximumWeight;
+
+  /** Computes the weight of a value. */
+  private final ToIntFunction<? super V> weigher;
+
+  /** The recently-added entries, in access order. */
+  private final LinkedHashMap<K, WeightedValue<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** The entries that were admitted from the window, in access order. */
+  private final LinkedHashMap<K, WeightedValue<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** The total weight of the values in {@link #window}. */
+  private long windowWeight = 0;
+
+  /** The total weight of the values in {@link #main}. */
+  private long mainWeight = 0;
+
+  /** Estimates how often each key has been used. */
+  private final FrequencySketch sketch;
+
+  /**
+   * Creates a new WeightedLfuCache.
+   *
+   * @param maximumWeight the maximum total weight of the values in the cache; must be positive
+   * @param weigher computes the weight of a value; weights less than 1 are treated as 1
+   */
+  public WeightedLfuCache(long maximumWeight, ToIntFunction<? super V> weigher) {
+    if (maximumWeight <= 0) {
+      throw new IllegalArgumentException("maximumWeight must be positive: " + maximumWeight);
+    }
+    this.maximumWeight = maximumWeight;
+    this.windowMaximumWeight = Math.max(1, maximumWeight / 100);
+    this.weigher = weigher;
+    this.sketch = new FrequencySketch((int) Math.min(maximumWeight, 1 << 16));
+  }
+
+  /**
+   * Returns the total weight of the values in this cache.
+   *
+   * @return the total weight of the values in this cache
+   */
+  public long weight() {
+    return windowWeight + mainWeight;
+  }
+
+  @Override
+  public int size() {
+    return window.size() + main.size();
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    return window.containsKey(key) || main.containsKey(key);
+  }
+
+  @Override
+  public @Nullable V get(@Nullable Object key) {
+    if (key == null) {
+      return null;
+    }
+    sketch.increment(key);
+    WeightedValue<V> wv = window.get(key);
+    if (wv == null) {
+      wv = main.get(key);
+    }
+    return wv == null ? null : wv.value;
+  }
+
+  @Override
+  public @Nullable V put(K key, V value) {
+    sketch.increment(key);
+    V previous = remove(key);
+    int weight = Math.max(1, weigher.applyAsInt(value));
+    if (weight > maximumWeight) {
+      // The value can never fit; do not flush the cache trying.
+      return previous;
+    }
+    window.put(key, new WeightedValue<>(value, weight));
+    windowWeight += weight;
+    while (windowWeight > windowMaximumWeight) {
+      Iterator<Map.Entry<K, WeightedValue<V>>> itor = window.entrySet().iterator();
+      Map.Entry<K, WeightedValue<V>> candidate = itor.next();
+      itor.remove();
+      windowWeight -= candidate.getValue().weight;
+      admit(candidate.getKey(), candidate.getValue());
+    }
+    return previous;
+  }
+
+  /**
+   * Moves an entry that left the window into the main region, if it is used more often than each of
+   * the entries it would evict. Otherwise, drops it and keeps them all.
+   *
+   * @param key the key of the entry that left the window
+   * @param candidate the value of the entry that left the window
+   */
+  private void admit(K key, WeightedValue<V> candidate) {
+    long mainMaximumWeight = maximumWeight - windowMaximumWeight;
+    if (candidate.weight > mainMaximumWeight) {
+      return;
+    }
+    int candidateFrequency = sketch.frequency(key);
+    // Choose all the victims before evicting any, so that a popular victim protects the others.
+    List<K> victims = new ArrayList<>();
+    long freedWeight = 0;
+    Iterator<Map.Entry<K, WeightedValue<V>>> itor = main.entrySet().iterator();
+    while (mainWeight - freedWeight + candidate.weight > mainMaximumWeight) {
+      Map.Entry<K, WeightedValue<V>> victim = itor.next();
+      if (candidateFrequency <= sketch.frequency(victim.getKey())) {
+        // The victim is at least as popular as the candidate, so keep the victim.
+        return;
+      }
+      victims.add(victim.getKey());
+      freedWeight += victim.getValue().weight;
+    }
+    for (K victim : victims) {
+      main.remove(victim);
+    }
+    mainWeight -= freedWeight;
+    main.put(key, candidate);
+    mainWeight += candidate.weight;
+  }
+
+  @Override
+  public @Nullable V remove(@Nullable Object key) {
+    WeightedValue<V> wv = window.remove(key);
+    if (wv != null) {
+      windowWeight -= wv.weight;
+      return wv.value;
+    }
+    wv = main.remove(key);
+    if (wv != null) {
+      mainWeight -= wv.weight;
+      return wv.value;
+    }
+    return null;
+  }
+
+  /** Removes every entry. The usage frequencies are retained. */
+  @Override
+  public void clear() {
+    window.clear();
+    main.clear();
+    windowWeight = 0;
+    mainWeight = 0;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    Set<Map.Entry<K, V>> result = new HashSet<>(size());
+    for (Map.Entry<K, WeightedValue<V>> entry : window.entrySet()) {
+      result.add(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().value));
+    }
+    for (Map.Entry<K, WeightedValue<V>> entry : main.entrySet()) {
+      result.add(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().value));
+    }
+    return Collections.unmodifiableSet(result);
+  }
+
+  /**
+   * A value and its weight.
+   *
+   * @param <V> the type of the value
+   */
+  private static final class WeightedValue<V> {
+
+    /** The value. */
+    final V value;
+
+    /** The weight of the value. */
+    final int weight;
+
+    /**
+     * Creates a WeightedValue.
+     *
+     * @param value the value
+     * @param weight the weight of the value
+     */
+    WeightedValue(V value, int weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * A count-min sketch that estimates how often each key has been used. Its counters saturate at
+   * 15. After a number of increments proportional to its size, every counter is halved.
+   */
+  private static final class FrequencySketch {
+
+    /** The largest value of a counter. */
+    private static final int MAXIMUM_COUNT = 15;
+
+    /** Seeds for the hash functions; one per row of the sketch. */
+    private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    /** The counters. Each row of the sketch uses one counter per key. */
+    private final byte[] table;
+
+    /** A mask for computing an index into {@link #table}. */
+    private final int tableMask;
+
+    /** The number of increments since the counters were last halved. */
+    private int additions = 0;
+
+    /** The number of increments after which the counters are halved. */
+    private final int sampleSize;
+
+    /**
+     * Creates a FrequencySketch.
+     *
+     * @param expectedSize the approximate number of distinct keys to distinguish
+     */
+    FrequencySketch(int expectedSize) {
+      int size = Math.max(16, expectedSize);
+      // Use four counters per expected key, to make collisions between keys unlikely.
+      int tableSize = Integer.highestOneBit(4 * size - 1) << 1;
+      this.table = new byte[tableSize];
+      this.tableMask = tableSize - 1;
+      this.sampleSize = 10 * size;
+    }
+
+    /**
+     * Records a use of {@code key}.
+     *
+     * @param key a key
+     */
+    void increment(Object key) {
+      int hash = key.hashCode();
+      boolean added = false;
+      for (long seed : SEEDS) {
+        int index = indexOf(hash, seed);
+        if (table[index] < MAXIMUM_COUNT) {
+          table[index]++;
+          added = true;
+        }
+      }
+      if (added && ++additions == sampleSize) {
+        for (int i = 0; i < table.length; i++) {
+          table[i] >>= 1;
+        }
+        additions = 0;
+      }
+    }
+
+    /**
+     * Returns the estimated number of recent uses of {@code key}.
+     *
+     * @param key a key
+     * @return the estimated number of recent uses of {@code key}
+     */
+    int frequency(Object key) {
+      int hash = key.hashCode();
+      int result = MAXIMUM_COUNT;
+      for (long seed : SEEDS) {
+        result = Math.min(result, table[indexOf(hash, seed)]);
+      }
+      return result;
+    }
+
+    /**
+     * Returns the index in {@link #table} of the counter for a key, for one row of the sketch.
+     *
+     * @param hash the hash code of the key
+     * @param seed the seed of the row
+     * @return the index of the counter
+     */
+    private int indexOf(int hash, long seed) {
+      long h = (hash + seed) * seed;
+      h += h >>> 32;
+      return (int) h & tableMask;
+    }
+  }
+}
@@ -43,6 +43,7 @@ import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
 import org.checkerframework.framework.type.QualifierHierarchy;
 import org.checkerframework.framework.type.visitor.AnnotatedTypeScanner;
 import org.checkerframework.framework.util.AnnotatedTypes;
+import org.checkerframework.framework.util.CacheStatistics;
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationMirrorSet;
 import org.checkerframework.javacutil.AnnotationUtils;
@@ -106,8 +107,7 @@ public class QualifierDefaults {
   private static final int CACHE_SIZE = 300;
 
   /** Mapping from an Element to the bound type. */
-  protected final Map<Element, BoundType> elementToBoundType =
-      CollectionsPlume.createLruCache(CACHE_SIZE);
+  protected final Map<Element, BoundType> elementToBoundType;
 
   /**
    * Defaults that apply for a certain Element. On the one hand this is used for caching (an earlier
@@ -191,6 +191,12 @@ public class QualifierDefaults {
         TreeUtils.getMethod(DefaultQualifier.class, "locations", 0, processingEnv);
     this.defaultQualifierListValueElement =
         TreeUtils.getMethod(DefaultQualifier.List.class, "value", 0, processingEnv);
+    CacheStatistics cacheStatistics = atypeFactory.getChecker().getCacheStatistics();
+    Map<Element, BoundType> boundTypeCache = CollectionsPlume.createLruCache(CACHE_SIZE);
+    this.elementToBoundType =
+        cacheStatistics == null
+            ? boundTypeCache
+            : cacheStatistics.wrap("elementToBoundType", boundTypeCache);
   }
 
   @Override
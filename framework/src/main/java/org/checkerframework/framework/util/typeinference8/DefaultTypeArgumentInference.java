@@ -20,6 +20,8 @@ import javax.lang.model.type.TypeVariable;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
+import org.checkerframework.framework.util.CheckerEvents;
+import org.checkerframework.framework.util.CheckerEvents.InferenceEvent;
 import org.checkerframework.framework.util.typeinference8.types.ContainsInferenceVariable;
 import org.checkerframework.framework.util.typeinference8.types.Variable;
 import org.checkerframework.framework.util.typeinference8.util.Theta;
@@ -100,6 +102,10 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
     if (java8Inference != null) {
       java8InferenceStack.push(java8Inference);
     }
+    InferenceEvent event = CheckerEvents.ENABLED ? new InferenceEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
     try {
       java8Inference = new InvocationTypeInference(typeFactory, pathToExpression);
       if (outerTree.getKind() == Kind.MEMBER_REFERENCE) {
@@ -134,6 +140,11 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
       } else {
         java8Inference = null;
       }
+      if (event != null && event.shouldCommit()) {
+        event.checker = typeFactory.getChecker().getClass().getSimpleName();
+        event.expression = TreeUtils.toStringTruncated(outerTree, 80);
+        event.commit();
+      }
     }
   }
 
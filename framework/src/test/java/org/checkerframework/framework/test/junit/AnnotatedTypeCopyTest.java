@@ -0,0 +1,99 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.source.util.TreePath;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.common.subtyping.SubtypingChecker;
+import org.checkerframework.framework.testchecker.util.SubQual;
+import org.checkerframework.framework.testchecker.util.SuperQual;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.javacutil.AnnotationBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that a copy of an {@link AnnotatedTypeMirror}, which shares its set of primary annotations
+ * with the original until either is modified, keeps its own annotations when the original is
+ * modified, and vice versa.
+ */
+public class AnnotatedTypeCopyTest {
+
+  @Test
+  public void copiesAreIndependent() throws IOException {
+    Path source = Files.createTempDirectory("annotated-type-copy").resolve("CopyInput.java");
+    Files.write(source, Collections.singletonList("class CopyInput {}"));
+    CopyChecker checker = new CopyChecker();
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              null,
+              Arrays.asList(
+                  "-proc:only",
+                  "-Aquals=" + SubQual.class.getName() + "," + SuperQual.class.getName()),
+              null,
+              fileManager.getJavaFileObjects(source.toFile()));
+      task.setProcessors(Collections.singletonList(checker));
+      task.call();
+    }
+    Assert.assertTrue("the checker did not run", checker.ran);
+    Assert.assertEquals(Collections.emptyList(), checker.failures);
+  }
+
+  /** A checker that modifies copies of the type of each class that it checks. */
+  public static class CopyChecker extends SubtypingChecker {
+
+    /** The failed expectations. */
+    final List<String> failures = new ArrayList<>();
+
+    /** True if the expectations were checked. */
+    boolean ran = false;
+
+    @Override
+    public void typeProcess(TypeElement element, TreePath tree) {
+      super.typeProcess(element, tree);
+      AnnotationMirror sub = AnnotationBuilder.fromClass(getElementUtils(), SubQual.class);
+      AnnotationMirror sup = AnnotationBuilder.fromClass(getElementUtils(), SuperQual.class);
+      AnnotatedTypeMirror original = getTypeFactory().getAnnotatedType(element);
+      original.replaceAnnotation(sup);
+      AnnotatedTypeMirror deepCopy = original.deepCopy();
+      AnnotatedTypeMirror shallowCopy = original.shallowCopy();
+
+      original.replaceAnnotation(sub);
+      expect(original.hasPrimaryAnnotation(sub), "original was not modified");
+      expect(deepCopy.hasPrimaryAnnotation(sup), "deep copy changed with the original");
+      expect(shallowCopy.hasPrimaryAnnotation(sup), "shallow copy changed with the original");
+
+      deepCopy.clearPrimaryAnnotations();
+      expect(original.hasPrimaryAnnotation(sub), "original changed with the deep copy");
+      expect(shallowCopy.hasPrimaryAnnotation(sup), "shallow copy changed with the deep copy");
+      shallowCopy.replaceAnnotation(sub);
+      expect(deepCopy.getPrimaryAnnotations().isEmpty(), "deep copy changed with shallow copy");
+      ran = true;
+    }
+
+    /**
+     * Records a failure unless {@code condition} holds.
+     *
+     * @param condition an expectation
+     * @param message the failure to record if {@code condition} is false
+     */
+    private void expect(boolean condition, String message) {
+      if (!condition) {
+        failures.add(message);
+      }
+    }
+  }
+}
@@ -12,6 +12,7 @@ import javax.lang.model.type.TypeMirror;
 import org.checkerframework.framework.testchecker.util.AnnoWithStringArg;
 import org.checkerframework.framework.testchecker.util.Encrypted;
 import org.checkerframework.javacutil.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
 import org.junit.Assert;
 import org.junit.Ignore;
@@ -74,6 +75,42 @@ public class AnnotationBuilderTest {
     builder.setValue("value", "n");
   }
 
+  @Test(expected = BugInCF.class)
+  public void copyingValuesAfterBuilding() {
+    AnnotationBuilder valueHolder = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    valueHolder.setValue("value", "n");
+    AnnotationMirror other = valueHolder.build();
+    AnnotationBuilder builder = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder.setValue("value", "m");
+    builder.build();
+    builder.copyElementValuesFromAnnotation(other);
+  }
+
+  @Test
+  public void buildingSameAnnotationReturnsIdenticalMirror() {
+    Assert.assertSame(
+        new AnnotationBuilder(env, Encrypted.class).build(),
+        new AnnotationBuilder(env, Encrypted.class).build());
+
+    AnnotationBuilder builder1 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder1.setValue("value", "m");
+    AnnotationBuilder builder2 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder2.setValue("value", "m");
+    Assert.assertSame(builder1.build(), builder2.build());
+  }
+
+  @Test
+  public void buildingDifferentValuesReturnsDifferentMirrors() {
+    AnnotationBuilder builder1 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder1.setValue("value", "m");
+    AnnotationMirror anno1 = builder1.build();
+    AnnotationBuilder builder2 = new AnnotationBuilder(env, AnnoWithStringArg.class);
+    builder2.setValue("value", "n");
+    AnnotationMirror anno2 = builder2.build();
+    Assert.assertNotSame(anno1, anno2);
+    Assert.assertFalse(AnnotationUtils.areSame(anno1, anno2));
+  }
+
   @Test(expected = BugInCF.class)
   public void notFoundElements() {
     AnnotationBuilder builder = new AnnotationBuilder(env, AnnoWithStringArg.class);
@@ -0,0 +1,192 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.framework.util.CheckerDaemon;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CheckerDaemonTest {
+
+  /** The secret of the daemon under test. */
+  private static final String SECRET = "test-secret";
+
+  /** The location of the checkers that the daemon under test runs. */
+  private static final String CHECKER_JAR = CheckerDaemon.loadedCheckerJar().getPath();
+
+  /** The version of the checkers that the daemon under test runs. */
+  private static final String CHECKER_VERSION =
+      CheckerDaemon.checkerVersion(CheckerDaemon.loadedCheckerJar());
+
+  /** The socket of the daemon under test. */
+  private ServerSocket serverSocket;
+
+  /** The thread that runs the daemon under test. */
+  private Thread server;
+
+  /** The exception that the daemon under test threw, if any. */
+  private final IOException[] failure = {null};
+
+  @Before
+  public void startDaemon() throws IOException {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    server =
+        new Thread(
+            () -> {
+              try {
+                new CheckerDaemon(serverSocket, SECRET).serve();
+              } catch (IOException e) {
+                failure[0] = e;
+              }
+            });
+    server.start();
+  }
+
+  @After
+  public void stopDaemon() throws Exception {
+    try {
+      CheckerDaemon.stop(serverSocket.getLocalPort(), SECRET);
+      server.join(10_000);
+    } finally {
+      serverSocket.close();
+    }
+    Assert.assertFalse(server.isAlive());
+    Assert.assertNull(failure[0]);
+  }
+
+  @Test
+  public void refusesOtherWorkingDirectory() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    int exitStatus =
+        CheckerDaemon.compile(
+            serverSocket.getLocalPort(),
+            SECRET,
+            "/no/such/directory",
+            CHECKER_JAR,
+            CHECKER_VERSION,
+            Collections.singletonList("-version"),
+            output);
+    Assert.assertEquals(CheckerDaemon.REFUSED, exitStatus);
+    Assert.assertTrue(
+        new String(output.toByteArray(), StandardCharsets.UTF_8).startsWith("CheckerDaemon"));
+  }
+
+  @Test
+  public void refusesWrongSecret() throws Exception {
+    int port = serverSocket.getLocalPort();
+    int exitStatus =
+        CheckerDaemon.compile(
+            port,
+            "wrong-secret",
+            System.getProperty("user.dir"),
+            CHECKER_JAR,
+            CHECKER_VERSION,
+            Collections.singletonList(CheckerDaemon.STOP_REQUEST),
+            new ByteArrayOutputStream());
+    Assert.assertEquals(CheckerDaemon.REFUSED, exitStatus);
+    // The daemon did not stop.
+    Assert.assertTrue(server.isAlive());
+    Assert.assertEquals(
+        CheckerDaemon.REFUSED,
+        CheckerDaemon.compile(
+            port,
+            SECRET,
+            "/no/such/directory",
+            CHECKER_JAR,
+            CHECKER_VERSION,
+            Collections.singletonList("-version"),
+            new ByteArrayOutputStream()));
+  }
+
+  /** The daemon refuses a client of another checker.jar, since it would run its own checkers. */
+  @Test
+  public void refusesOtherCheckerJar() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    int exitStatus =
+        CheckerDaemon.compile(
+            serverSocket.getLocalPort(),
+            SECRET,
+            System.getProperty("user.dir"),
+            new File("no-such-dir", "checker.jar").getPath(),
+            CHECKER_VERSION,
+            Collections.singletonList("-version"),
+            output);
+    Assert.assertEquals(CheckerDaemon.REFUSED, exitStatus);
+    Assert.assertTrue(
+        new String(output.toByteArray(), StandardCharsets.UTF_8).startsWith("CheckerDaemon"));
+  }
+
+  /** The daemon refuses a client of another version of its checker.jar. */
+  @Test
+  public void refusesOtherCheckerVersion() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    int exitStatus =
+        CheckerDaemon.compile(
+            serverSocket.getLocalPort(),
+            SECRET,
+            System.getProperty("user.dir"),
+            CHECKER_JAR,
+            "0.0.0, commit unknown, modified 0",
+            Collections.singletonList("-version"),
+            output);
+    Assert.assertEquals(CheckerDaemon.REFUSED, exitStatus);
+    Assert.assertTrue(
+        new String(output.toByteArray(), StandardCharsets.UTF_8).startsWith("CheckerDaemon"));
+  }
+
+  /**
+   * Compiling the same file twice in one daemon gives the same diagnostics, so no state of the
+   * first compilation leaks into the second.
+   */
+  @Test
+  public void compilesTwice() throws Exception {
+    Path directory = Files.createTempDirectory("checker-daemon");
+    Path source = directory.resolve("DaemonInput.java");
+    Files.write(
+        source,
+        Arrays.asList(
+            "import org.checkerframework.framework.testchecker.util.SubQual;",
+            "class DaemonInput {",
+            "  @SubQual Object f = new Object();",
+            "}"));
+    List<String> args =
+        Arrays.asList(
+            "-proc:only",
+            "-classpath",
+            System.getProperty("java.class.path"),
+            "-processor",
+            "org.checkerframework.common.subtyping.SubtypingChecker",
+            "-Aquals=org.checkerframework.framework.testchecker.util.SubQual,"
+                + "org.checkerframework.framework.testchecker.util.SuperQual",
+            source.toString());
+    String[] outputs = new String[2];
+    for (int i = 0; i < outputs.length; i++) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      int exitStatus =
+          CheckerDaemon.compile(
+              serverSocket.getLocalPort(),
+              SECRET,
+              System.getProperty("user.dir"),
+              CHECKER_JAR,
+              CHECKER_VERSION,
+              args,
+              output);
+      outputs[i] = new String(output.toByteArray(), StandardCharsets.UTF_8);
+      Assert.assertNotEquals(outputs[i], 0, exitStatus);
+      Assert.assertNotEquals(outputs[i], CheckerDaemon.REFUSED, exitStatus);
+      Assert.assertTrue(outputs[i], outputs[i].contains("assignment"));
+    }
+    Assert.assertEquals(outputs[0], outputs[1]);
+  }
+}
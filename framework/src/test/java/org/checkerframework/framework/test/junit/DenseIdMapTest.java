@@ -0,0 +1,98 @@
+package org.checkerframework.framework.test.junit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.block.RegularBlockImpl;
+import org.checkerframework.dataflow.util.DenseIdMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DenseIdMapTest {
+
+  /**
+   * Returns a new block with the given dense ID.
+   *
+   * @param denseId the dense ID of the block
+   * @return a new block with the given dense ID
+   */
+  private static Block block(int denseId) {
+    RegularBlockImpl result = new RegularBlockImpl();
+    result.setDenseId(denseId);
+    return result;
+  }
+
+  @Test
+  public void descendingIds() {
+    DenseIdMap<Block, Integer> map = DenseIdMap.forBlocks();
+    List<Block> blocks = new ArrayList<>();
+    for (int id = 10_000; id >= 0; id--) {
+      Block block = block(id);
+      blocks.add(block);
+      Assert.assertNull(map.put(block, id));
+    }
+    Assert.assertEquals(blocks.size(), map.size());
+    for (Block block : blocks) {
+      Assert.assertEquals(Integer.valueOf(block.getDenseId()), map.get(block));
+    }
+  }
+
+  @Test
+  public void behavesLikeIdentityHashMap() {
+    for (int seed = 0; seed < 5; seed++) {
+      Random random = new Random(seed);
+      List<Block> blocks = new ArrayList<>();
+      // Contiguous IDs of one graph, far from zero; they arrive in random order.
+      for (int i = 0; i < 200; i++) {
+        blocks.add(block(1_000_000 + i));
+      }
+      // IDs of graphs that were numbered much earlier.
+      for (int i = 0; i < 150; i++) {
+        blocks.add(block(random.nextInt(300)));
+      }
+      // Widely spaced IDs.
+      for (int i = 0; i < 100; i++) {
+        blocks.add(block(random.nextInt(Integer.MAX_VALUE)));
+      }
+      // IDs that are shared with other blocks.
+      for (int i = 0; i < 100; i++) {
+        blocks.add(block(blocks.get(random.nextInt(blocks.size())).getDenseId()));
+      }
+      // Blocks that were never numbered.
+      for (int i = 0; i < 50; i++) {
+        blocks.add(block(-1));
+      }
+      Collections.shuffle(blocks, random);
+
+      DenseIdMap<Block, Integer> map = DenseIdMap.forBlocks();
+      Map<Block, Integer> expected = new IdentityHashMap<>();
+      for (int i = 0; i < 20_000; i++) {
+        // Favor the blocks at the front, so that the map fills before it is cleared.
+        Block key = blocks.get(random.nextInt(1 + random.nextInt(blocks.size())));
+        int op = random.nextInt(100);
+        if (op < 50) {
+          Integer value = random.nextInt(20) == 0 ? null : random.nextInt(10);
+          Assert.assertEquals(expected.put(key, value), map.put(key, value));
+        } else if (op < 80) {
+          Assert.assertEquals(expected.remove(key), map.remove(key));
+        } else if (op < 99) {
+          Assert.assertEquals(expected.get(key), map.get(key));
+          Assert.assertEquals(expected.containsKey(key), map.containsKey(key));
+        } else {
+          expected.clear();
+          map.clear();
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        if (i % 1000 == 0) {
+          Assert.assertEquals(expected, map);
+        }
+      }
+      Assert.assertEquals(expected, map);
+      Assert.assertEquals(map, expected);
+    }
+  }
+}
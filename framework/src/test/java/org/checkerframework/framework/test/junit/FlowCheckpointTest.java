@@ -0,0 +1,33 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.testchecker.util.FlowTestChecker;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for dataflow when the stores in long basic blocks are kept at a checkpoint after
+ * every two nodes. The expected diagnostics are those of {@link FlowTest}.
+ */
+public class FlowCheckpointTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a FlowCheckpointTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public FlowCheckpointTest(List<File> testFiles) {
+    super(
+        testFiles,
+        FlowTestChecker.class,
+        "flow",
+        "-AcheckPurityAnnotations",
+        "-AstoreCheckpointInterval=2");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"flow", "all-systems"};
+  }
+}
@@ -0,0 +1,101 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import org.checkerframework.common.subtyping.SubtypingChecker;
+import org.checkerframework.framework.test.TestConfiguration;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.checkerframework.framework.test.TypecheckResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that {@code -AincrementalCache} checks a method again when a declaration that it depends
+ * on changes, even though the method itself is unchanged. Each test directory contains two rounds
+ * that are compiled in order with the same cache; the expected diagnostics of round 2 are not
+ * issued in round 1.
+ */
+public class IncrementalCacheTest {
+
+  /** Editing the class-level default of a dependency. */
+  @Test
+  public void classDefault() throws IOException {
+    runRounds("incremental-cache/class-default");
+  }
+
+  /** Editing a supertype that the method reaches only through another supertype. */
+  @Test
+  public void transitiveSupertype() throws IOException {
+    runRounds("incremental-cache/transitive-supertype");
+  }
+
+  /** An option that needs to see every method makes the checker warn and ignore the cache. */
+  @Test
+  public void warnsAboutIncompatibleOption() throws IOException {
+    Path cache = Files.createTempDirectory("incremental-cache");
+    File roundDir = new File("tests", "incremental-cache/class-default/round1");
+    TestConfiguration config =
+        TestConfigurationBuilder.buildDefaultConfiguration(
+            roundDir.getPath(),
+            TestUtilities.getJavaFilesAsArgumentList(roundDir),
+            Collections.singletonList(SubtypingChecker.class.getName()),
+            Arrays.asList(
+                "-Aquals=org.checkerframework.framework.testchecker.util.SubQual,"
+                    + "org.checkerframework.framework.testchecker.util.SuperQual",
+                "-AincrementalCache=" + cache,
+                "-AwarnUnneededSuppressions"),
+            TestUtilities.getShouldEmitDebugInfo());
+    TypecheckResult result = new TypecheckExecutor().runTest(config);
+    String expected =
+        "-AincrementalCache is ignored because -AwarnUnneededSuppressions was also given";
+    boolean warned = false;
+    for (Diagnostic<? extends JavaFileObject> diagnostic : result.getActualDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.WARNING
+          && diagnostic.getMessage(null).equals(expected)) {
+        warned = true;
+      }
+    }
+    Assert.assertTrue(result.summarize(), warned);
+    try (Stream<Path> files = Files.list(cache)) {
+      Assert.assertEquals(0, files.count());
+    }
+  }
+
+  /**
+   * Type-checks the rounds in {@code testDir} in order, with one cache, and checks the expected
+   * diagnostics of each.
+   *
+   * @param testDir the directory of the rounds, relative to the tests directory
+   * @throws IOException if the cache directory cannot be created
+   */
+  private static void runRounds(String testDir) throws IOException {
+    Path cache = Files.createTempDirectory("incremental-cache");
+    List<String> options =
+        Arrays.asList(
+            "-Aquals=org.checkerframework.framework.testchecker.util.SubQual,"
+                + "org.checkerframework.framework.testchecker.util.SuperQual",
+            "-AincrementalCache=" + cache);
+    for (String round : new String[] {"round1", "round2"}) {
+      File roundDir = new File(new File("tests", testDir), round);
+      TestConfiguration config =
+          TestConfigurationBuilder.buildDefaultConfiguration(
+              roundDir.getPath(),
+              TestUtilities.getJavaFilesAsArgumentList(roundDir),
+              Collections.singletonList(SubtypingChecker.class.getName()),
+              options,
+              TestUtilities.getShouldEmitDebugInfo());
+      TypecheckResult result = new TypecheckExecutor().runTest(config);
+      TestUtilities.assertTestDidNotFail(result);
+    }
+  }
+}
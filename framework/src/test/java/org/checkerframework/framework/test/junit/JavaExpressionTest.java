@@ -0,0 +1,159 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.builder.CFGBuilder;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.expression.BinaryOperation;
+import org.checkerframework.dataflow.expression.FieldAccess;
+import org.checkerframework.dataflow.expression.JavaExpression;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the hash codes that {@link JavaExpression}s compute in their constructors, and the results
+ * of {@link JavaExpression#fromNode} that are cached on each {@link Node}.
+ */
+public class JavaExpressionTest {
+
+  /** The source code of the method whose control flow graph the tests use. */
+  private static final String[] SOURCE = {
+    "class Base {",
+    "  int f;",
+    "}",
+    "class Sub extends Base {",
+    "  void m(int a, int b) {",
+    "    int sum1 = a + b;",
+    "    int sum2 = b + a;",
+    "    int diff1 = a - b;",
+    "    int diff2 = b - a;",
+    "    int viaThis = this.f;",
+    "    int viaSuper = super.f;",
+    "    Object o = new Object();",
+    "  }",
+    "}"
+  };
+
+  /** The control flow graph of {@code Sub.m}. */
+  private ControlFlowGraph cfg;
+
+  /** Another control flow graph of {@code Sub.m}, built from the same tree. */
+  private ControlFlowGraph otherCfg;
+
+  @Before
+  public void buildCFG() throws IOException {
+    Path source = Files.createTempDirectory("java-expression").resolve("Sub.java");
+    Files.write(source, Arrays.asList(SOURCE));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+      JavacTask task =
+          (JavacTask)
+              compiler.getTask(
+                  null,
+                  fileManager,
+                  null,
+                  null,
+                  null,
+                  fileManager.getJavaFileObjects(source.toFile()));
+      CompilationUnitTree root = task.parse().iterator().next();
+      task.analyze();
+      ProcessingEnvironment env =
+          JavacProcessingEnvironment.instance(((BasicJavacTask) task).getContext());
+      ClassTree sub = (ClassTree) root.getTypeDecls().get(1);
+      MethodTree m = null;
+      for (Tree member : sub.getMembers()) {
+        if (member instanceof MethodTree && ((MethodTree) member).getName().contentEquals("m")) {
+          m = (MethodTree) member;
+        }
+      }
+      Assert.assertNotNull(m);
+      cfg = CFGBuilder.build(root, m, sub, env);
+      otherCfg = CFGBuilder.build(root, m, sub, env);
+    }
+  }
+
+  @Test
+  public void commutativeOperandsAreEqual() {
+    JavaExpression sum1 = JavaExpression.fromNode(node(cfg, "a + b"));
+    JavaExpression sum2 = JavaExpression.fromNode(node(cfg, "b + a"));
+    Assert.assertTrue(sum1 instanceof BinaryOperation);
+    Assert.assertEquals(sum1, sum2);
+    Assert.assertEquals(sum2, sum1);
+    Assert.assertEquals(sum1.hashCode(), sum2.hashCode());
+
+    JavaExpression diff1 = JavaExpression.fromNode(node(cfg, "a - b"));
+    JavaExpression diff2 = JavaExpression.fromNode(node(cfg, "b - a"));
+    Assert.assertNotEquals(diff1, diff2);
+    Assert.assertNotEquals(sum1, diff1);
+  }
+
+  @Test
+  public void thisAndSuperReceiversAreEqual() {
+    JavaExpression viaThis = JavaExpression.fromNode(node(cfg, "this.f"));
+    JavaExpression viaSuper = JavaExpression.fromNode(node(cfg, "super.f"));
+    Assert.assertTrue(viaThis instanceof FieldAccess);
+    Assert.assertTrue(viaSuper instanceof FieldAccess);
+    Assert.assertEquals(viaThis, viaSuper);
+    Assert.assertEquals(viaSuper, viaThis);
+    Assert.assertEquals(viaThis.hashCode(), viaSuper.hashCode());
+    Assert.assertEquals("this.f", viaThis.toString());
+    Assert.assertEquals("super.f", viaSuper.toString());
+  }
+
+  @Test
+  public void fromNodeIsCachedOnTheNode() {
+    for (String expression : new String[] {"a + b", "a - b", "this.f", "super.f"}) {
+      Node node = node(cfg, expression);
+      JavaExpression cached = JavaExpression.fromNode(node);
+      Assert.assertSame(cached, node.getJavaExpression());
+      Assert.assertSame(cached, JavaExpression.fromNode(node));
+
+      // A node of another control flow graph has its own cache, but yields an equal expression.
+      JavaExpression fresh = JavaExpression.fromNode(node(otherCfg, expression));
+      Assert.assertNotSame(cached, fresh);
+      Assert.assertEquals(cached, fresh);
+      Assert.assertEquals(cached.hashCode(), fresh.hashCode());
+    }
+  }
+
+  @Test
+  public void unknownIsNotCached() {
+    Node node = node(cfg, "new Object()");
+    JavaExpression unknown = JavaExpression.fromNode(node);
+    Assert.assertTrue(unknown.containsUnknown());
+    Assert.assertNull(node.getJavaExpression());
+    Assert.assertNotSame(unknown, JavaExpression.fromNode(node));
+  }
+
+  /**
+   * Returns the node of the given control flow graph whose tree prints as the given expression.
+   *
+   * @param cfg a control flow graph
+   * @param expression the source code of an expression in {@link #SOURCE}
+   * @return the node of {@code cfg} for {@code expression}
+   */
+  private static Node node(ControlFlowGraph cfg, String expression) {
+    for (Node node : cfg.getAllNodes()) {
+      Tree tree = node.getTree();
+      if (tree != null && tree.toString().equals(expression)) {
+        return node;
+      }
+    }
+    throw new AssertionError("no node for " + expression);
+  }
+}
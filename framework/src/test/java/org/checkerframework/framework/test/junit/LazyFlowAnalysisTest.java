@@ -0,0 +1,29 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.testchecker.util.FlowTestChecker;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for dataflow when each method is analyzed only when it is first needed. The expected
+ * diagnostics are those of {@link FlowTest}.
+ */
+public class LazyFlowAnalysisTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a LazyFlowAnalysisTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public LazyFlowAnalysisTest(List<File> testFiles) {
+    super(
+        testFiles, FlowTestChecker.class, "flow", "-AcheckPurityAnnotations", "-AlazyFlowAnalysis");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"flow", "all-systems"};
+  }
+}
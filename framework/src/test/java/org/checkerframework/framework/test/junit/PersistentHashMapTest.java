@@ -0,0 +1,105 @@
+package org.checkerframework.framework.test.junit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.checkerframework.dataflow.util.PersistentHashMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PersistentHashMapTest {
+
+  /** A key whose hash code is chosen by the test, so that hash codes can collide. */
+  private static final class Key {
+    final int id;
+    final int hash;
+
+    Key(int id, int hash) {
+      this.id = id;
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  @Test
+  public void copiesAreIndependent() {
+    PersistentHashMap<String, Integer> map = new PersistentHashMap<>();
+    map.put("a", 1);
+    map.put("b", 2);
+    PersistentHashMap<String, Integer> copy = new PersistentHashMap<>(map);
+    Assert.assertTrue(copy.isSameAs(map));
+    copy.put("a", 3);
+    copy.remove("b");
+    Assert.assertFalse(copy.isSameAs(map));
+    Assert.assertEquals(Integer.valueOf(1), map.get("a"));
+    Assert.assertEquals(Integer.valueOf(2), map.get("b"));
+    Assert.assertEquals(Integer.valueOf(3), copy.get("a"));
+    Assert.assertFalse(copy.containsKey("b"));
+    Assert.assertEquals(2, map.size());
+    Assert.assertEquals(1, copy.size());
+  }
+
+  @Test
+  public void allMatchExceptSharedSkipsSharedEntries() {
+    PersistentHashMap<Integer, Integer> map = new PersistentHashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      map.put(i, i);
+    }
+    PersistentHashMap<Integer, Integer> copy = new PersistentHashMap<>(map);
+    copy.put(5, -5);
+    copy.put(10_000, 10_000);
+    int[] visited = {0};
+    Assert.assertTrue(
+        copy.allMatchExceptShared(
+            map,
+            (k, v) -> {
+              visited[0]++;
+              return true;
+            }));
+    Assert.assertTrue(visited[0] <= 2);
+    Assert.assertFalse(copy.allMatchExceptShared(map, (k, v) -> v.equals(map.get(k))));
+    Assert.assertTrue(map.allMatchExceptShared(map, (k, v) -> false));
+  }
+
+  @Test
+  public void behavesLikeHashMap() {
+    Random random = new Random(0);
+    Key[] keys = new Key[500];
+    for (int i = 0; i < keys.length; i++) {
+      // Some keys share a hash code.
+      keys[i] = new Key(i, random.nextInt(4) == 0 ? random.nextInt(3) : random.nextInt());
+    }
+    PersistentHashMap<Key, Integer> map = new PersistentHashMap<>();
+    Map<Key, Integer> expected = new HashMap<>();
+    PersistentHashMap<Key, Integer> snapshot = new PersistentHashMap<>();
+    Map<Key, Integer> expectedSnapshot = new HashMap<>();
+    for (int i = 0; i < 20_000; i++) {
+      Key key = keys[random.nextInt(keys.length)];
+      int op = random.nextInt(10);
+      if (op < 5) {
+        Integer value = random.nextInt(10);
+        Assert.assertEquals(expected.put(key, value), map.put(key, value));
+      } else if (op < 8) {
+        Assert.assertEquals(expected.remove(key), map.remove(key));
+      } else if (op == 8) {
+        snapshot = new PersistentHashMap<>(map);
+        expectedSnapshot = new HashMap<>(expected);
+      } else {
+        int parity = random.nextInt(2);
+        map.keySet().removeIf(k -> k.id % 2 == parity);
+        expected.keySet().removeIf(k -> k.id % 2 == parity);
+      }
+      Assert.assertEquals(expected, map);
+    }
+    Assert.assertEquals(expectedSnapshot, snapshot);
+  }
+}
@@ -0,0 +1,33 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.testchecker.util.FlowTestChecker;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for dataflow when the values of dead local variables are dropped from the stores. The
+ * expected diagnostics are those of {@link FlowTest}.
+ */
+public class PruneDeadLocalVariablesTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a PruneDeadLocalVariablesTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public PruneDeadLocalVariablesTest(List<File> testFiles) {
+    super(
+        testFiles,
+        FlowTestChecker.class,
+        "flow",
+        "-AcheckPurityAnnotations",
+        "-ApruneDeadLocalVariables");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"flow", "all-systems"};
+  }
+}
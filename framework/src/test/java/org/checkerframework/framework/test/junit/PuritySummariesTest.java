@@ -0,0 +1,115 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.framework.flow.PuritySummaries;
+import org.checkerframework.framework.test.TestConfiguration;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.checkerframework.framework.test.TypecheckResult;
+import org.checkerframework.framework.testchecker.util.FlowTestChecker;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@code -ApuritySummaryOutput} and {@code -ApuritySummaryPath}: a library is checked and its
+ * summaries are written, then a client of the compiled library is checked with them.
+ */
+public class PuritySummariesTest {
+
+  /** The client uses the purity of the library methods that was read from the summary file. */
+  @Test
+  public void clientUsesLibrarySummaries() throws IOException {
+    Path summaries = Files.createTempDirectory("purity-summaries");
+    run(
+        "purity-summaries/library",
+        Collections.emptyList(),
+        "-ApuritySummaryOutput=" + summaries);
+    run(
+        "purity-summaries/client",
+        Collections.singletonList(
+            TestConfigurationBuilder.getOutputDirFromProperty().getAbsolutePath()),
+        "-ApuritySummaryPath=" + summaries);
+  }
+
+  /** A summary file that was written with a different configuration is rejected. */
+  @Test
+  public void rejectsOtherConfiguration() throws IOException {
+    Path summaries = Files.createTempDirectory("purity-summaries");
+    Files.write(
+        summaries.resolve(FlowTestChecker.class.getName() + PuritySummaries.FILE_EXTENSION),
+        Arrays.asList(
+            "config 0 " + FlowTestChecker.class.getName(),
+            "SIDE_EFFECT_FREE,DETERMINISTIC Tampered#impure()"));
+    Path source = Files.createTempDirectory("purity-summaries").resolve("Tampered.java");
+    Files.write(
+        source,
+        Arrays.asList(
+            "import org.checkerframework.dataflow.qual.SideEffectFree;",
+            "class Tampered {",
+            "  static Object state;",
+            "  static void impure() { state = null; }",
+            "  @SideEffectFree void m() { impure(); }",
+            "}"));
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              diagnostics,
+              Arrays.asList(
+                  "-proc:only",
+                  "-classpath",
+                  System.getProperty("java.class.path"),
+                  "-ApuritySummaryPath=" + summaries),
+              null,
+              fileManager.getJavaFileObjects(source.toFile()));
+      task.setProcessors(Collections.singletonList(new FlowTestChecker()));
+      task.call();
+    }
+    StringBuilder messages = new StringBuilder();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      messages.append(diagnostic.getMessage(Locale.ROOT)).append('\n');
+    }
+    Assert.assertTrue(
+        messages.toString(),
+        messages.toString().contains("written by a different version or configuration"));
+  }
+
+  /**
+   * Type-checks the files in {@code testDir} with the {@link FlowTestChecker} and checks their
+   * expected diagnostics.
+   *
+   * @param testDir the directory of the files, relative to the tests directory
+   * @param classpathExtra extra entries for the classpath
+   * @param option the purity summary option
+   */
+  private static void run(String testDir, List<String> classpathExtra, String option) {
+    File dir = new File("tests", testDir);
+    TestConfiguration config =
+        TestConfigurationBuilder.buildDefaultConfiguration(
+            dir.getPath(),
+            TestUtilities.getJavaFilesAsArgumentList(dir),
+            classpathExtra,
+            Collections.singletonList(FlowTestChecker.class.getName()),
+            Arrays.asList("-AcheckPurityAnnotations", option),
+            TestUtilities.getShouldEmitDebugInfo());
+    TypecheckResult result = new TypecheckExecutor().runTest(config);
+    TestUtilities.assertTestDidNotFail(result);
+  }
+}
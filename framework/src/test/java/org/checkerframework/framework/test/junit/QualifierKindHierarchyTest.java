@@ -0,0 +1,138 @@
+package org.checkerframework.framework.test.junit;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1Bot;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1Invalid;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1Poly;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1S1;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1S2;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H1Top;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H2Bot;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H2Poly;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H2S1;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H2S2;
+import org.checkerframework.framework.testchecker.h1h2checker.quals.H2Top;
+import org.checkerframework.framework.testchecker.util.SubQual;
+import org.checkerframework.framework.testchecker.util.SuperQual;
+import org.checkerframework.framework.util.DefaultQualifierKindHierarchy;
+import org.checkerframework.framework.util.QualifierKind;
+import org.checkerframework.javacutil.BugInCF;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that the tables of a {@link DefaultQualifierKindHierarchy} agree with the maps that they
+ * are built from, and that it rejects qualifier kinds of another one.
+ */
+public class QualifierKindHierarchyTest {
+
+  /** The qualifiers of both hierarchies. */
+  private static final List<Class<? extends Annotation>> QUALIFIERS =
+      Arrays.asList(SubQual.class, SuperQual.class);
+
+  /** Two hierarchies, each with two incomparable qualifiers and a polymorphic qualifier. */
+  private static final List<Class<? extends Annotation>> H1H2_QUALIFIERS =
+      Arrays.asList(
+          H1Top.class,
+          H1S1.class,
+          H1S2.class,
+          H1Invalid.class,
+          H1Poly.class,
+          H1Bot.class,
+          H2Top.class,
+          H2S1.class,
+          H2S2.class,
+          H2Poly.class,
+          H2Bot.class);
+
+  /**
+   * A hierarchy that finds lubs and glbs by two map lookups, as {@link
+   * DefaultQualifierKindHierarchy} did before it used tables. A benchmark can compare it with a
+   * {@link DefaultQualifierKindHierarchy} of the same qualifiers.
+   */
+  static class MapQualifierKindHierarchy extends DefaultQualifierKindHierarchy {
+
+    /**
+     * Creates a MapQualifierKindHierarchy.
+     *
+     * @param qualifierClasses classes of annotations that are type qualifiers
+     */
+    MapQualifierKindHierarchy(Collection<Class<? extends Annotation>> qualifierClasses) {
+      super(qualifierClasses);
+    }
+
+    @Override
+    public @Nullable QualifierKind leastUpperBound(QualifierKind q1, QualifierKind q2) {
+      Map<QualifierKind, QualifierKind> lubs = getLubsMap().get(q1);
+      return lubs == null ? null : lubs.get(q2);
+    }
+
+    @Override
+    public @Nullable QualifierKind greatestLowerBound(QualifierKind q1, QualifierKind q2) {
+      Map<QualifierKind, QualifierKind> glbs = getGlbsMap().get(q1);
+      return glbs == null ? null : glbs.get(q2);
+    }
+  }
+
+  /** Every lub, glb, and subtyping test of the tables agrees with the maps and supertype sets. */
+  @Test
+  public void tablesAgreeWithMaps() {
+    DefaultQualifierKindHierarchy tables = new DefaultQualifierKindHierarchy(H1H2_QUALIFIERS);
+    DefaultQualifierKindHierarchy maps = new MapQualifierKindHierarchy(H1H2_QUALIFIERS);
+    for (Class<? extends Annotation> qual1 : H1H2_QUALIFIERS) {
+      for (Class<? extends Annotation> qual2 : H1H2_QUALIFIERS) {
+        QualifierKind table1 = tables.getQualifierKind(qual1.getCanonicalName());
+        QualifierKind table2 = tables.getQualifierKind(qual2.getCanonicalName());
+        QualifierKind map1 = maps.getQualifierKind(qual1.getCanonicalName());
+        QualifierKind map2 = maps.getQualifierKind(qual2.getCanonicalName());
+        String pair = qual1.getSimpleName() + ", " + qual2.getSimpleName();
+        Assert.assertEquals(
+            pair,
+            name(maps.leastUpperBound(map1, map2)),
+            name(tables.leastUpperBound(table1, table2)));
+        Assert.assertEquals(
+            pair,
+            name(maps.greatestLowerBound(map1, map2)),
+            name(tables.greatestLowerBound(table1, table2)));
+        Assert.assertEquals(
+            pair,
+            map1 == map2 || map1.getStrictSuperTypes().contains(map2),
+            table1.isSubtypeOf(table2));
+      }
+    }
+    QualifierKind s1 = tables.getQualifierKind(H1S1.class.getCanonicalName());
+    QualifierKind s2 = tables.getQualifierKind(H1S2.class.getCanonicalName());
+    Assert.assertEquals(H1Top.class.getCanonicalName(), name(tables.leastUpperBound(s1, s2)));
+    Assert.assertEquals(H1Bot.class.getCanonicalName(), name(tables.greatestLowerBound(s1, s2)));
+  }
+
+  /**
+   * Returns the name of a qualifier kind.
+   *
+   * @param kind a qualifier kind, or null
+   * @return the name of {@code kind}, or null if it is null
+   */
+  private static @Nullable String name(@Nullable QualifierKind kind) {
+    return kind == null ? null : kind.getName();
+  }
+
+  @Test
+  public void rejectsKindsOfAnotherHierarchy() {
+    DefaultQualifierKindHierarchy hierarchy = new DefaultQualifierKindHierarchy(QUALIFIERS);
+    DefaultQualifierKindHierarchy other = new DefaultQualifierKindHierarchy(QUALIFIERS);
+    QualifierKind sub = hierarchy.getQualifierKind(SubQual.class.getCanonicalName());
+    QualifierKind sup = hierarchy.getQualifierKind(SuperQual.class.getCanonicalName());
+    QualifierKind otherSub = other.getQualifierKind(SubQual.class.getCanonicalName());
+
+    Assert.assertSame(sup, hierarchy.leastUpperBound(sub, sup));
+    Assert.assertSame(sub, hierarchy.greatestLowerBound(sub, sup));
+    // otherSub has the same index as sub, so only the membership check catches it.
+    Assert.assertThrows(BugInCF.class, () -> hierarchy.leastUpperBound(otherSub, sup));
+    Assert.assertThrows(BugInCF.class, () -> hierarchy.greatestLowerBound(sup, otherSub));
+  }
+}
@@ -0,0 +1,35 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for two checkers that run in one compilation, and so share the control flow graphs
+ * of the methods that they check. The expected diagnostics are those of each checker alone.
+ */
+public class SharedCFGTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a SharedCFGTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public SharedCFGTest(List<File> testFiles) {
+    super(
+        testFiles,
+        Arrays.asList(
+            "org.checkerframework.framework.testchecker.util.FlowTestChecker",
+            "org.checkerframework.common.value.ValueChecker"),
+        "shared-cfg",
+        Collections.emptyList());
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"shared-cfg"};
+  }
+}
@@ -0,0 +1,84 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.testchecker.util.FlowTestChecker;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that a stub file that is a resource of a checker, and that does not parse, is reported
+ * every time it is read. The JVM-wide cache of parsed stub files holds only files that parsed, so
+ * each compilation parses the file again to issue its warnings, whether or not stub files are
+ * parsed on background threads.
+ */
+public class StubParseFailureTest {
+
+  /** The directory of the test files, relative to the tests directory. */
+  private static final String TEST_DIR = "stub-parse-failure";
+
+  /**
+   * The stub file that does not parse. It is a resource next to {@link FlowTestChecker}, so it is
+   * read through the cache of parsed stub files.
+   */
+  private static final String STUB_FILE = "unparsable.astub";
+
+  /** Every compilation warns about the stub file, with or without background parser threads. */
+  @Test
+  public void warnsEveryTime() throws IOException {
+    List<String> sequential = run();
+    Assert.assertTrue(
+        sequential.toString(), sequential.stream().anyMatch(d -> d.contains(STUB_FILE)));
+    Assert.assertEquals(sequential, run("-AstubParserThreads=2"));
+    Assert.assertEquals(sequential, run());
+  }
+
+  /**
+   * Checks the test files with the FlowTestChecker and the stub file that does not parse.
+   *
+   * @param options additional options to javac
+   * @return the diagnostics, in the order in which javac reported them
+   * @throws IOException if the test files cannot be read
+   */
+  private static List<String> run(String... options) throws IOException {
+    List<String> args =
+        new ArrayList<>(
+            Arrays.asList(
+                "-proc:only",
+                "-classpath",
+                System.getProperty("java.class.path"),
+                "-Astubs=" + STUB_FILE));
+    args.addAll(Arrays.asList(options));
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              diagnostics,
+              args,
+              null,
+              fileManager.getJavaFileObjectsFromFiles(
+                  TestUtilities.getJavaFilesAsArgumentList(new File("tests", TEST_DIR))));
+      task.setProcessors(Arrays.asList(new FlowTestChecker()));
+      task.call();
+    }
+    List<String> result = new ArrayList<>();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      result.add(diagnostic.getKind() + ": " + diagnostic.getMessage(Locale.ROOT));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,35 @@
+package org.checkerframework.framework.test.junit;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for the Subtyping Checker without the caches of annotated types and of subtyping
+ * results. The expected diagnostics are those of {@link SubtypingEncryptedTest}, which uses the
+ * caches.
+ */
+public class SubtypeCacheTest extends CheckerFrameworkPerDirectoryTest {
+
+  /**
+   * Create a SubtypeCacheTest.
+   *
+   * @param testFiles the files containing test code, which will be type-checked
+   */
+  public SubtypeCacheTest(List<File> testFiles) {
+    super(
+        testFiles,
+        org.checkerframework.common.subtyping.SubtypingChecker.class,
+        "subtyping",
+        "-Aquals=org.checkerframework.framework.testchecker.util.Encrypted,"
+            + "org.checkerframework.framework.testchecker.util.PolyEncrypted,"
+            + "org.checkerframework.common.subtyping.qual.Unqualified",
+        "-AatfDoNotCache");
+  }
+
+  @Parameters
+  public static String[] getTestDirs() {
+    return new String[] {"subtyping", "all-systems"};
+  }
+}
@@ -0,0 +1,383 @@
+package org.checkerframework.framework.test.junit;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.util.JavacTask;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.lang.model.util.Types;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.analysis.AbstractAnalysis.IterationStrategy;
+import org.checkerframework.dataflow.analysis.Analysis.Direction;
+import org.checkerframework.dataflow.analysis.AnalysisResult;
+import org.checkerframework.dataflow.analysis.ForwardAnalysisImpl;
+import org.checkerframework.dataflow.analysis.ForwardTransferFunction;
+import org.checkerframework.dataflow.analysis.RegularTransferResult;
+import org.checkerframework.dataflow.analysis.Store;
+import org.checkerframework.dataflow.analysis.TransferInput;
+import org.checkerframework.dataflow.analysis.TransferResult;
+import org.checkerframework.dataflow.analysis.UnusedAbstractValue;
+import org.checkerframework.dataflow.analysis.WeakTopologicalOrder;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGMethod;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.block.ConditionalBlockImpl;
+import org.checkerframework.dataflow.cfg.block.RegularBlockImpl;
+import org.checkerframework.dataflow.cfg.block.SpecialBlock.SpecialBlockType;
+import org.checkerframework.dataflow.cfg.block.SpecialBlockImpl;
+import org.checkerframework.dataflow.cfg.node.AbstractNodeVisitor;
+import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
+import org.checkerframework.dataflow.cfg.node.MarkerNode;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.cfg.visualize.CFGVisualizer;
+import org.checkerframework.dataflow.expression.JavaExpression;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link WeakTopologicalOrder} on hand-built control flow graphs with nested and irreducible
+ * loops, and tests that an analysis that iterates in weak topological order computes the same
+ * stores as one that uses the worklist.
+ */
+public class WeakTopologicalOrderTest {
+
+  /** The method that the control flow graphs pretend to be for. */
+  private UnderlyingAST underlyingAST;
+
+  /** The types, to create nodes. */
+  private Types types;
+
+  @Before
+  public void parseMethod() throws IOException {
+    Path source = Files.createTempDirectory("weak-topological-order").resolve("Loops.java");
+    Files.write(source, Collections.singletonList("class Loops { void m() {} }"));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+      JavacTask task =
+          (JavacTask)
+              compiler.getTask(
+                  null,
+                  fileManager,
+                  null,
+                  null,
+                  null,
+                  fileManager.getJavaFileObjects(source.toFile()));
+      CompilationUnitTree unit = task.parse().iterator().next();
+      ClassTree cls = (ClassTree) unit.getTypeDecls().get(0);
+      underlyingAST = new CFGMethod((MethodTree) cls.getMembers().get(0), cls);
+      types = task.getTypes();
+    }
+  }
+
+  /**
+   * <pre>
+   * a: gen x
+   * while (h1) {
+   *   b: kill x, gen y
+   *   while (h2) {
+   *     c: gen z
+   *   }
+   *   d: kill y
+   * }
+   * e
+   * </pre>
+   */
+  @Test
+  public void nestedLoops() {
+    SpecialBlockImpl entry = new SpecialBlockImpl(SpecialBlockType.ENTRY);
+    SpecialBlockImpl exit = new SpecialBlockImpl(SpecialBlockType.EXIT);
+    RegularBlockImpl a = block("gen x");
+    ConditionalBlockImpl h1 = new ConditionalBlockImpl();
+    RegularBlockImpl b = block("kill x", "gen y");
+    ConditionalBlockImpl h2 = new ConditionalBlockImpl();
+    RegularBlockImpl c = block("gen z");
+    RegularBlockImpl d = block("kill y");
+    RegularBlockImpl e = block("skip");
+    entry.setSuccessor(a);
+    a.setSuccessor(h1);
+    h1.setThenSuccessor(b);
+    h1.setElseSuccessor(e);
+    b.setSuccessor(h2);
+    h2.setThenSuccessor(c);
+    h2.setElseSuccessor(d);
+    c.setSuccessor(h2);
+    d.setSuccessor(h1);
+    e.setSuccessor(exit);
+    ControlFlowGraph cfg = cfg(entry, exit);
+
+    WeakTopologicalOrder wto = checkOrder(cfg);
+    Assert.assertEquals(2, wto.componentCount());
+    Assert.assertTrue(wto.isHead(h1));
+    Assert.assertTrue(wto.isHead(h2));
+    // The inner loop is a component within the outer one.
+    int outer = position(wto, h1);
+    int inner = position(wto, h2);
+    Assert.assertTrue(outer < inner && wto.componentEnd(inner) <= wto.componentEnd(outer));
+
+    AnalysisResult<UnusedAbstractValue, GenKillStore> result = checkSameStores(cfg);
+    Assert.assertEquals(names("x", "z"), result.getStoreBefore(e).names);
+    Assert.assertEquals(names("y", "z"), result.getStoreBefore(c).names);
+  }
+
+  /**
+   * A loop with two entries, which no structured statement can express:
+   *
+   * <pre>
+   * if (s) goto p; else goto q;
+   * p: gen p, kill q; if (c1) goto q; else goto r;
+   * q: gen q, kill p; if (c2) goto p; else goto r;
+   * r
+   * </pre>
+   */
+  @Test
+  public void irreducibleLoop() {
+    SpecialBlockImpl entry = new SpecialBlockImpl(SpecialBlockType.ENTRY);
+    SpecialBlockImpl exit = new SpecialBlockImpl(SpecialBlockType.EXIT);
+    ConditionalBlockImpl s = new ConditionalBlockImpl();
+    RegularBlockImpl p = block("gen p", "kill q");
+    ConditionalBlockImpl c1 = new ConditionalBlockImpl();
+    RegularBlockImpl q = block("gen q", "kill p");
+    ConditionalBlockImpl c2 = new ConditionalBlockImpl();
+    RegularBlockImpl r = block("skip");
+    entry.setSuccessor(s);
+    s.setThenSuccessor(p);
+    s.setElseSuccessor(q);
+    p.setSuccessor(c1);
+    c1.setThenSuccessor(q);
+    c1.setElseSuccessor(r);
+    q.setSuccessor(c2);
+    c2.setThenSuccessor(p);
+    c2.setElseSuccessor(r);
+    r.setSuccessor(exit);
+    ControlFlowGraph cfg = cfg(entry, exit);
+
+    WeakTopologicalOrder wto = checkOrder(cfg);
+    // Only one of the two entries of the loop is a head.
+    Assert.assertEquals(1, wto.componentCount());
+    Assert.assertTrue(wto.isHead(p) != wto.isHead(q));
+
+    AnalysisResult<UnusedAbstractValue, GenKillStore> result = checkSameStores(cfg);
+    Assert.assertEquals(names("p", "q"), result.getStoreBefore(r).names);
+    Assert.assertEquals(names("q"), result.getStoreBefore(p).names);
+  }
+
+  /**
+   * Returns a new block of marker nodes with the given messages.
+   *
+   * @param messages the messages of the nodes, such as "gen x" or "kill x"
+   * @return a new block of marker nodes
+   */
+  private RegularBlockImpl block(String... messages) {
+    RegularBlockImpl result = new RegularBlockImpl();
+    for (String message : messages) {
+      result.addNode(new MarkerNode(null, message, types));
+    }
+    return result;
+  }
+
+  /**
+   * Returns a control flow graph with the given entry and exit blocks.
+   *
+   * @param entry the entry block
+   * @param exit the regular exit block
+   * @return a control flow graph with the given entry and exit blocks
+   */
+  private ControlFlowGraph cfg(SpecialBlockImpl entry, SpecialBlockImpl exit) {
+    ControlFlowGraph cfg =
+        new ControlFlowGraph(
+            entry,
+            exit,
+            new SpecialBlockImpl(SpecialBlockType.EXCEPTIONAL_EXIT),
+            underlyingAST,
+            new IdentityHashMap<>(),
+            new IdentityHashMap<>(),
+            new IdentityHashMap<>(),
+            Collections.emptyList(),
+            Collections.emptyList(),
+            Collections.emptyList());
+    cfg.checkInvariants();
+    return cfg;
+  }
+
+  /**
+   * Checks that the weak topological order of {@code cfg} contains every reachable block once, and
+   * that every edge that goes backward in it goes to the head of a component that contains its
+   * source.
+   *
+   * @param cfg a control flow graph whose blocks are all reachable
+   * @return the weak topological order of {@code cfg}
+   */
+  private static WeakTopologicalOrder checkOrder(ControlFlowGraph cfg) {
+    WeakTopologicalOrder wto = WeakTopologicalOrder.of(cfg, Direction.FORWARD);
+    Set<Block> reachable = cfg.getAllBlocks();
+    Assert.assertEquals(reachable.size(), wto.size());
+    for (Block block : reachable) {
+      Assert.assertTrue(wto.contains(block));
+      int source = position(wto, block);
+      for (Block successor : block.getSuccessors()) {
+        int target = position(wto, successor);
+        if (target <= source) {
+          Assert.assertTrue(wto.isHead(successor));
+          Assert.assertTrue(source < wto.componentEnd(target));
+        }
+      }
+    }
+    return wto;
+  }
+
+  /**
+   * Analyzes {@code cfg} with the worklist and in weak topological order, and checks that both
+   * compute the same stores.
+   *
+   * @param cfg a control flow graph
+   * @return the result of the analysis in weak topological order
+   */
+  private static AnalysisResult<UnusedAbstractValue, GenKillStore> checkSameStores(
+      ControlFlowGraph cfg) {
+    ForwardAnalysisImpl<UnusedAbstractValue, GenKillStore, GenKillTransfer> worklist =
+        new ForwardAnalysisImpl<>(new GenKillTransfer());
+    worklist.performAnalysis(cfg);
+    ForwardAnalysisImpl<UnusedAbstractValue, GenKillStore, GenKillTransfer> ordered =
+        new ForwardAnalysisImpl<>(new GenKillTransfer());
+    ordered.setIterationStrategy(IterationStrategy.WEAK_TOPOLOGICAL_ORDER);
+    ordered.performAnalysis(cfg);
+    AnalysisResult<UnusedAbstractValue, GenKillStore> expected = worklist.getResult();
+    AnalysisResult<UnusedAbstractValue, GenKillStore> actual = ordered.getResult();
+    for (Block block : cfg.getAllBlocks()) {
+      Assert.assertEquals(expected.getStoreBefore(block), actual.getStoreBefore(block));
+      Assert.assertEquals(expected.getStoreAfter(block), actual.getStoreAfter(block));
+    }
+    return actual;
+  }
+
+  /**
+   * Returns the position of {@code block} in {@code wto}.
+   *
+   * @param wto a weak topological order
+   * @param block a block in {@code wto}
+   * @return the position of {@code block} in {@code wto}
+   */
+  private static int position(WeakTopologicalOrder wto, Block block) {
+    for (int pos = 0; pos < wto.size(); pos++) {
+      if (wto.get(pos) == block) {
+        return pos;
+      }
+    }
+    throw new AssertionError(block + " is not in the order");
+  }
+
+  /**
+   * Returns a set of names.
+   *
+   * @param names the names
+   * @return a set of the names
+   */
+  private static Set<String> names(String... names) {
+    return new TreeSet<>(Arrays.asList(names));
+  }
+
+  /** A store of the names that may have been generated and not killed since. */
+  private static class GenKillStore implements Store<GenKillStore> {
+
+    /** The names in this store. */
+    final Set<String> names;
+
+    /**
+     * Creates a GenKillStore.
+     *
+     * @param names the names in the store
+     */
+    GenKillStore(Set<String> names) {
+      this.names = names;
+    }
+
+    @Override
+    public GenKillStore copy() {
+      return new GenKillStore(new TreeSet<>(names));
+    }
+
+    @Override
+    public GenKillStore leastUpperBound(GenKillStore other) {
+      Set<String> lub = new TreeSet<>(names);
+      lub.addAll(other.names);
+      return new GenKillStore(lub);
+    }
+
+    @Override
+    public GenKillStore widenedUpperBound(GenKillStore previous) {
+      return leastUpperBound(previous);
+    }
+
+    @Override
+    public boolean canAlias(JavaExpression a, JavaExpression b) {
+      return true;
+    }
+
+    @Override
+    public String visualize(CFGVisualizer<?, GenKillStore, ?> viz) {
+      return names.toString();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      return obj instanceof GenKillStore && names.equals(((GenKillStore) obj).names);
+    }
+
+    @Override
+    public int hashCode() {
+      return names.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return names.toString();
+    }
+  }
+
+  /** A transfer function that applies the "gen" and "kill" marker nodes. */
+  private static class GenKillTransfer
+      extends AbstractNodeVisitor<
+          TransferResult<UnusedAbstractValue, GenKillStore>,
+          TransferInput<UnusedAbstractValue, GenKillStore>>
+      implements ForwardTransferFunction<UnusedAbstractValue, GenKillStore> {
+
+    @Override
+    public GenKillStore initialStore(
+        UnderlyingAST underlyingAST, @Nullable List<LocalVariableNode> parameters) {
+      return new GenKillStore(new HashSet<>());
+    }
+
+    @Override
+    public TransferResult<UnusedAbstractValue, GenKillStore> visitNode(
+        Node n, TransferInput<UnusedAbstractValue, GenKillStore> p) {
+      return new RegularTransferResult<>(null, p.getRegularStore());
+    }
+
+    @Override
+    public TransferResult<UnusedAbstractValue, GenKillStore> visitMarker(
+        MarkerNode n, TransferInput<UnusedAbstractValue, GenKillStore> p) {
+      String[] words = n.getMessage().split(" ");
+      GenKillStore store = p.getRegularStore().copy();
+      if (words[0].equals("gen")) {
+        store.names.add(words[1]);
+      } else if (words[0].equals("kill")) {
+        store.names.remove(words[1]);
+      }
+      return new RegularTransferResult<>(null, store);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package org.checkerframework.framework.test.junit;
+
+import org.checkerframework.framework.util.WeightedLfuCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WeightedLfuCacheTest {
+
+  @Test
+  public void getAndPut() {
+    WeightedLfuCache<String, String> cache = new WeightedLfuCache<>(100, String::length);
+    Assert.assertNull(cache.put("a", "xyz"));
+    Assert.assertEquals("xyz", cache.get("a"));
+    Assert.assertTrue(cache.containsKey("a"));
+    Assert.assertEquals("xyz", cache.put("a", "xy"));
+    Assert.assertEquals(1, cache.size());
+    Assert.assertEquals(2, cache.weight());
+    Assert.assertEquals("xy", cache.remove("a"));
+    Assert.assertEquals(0, cache.weight());
+    Assert.assertNull(cache.get("a"));
+  }
+
+  @Test
+  public void weightIsBounded() {
+    WeightedLfuCache<Integer, String> cache = new WeightedLfuCache<>(50, String::length);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, "value" + i);
+      Assert.assertTrue(cache.weight() <= 50);
+    }
+    // A value that is heavier than the whole cache is not stored.
+    cache.put(-1, new String(new char[51]));
+    Assert.assertFalse(cache.containsKey(-1));
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0, cache.weight());
+  }
+
+  @Test
+  public void frequentEntriesSurviveScan() {
+    WeightedLfuCache<Integer, String> cache = new WeightedLfuCache<>(1000, v -> 1);
+    for (int hot = 0; hot < 100; hot++) {
+      cache.put(hot, "hot");
+    }
+    for (int i = 0; i < 10; i++) {
+      for (int hot = 0; hot < 100; hot++) {
+        Assert.assertEquals("hot", cache.get(hot));
+      }
+    }
+    // A scan over many entries that are used only once.
+    for (int cold = 100; cold < 2100; cold++) {
+      cache.put(cold, "cold");
+    }
+    for (int hot = 0; hot < 100; hot++) {
+      Assert.assertTrue("lost " + hot, cache.containsKey(hot));
+    }
+    Assert.assertTrue(cache.weight() <= 1000);
+  }
+
+  @Test
+  public void popularSecondVictimKeepsFirstVictim() {
+    WeightedLfuCache<String, String> cache = new WeightedLfuCache<>(100, String::length);
+    // The main region holds 99: "a" (used once) is evicted first, then "b" (used often).
+    cache.put("a", new String(new char[49]));
+    cache.put("b", new String(new char[50]));
+    for (int i = 0; i < 5; i++) {
+      cache.get("b");
+    }
+    Assert.assertTrue(cache.containsKey("a"));
+    Assert.assertTrue(cache.containsKey("b"));
+    // "c" is more popular than "a" but less than "b", and admitting it would evict both.
+    cache.get("c");
+    cache.get("c");
+    cache.put("c", new String(new char[60]));
+    Assert.assertFalse(cache.containsKey("c"));
+    Assert.assertTrue(cache.containsKey("a"));
+    Assert.assertTrue(cache.containsKey("b"));
+    Assert.assertEquals(99, cache.weight());
+  }
+}
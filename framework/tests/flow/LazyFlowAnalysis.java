@@ -0,0 +1,92 @@
+import org.checkerframework.framework.qual.EnsuresQualifier;
+import org.checkerframework.framework.testchecker.util.*;
+
+// With and without -AlazyFlowAnalysis, the refinements in methods, lambdas, and local, anonymous,
+// and member classes, and the checks of postconditions give the same diagnostics.
+public class LazyFlowAnalysis {
+
+  @Odd String odd;
+  String f;
+  String g = odd;
+
+  LazyFlowAnalysis(@Odd String p) {
+    f = p;
+    @Odd String x = f;
+    g = "";
+    // :: error: (assignment)
+    @Odd String y = g;
+  }
+
+  void refinement(@Odd String p, boolean b) {
+    String l = b ? p : "";
+    // :: error: (assignment)
+    @Odd String x = l;
+    l = p;
+    @Odd String y = l;
+  }
+
+  @EnsuresQualifier(expression = "f", qualifier = Odd.class)
+  void establishes(@Odd String p) {
+    f = p;
+  }
+
+  @EnsuresQualifier(expression = "f", qualifier = Odd.class)
+  // :: error: (contracts.postcondition)
+  void fails() {
+    f = "";
+  }
+
+  void usesPostcondition(@Odd String p) {
+    establishes(p);
+    @Odd String x = f;
+    fails();
+    f = g;
+    // :: error: (assignment)
+    @Odd String y = f;
+  }
+
+  void lambda(@Odd String p) {
+    String l = p;
+    String notOdd = "";
+    Runnable r =
+        () -> {
+          @Odd String x = l;
+          // :: error: (assignment)
+          @Odd String y = notOdd;
+        };
+  }
+
+  void localAndAnonymousClasses(@Odd String p) {
+    String l = p;
+    class Local {
+      void m(@Odd String q) {
+        String k = q;
+        @Odd String x = k;
+        @Odd String y = l;
+        k = "";
+        // :: error: (assignment)
+        @Odd String z = k;
+      }
+    }
+    Runnable r =
+        new Runnable() {
+          @Override
+          public void run() {
+            @Odd String x = l;
+            String k = "";
+            // :: error: (assignment)
+            @Odd String y = k;
+          }
+        };
+  }
+
+  class Member {
+    void m(@Odd String p) {
+      String l = p;
+      @Odd String x = l;
+      l = "";
+      // :: error: (assignment)
+      @Odd String y = l;
+    }
+  }
+}
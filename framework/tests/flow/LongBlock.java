@@ -0,0 +1,44 @@
+import org.checkerframework.framework.testchecker.util.*;
+
+// One long basic block, so that with a small -AstoreCheckpointInterval the type-checker's queries
+// of the stores before and after each statement start from many different checkpoints.
+public class LongBlock {
+
+  void longBlock(@Odd String odd, String plain) {
+    String a = odd;
+    String b = plain;
+    @Odd String a1 = a;
+    // :: error: (assignment)
+    @Odd String b1 = b;
+    a = plain;
+    b = odd;
+    // :: error: (assignment)
+    @Odd String a2 = a;
+    @Odd String b2 = b;
+    a = odd;
+    b = plain;
+    @Odd String a3 = a;
+    // :: error: (assignment)
+    @Odd String b3 = b;
+    a = plain;
+    b = odd;
+    // :: error: (assignment)
+    @Odd String a4 = a;
+    @Odd String b4 = b;
+    a = odd;
+    b = plain;
+    @Odd String a5 = a;
+    // :: error: (assignment)
+    @Odd String b5 = b;
+    a = plain;
+    b = odd;
+    // :: error: (assignment)
+    @Odd String a6 = a;
+    @Odd String b6 = b;
+    a = odd;
+    b = plain;
+    @Odd String a7 = a;
+    // :: error: (assignment)
+    @Odd String b7 = b;
+  }
+}
@@ -0,0 +1,65 @@
+import org.checkerframework.framework.testchecker.util.*;
+
+// The refinements of local variables that are read again, even only by a lambda, a local class,
+// a later iteration, or a catch block, survive the block boundaries in between.
+public class PruneDeadLocals {
+
+  void mayThrow() {}
+
+  void capturedByLambda(@Odd String p, boolean b) {
+    String l = p;
+    String notOdd = "";
+    if (b) {
+      mayThrow();
+    }
+    Runnable r =
+        () -> {
+          @Odd String x = l;
+          // :: error: (assignment)
+          @Odd String y = notOdd;
+        };
+  }
+
+  void capturedByAnonymousClass(@Odd String p, boolean b) {
+    String l = p;
+    String notOdd = "";
+    if (b) {
+      mayThrow();
+    }
+    Runnable r =
+        new Runnable() {
+          @Override
+          public void run() {
+            @Odd String x = l;
+            // :: error: (assignment)
+            @Odd String y = notOdd;
+          }
+        };
+  }
+
+  void loopCarried(@Odd String p, boolean b) {
+    String l = p;
+    String m = p;
+    while (b) {
+      @Odd String x = l;
+      // :: error: (assignment)
+      @Odd String y = m;
+      l = p;
+      m = "";
+    }
+  }
+
+  void liveOnlyOnExceptionalPath(@Odd String p) {
+    String l = p;
+    String m = p;
+    try {
+      m = "";
+      mayThrow();
+      m = p;
+    } catch (RuntimeException e) {
+      @Odd String x = l;
+      // :: error: (assignment)
+      @Odd String y = m;
+    }
+  }
+}
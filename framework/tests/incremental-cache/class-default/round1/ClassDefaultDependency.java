@@ -0,0 +1,8 @@
+import org.checkerframework.framework.qual.DefaultQualifier;
+import org.checkerframework.framework.qual.TypeUseLocation;
+import org.checkerframework.framework.testchecker.util.SubQual;
+
+@DefaultQualifier(value = SubQual.class, locations = TypeUseLocation.RETURN)
+interface ClassDefaultDependency {
+  Object get();
+}
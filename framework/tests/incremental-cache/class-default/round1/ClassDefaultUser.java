@@ -0,0 +1,8 @@
+import org.checkerframework.framework.testchecker.util.SubQual;
+
+// This method is identical in round 2, where it must be checked again.
+class ClassDefaultUser {
+  @SubQual Object use(ClassDefaultDependency d) {
+    return d.get();
+  }
+}
@@ -0,0 +1,9 @@
+import org.checkerframework.framework.qual.DefaultQualifier;
+import org.checkerframework.framework.qual.TypeUseLocation;
+import org.checkerframework.framework.testchecker.util.SubQual;
+
+// Only the default differs from round 1; no declaration in this file changes.
+@DefaultQualifier(value = SubQual.class, locations = TypeUseLocation.PARAMETER)
+interface ClassDefaultDependency {
+  Object get();
+}
@@ -0,0 +1,9 @@
+import org.checkerframework.framework.testchecker.util.SubQual;
+
+// This method is identical in round 1, whose clean result must not be reused.
+class ClassDefaultUser {
+  @SubQual Object use(ClassDefaultDependency d) {
+    // :: error: (return)
+    return d.get();
+  }
+}
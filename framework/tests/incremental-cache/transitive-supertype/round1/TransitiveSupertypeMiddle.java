@@ -0,0 +1,3 @@
+import org.checkerframework.framework.testchecker.util.SubQual;
+
+interface TransitiveSupertypeMiddle extends TransitiveSupertypeTop<@SubQual Object> {}
@@ -0,0 +1 @@
+interface TransitiveSupertypeTop<T> {}
@@ -0,0 +1,8 @@
+import org.checkerframework.framework.testchecker.util.SubQual;
+
+// This method is identical in round 2, where it must be checked again.
+class TransitiveSupertypeUser {
+  TransitiveSupertypeTop<@SubQual Object> use(TransitiveSupertypeBottom b) {
+    return b;
+  }
+}
@@ -0,0 +1 @@
+interface TransitiveSupertypeBottom extends TransitiveSupertypeMiddle {}
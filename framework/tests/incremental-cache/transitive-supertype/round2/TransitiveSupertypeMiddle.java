@@ -0,0 +1,4 @@
+import org.checkerframework.framework.testchecker.util.SuperQual;
+
+// TransitiveSupertypeUser does not refer to this interface.
+interface TransitiveSupertypeMiddle extends TransitiveSupertypeTop<@SuperQual Object> {}
@@ -0,0 +1,33 @@
+import org.checkerframework.dataflow.qual.SideEffectFree;
+import org.checkerframework.framework.testchecker.util.*;
+import puritysummaries.Library;
+
+// Library is compiled separately; its purity is known only from the summary file.
+public class User {
+
+  String f;
+
+  void keepsRefinement(@Odd String p) {
+    f = p;
+    Library.sideEffectFree();
+    @Odd String l = f;
+  }
+
+  void losesRefinement(@Odd String p) {
+    f = p;
+    Library.impure();
+    // :: error: (assignment)
+    @Odd String l = f;
+  }
+
+  void refinesDeterministicCall(@Odd String p) {
+    if (Library.deterministic() == p) {
+      @Odd String l = Library.deterministic();
+    }
+  }
+
+  @SideEffectFree
+  void callsSideEffectFree() {
+    Library.sideEffectFree();
+  }
+}
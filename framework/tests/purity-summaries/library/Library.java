@@ -0,0 +1,17 @@
+package puritysummaries;
+
+// Unannotated methods whose purity is written to a summary file.
+public class Library {
+
+  static Object state;
+
+  public static void sideEffectFree() {}
+
+  public static String deterministic() {
+    return "x";
+  }
+
+  public static void impure() {
+    state = null;
+  }
+}
@@ -0,0 +1,105 @@
+import java.util.function.IntSupplier;
+import org.checkerframework.common.value.qual.IntVal;
+import org.checkerframework.framework.testchecker.util.*;
+
+// Checked by the FlowTestChecker and the ValueChecker together, so that they share the control flow
+// graph of each method. Both refine the local variables below through branches, loops, exceptions,
+// lambdas, and anonymous classes, so they would report other diagnostics than the expected ones if
+// the control flow graph that one of them built were wrong for the other.
+public class SharedCfg {
+
+  void mayThrow() {}
+
+  void branches(@Odd String p, boolean b) {
+    String s = p;
+    int i = 1;
+    if (b) {
+      s = "";
+      i = 2;
+    }
+    // Both checkers report an error here.
+    // :: error: (assignment)
+    @Odd String x = s;
+    // :: error: (assignment)
+    @IntVal(1) int j = i;
+    s = p;
+    i = 1;
+    @Odd String y = s;
+    @IntVal(1) int k = i;
+  }
+
+  void loops(@Odd String p, int n) {
+    String s = p;
+    int i = 0;
+    for (int c = 0; c < n; c++) {
+      // :: error: (assignment)
+      @Odd String x = s;
+      s = "";
+      i = 3;
+    }
+    @IntVal({0, 3}) int j = i;
+    // :: error: (assignment)
+    @IntVal(0) int k = i;
+  }
+
+  void exceptions(@Odd String p) {
+    String s = p;
+    int i = 1;
+    try {
+      s = "";
+      i = 2;
+      mayThrow();
+      s = p;
+      i = 3;
+    } catch (RuntimeException e) {
+      // :: error: (assignment)
+      @Odd String x = s;
+      @IntVal({2, 3}) int j = i;
+    } finally {
+      i = 4;
+    }
+    // :: error: (assignment)
+    @Odd String y = s;
+    @IntVal(4) int k = i;
+  }
+
+  int switches(@Odd String p, int n) {
+    String s = "";
+    int i;
+    switch (n) {
+      case 0:
+        s = p;
+        i = 5;
+        break;
+      default:
+        i = 6;
+    }
+    // :: error: (assignment)
+    @Odd String x = s;
+    @IntVal({5, 6}) int j = i;
+    assert i == 5;
+    return i;
+  }
+
+  void lambdasAndAnonymousClasses(@Odd String p) {
+    String s = p;
+    int i = 7;
+    IntSupplier lambda =
+        () -> {
+          @Odd String x = s;
+          // :: error: (assignment)
+          @IntVal(8) int j = i;
+          return j;
+        };
+    Runnable anonymous =
+        new Runnable() {
+          @Override
+          public void run() {
+            String t = "";
+            // :: error: (assignment)
+            @Odd String x = t;
+            @IntVal(7) int j = i;
+          }
+        };
+  }
+}
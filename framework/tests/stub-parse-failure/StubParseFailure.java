@@ -0,0 +1,10 @@
+import org.checkerframework.framework.testchecker.util.*;
+
+// Checked with a stub file that does not parse; see StubParseFailureTest.
+public class StubParseFailure {
+
+  void m(@Odd String p) {
+    String s = p;
+    @Odd String x = s;
+  }
+}
@@ -0,0 +1,41 @@
+import java.util.List;
+import org.checkerframework.framework.testchecker.util.Encrypted;
+
+public class SubtypeCache {
+
+  // The second of each pair of identical checks is answered from the subtype cache.
+  void repeated(@Encrypted String e, String u, List<@Encrypted String> le, List<String> lu) {
+    String s1 = e;
+    String s2 = e;
+    // :: error: (assignment)
+    @Encrypted String e1 = u;
+    // :: error: (assignment)
+    @Encrypted String e2 = u;
+    List<@Encrypted String> l1 = le;
+    List<@Encrypted String> l2 = le;
+    // :: error: (assignment)
+    List<String> l3 = le;
+    // :: error: (assignment)
+    List<String> l4 = le;
+    // :: error: (assignment)
+    List<@Encrypted String> l5 = lu;
+    // :: error: (assignment)
+    List<@Encrypted String> l6 = lu;
+  }
+
+  // Containment checks the bounds of a wildcard with nested subtype checks, which must not be
+  // answered from, or recorded in, the cache.
+  void nested(List<@Encrypted String> le, List<String> lu) {
+    List<? extends @Encrypted String> w1 = le;
+    // :: error: (assignment)
+    List<? extends @Encrypted String> w2 = lu;
+    List<? extends String> w3 = le;
+    List<? super @Encrypted String> w4 = lu;
+    List<? super @Encrypted String> w5 = le;
+    // :: error: (assignment)
+    List<? super String> w6 = le;
+    // :: error: (assignment)
+    List<String> l1 = le;
+    List<String> l2 = lu;
+  }
+}
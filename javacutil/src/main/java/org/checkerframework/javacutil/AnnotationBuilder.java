@@ -72,6 +72,9 @@ public class AnnotationBuilder {
   /** A mapping from element to AnnotationValue. */
   private final Map<ExecutableElement, AnnotationValue> elementValues;
 
+  /** The interning table for the built annotation. */
+  private final AnnotationMirrorInterner interner;
+
   /**
    * Create a new AnnotationBuilder for the given annotation and environment (with no
    * elements/fields, but they can be added later).
@@ -101,6 +104,7 @@ public class AnnotationBuilder {
     assert annotationElt.getKind() == ElementKind.ANNOTATION_TYPE;
     this.annotationType = (DeclaredType) annotationElt.asType();
     this.elementValues = new ArrayMap<>(2); // most annotations have few elements
+    this.interner = AnnotationMirrorInterner.instance(env);
   }
 
   /**
@@ -116,6 +120,7 @@ public class AnnotationBuilder {
     this.annotationType = annotation.getAnnotationType();
     this.annotationElt = (TypeElement) annotationType.asElement();
     this.elementValues = new ArrayMap<>(annotation.getElementValues());
+    this.interner = AnnotationMirrorInterner.instance(env);
   }
 
   /**
@@ -268,10 +273,16 @@ public class AnnotationBuilder {
     }
   }
 
+  /**
+   * Returns the annotation that was built. The result is canonical: building the same annotation
+   * twice, with the same processing environment, usually returns the identical mirror.
+   *
+   * @return the annotation that was built
+   */
   public AnnotationMirror build() {
     assertNotBuilt();
     wasBuilt = true;
-    return new CheckerFrameworkAnnotationMirror(annotationType, elementValues);
+    return interner.intern(annotationType, elementValues);
   }
 
   /**
@@ -284,6 +295,7 @@ public class AnnotationBuilder {
    * @param ignorableElements the names of elements of {@code other} that can be safely dropped
    */
   public void copyElementValuesFromAnnotation(AnnotationMirror other, String... ignorableElements) {
+    assertNotBuilt();
     List<String> ignorableElementsList = Arrays.asList(ignorableElements);
     for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> eltValToCopy :
         other.getElementValues().entrySet()) {
@@ -306,6 +318,7 @@ public class AnnotationBuilder {
    */
   public void copyElementValuesFromAnnotation(
       AnnotationMirror valueHolder, Collection<ExecutableElement> ignorableElements) {
+    assertNotBuilt();
     for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
         valueHolder.getElementValues().entrySet()) {
       if (ignorableElements.contains(entry.getKey())) {
@@ -326,7 +339,7 @@ public class AnnotationBuilder {
    */
   public void copyRenameElementValuesFromAnnotation(
       AnnotationMirror valueHolder, Map<String, String> elementNameRenaming) {
-
+    assertNotBuilt();
     for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> eltValToCopy :
         valueHolder.getElementValues().entrySet()) {
 
@@ -482,6 +495,7 @@ public class AnnotationBuilder {
   }
 
   public AnnotationBuilder setValue(CharSequence elementName, VariableElement value) {
+    assertNotBuilt();
     ExecutableElement var = findElement(elementName);
     if (var.getReturnType().getKind() != TypeKind.DECLARED) {
       throw new BugInCF("expected a non enum: " + var.getReturnType());
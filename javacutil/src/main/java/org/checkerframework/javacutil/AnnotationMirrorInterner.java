@@ -0,0 +1,123 @@
+package org.checkerframework.javacutil;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.DeclaredType;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.plumelib.util.CollectionsPlume;
+
+/**
+ * An interning table for the annotation mirrors created by {@link AnnotationBuilder}. There is one
+ * table per compilation, stored in the javac {@link Context}.
+ *
+ * <p>Checkers build many logically-identical qualifiers, such as {@code @IntVal({1, 2})} or
+ * {@code @KeyFor("m")}. Returning one canonical instance for each lets {@link
+ * AnnotationUtils#areSame} and {@link AnnotationUtils#compareAnnotationMirrors} succeed on their
+ * reference-equality check, and lets the duplicates be garbage-collected.
+ *
+ * <p>Interning is an optimization only: two mirrors that are not identical may still be the same
+ * annotation. The table is bounded, and an annotation whose element values do not implement {@code
+ * equals} (such as one copied from a javac annotation) is never found in it.
+ */
+final class AnnotationMirrorInterner {
+
+  /** The key under which the table is stored in the javac context. */
+  private static final Context.Key<AnnotationMirrorInterner> INTERNER_KEY = new Context.Key<>();
+
+  /** The maximum number of canonical annotation mirrors to retain. */
+  private static final int INTERN_TABLE_SIZE = 1000;
+
+  /** Maps an annotation's type and element values to the canonical mirror for it. */
+  private final Map<InternKey, AnnotationMirror> table =
+      CollectionsPlume.createLruCache(INTERN_TABLE_SIZE);
+
+  /** Creates an AnnotationMirrorInterner. Use {@link #instance} instead. */
+  private AnnotationMirrorInterner() {}
+
+  /**
+   * Returns the interning table for the given processing environment, creating it if necessary.
+   *
+   * @param env the processing environment
+   * @return the interning table for {@code env}
+   */
+  static AnnotationMirrorInterner instance(ProcessingEnvironment env) {
+    Context context = ((JavacProcessingEnvironment) env).getContext();
+    synchronized (context) {
+      AnnotationMirrorInterner interner = context.get(INTERNER_KEY);
+      if (interner == null) {
+        interner = new AnnotationMirrorInterner();
+        context.put(INTERNER_KEY, interner);
+      }
+      return interner;
+    }
+  }
+
+  /**
+   * Returns the canonical annotation mirror with the given type and element values. If there is
+   * none, creates one and makes it canonical.
+   *
+   * @param annotationType the annotation type
+   * @param elementValues the element values; must not be modified afterward
+   * @return the canonical annotation mirror for {@code annotationType} and {@code elementValues}
+   */
+  synchronized AnnotationMirror intern(
+      DeclaredType annotationType, Map<ExecutableElement, AnnotationValue> elementValues) {
+    InternKey key = new InternKey(annotationType, elementValues);
+    AnnotationMirror result = table.get(key);
+    if (result == null) {
+      result =
+          new AnnotationBuilder.CheckerFrameworkAnnotationMirror(annotationType, elementValues);
+      table.put(key, result);
+    }
+    return result;
+  }
+
+  /** The type and element values of an annotation, for use as a key in the interning table. */
+  private static final class InternKey {
+
+    /** The annotation type. Compared by reference, which suffices within one compilation. */
+    private final DeclaredType annotationType;
+
+    /** The element values, compared with {@link Map#equals}. */
+    private final Map<ExecutableElement, AnnotationValue> elementValues;
+
+    /** The hash code of this key. */
+    private final int hashCode;
+
+    /**
+     * Creates an InternKey.
+     *
+     * @param annotationType the annotation type
+     * @param elementValues the element values
+     */
+    InternKey(DeclaredType annotationType, Map<ExecutableElement, AnnotationValue> elementValues) {
+      this.annotationType = annotationType;
+      this.elementValues = elementValues;
+      this.hashCode = Objects.hash(System.identityHashCode(annotationType), elementValues);
+    }
+
+    @SuppressWarnings("interning:not.interned") // annotation types are compared by reference
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof InternKey)) {
+        return false;
+      }
+      InternKey other = (InternKey) obj;
+      return annotationType == other.annotationType && elementValues.equals(other.elementValues);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -33,10 +33,23 @@ import org.plumelib.util.DeepCopyable;
 public class AnnotationMirrorSet
     implements NavigableSet<@KeyFor("this") AnnotationMirror>, DeepCopyable<AnnotationMirrorSet> {
 
+  /** The ordering used by every backing set. */
+  private static final Comparator<AnnotationMirror> ANNOTATION_MIRROR_ORDERING =
+      AnnotationUtils::compareAnnotationMirrors;
+
+  /**
+   * The backing set shared by every empty {@link AnnotationMirrorSet} that has not yet had an
+   * element added. It is never mutated: {@link #add} replaces it with a fresh set first. Many sets,
+   * such as the primary annotations of most types under construction, stay empty for their whole
+   * lifetime, so this avoids allocating a {@code TreeSet} for each of them.
+   */
+  private static final NavigableSet<AnnotationMirror> EMPTY_SHADOW_SET =
+      new TreeSet<>(ANNOTATION_MIRROR_ORDERING);
+
   /** Backing set. */
-  // Not final because makeUnmodifiable() can reassign it.
-  private NavigableSet<@KeyFor("this") AnnotationMirror> shadowSet =
-      new TreeSet<>(AnnotationUtils::compareAnnotationMirrors);
+  // Not final because makeUnmodifiable(), retainAll(), and add() can reassign it.
+  @SuppressWarnings("keyfor:assignment") // EMPTY_SHADOW_SET has no elements
+  private NavigableSet<@KeyFor("this") AnnotationMirror> shadowSet = EMPTY_SHADOW_SET;
 
   /** The canonical unmodifiable empty set. */
   private static AnnotationMirrorSet emptySet = unmodifiableSet(Collections.emptySet());
@@ -69,7 +82,11 @@ public class AnnotationMirrorSet
   @Override
   public AnnotationMirrorSet deepCopy() {
     AnnotationMirrorSet result = new AnnotationMirrorSet();
-    result.shadowSet.addAll(shadowSet);
+    if (!shadowSet.isEmpty()) {
+      // Both sets use the same comparator, so TreeSet.addAll copies in linear time.
+      result.shadowSet = new TreeSet<>(ANNOTATION_MIRROR_ORDERING);
+      result.shadowSet.addAll(shadowSet);
+    }
     return result;
   }
 
@@ -163,6 +180,9 @@ public class AnnotationMirrorSet
     if (contains(annotationMirror)) {
       return false;
     }
+    if (shadowSet == EMPTY_SHADOW_SET) {
+      shadowSet = new TreeSet<>(ANNOTATION_MIRROR_ORDERING);
+    }
     shadowSet.add(annotationMirror);
     return true;
   }
@@ -390,6 +390,9 @@ public class AnnotationUtils {
    * @return an ordering over AnnotationMirrors based on their name and values
    */
   public static int compareAnnotationMirrors(AnnotationMirror a1, AnnotationMirror a2) {
+    if (a1 == a2) {
+      return 0;
+    }
     int nameComparison = compareByName(a1, a2);
     if (nameComparison != 0) {
       return nameComparison;
@@ -398,6 +401,11 @@ public class AnnotationUtils {
     // The annotations have the same name, but possibly different values, so compare values.
     Map<? extends ExecutableElement, ? extends AnnotationValue> vals1 = a1.getElementValues();
     Map<? extends ExecutableElement, ? extends AnnotationValue> vals2 = a2.getElementValues();
+    if (vals1.isEmpty() && vals2.isEmpty()) {
+      // Both annotations use the default value for every element, if there are any.  This is the
+      // common case of a qualifier without elements, so avoid sorting the elements.
+      return 0;
+    }
     Set<ExecutableElement> sortedElements =
         new TreeSet<>(Comparator.comparing(ElementUtils::getSimpleSignature));
     sortedElements.addAll(
@@ -1197,6 +1205,10 @@ public class AnnotationUtils {
 
     Map<? extends ExecutableElement, ? extends AnnotationValue> vals1 = am1.getElementValues();
     Map<? extends ExecutableElement, ? extends AnnotationValue> vals2 = am2.getElementValues();
+    if (vals1.isEmpty() && vals2.isEmpty()) {
+      // Both annotations use the default value for every element.
+      return true;
+    }
     for (ExecutableElement meth :
         ElementFilter.methodsIn(am1.getAnnotationType().asElement().getEnclosedElements())) {
       AnnotationValue aval1 = vals1.get(meth);